@@ -96,10 +96,20 @@ public class ClosureCodegen extends GenerationStateAware {
 
         FunctionDescriptor interfaceFunction;
         String[] superInterfaces;
+        Method primitiveInvoke = null;
 
         if (samInterface == null) {
             interfaceFunction = getInvokeFunction(funDescriptor);
             superInterfaces = ArrayUtil.EMPTY_STRING_ARRAY;
+
+            Method delegate = typeMapper.mapSignature(interfaceFunction.getName(), funDescriptor).getAsmMethod();
+            String shape = funDescriptor.getReceiverParameter() == null
+                           ? FunctionTypesUtil.getPrimitiveFunctionShape(delegate.getArgumentTypes(), delegate.getReturnType())
+                           : null;
+            if (shape != null) {
+                primitiveInvoke = FunctionTypesUtil.getPrimitiveFunctionInvokeMethod(delegate.getArgumentTypes(), delegate.getReturnType());
+                superInterfaces = new String[] {FunctionTypesUtil.getPrimitiveFunctionClassName(shape).getInternalName()};
+            }
         }
         else {
             interfaceFunction = SingleAbstractMethodUtils.getAbstractMethodOfSamInterface(samInterface);
@@ -117,7 +127,11 @@ public class ClosureCodegen extends GenerationStateAware {
         cv.visitSource(fun.getContainingFile().getName(), null);
 
 
-        generateBridge(interfaceFunction, cv);
+        generateBridge(typeMapper.mapSignature(interfaceFunction).getAsmMethod(), cv);
+        if (primitiveInvoke != null) {
+            // Lets call sites with primitive static types avoid boxing, see PrimitiveFunctions
+            generateBridge(primitiveInvoke, cv);
+        }
 
         JvmMethodSignature jvmMethodSignature = typeMapper.mapSignature(interfaceFunction.getName(), funDescriptor);
 
@@ -169,16 +183,14 @@ public class ClosureCodegen extends GenerationStateAware {
         }
     }
 
-    private void generateBridge(@NotNull FunctionDescriptor interfaceFunction, @NotNull ClassBuilder cv) {
-        Method bridge = typeMapper.mapSignature(interfaceFunction).getAsmMethod();
-
-        Method delegate = typeMapper.mapSignature(interfaceFunction.getName(), funDescriptor).getAsmMethod();
+    private void generateBridge(@NotNull Method bridge, @NotNull ClassBuilder cv) {
+        Method delegate = typeMapper.mapSignature(Name.identifier(bridge.getName()), funDescriptor).getAsmMethod();
 
         if (bridge.getDescriptor().equals(delegate.getDescriptor())) {
             return;
         }
 
-        MethodVisitor mv = cv.newMethod(fun, ACC_PUBLIC | ACC_BRIDGE, interfaceFunction.getName().asString(),
+        MethodVisitor mv = cv.newMethod(fun, ACC_PUBLIC | ACC_BRIDGE, bridge.getName(),
                                         bridge.getDescriptor(), null, ArrayUtil.EMPTY_STRING_ARRAY);
         if (state.getClassBuilderMode() == ClassBuilderMode.STUBS) {
             genStubCode(mv);
@@ -203,7 +215,7 @@ public class ClosureCodegen extends GenerationStateAware {
                 count++;
             }
 
-            iv.invokevirtual(name.getInternalName(), interfaceFunction.getName().asString(), delegate.getDescriptor());
+            iv.invokevirtual(name.getInternalName(), delegate.getName(), delegate.getDescriptor());
             StackValue.onStack(delegate.getReturnType()).put(bridge.getReturnType(), iv);
 
             iv.areturn(bridge.getReturnType());
@@ -1979,7 +1979,10 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
 
         fd = accessibleFunctionDescriptor(fd);
 
-        Callable callable = resolveToCallable(fd, superCall);
+        Callable callable = superCall ? null : typeMapper.mapToPrimitiveFunctionInvokeCallableMethod(fd);
+        if (callable == null) {
+            callable = resolveToCallable(fd, superCall);
+        }
         if (callable instanceof CallableMethod) {
             CallableMethod callableMethod = (CallableMethod) callable;
             invokeMethodWithArguments(callableMethod, resolvedCall, call, receiver);
@@ -2215,12 +2218,8 @@ public class ExpressionCodegen extends JetVisitor<StackValue, StackValue> implem
                     result.put(currentScriptClassName.getAsmType(), v);
                 }
                 else {
-                    JvmClassName className =
-                            classNameForScriptDescriptor(bindingContext,
-                                                                        receiver.getDeclarationDescriptor());
-                    String fieldName = state.getScriptCodegen().getScriptFieldName(receiver.getDeclarationDescriptor());
                     result.put(currentScriptClassName.getAsmType(), v);
-                    StackValue.field(className.getAsmType(), currentScriptClassName, fieldName, false).put(className.getAsmType(), v);
+                    state.getScriptCodegen().genEarlierScriptInstance(receiver.getDeclarationDescriptor(), currentScriptClassName, v);
                 }
                 return;
             }
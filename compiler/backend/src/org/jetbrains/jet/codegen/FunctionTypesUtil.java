@@ -19,8 +19,11 @@ package org.jetbrains.jet.codegen;
 import com.google.common.collect.ImmutableMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.asm4.Type;
+import org.jetbrains.asm4.commons.Method;
 import org.jetbrains.jet.lang.descriptors.*;
 import org.jetbrains.jet.lang.descriptors.impl.MutableClassDescriptor;
+import org.jetbrains.jet.lang.resolve.java.AsmTypeConstants;
 import org.jetbrains.jet.lang.resolve.java.JvmClassName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
@@ -33,6 +36,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class FunctionTypesUtil {
+    public static final JvmClassName PRIMITIVE_FUNCTIONS = JvmClassName.byInternalName("jet/runtime/PrimitiveFunctions");
+    private static final String OBJECT_KIND = "Object";
+
     private static final List<ClassDescriptor> FUNCTIONS;
     private static final List<ClassDescriptor> EXTENSION_FUNCTIONS;
     private static final List<ClassDescriptor> K_FUNCTIONS;
@@ -167,6 +173,84 @@ public class FunctionTypesUtil {
         }
     }
 
+    /**
+     * Returns the name of the shape of jet.runtime.PrimitiveFunctions for a function with the given parameter and return types
+     * (e.g. "IntToInt" for {@code (I)I}), or null if there is no specialized interface for it.
+     *
+     * Should be kept in sync with {@code GeneratePrimitiveFunctions}.
+     */
+    @Nullable
+    public static String getPrimitiveFunctionShape(@NotNull Type[] parameterTypes, @NotNull Type returnType) {
+        String returnKind = getPrimitiveFunctionKind(returnType);
+        if (returnKind == null) return null;
+
+        boolean hasPrimitives = !returnKind.equals(OBJECT_KIND);
+        StringBuilder sb = new StringBuilder();
+        for (Type parameterType : parameterTypes) {
+            String kind = getPrimitiveFunctionKind(parameterType);
+            if (kind == null) return null;
+            hasPrimitives |= !kind.equals(OBJECT_KIND);
+            sb.append(kind);
+        }
+        if (!hasPrimitives) return null;
+
+        switch (parameterTypes.length) {
+            case 0:
+            case 1:
+                break;
+            case 2:
+                Type first = parameterTypes[0];
+                if (!first.equals(parameterTypes[1])) return null;
+                if (first.getSort() != Type.INT && first.getSort() != Type.LONG && first.getSort() != Type.DOUBLE) return null;
+                break;
+            default:
+                return null;
+        }
+
+        return sb.append("To").append(returnKind).toString();
+    }
+
+    @Nullable
+    private static String getPrimitiveFunctionKind(@NotNull Type type) {
+        switch (type.getSort()) {
+            case Type.INT:
+                return "Int";
+            case Type.LONG:
+                return "Long";
+            case Type.DOUBLE:
+                return "Double";
+            case Type.BOOLEAN:
+                return "Boolean";
+            case Type.OBJECT:
+            case Type.ARRAY:
+                return OBJECT_KIND;
+            default:
+                return null;
+        }
+    }
+
+    @NotNull
+    public static JvmClassName getPrimitiveFunctionClassName(@NotNull String shape) {
+        return JvmClassName.byInternalName(PRIMITIVE_FUNCTIONS.getInternalName() + "$" + shape);
+    }
+
+    /**
+     * Descriptor of the specialized invoke() of the given shape, with reference parameter and return types erased to Object
+     */
+    @NotNull
+    public static Method getPrimitiveFunctionInvokeMethod(@NotNull Type[] parameterTypes, @NotNull Type returnType) {
+        Type[] erasedParameterTypes = new Type[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            erasedParameterTypes[i] = eraseToObject(parameterTypes[i]);
+        }
+        return new Method("invoke", eraseToObject(returnType), erasedParameterTypes);
+    }
+
+    @NotNull
+    private static Type eraseToObject(@NotNull Type type) {
+        return type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY ? AsmTypeConstants.OBJECT_TYPE : type;
+    }
+
     @NotNull
     public static JvmClassName getFunctionImplClassName(@NotNull FunctionDescriptor descriptor) {
         int paramCount = descriptor.getValueParameters().size();
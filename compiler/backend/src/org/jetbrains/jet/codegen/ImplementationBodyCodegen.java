@@ -810,6 +810,20 @@ public class ImplementationBodyCodegen extends ClassBodyCodegen {
                 mv.visitInsn(ARETURN);
                 FunctionCodegen.endVisit(mv, "values()", myClass);
             }
+            if (state.getClassBuilderMode() == ClassBuilderMode.FULL) {
+                Type type =
+                        typeMapper.mapType(KotlinBuiltIns.getInstance().getArrayType(descriptor.getDefaultType()),
+                                           JetTypeMapperMode.IMPL);
+
+                MethodVisitor mv = v.newMethod(myClass, ACC_PUBLIC | ACC_STATIC | ACC_SYNTHETIC, JvmAbi.ENUM_VALUES_WITHOUT_COPY,
+                                               "()" + type.getDescriptor(), null, null);
+                mv.visitCode();
+                mv.visitFieldInsn(GETSTATIC, typeMapper.mapType(descriptor).getInternalName(),
+                                  VALUES,
+                                  type.getDescriptor());
+                mv.visitInsn(ARETURN);
+                FunctionCodegen.endVisit(mv, JvmAbi.ENUM_VALUES_WITHOUT_COPY + "()", myClass);
+            }
             {
 
                 MethodVisitor mv =
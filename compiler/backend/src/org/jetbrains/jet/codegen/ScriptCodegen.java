@@ -16,13 +16,14 @@
 
 package org.jetbrains.jet.codegen;
 
-import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.intellij.openapi.util.Pair;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.asm4.MethodVisitor;
 import org.jetbrains.asm4.Type;
 import org.jetbrains.asm4.commons.InstructionAdapter;
 import org.jetbrains.asm4.commons.Method;
+import org.jetbrains.jet.codegen.binding.CodegenBinding;
 import org.jetbrains.jet.codegen.context.CodegenContext;
 import org.jetbrains.jet.codegen.context.FieldOwnerContext;
 import org.jetbrains.jet.codegen.context.MethodContext;
@@ -38,11 +39,14 @@ import org.jetbrains.jet.lang.resolve.ScriptNameUtil;
 import org.jetbrains.jet.lang.resolve.java.JvmClassName;
 
 import javax.inject.Inject;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.jetbrains.asm4.Opcodes.*;
 import static org.jetbrains.jet.codegen.binding.CodegenBinding.*;
+import static org.jetbrains.jet.lang.resolve.java.AsmTypeConstants.JAVA_ARRAY_GENERIC_TYPE;
 import static org.jetbrains.jet.lang.resolve.java.AsmTypeConstants.OBJECT_TYPE;
 
 public class ScriptCodegen extends MemberCodegen {
@@ -50,7 +54,14 @@ public class ScriptCodegen extends MemberCodegen {
     @NotNull
     private ClassFileFactory classFileFactory;
 
-    private List<ScriptDescriptor> earlierScripts;
+    /**
+     * Instances of earlier scripts are passed to the constructor of a script in a single array indexed by
+     * the position of the script in {@link #earlierScriptIndices}, so that the cost of a REPL line doesn't depend on the number
+     * of lines evaluated before it. The array may be shared with later scripts and be longer than the number of earlier scripts.
+     */
+    public static final String EARLIER_SCRIPTS_FIELD_NAME = "earlierScripts$";
+
+    private Map<ScriptDescriptor, Integer> earlierScriptIndices;
     private Method scriptConstructorMethod;
 
     public ScriptCodegen(@NotNull GenerationState state) {
@@ -91,7 +102,7 @@ public class ScriptCodegen extends MemberCodegen {
         genFieldsForParameters(scriptDescriptor, classBuilder);
         genConstructor(scriptDeclaration, scriptDescriptor, classDescriptorForScript, classBuilder,
                        context.intoFunction(scriptDescriptor.getScriptCodeDescriptor()),
-                       earlierScripts);
+                       earlierScriptIndices.keySet());
 
         classBuilder.done();
     }
@@ -102,7 +113,7 @@ public class ScriptCodegen extends MemberCodegen {
             @NotNull ClassDescriptor classDescriptorForScript,
             @NotNull ClassBuilder classBuilder,
             @NotNull MethodContext context,
-            @NotNull List<ScriptDescriptor> importedScripts
+            @NotNull Collection<ScriptDescriptor> importedScripts
     ) {
 
         Type blockType = typeMapper.mapType(scriptDescriptor.getReturnType());
@@ -132,12 +143,13 @@ public class ScriptCodegen extends MemberCodegen {
 
         FrameMap frameMap = context.prepareFrame(typeMapper);
 
-        for (ScriptDescriptor importedScript : importedScripts) {
-            frameMap.enter(importedScript, OBJECT_TYPE);
+        boolean hasEarlierScripts = !importedScripts.isEmpty();
+        if (hasEarlierScripts) {
+            frameMap.enterTemp(JAVA_ARRAY_GENERIC_TYPE);
         }
 
         Type[] argTypes = jvmSignature.getAsmMethod().getArgumentTypes();
-        int add = 0;
+        int add = hasEarlierScripts ? 1 : 0;
 
         for (int i = 0; i < scriptDescriptor.getValueParameters().size(); i++) {
             ValueParameterDescriptor parameter = scriptDescriptor.getValueParameters().get(i);
@@ -152,13 +164,11 @@ public class ScriptCodegen extends MemberCodegen {
 
         int offset = 1;
 
-        for (ScriptDescriptor earlierScript : importedScripts) {
-            JvmClassName earlierClassName = classNameForScriptDescriptor(bindingContext, earlierScript);
+        if (hasEarlierScripts) {
             instructionAdapter.load(0, className.getAsmType());
-            instructionAdapter.load(offset, earlierClassName.getAsmType());
-            offset += earlierClassName.getAsmType().getSize();
-            instructionAdapter.putfield(className.getInternalName(), getScriptFieldName(earlierScript),
-                                        earlierClassName.getAsmType().getDescriptor());
+            instructionAdapter.load(offset, JAVA_ARRAY_GENERIC_TYPE);
+            offset += JAVA_ARRAY_GENERIC_TYPE.getSize();
+            instructionAdapter.putfield(className.getInternalName(), EARLIER_SCRIPTS_FIELD_NAME, JAVA_ARRAY_GENERIC_TYPE.getDescriptor());
         }
 
         for (ValueParameterDescriptor parameter : scriptDescriptor.getValueParameters()) {
@@ -183,11 +193,9 @@ public class ScriptCodegen extends MemberCodegen {
     }
 
     private void genFieldsForParameters(@NotNull ScriptDescriptor script, @NotNull ClassBuilder classBuilder) {
-        for (ScriptDescriptor earlierScript : earlierScripts) {
-            JvmClassName earlierClassName;
-            earlierClassName = classNameForScriptDescriptor(bindingContext, earlierScript);
+        if (!earlierScriptIndices.isEmpty()) {
             int access = ACC_PRIVATE | ACC_FINAL;
-            classBuilder.newField(null, access, getScriptFieldName(earlierScript), earlierClassName.getDescriptor(), null, null);
+            classBuilder.newField(null, access, EARLIER_SCRIPTS_FIELD_NAME, JAVA_ARRAY_GENERIC_TYPE.getDescriptor(), null, null);
         }
 
         for (ValueParameterDescriptor parameter : script.getValueParameters()) {
@@ -211,24 +219,35 @@ public class ScriptCodegen extends MemberCodegen {
             registerClassNameForScript(state.getBindingTrace(), earlierDescriptor, earlierClassName);
         }
 
-        List<ScriptDescriptor> earlierScriptDescriptors = Lists.newArrayList();
-        for (Pair<ScriptDescriptor, JvmClassName> t : earlierScripts) {
-            ScriptDescriptor earlierDescriptor = t.first;
-            earlierScriptDescriptors.add(earlierDescriptor);
+        Map<ScriptDescriptor, Integer> indices = Maps.newHashMapWithExpectedSize(earlierScripts.size());
+        for (int i = 0; i < earlierScripts.size(); i++) {
+            // The last occurrence of a script wins, as the most recent one is referenced
+            indices.put(earlierScripts.get(i).first, i);
         }
-        this.earlierScripts = earlierScriptDescriptors;
+        this.earlierScriptIndices = indices;
     }
 
     protected int getScriptIndex(@NotNull ScriptDescriptor scriptDescriptor) {
-        int index = earlierScripts.indexOf(scriptDescriptor);
-        if (index < 0) {
+        Integer index = earlierScriptIndices.get(scriptDescriptor);
+        if (index == null) {
             throw new IllegalStateException("Unregistered script: " + scriptDescriptor);
         }
-        return index + 1;
+        return index;
     }
 
-    public String getScriptFieldName(@NotNull ScriptDescriptor scriptDescriptor) {
-        return "script$" + getScriptIndex(scriptDescriptor);
+    /**
+     * Puts the instance of an earlier script on the stack, given the instance of the current script on the top of it
+     */
+    public void genEarlierScriptInstance(
+            @NotNull ScriptDescriptor earlierScript,
+            @NotNull JvmClassName currentScriptClassName,
+            @NotNull InstructionAdapter v
+    ) {
+        JvmClassName earlierClassName = classNameForScriptDescriptor(bindingContext, earlierScript);
+        v.getfield(currentScriptClassName.getInternalName(), EARLIER_SCRIPTS_FIELD_NAME, JAVA_ARRAY_GENERIC_TYPE.getDescriptor());
+        v.iconst(getScriptIndex(earlierScript));
+        v.aload(OBJECT_TYPE);
+        v.checkcast(earlierClassName.getAsmType());
     }
 
     public void setScriptConstructorMethod(Method scriptConstructorMethod) {
@@ -239,13 +258,19 @@ public class ScriptCodegen extends MemberCodegen {
         return scriptConstructorMethod;
     }
 
+    /**
+     * @param earlierScriptIndices scripts whose instances are passed to the constructor, mapped to their positions in the array
+     *                             of instances. It is kept by the caller and is not copied, so that it can be extended
+     *                             incrementally with every new line of a session. Class names of the scripts must already be
+     *                             registered in the binding context (see {@link CodegenBinding#registerClassNameForScript})
+     */
     public void compileScript(
             @NotNull JetScript script,
             @NotNull JvmClassName className,
-            @NotNull List<Pair<ScriptDescriptor, JvmClassName>> earlierScripts,
+            @NotNull Map<ScriptDescriptor, Integer> earlierScriptIndices,
             @NotNull CompilationErrorHandler errorHandler
     ) {
-        registerEarlierScripts(earlierScripts);
+        this.earlierScriptIndices = earlierScriptIndices;
         registerClassNameForScript(state.getBindingTrace(), script, className);
 
         state.beforeCompile();
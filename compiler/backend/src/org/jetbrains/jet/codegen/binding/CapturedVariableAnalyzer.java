@@ -0,0 +1,162 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.codegen.binding;
+
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
+import com.intellij.psi.util.PsiTreeUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.descriptors.VariableDescriptor;
+import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.jetbrains.jet.lexer.JetTokens.*;
+
+/**
+ * Decides whether a local var captured in closures can be copied into them instead of being wrapped into a
+ * jet.runtime.SharedVar: this is the case when every write to the variable happens in the declaring function before
+ * any of the closures capturing it is created, so neither the closures nor the function can observe a later change.
+ *
+ * Kotlin has no backward jumps other than loops, so "before" is checked by comparing text offsets, plus making sure that
+ * no loop surrounding a capturing closure (but not the declaration) contains a write.
+ */
+class CapturedVariableAnalyzer {
+    private final BindingContext bindingContext;
+
+    CapturedVariableAnalyzer(@NotNull BindingContext bindingContext) {
+        this.bindingContext = bindingContext;
+    }
+
+    public boolean canBeCapturedByValue(@NotNull JetProperty property, @NotNull VariableDescriptor variable) {
+        final PsiElement scope = property.getParent();
+        if (!(scope instanceof JetBlockExpression)) return false;
+
+        final JetElement declaringFunction = getContainingCaptureBoundary(property, null);
+        if (declaringFunction == null) return false;
+
+        final List<JetElement> writes = new ArrayList<JetElement>();
+        final List<JetElement> captures = new ArrayList<JetElement>();
+        final boolean[] unsupported = new boolean[1];
+
+        if (property.getInitializer() != null) {
+            writes.add(property);
+        }
+
+        scope.accept(new JetTreeVisitorVoid() {
+            @Override
+            public void visitSimpleNameExpression(JetSimpleNameExpression expression) {
+                super.visitSimpleNameExpression(expression);
+                if (bindingContext.get(BindingContext.REFERENCE_TARGET, expression) != variable) return;
+
+                JetElement capture = getOutermostCapture(expression, declaringFunction);
+                JetElement write = getWrite(expression);
+                if (capture == null) {
+                    if (write != null) {
+                        writes.add(write);
+                    }
+                }
+                else if (write != null || capture instanceof JetClassOrObject) {
+                    // Written from a closure, or captured by a local class which may be instantiated anywhere
+                    unsupported[0] = true;
+                }
+                else {
+                    captures.add(capture);
+                }
+            }
+        });
+
+        if (unsupported[0] || captures.isEmpty()) return false;
+
+        for (JetElement capture : captures) {
+            int captureStart = capture.getTextRange().getStartOffset();
+            for (JetElement write : writes) {
+                if (write.getTextRange().getEndOffset() > captureStart) return false;
+            }
+
+            for (JetLoopExpression loop = PsiTreeUtil.getParentOfType(capture, JetLoopExpression.class);
+                 loop != null && !PsiTreeUtil.isAncestor(loop, property, true);
+                 loop = PsiTreeUtil.getParentOfType(loop, JetLoopExpression.class)) {
+                for (JetElement write : writes) {
+                    if (PsiTreeUtil.isAncestor(loop, write, true)) return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the outermost closure or local class inside {@code declaringFunction} which contains {@code expression},
+     * or {@code null} if the expression belongs to the declaring function itself
+     */
+    @Nullable
+    private static JetElement getOutermostCapture(@NotNull JetElement expression, @NotNull JetElement declaringFunction) {
+        JetElement result = null;
+        for (JetElement boundary = getContainingCaptureBoundary(expression, declaringFunction);
+             boundary != null;
+             boundary = getContainingCaptureBoundary(boundary, declaringFunction)) {
+            result = boundary;
+        }
+        return result;
+    }
+
+    @Nullable
+    private static JetElement getContainingCaptureBoundary(@NotNull PsiElement element, @Nullable JetElement stopAt) {
+        for (PsiElement parent = element.getParent(); parent != null && parent != stopAt; parent = parent.getParent()) {
+            if (parent instanceof JetFunctionLiteralExpression ||
+                parent instanceof JetObjectLiteralExpression ||
+                parent instanceof JetNamedFunction ||
+                parent instanceof JetClassOrObject) {
+                if (parent instanceof JetObjectDeclaration && parent.getParent() instanceof JetObjectLiteralExpression) continue;
+                return (JetElement) parent;
+            }
+            if (parent instanceof JetFile) return null;
+        }
+        return null;
+    }
+
+    /**
+     * @return the assignment or increment expression storing to the variable referenced by {@code expression}, if any
+     */
+    @Nullable
+    private static JetElement getWrite(@NotNull JetSimpleNameExpression expression) {
+        PsiElement child = expression;
+        PsiElement parent = expression.getParent();
+        while (parent instanceof JetParenthesizedExpression) {
+            child = parent;
+            parent = parent.getParent();
+        }
+
+        if (parent instanceof JetBinaryExpression) {
+            JetBinaryExpression binaryExpression = (JetBinaryExpression) parent;
+            if (binaryExpression.getLeft() == child && ALL_ASSIGNMENTS.contains(binaryExpression.getOperationToken())) {
+                return binaryExpression;
+            }
+        }
+        else if (parent instanceof JetUnaryExpression) {
+            JetUnaryExpression unaryExpression = (JetUnaryExpression) parent;
+            IElementType token = unaryExpression.getOperationReference().getReferencedNameElementType();
+            if (unaryExpression.getBaseExpression() == child && (token == PLUSPLUS || token == MINUSMINUS)) {
+                return unaryExpression;
+            }
+        }
+        return null;
+    }
+}
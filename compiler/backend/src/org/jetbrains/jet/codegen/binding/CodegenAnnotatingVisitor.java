@@ -64,10 +64,12 @@ class CodegenAnnotatingVisitor extends JetVisitorVoid {
     private final Stack<String> nameStack = new Stack<String>();
     private final BindingTrace bindingTrace;
     private final BindingContext bindingContext;
+    private final CapturedVariableAnalyzer capturedVariableAnalyzer;
 
     public CodegenAnnotatingVisitor(BindingTrace bindingTrace) {
         this.bindingTrace = bindingTrace;
         this.bindingContext = bindingTrace.getBindingContext();
+        this.capturedVariableAnalyzer = new CapturedVariableAnalyzer(bindingContext);
     }
 
     @NotNull
@@ -296,6 +298,13 @@ class CodegenAnnotatingVisitor extends JetVisitorVoid {
         // working around a problem with shallow analysis
         if (propertyDescriptor == null) return;
 
+        if (propertyDescriptor instanceof VariableDescriptor && isVarCapturedInClosure(bindingContext, propertyDescriptor)) {
+            VariableDescriptor variableDescriptor = (VariableDescriptor) propertyDescriptor;
+            if (capturedVariableAnalyzer.canBeCapturedByValue(property, variableDescriptor)) {
+                bindingTrace.record(CAPTURED_BY_VALUE, variableDescriptor);
+            }
+        }
+
         String nameForClassOrNamespaceMember = getNameForClassOrNamespaceMember(propertyDescriptor);
         if (nameForClassOrNamespaceMember != null) {
             nameStack.push(nameForClassOrNamespaceMember);
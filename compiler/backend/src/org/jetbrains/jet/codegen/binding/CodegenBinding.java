@@ -60,6 +60,12 @@ public class CodegenBinding {
 
     public static final WritableSlice<JetExpression, ClassDescriptorFromJvmBytecode> SAM_VALUE = Slices.createSimpleSlice();
 
+    /**
+     * Local vars which are captured in closures, but never written after the first closure is created,
+     * so their values are copied into closures instead of being wrapped into a SharedVar
+     */
+    public static final WritableSlice<VariableDescriptor, Boolean> CAPTURED_BY_VALUE = Slices.createSimpleSetSlice();
+
     private CodegenBinding() {
     }
 
@@ -393,7 +399,12 @@ public class CodegenBinding {
     public static boolean isVarCapturedInClosure(BindingContext bindingContext, DeclarationDescriptor descriptor) {
         if (!(descriptor instanceof VariableDescriptor) || descriptor instanceof PropertyDescriptor) return false;
         VariableDescriptor variableDescriptor = (VariableDescriptor) descriptor;
-        return bindingContext.get(CAPTURED_IN_CLOSURE, variableDescriptor) != null && variableDescriptor.isVar();
+        return bindingContext.get(CAPTURED_IN_CLOSURE, variableDescriptor) != null && variableDescriptor.isVar() &&
+               !Boolean.TRUE.equals(bindingContext.get(CAPTURED_BY_VALUE, variableDescriptor));
+    }
+
+    public static int getCapturedByValueCount(@NotNull BindingContext bindingContext) {
+        return bindingContext.getKeys(CAPTURED_BY_VALUE).size();
     }
 
     public static boolean hasThis0(BindingContext bindingContext, ClassDescriptor classDescriptor) {
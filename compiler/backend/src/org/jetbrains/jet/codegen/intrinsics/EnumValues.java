@@ -17,6 +17,7 @@
 package org.jetbrains.jet.codegen.intrinsics;
 
 import com.intellij.psi.PsiElement;
+import com.intellij.psi.tree.IElementType;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.asm4.Type;
@@ -25,14 +26,18 @@ import org.jetbrains.jet.codegen.ExpressionCodegen;
 import org.jetbrains.jet.codegen.StackValue;
 import org.jetbrains.jet.codegen.state.GenerationState;
 import org.jetbrains.jet.lang.descriptors.CallableDescriptor;
-import org.jetbrains.jet.lang.psi.JetCallExpression;
-import org.jetbrains.jet.lang.psi.JetExpression;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.calls.model.ResolvedCall;
+import org.jetbrains.jet.lang.resolve.java.JvmAbi;
 import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lexer.JetTokens;
 
 import java.util.List;
 
+import static org.jetbrains.jet.lang.resolve.BindingContextUtils.descriptorToDeclaration;
+
 public class EnumValues implements IntrinsicMethod {
     @Override
     public StackValue generate(
@@ -47,8 +52,56 @@ public class EnumValues implements IntrinsicMethod {
         JetType returnType = resultingDescriptor.getReturnType();
         assert returnType != null;
         Type type = state.getTypeMapper().mapType(returnType);
-        v.invokestatic(type.getElementType().getInternalName(), "values", "()" + type);
+        String methodName = canSkipCopy(call, resultingDescriptor, codegen.getBindingContext()) ? JvmAbi.ENUM_VALUES_WITHOUT_COPY : "values";
+        v.invokestatic(type.getElementType().getInternalName(), methodName, "()" + type);
         StackValue.onStack(type).put(expectedType, v);
         return StackValue.onStack(expectedType);
     }
+
+    private static boolean canSkipCopy(
+            @NotNull JetCallExpression call,
+            @NotNull CallableDescriptor valuesMethod,
+            @NotNull BindingContext bindingContext
+    ) {
+        // Enums from libraries or Java don't have the method, so only the ones compiled along with the call site qualify
+        DeclarationDescriptor classObject = valuesMethod.getContainingDeclaration();
+        DeclarationDescriptor enumClass = classObject.getContainingDeclaration();
+        if (enumClass == null || !(descriptorToDeclaration(bindingContext, enumClass) instanceof JetClass)) {
+            return false;
+        }
+
+        JetExpression expression = call;
+        PsiElement parent = call.getParent();
+        if (parent instanceof JetQualifiedExpression && ((JetQualifiedExpression) parent).getSelectorExpression() == call) {
+            expression = (JetExpression) parent;
+            parent = parent.getParent();
+        }
+
+        // for (e in E.values())
+        if (parent instanceof JetContainerNode) {
+            PsiElement loop = parent.getParent();
+            return loop instanceof JetForExpression && ((JetForExpression) loop).getLoopRange() == expression;
+        }
+
+        // E.values()[i], unless it's assigned or incremented
+        if (parent instanceof JetArrayAccessExpression && ((JetArrayAccessExpression) parent).getArrayExpression() == expression) {
+            PsiElement access = parent;
+            PsiElement usage = access.getParent();
+            while (usage instanceof JetParenthesizedExpression) {
+                access = usage;
+                usage = usage.getParent();
+            }
+            if (usage instanceof JetBinaryExpression) {
+                JetBinaryExpression binary = (JetBinaryExpression) usage;
+                return binary.getLeft() != access || !JetTokens.ALL_ASSIGNMENTS.contains(binary.getOperationToken());
+            }
+            if (usage instanceof JetUnaryExpression) {
+                IElementType operation = ((JetUnaryExpression) usage).getOperationReference().getReferencedNameElementType();
+                return operation != JetTokens.PLUSPLUS && operation != JetTokens.MINUSMINUS;
+            }
+            return true;
+        }
+
+        return false;
+    }
 }
@@ -20,6 +20,7 @@ import com.intellij.psi.PsiElement;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.asm4.Type;
+import org.jetbrains.asm4.commons.Method;
 import org.jetbrains.jet.codegen.*;
 import org.jetbrains.jet.codegen.binding.BindingTraceAware;
 import org.jetbrains.jet.codegen.binding.CalculatedClosure;
@@ -40,6 +41,7 @@ import org.jetbrains.jet.lang.types.*;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -889,18 +891,17 @@ public class JetTypeMapper extends BindingTraceAware {
     }
 
     @NotNull
-    public JvmMethodSignature mapScriptSignature(@NotNull ScriptDescriptor script, @NotNull List<ScriptDescriptor> importedScripts) {
+    public JvmMethodSignature mapScriptSignature(@NotNull ScriptDescriptor script, @NotNull Collection<ScriptDescriptor> importedScripts) {
         BothSignatureWriter signatureWriter = new BothSignatureWriter(BothSignatureWriter.Mode.METHOD, false);
 
         writeFormalTypeParameters(Collections.<TypeParameterDescriptor>emptyList(), signatureWriter);
 
         signatureWriter.writeParametersStart();
 
-        for (ScriptDescriptor importedScript : importedScripts) {
+        if (!importedScripts.isEmpty()) {
+            // Instances of all the earlier scripts, see ScriptCodegen.EARLIER_SCRIPTS_FIELD_NAME
             signatureWriter.writeParameterType(JvmMethodParameterKind.VALUE);
-            ClassDescriptor descriptor = bindingContext.get(CLASS_FOR_SCRIPT, importedScript);
-            assert descriptor != null;
-            mapType(descriptor.getDefaultType(), signatureWriter, JetTypeMapperMode.VALUE);
+            signatureWriter.writeAsmType(AsmTypeConstants.JAVA_ARRAY_GENERIC_TYPE, false);
             signatureWriter.writeParameterTypeEnd();
         }
 
@@ -972,6 +973,59 @@ public class JetTypeMapper extends BindingTraceAware {
         return new CallableMethod(owner, null, null, descriptor, INVOKEINTERFACE, owner, receiverParameterType, owner.getAsmType());
     }
 
+    /**
+     * If {@code fd} is an invoke() of Function0..Function2 whose substituted signature has a primitive shape (see
+     * {@link FunctionTypesUtil#getPrimitiveFunctionShape}), returns a call to the corresponding static helper in
+     * jet.runtime.PrimitiveFunctions, which calls the unboxed invoke() when the function object supports it.
+     */
+    @Nullable
+    public CallableMethod mapToPrimitiveFunctionInvokeCallableMethod(@NotNull FunctionDescriptor fd) {
+        if (!fd.getName().asString().equals("invoke") || fd.getReceiverParameter() != null) return null;
+
+        int arity = fd.getValueParameters().size();
+        if (arity > 2) return null;
+
+        KotlinBuiltIns builtIns = KotlinBuiltIns.getInstance();
+        ClassDescriptor functionClass = builtIns.getFunction(arity);
+        if (fd.getOriginal().getContainingDeclaration() != functionClass) return null;
+
+        JetType returnType = fd.getReturnType();
+        assert returnType != null : "Return type of invoke() should be resolved: " + fd;
+
+        Type[] parameterTypes = new Type[arity];
+        for (ValueParameterDescriptor parameter : fd.getValueParameters()) {
+            parameterTypes[parameter.getIndex()] = mapType(parameter.getType());
+        }
+        Type asmReturnType = mapReturnType(returnType);
+
+        String shape = FunctionTypesUtil.getPrimitiveFunctionShape(parameterTypes, asmReturnType);
+        if (shape == null) return null;
+
+        JvmClassName functionClassName = JvmClassName.byType(mapType(functionClass.getDefaultType(), JetTypeMapperMode.TYPE_PARAMETER));
+        Method invokeMethod = FunctionTypesUtil.getPrimitiveFunctionInvokeMethod(parameterTypes, asmReturnType);
+
+        BothSignatureWriter signatureWriter = new BothSignatureWriter(BothSignatureWriter.Mode.METHOD, false);
+        signatureWriter.writeFormalTypeParametersStart();
+        signatureWriter.writeFormalTypeParametersEnd();
+        signatureWriter.writeParametersStart();
+        signatureWriter.writeParameterType(JvmMethodParameterKind.THIS);
+        signatureWriter.writeAsmType(functionClassName.getAsmType(), false);
+        signatureWriter.writeParameterTypeEnd();
+        for (Type parameterType : invokeMethod.getArgumentTypes()) {
+            signatureWriter.writeParameterType(JvmMethodParameterKind.VALUE);
+            signatureWriter.writeAsmType(parameterType, false);
+            signatureWriter.writeParameterTypeEnd();
+        }
+        signatureWriter.writeParametersEnd();
+        signatureWriter.writeReturnType();
+        signatureWriter.writeAsmType(invokeMethod.getReturnType(), false);
+        signatureWriter.writeReturnTypeEnd();
+
+        JvmClassName owner = FunctionTypesUtil.PRIMITIVE_FUNCTIONS;
+        return new CallableMethod(owner, null, null, signatureWriter.makeJvmMethodSignature("invoke" + shape), INVOKESTATIC,
+                                  functionClassName, null, null);
+    }
+
     @NotNull
     public Type expressionType(JetExpression expr) {
         JetType type = bindingContext.get(BindingContext.EXPRESSION_TYPE, expr);
@@ -18,13 +18,17 @@ package org.jetbrains.jet.cli.common;
 
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
 import com.sampullara.cli.Args;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.cli.common.messages.*;
 import org.jetbrains.jet.cli.jvm.compiler.CompileEnvironmentException;
 import org.jetbrains.jet.cli.jvm.compiler.CompileEnvironmentUtil;
 import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.utils.PhaseMetrics;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintStream;
 
 import static org.jetbrains.jet.cli.common.ExitCode.COMPILATION_ERROR;
@@ -125,8 +129,17 @@ public abstract class CLICompiler<A extends CompilerArguments> {
             Disposable rootDisposable = CompileEnvironmentUtil.createMockDisposable();
             try {
                 MessageSeverityCollector severityCollector = new MessageSeverityCollector(groupingCollector);
-                ExitCode code = doExecute(arguments, severityCollector, rootDisposable);
-                return severityCollector.anyReported(CompilerMessageSeverity.ERROR) ? COMPILATION_ERROR : code;
+                PhaseMetrics metrics = arguments.isReportPerf() || arguments.getDumpPerf() != null ? PhaseMetrics.start() : null;
+                try {
+                    ExitCode code = doExecute(arguments, severityCollector, rootDisposable);
+                    return severityCollector.anyReported(CompilerMessageSeverity.ERROR) ? COMPILATION_ERROR : code;
+                }
+                finally {
+                    if (metrics != null) {
+                        PhaseMetrics.stop();
+                        reportPhaseMetrics(metrics, arguments, severityCollector);
+                    }
+                }
             }
             finally {
                 Disposer.dispose(rootDisposable);
@@ -142,6 +155,27 @@ public abstract class CLICompiler<A extends CompilerArguments> {
         }
     }
 
+    private static void reportPhaseMetrics(
+            @NotNull PhaseMetrics metrics,
+            @NotNull CompilerArguments arguments,
+            @NotNull MessageCollector messageCollector
+    ) {
+        if (arguments.isReportPerf()) {
+            messageCollector.report(CompilerMessageSeverity.INFO, metrics.render(), CompilerMessageLocation.NO_LOCATION);
+        }
+        String dumpPath = arguments.getDumpPerf();
+        if (dumpPath != null) {
+            try {
+                FileUtil.writeToFile(new File(dumpPath), metrics.toJson());
+            }
+            catch (IOException e) {
+                messageCollector.report(CompilerMessageSeverity.WARNING,
+                                        "Could not write performance report to " + dumpPath + ": " + e.getMessage(),
+                                        CompilerMessageLocation.NO_LOCATION);
+            }
+        }
+    }
+
     //TODO: can't declare parameters as not null due to KT-1863
     @NotNull
     protected abstract ExitCode doExecute(A arguments, MessageCollector messageCollector, Disposable rootDisposable);
@@ -18,6 +18,7 @@ package org.jetbrains.jet.cli.common;
 
 import com.google.common.collect.Lists;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
 
@@ -43,6 +44,9 @@ public abstract class CompilerArguments {
     public abstract boolean isTags();
     public abstract boolean isVersion();
     public abstract boolean isVerbose();
+    public abstract boolean isReportPerf();
+    @Nullable
+    public abstract String getDumpPerf();
 
     public abstract String getSrc();
 }
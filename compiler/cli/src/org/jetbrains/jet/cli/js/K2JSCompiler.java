@@ -39,6 +39,7 @@ import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
 import org.jetbrains.jet.config.CommonConfigurationKeys;
 import org.jetbrains.jet.config.CompilerConfiguration;
 import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.utils.PhaseMetrics;
 import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.*;
 import org.jetbrains.k2js.facade.K2JSTranslator;
@@ -139,12 +140,18 @@ public class K2JSCompiler extends CLICompiler<K2JSCompilerArguments> {
     private static boolean analyzeAndReportErrors(@NotNull MessageCollector messageCollector,
             @NotNull final List<JetFile> sources, @NotNull final Config config) {
         AnalyzerWithCompilerReport analyzerWithCompilerReport = new AnalyzerWithCompilerReport(messageCollector);
-        analyzerWithCompilerReport.analyzeAndReport(new Function0<AnalyzeExhaust>() {
-            @Override
-            public AnalyzeExhaust invoke() {
-                return AnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), config);
-            }
-        }, sources);
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Analysis");
+        try {
+            analyzerWithCompilerReport.analyzeAndReport(new Function0<AnalyzeExhaust>() {
+                @Override
+                public AnalyzeExhaust invoke() {
+                    return AnalyzerFacadeForJS.analyzeFiles(sources, Predicates.<PsiFile>alwaysTrue(), config);
+                }
+            }, sources);
+        }
+        finally {
+            phase.finish(sources.size());
+        }
         return analyzerWithCompilerReport.hasErrors();
     }
 
@@ -56,6 +56,12 @@ public class K2JSCompilerArguments extends CompilerArguments {
     @Argument(value = "help", alias = "h", description = "Show help")
     public boolean help;
 
+    @Argument(value = "reportPerf", description = "Report time, CPU time and allocations of compiler phases")
+    public boolean reportPerf;
+
+    @Argument(value = "dumpPerf", description = "Dump time, CPU time and allocations of compiler phases to the given file in JSON format")
+    public String dumpPerf;
+
     @Override
     public boolean isHelp() {
         return help;
@@ -76,6 +82,16 @@ public class K2JSCompilerArguments extends CompilerArguments {
         return verbose;
     }
 
+    @Override
+    public boolean isReportPerf() {
+        return reportPerf;
+    }
+
+    @Override
+    public String getDumpPerf() {
+        return dumpPerf;
+    }
+
     @Override
     public String getSrc() {
         throw new IllegalStateException();
@@ -39,4 +39,9 @@ public class JVMConfigurationKeys {
             CompilerConfigurationKey.create("generate not-null assertions");
     public static final CompilerConfigurationKey<Boolean> GENERATE_NOT_NULL_PARAMETER_ASSERTIONS =
             CompilerConfigurationKey.create("generate not-null parameter assertions");
+
+    public static final CompilerConfigurationKey<Integer> MODULE_COMPILATION_THREADS =
+            CompilerConfigurationKey.create("module compilation threads");
+    public static final CompilerConfigurationKey<Integer> SOURCE_PARSING_THREADS =
+            CompilerConfigurationKey.create("source parsing threads");
 }
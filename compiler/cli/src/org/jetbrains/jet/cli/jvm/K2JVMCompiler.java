@@ -125,6 +125,27 @@ public class K2JVMCompiler extends CLICompiler<K2JVMCompilerArguments> {
 
         configuration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, messageCollector);
 
+        if (arguments.moduleThreads != null) {
+            try {
+                configuration.put(JVMConfigurationKeys.MODULE_COMPILATION_THREADS, Integer.parseInt(arguments.moduleThreads));
+            }
+            catch (NumberFormatException e) {
+                messageCollector.report(CompilerMessageSeverity.ERROR, "Invalid number of module threads: " + arguments.moduleThreads,
+                                        CompilerMessageLocation.NO_LOCATION);
+                return INTERNAL_ERROR;
+            }
+        }
+        if (arguments.parsingThreads != null) {
+            try {
+                configuration.put(JVMConfigurationKeys.SOURCE_PARSING_THREADS, Integer.parseInt(arguments.parsingThreads));
+            }
+            catch (NumberFormatException e) {
+                messageCollector.report(CompilerMessageSeverity.ERROR, "Invalid number of parsing threads: " + arguments.parsingThreads,
+                                        CompilerMessageLocation.NO_LOCATION);
+                return INTERNAL_ERROR;
+            }
+        }
+
         messageCollector.report(CompilerMessageSeverity.LOGGING, "Configuring the compilation environment",
                                 CompilerMessageLocation.NO_LOCATION);
         try {
@@ -79,6 +79,12 @@ public class K2JVMCompilerArguments extends CompilerArguments {
     @Argument(value = "module", description = "module to compile")
     public String module;
 
+    @Argument(value = "moduleThreads", description = "number of threads used to compile independent modules of a module script")
+    public String moduleThreads;
+
+    @Argument(value = "parsingThreads", description = "number of threads used to parse source files")
+    public String parsingThreads;
+
     @Argument(value = "script", description = "evaluate script")
     public boolean script;
 
@@ -94,6 +100,12 @@ public class K2JVMCompilerArguments extends CompilerArguments {
     @Argument(value = "help", alias = "h", description = "show help")
     public boolean help;
 
+    @Argument(value = "reportPerf", description = "Report time, CPU time and allocations of compiler phases")
+    public boolean reportPerf;
+
+    @Argument(value = "dumpPerf", description = "Dump time, CPU time and allocations of compiler phases to the given file in JSON format")
+    public String dumpPerf;
+
     @Argument(value = "kotlinHome", description = "Path to Kotlin compiler home directory, used for annotations and runtime libraries discovery")
     public String kotlinHome;
 
@@ -177,6 +189,16 @@ public class K2JVMCompilerArguments extends CompilerArguments {
         return verbose;
     }
 
+    @Override
+    public boolean isReportPerf() {
+        return reportPerf;
+    }
+
+    @Override
+    public String getDumpPerf() {
+        return dumpPerf;
+    }
+
     public void setTags(boolean tags) {
         this.tags = tags;
     }
@@ -41,6 +41,7 @@ import org.jetbrains.jet.lang.resolve.java.PackageClassUtils;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.utils.KotlinPaths;
 import org.jetbrains.jet.utils.PathUtil;
+import org.jetbrains.jet.utils.PhaseMetrics;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -183,6 +184,7 @@ public class CompileEnvironmentUtil {
 
     // TODO: includeRuntime should be not a flag but a path to runtime
     public static void writeToJar(ClassFileFactory factory, OutputStream fos, @Nullable FqName mainClass, boolean includeRuntime) {
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Output writing");
         try {
             Manifest manifest = new Manifest();
             Attributes mainAttributes = manifest.getMainAttributes();
@@ -204,6 +206,9 @@ public class CompileEnvironmentUtil {
         catch (IOException e) {
             throw new CompileEnvironmentException("Failed to generate jar file", e);
         }
+        finally {
+            phase.finish(factory.files().size());
+        }
     }
 
     private static void writeRuntimeToJar(final JarOutputStream stream) throws IOException {
@@ -233,15 +238,21 @@ public class CompileEnvironmentUtil {
 
     public static void writeToOutputDirectory(ClassFileFactory factory, @NotNull File outputDir) {
         List<String> files = factory.files();
-        for (String file : files) {
-            File target = new File(outputDir, file);
-            try {
-                FileUtil.writeToFile(target, factory.asBytes(file));
-            }
-            catch (IOException e) {
-                throw new CompileEnvironmentException(e);
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Output writing");
+        try {
+            for (String file : files) {
+                File target = new File(outputDir, file);
+                try {
+                    FileUtil.writeToFile(target, factory.asBytes(file));
+                }
+                catch (IOException e) {
+                    throw new CompileEnvironmentException(e);
+                }
             }
         }
+        finally {
+            phase.finish(files.size());
+        }
     }
 
     // Used for debug output only
@@ -35,7 +35,9 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.impl.compiled.ClsCustomNavigationPolicy;
 import com.intellij.psi.impl.file.impl.JavaFileManager;
+import com.intellij.util.Function;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.CompilerModeProvider;
 import org.jetbrains.jet.OperationModeProvider;
 import org.jetbrains.jet.asJava.JavaElementFinder;
@@ -54,6 +56,7 @@ import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.jet.plugin.JetFileType;
 import org.jetbrains.jet.utils.PathUtil;
+import org.jetbrains.jet.utils.PhaseMetrics;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -73,23 +76,22 @@ public class JetCoreEnvironment {
     private final CompilerConfiguration configuration;
 
     public JetCoreEnvironment(Disposable parentDisposable, @NotNull CompilerConfiguration configuration) {
+        this(parentDisposable, createApplicationEnvironment(parentDisposable), configuration);
+    }
+
+    /**
+     * Creates an environment for a project in the given application environment, which can be shared by several projects.
+     * The application environment must outlive the project: {@code parentDisposable} has to be disposed before it.
+     */
+    public JetCoreEnvironment(
+            Disposable parentDisposable,
+            @NotNull JavaCoreApplicationEnvironment applicationEnvironment,
+            @NotNull CompilerConfiguration configuration
+    ) {
         this.configuration = configuration.copy();
         this.configuration.setReadOnly(true);
 
-        this.applicationEnvironment = new JavaCoreApplicationEnvironment(parentDisposable);
-
-        // ability to get text from annotations xml files
-        applicationEnvironment.registerFileType(PlainTextFileType.INSTANCE, "xml");
-
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kt");
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kts");
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "ktm");
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, JetParserDefinition.KTSCRIPT_FILE_SUFFIX); // should be renamed to kts
-        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "jet");
-        applicationEnvironment.registerParserDefinition(new JavaParserDefinition());
-        applicationEnvironment.registerParserDefinition(new JetParserDefinition());
-
-        applicationEnvironment.getApplication().registerService(OperationModeProvider.class, new CompilerModeProvider());
+        this.applicationEnvironment = applicationEnvironment;
 
         projectEnvironment = new JavaCoreProjectEnvironment(parentDisposable, applicationEnvironment);
 
@@ -106,10 +108,6 @@ public class JetCoreEnvironment {
                 .getExtensionPoint(PsiElementFinder.EP_NAME)
                 .registerExtension(new JavaElementFinder(project, cliLightClassGenerationSupport));
 
-        // This extension point should be registered in JavaCoreApplicationEnvironment
-        CoreApplicationEnvironment.registerExtensionPoint(Extensions.getRootArea(), ClsCustomNavigationPolicy.EP_NAME,
-                                                          ClsCustomNavigationPolicy.class);
-
         annotationsManager = new CoreExternalAnnotationsManager(project.getComponent(PsiManager.class));
         project.registerService(ExternalAnnotationsManager.class, annotationsManager);
 
@@ -119,8 +117,33 @@ public class JetCoreEnvironment {
         for (File path : configuration.getList(JVMConfigurationKeys.ANNOTATIONS_PATH_KEY)) {
             addExternalAnnotationsRoot(path);
         }
-        for (String path : configuration.getList(CommonConfigurationKeys.SOURCE_ROOTS_KEY)) {
-            addSources(path);
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Parsing");
+        try {
+            List<VirtualFile> sourceVirtualFiles = new ArrayList<VirtualFile>();
+            for (String path : configuration.getList(CommonConfigurationKeys.SOURCE_ROOTS_KEY)) {
+                addSources(path, sourceVirtualFiles);
+            }
+            int parsingThreads = configuration.get(JVMConfigurationKeys.SOURCE_PARSING_THREADS, 1);
+            if (parsingThreads > 1 && sourceVirtualFiles.size() > 1) {
+                parseSourceFilesInParallel(sourceVirtualFiles, parsingThreads);
+            }
+            else {
+                for (VirtualFile file : sourceVirtualFiles) {
+                    JetFile jetFile = findJetFile(file);
+                    if (jetFile != null) {
+                        sourceFiles.add(jetFile);
+                    }
+                }
+                if (PhaseMetrics.isEnabled()) {
+                    // Files are parsed lazily, force it to have parsing measured separately from analysis
+                    for (JetFile file : sourceFiles) {
+                        file.getDeclarations();
+                    }
+                }
+            }
+        }
+        finally {
+            phase.finish(sourceFiles.size());
         }
 
         JetScriptDefinitionProvider.getInstance(project).addScriptDefinitions(configuration.getList(CommonConfigurationKeys.SCRIPT_DEFINITIONS_KEY));
@@ -128,6 +151,34 @@ public class JetCoreEnvironment {
         KotlinBuiltIns.initialize(project, KotlinBuiltIns.InitializationMode.SINGLE_THREADED);
     }
 
+    /**
+     * The application environment installs its application into {@link com.intellij.openapi.application.ApplicationManager}
+     * until {@code parentDisposable} is disposed.
+     */
+    @NotNull
+    public static JavaCoreApplicationEnvironment createApplicationEnvironment(@NotNull Disposable parentDisposable) {
+        JavaCoreApplicationEnvironment applicationEnvironment = new JavaCoreApplicationEnvironment(parentDisposable);
+
+        // ability to get text from annotations xml files
+        applicationEnvironment.registerFileType(PlainTextFileType.INSTANCE, "xml");
+
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kt");
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "kts");
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "ktm");
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, JetParserDefinition.KTSCRIPT_FILE_SUFFIX); // should be renamed to kts
+        applicationEnvironment.registerFileType(JetFileType.INSTANCE, "jet");
+        applicationEnvironment.registerParserDefinition(new JavaParserDefinition());
+        applicationEnvironment.registerParserDefinition(new JetParserDefinition());
+
+        applicationEnvironment.getApplication().registerService(OperationModeProvider.class, new CompilerModeProvider());
+
+        // This extension point should be registered in JavaCoreApplicationEnvironment
+        CoreApplicationEnvironment.registerExtensionPoint(Extensions.getRootArea(), ClsCustomNavigationPolicy.EP_NAME,
+                                                          ClsCustomNavigationPolicy.class);
+
+        return applicationEnvironment;
+    }
+
     public CompilerConfiguration getConfiguration() {
         return configuration;
     }
@@ -150,27 +201,24 @@ public class JetCoreEnvironment {
         annotationsManager.addExternalAnnotationsRoot(PathUtil.jarFileOrDirectoryToVirtualFile(path));
     }
 
-    private void addSources(File file) {
+    private void addSources(File file, List<VirtualFile> result) {
         if (file.isDirectory()) {
             File[] files = file.listFiles();
             if (files != null) {
                 for (File child : files) {
-                    addSources(child);
+                    addSources(child, result);
                 }
             }
         }
         else {
             VirtualFile fileByPath = applicationEnvironment.getLocalFileSystem().findFileByPath(file.getAbsolutePath());
             if (fileByPath != null) {
-                PsiFile psiFile = PsiManager.getInstance(getProject()).findFile(fileByPath);
-                if (psiFile instanceof JetFile) {
-                    sourceFiles.add((JetFile) psiFile);
-                }
+                result.add(fileByPath);
             }
         }
     }
 
-    private void addSources(String path) {
+    private void addSources(String path, List<VirtualFile> result) {
         if (path == null) {
             return;
         }
@@ -185,7 +233,35 @@ public class JetCoreEnvironment {
             return;
         }
 
-        addSources(new File(path));
+        addSources(new File(path), result);
+    }
+
+    @Nullable
+    private JetFile findJetFile(@NotNull VirtualFile file) {
+        PsiFile psiFile = PsiManager.getInstance(getProject()).findFile(file);
+        return psiFile instanceof JetFile ? (JetFile) psiFile : null;
+    }
+
+    /**
+     * PSI trees of different files are independent, so the files are read, lexed and parsed on the shared pool of workers.
+     * The source files are kept in the order they were found in, as if they were parsed one by one.
+     */
+    private void parseSourceFilesInParallel(@NotNull List<VirtualFile> files, int threadCount) {
+        List<JetFile> parsedFiles = SourceParsingPool.map(files, threadCount, new Function<VirtualFile, JetFile>() {
+            @Override
+            public JetFile fun(VirtualFile file) {
+                JetFile jetFile = findJetFile(file);
+                if (jetFile != null) {
+                    jetFile.getDeclarations();
+                }
+                return jetFile;
+            }
+        });
+        for (JetFile jetFile : parsedFiles) {
+            if (jetFile != null) {
+                sourceFiles.add(jetFile);
+            }
+        }
     }
 
     private void addToClasspath(File path) {
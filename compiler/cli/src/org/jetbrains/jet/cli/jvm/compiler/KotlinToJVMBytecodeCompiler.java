@@ -18,6 +18,7 @@ package org.jetbrains.jet.cli.jvm.compiler;
 
 import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
+import com.intellij.core.JavaCoreApplicationEnvironment;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Disposer;
@@ -34,6 +35,7 @@ import org.jetbrains.jet.cli.common.CompilerPluginContext;
 import org.jetbrains.jet.cli.common.messages.*;
 import org.jetbrains.jet.cli.jvm.JVMConfigurationKeys;
 import org.jetbrains.jet.codegen.*;
+import org.jetbrains.jet.codegen.binding.CodegenBinding;
 import org.jetbrains.jet.codegen.state.GenerationState;
 import org.jetbrains.jet.codegen.state.Progress;
 import org.jetbrains.jet.config.CommonConfigurationKeys;
@@ -48,10 +50,12 @@ import org.jetbrains.jet.lang.resolve.ScriptNameUtil;
 import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
 import org.jetbrains.jet.lang.resolve.java.PackageClassUtils;
 import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.jet.plugin.JetMainDetector;
 import org.jetbrains.jet.utils.ExceptionUtils;
 import org.jetbrains.jet.utils.KotlinPaths;
 import org.jetbrains.jet.utils.PathUtil;
+import org.jetbrains.jet.utils.PhaseMetrics;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -60,18 +64,38 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public class KotlinToJVMBytecodeCompiler {
 
+    private static final Object ENVIRONMENT_LOCK = new Object();
+
     private KotlinToJVMBytecodeCompiler() {
     }
 
     @Nullable
     public static ClassFileFactory compileModule(CompilerConfiguration configuration, Module moduleBuilder, File directory) {
+        return compileModule(configuration, moduleBuilder, directory, null);
+    }
+
+    /**
+     * @param applicationEnvironment the environment shared by modules compiled concurrently, or {@code null} to create one
+     *                               for this module
+     */
+    @Nullable
+    private static ClassFileFactory compileModule(
+            @NotNull CompilerConfiguration configuration,
+            @NotNull Module moduleBuilder,
+            @NotNull File directory,
+            @Nullable JavaCoreApplicationEnvironment applicationEnvironment
+    ) {
         if (moduleBuilder.getSourceFiles().isEmpty()) {
             throw new CompileEnvironmentException("No source files where defined in module " + moduleBuilder.getModuleName());
         }
@@ -101,8 +125,16 @@ public class KotlinToJVMBytecodeCompiler {
         Disposable parentDisposable = CompileEnvironmentUtil.createMockDisposable();
         JetCoreEnvironment moduleEnvironment = null;
         try {
-            moduleEnvironment = new JetCoreEnvironment(parentDisposable, compilerConfiguration);
-
+            // Environments register themselves in process-wide structures such as the disposer tree,
+            // so they are set up and disposed one at a time
+            synchronized (ENVIRONMENT_LOCK) {
+                moduleEnvironment = applicationEnvironment != null
+                                    ? new JetCoreEnvironment(parentDisposable, applicationEnvironment, compilerConfiguration)
+                                    : new JetCoreEnvironment(parentDisposable, compilerConfiguration);
+                if (applicationEnvironment != null) {
+                    KotlinBuiltIns.initialize(moduleEnvironment.getProject(), KotlinBuiltIns.InitializationMode.MULTI_THREADED);
+                }
+            }
 
             GenerationState generationState = analyzeAndGenerate(moduleEnvironment);
             if (generationState == null) {
@@ -111,7 +143,9 @@ public class KotlinToJVMBytecodeCompiler {
             return generationState.getFactory();
         } finally {
             if (moduleEnvironment != null) {
-                Disposer.dispose(parentDisposable);
+                synchronized (ENVIRONMENT_LOCK) {
+                    Disposer.dispose(parentDisposable);
+                }
             }
         }
     }
@@ -124,36 +158,254 @@ public class KotlinToJVMBytecodeCompiler {
             @Nullable File outputDir,
             boolean jarRuntime) {
 
-        for (Module moduleBuilder : modules) {
-            ClassFileFactory moduleFactory = compileModule(configuration, moduleBuilder, directory);
-            if (moduleFactory == null) {
-                return false;
+        int threadCount = configuration.get(JVMConfigurationKeys.MODULE_COMPILATION_THREADS, 1);
+        // All modules are written to the same jar if it is specified, so they can't be compiled in parallel
+        if (threadCount <= 1 || modules.size() <= 1 || jarPath != null) {
+            for (Module moduleBuilder : modules) {
+                if (!compileAndWriteModule(configuration, null, moduleBuilder, directory, jarPath, outputDir, jarRuntime)) {
+                    return false;
+                }
             }
-            if (outputDir != null) {
-                CompileEnvironmentUtil.writeToOutputDirectory(moduleFactory, outputDir);
+            return true;
+        }
+
+        return compileModulesInParallel(configuration, modules, directory, outputDir, jarRuntime, threadCount);
+    }
+
+    private static boolean compileAndWriteModule(
+            @NotNull CompilerConfiguration configuration,
+            @Nullable JavaCoreApplicationEnvironment applicationEnvironment,
+            @NotNull Module moduleBuilder,
+            @NotNull File directory,
+            @Nullable File jarPath,
+            @Nullable File outputDir,
+            boolean jarRuntime
+    ) {
+        long start = System.nanoTime();
+
+        ClassFileFactory moduleFactory = compileModule(configuration, moduleBuilder, directory, applicationEnvironment);
+        if (moduleFactory == null) {
+            return false;
+        }
+        if (outputDir != null) {
+            CompileEnvironmentUtil.writeToOutputDirectory(moduleFactory, outputDir);
+        }
+        else {
+            File path = jarPath != null ? jarPath : getModuleJar(moduleBuilder, directory);
+            FileOutputStream outputStream = null;
+            try {
+                outputStream = new FileOutputStream(path);
+                CompileEnvironmentUtil.writeToJar(moduleFactory, outputStream, null, jarRuntime);
+                outputStream.close();
             }
-            else {
-                File path = jarPath != null ? jarPath : new File(directory, moduleBuilder.getModuleName() + ".jar");
-                FileOutputStream outputStream = null;
-                try {
-                    outputStream = new FileOutputStream(path);
-                    CompileEnvironmentUtil.writeToJar(moduleFactory, outputStream, null, jarRuntime);
-                    outputStream.close();
-                }
-                catch (FileNotFoundException e) {
-                    throw new CompileEnvironmentException("Invalid jar path " + path, e);
+            catch (FileNotFoundException e) {
+                throw new CompileEnvironmentException("Invalid jar path " + path, e);
+            }
+            catch (IOException e) {
+                throw ExceptionUtils.rethrow(e);
+            }
+            finally {
+                ExceptionUtils.closeQuietly(outputStream);
+            }
+        }
+
+        MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
+        if (messageCollector != null) {
+            messageCollector.report(CompilerMessageSeverity.LOGGING,
+                                    "Module " + moduleBuilder.getModuleName() + " compiled in " +
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms",
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+        return true;
+    }
+
+    @NotNull
+    private static File getModuleJar(@NotNull Module moduleBuilder, @NotNull File directory) {
+        return new File(directory, moduleBuilder.getModuleName() + ".jar");
+    }
+
+    /**
+     * Compiles modules on a bounded pool of workers. A module is started as soon as all the modules it depends on
+     * (see {@link #getModuleDependencies}) are compiled and written, so independent modules are compiled concurrently.
+     *
+     * The core application is global: an application environment installs itself into {@code ApplicationManager} and
+     * restores the previous application when it's disposed. So all the modules share one application environment,
+     * which is disposed only after every worker has stopped.
+     *
+     * Read-only state is shared by the modules:
+     * <ul>
+     *     <li>built-ins are resolved completely by the first module, the others only read them;</li>
+     *     <li>the jar file system with the entry indexes of the jars belongs to the application environment;</li>
+     *     <li>decoded signatures of library classes are kept in {@link org.jetbrains.jet.lang.resolve.java.LibrarySignatureCache}.</li>
+     * </ul>
+     * Package indexes of the classpath stay with the project of each module, as the classpaths of the modules differ.
+     * Process-wide caches used during analysis are thread-safe: interned {@link org.jetbrains.jet.lang.resolve.name.Name}s
+     * and qualified names are created with {@code putIfAbsent}, and supertype closures are immutable once published
+     * (see {@link org.jetbrains.jet.lang.types.SupertypeClosure}).
+     */
+    private static boolean compileModulesInParallel(
+            @NotNull CompilerConfiguration configuration,
+            @NotNull List<Module> modules,
+            @NotNull final File directory,
+            @Nullable final File outputDir,
+            final boolean jarRuntime,
+            int threadCount
+    ) {
+        final CompilerConfiguration parallelConfiguration = configuration.copy();
+        MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
+        if (messageCollector != null) {
+            parallelConfiguration.put(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY, new SynchronizedMessageCollector(messageCollector));
+        }
+        // Modules are already compiled concurrently, their sources are parsed on the module's thread
+        parallelConfiguration.put(JVMConfigurationKeys.SOURCE_PARSING_THREADS, 1);
+
+        List<Set<Integer>> dependencies = getModuleDependencies(modules, directory, outputDir);
+        int moduleCount = modules.size();
+        boolean[] started = new boolean[moduleCount];
+        boolean[] finished = new boolean[moduleCount];
+        int finishedCount = 0;
+        int runningCount = 0;
+        boolean failed = false;
+
+        Disposable applicationDisposable = CompileEnvironmentUtil.createMockDisposable();
+        final JavaCoreApplicationEnvironment applicationEnvironment = JetCoreEnvironment.createApplicationEnvironment(applicationDisposable);
+        final PhaseMetrics metrics = PhaseMetrics.current();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(executor);
+        try {
+            while (finishedCount < moduleCount) {
+                if (!failed) {
+                    for (int i = 0; i < moduleCount; i++) {
+                        if (started[i] || !allFinished(dependencies.get(i), finished)) continue;
+
+                        started[i] = true;
+                        runningCount++;
+                        final int moduleIndex = i;
+                        final Module module = modules.get(i);
+                        completionService.submit(new Callable<Integer>() {
+                            @Override
+                            public Integer call() {
+                                PhaseMetrics.attach(metrics);
+                                try {
+                                    boolean success = compileAndWriteModule(parallelConfiguration, applicationEnvironment, module, directory,
+                                                                            null, outputDir, jarRuntime);
+                                    return success ? moduleIndex : -1;
+                                }
+                                finally {
+                                    PhaseMetrics.attach(null);
+                                }
+                            }
+                        });
+                    }
                 }
-                catch (IOException e) {
-                    throw ExceptionUtils.rethrow(e);
+
+                if (runningCount == 0) break;
+
+                int completed = getCompletedModule(completionService);
+                runningCount--;
+                if (completed < 0) {
+                    failed = true;
                 }
-                finally {
-                    ExceptionUtils.closeQuietly(outputStream);
+                else {
+                    finished[completed] = true;
+                    finishedCount++;
                 }
             }
+            return !failed;
+        }
+        finally {
+            executor.shutdownNow();
+            awaitTermination(executor);
+            Disposer.dispose(applicationDisposable);
+        }
+    }
+
+    private static void awaitTermination(@NotNull ExecutorService executor) {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // Modules that are still compiling use the shared application environment
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static int getCompletedModule(@NotNull CompletionService<Integer> completionService) {
+        try {
+            return completionService.take().get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionUtils.rethrow(e);
+        }
+        catch (ExecutionException e) {
+            throw ExceptionUtils.rethrow(e.getCause());
+        }
+    }
+
+    private static boolean allFinished(@NotNull Set<Integer> modules, @NotNull boolean[] finished) {
+        for (Integer module : modules) {
+            if (!finished[module]) return false;
         }
         return true;
     }
 
+    /**
+     * Module {@code j} depends on an earlier module {@code i} if its classpath contains the output of {@code i}
+     * or any of its sources. Dependencies on later modules are ignored: when modules are compiled sequentially,
+     * they are not compiled yet at that point either.
+     */
+    @NotNull
+    private static List<Set<Integer>> getModuleDependencies(
+            @NotNull List<Module> modules,
+            @NotNull File directory,
+            @Nullable File outputDir
+    ) {
+        List<Set<File>> providedRoots = new ArrayList<Set<File>>();
+        for (Module module : modules) {
+            Set<File> roots = new HashSet<File>();
+            roots.add((outputDir != null ? outputDir : getModuleJar(module, directory)).getAbsoluteFile());
+            for (String sourceFile : module.getSourceFiles()) {
+                File source = new File(sourceFile);
+                roots.add((source.isAbsolute() ? source : new File(directory, sourceFile)).getAbsoluteFile());
+            }
+            providedRoots.add(roots);
+        }
+
+        List<Set<Integer>> result = new ArrayList<Set<Integer>>();
+        for (int j = 0; j < modules.size(); j++) {
+            Set<Integer> dependencies = new HashSet<Integer>();
+            for (String classpathRoot : modules.get(j).getClasspathRoots()) {
+                File root = new File(classpathRoot).getAbsoluteFile();
+                for (int i = 0; i < j; i++) {
+                    if (providedRoots.get(i).contains(root)) {
+                        dependencies.add(i);
+                    }
+                }
+            }
+            result.add(dependencies);
+        }
+        return result;
+    }
+
+    private static class SynchronizedMessageCollector implements MessageCollector {
+        private final MessageCollector delegate;
+
+        private SynchronizedMessageCollector(@NotNull MessageCollector delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void report(
+                @NotNull CompilerMessageSeverity severity,
+                @NotNull String message,
+                @NotNull CompilerMessageLocation location
+        ) {
+            delegate.report(severity, message, location);
+        }
+    }
+
     @Nullable
     private static FqName findMainClass(@NotNull List<JetFile> files) {
         FqName mainClass = null;
@@ -289,7 +541,14 @@ public class KotlinToJVMBytecodeCompiler {
             boolean stubs,
             List<AnalyzerScriptParameter> scriptParameters
     ) {
-        AnalyzeExhaust exhaust = analyze(environment, scriptParameters, stubs);
+        AnalyzeExhaust exhaust;
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Analysis");
+        try {
+            exhaust = analyze(environment, scriptParameters, stubs);
+        }
+        finally {
+            phase.finish(environment.getSourceFiles().size());
+        }
 
         if (exhaust == null) {
             return null;
@@ -297,7 +556,13 @@ public class KotlinToJVMBytecodeCompiler {
 
         exhaust.throwIfError();
 
-        return generate(environment, exhaust, stubs);
+        phase = PhaseMetrics.startPhase("Code generation");
+        try {
+            return generate(environment, exhaust, stubs);
+        }
+        finally {
+            phase.finish(environment.getSourceFiles().size());
+        }
     }
 
     @Nullable
@@ -360,6 +625,14 @@ public class KotlinToJVMBytecodeCompiler {
         );
         KotlinCodegenFacade.compileCorrectFiles(generationState, CompilationErrorHandler.THROW_EXCEPTION);
 
+        MessageCollector messageCollector = configuration.get(CLIConfigurationKeys.MESSAGE_COLLECTOR_KEY);
+        if (messageCollector != null) {
+            int capturedByValue = CodegenBinding.getCapturedByValueCount(generationState.getBindingContext());
+            messageCollector.report(CompilerMessageSeverity.LOGGING,
+                                    "Captured local variables stored without shared boxes: " + capturedByValue,
+                                    CompilerMessageLocation.NO_LOCATION);
+        }
+
         CompilerPluginContext context = new CompilerPluginContext(project, exhaust.getBindingContext(), environment.getSourceFiles());
         for (CompilerPlugin plugin : configuration.getList(CLIConfigurationKeys.COMPILER_PLUGINS)) {
             plugin.processFiles(context);
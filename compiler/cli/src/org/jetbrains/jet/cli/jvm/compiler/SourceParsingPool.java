@@ -0,0 +1,116 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.util.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.utils.ExceptionUtils;
+import org.jetbrains.jet.utils.PhaseMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Workers parsing source files, shared by all the environments of the process, so that environments created
+ * concurrently (e.g. for modules compiled in parallel) don't start a pool each. Idle workers stop after a while.
+ */
+/*package*/ final class SourceParsingPool {
+    /*package*/ static final int MAX_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        EXECUTOR = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                                          new ThreadFactory() {
+                                              private final AtomicInteger count = new AtomicInteger();
+
+                                              @Override
+                                              public Thread newThread(@NotNull Runnable runnable) {
+                                                  Thread thread = new Thread(runnable, "Kotlin source parsing " + count.incrementAndGet());
+                                                  thread.setDaemon(true);
+                                                  return thread;
+                                              }
+                                          });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private SourceParsingPool() {
+    }
+
+    /**
+     * Applies the function to all the items on at most <code>threadCount</code> workers of the pool.
+     *
+     * @return the results in the order of the items
+     */
+    @NotNull
+    /*package*/ static <F, T> List<T> map(@NotNull final List<F> items, int threadCount, @NotNull final Function<F, T> function) {
+        int workerCount = Math.min(Math.min(threadCount, MAX_THREADS), items.size());
+        final AtomicReferenceArray<T> results = new AtomicReferenceArray<T>(items.size());
+        final AtomicInteger nextIndex = new AtomicInteger();
+        final PhaseMetrics metrics = PhaseMetrics.current();
+
+        List<Future<?>> workers = new ArrayList<Future<?>>(workerCount);
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                workers.add(EXECUTOR.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        PhaseMetrics.attach(metrics);
+                        try {
+                            for (int index = nextIndex.getAndIncrement(); index < items.size(); index = nextIndex.getAndIncrement()) {
+                                results.set(index, function.fun(items.get(index)));
+                            }
+                            return null;
+                        }
+                        finally {
+                            PhaseMetrics.attach(null);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> worker : workers) {
+                waitFor(worker);
+            }
+        }
+        finally {
+            // Stops the other workers if one of them has failed
+            nextIndex.set(items.size());
+        }
+
+        List<T> result = new ArrayList<T>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            result.add(results.get(i));
+        }
+        return result;
+    }
+
+    private static void waitFor(@NotNull Future<?> worker) {
+        try {
+            worker.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw ExceptionUtils.rethrow(e);
+        }
+        catch (ExecutionException e) {
+            throw ExceptionUtils.rethrow(e.getCause());
+        }
+    }
+}
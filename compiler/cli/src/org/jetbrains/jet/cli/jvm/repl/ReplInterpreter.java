@@ -19,9 +19,9 @@ package org.jetbrains.jet.cli.jvm.repl;
 import com.google.common.base.Predicates;
 import com.google.common.base.Throwables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.CharsetToolkit;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiFileFactory;
@@ -37,19 +37,23 @@ import org.jetbrains.jet.cli.jvm.JVMConfigurationKeys;
 import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
 import org.jetbrains.jet.codegen.ClassBuilderFactories;
 import org.jetbrains.jet.codegen.CompilationErrorHandler;
+import org.jetbrains.jet.codegen.binding.CodegenBinding;
 import org.jetbrains.jet.codegen.state.GenerationState;
 import org.jetbrains.jet.config.CompilerConfiguration;
 import org.jetbrains.jet.di.InjectorForTopDownAnalyzerForJvm;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
 import org.jetbrains.jet.lang.descriptors.ModuleDescriptorImpl;
 import org.jetbrains.jet.lang.descriptors.ScriptDescriptor;
+import org.jetbrains.jet.lang.descriptors.SimpleFunctionDescriptor;
 import org.jetbrains.jet.lang.descriptors.impl.NamespaceDescriptorImpl;
 import org.jetbrains.jet.lang.descriptors.impl.NamespaceLikeBuilderDummy;
-import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.*;
 import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
 import org.jetbrains.jet.lang.resolve.java.JvmClassName;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.lang.resolve.scopes.RedeclarationHandler;
 import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
 import org.jetbrains.jet.lang.resolve.scopes.WritableScopeImpl;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
@@ -63,15 +67,28 @@ import java.lang.reflect.Field;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class ReplInterpreter {
 
+    private static final int INITIAL_SESSION_CAPACITY = 16;
+
     private int lineNumber = 0;
-    @Nullable
-    private JetScope lastLineScope;
-    private List<EarlierLine> earlierLines = Lists.newArrayList();
+    @NotNull
+    private final ReplSessionScope sessionScope;
+    /**
+     * Positions of earlier lines in {@link #earlierScriptInstances}, extended with every new line and passed to the code generator
+     * as it is, so that nothing has to be rebuilt from the whole session for a line
+     */
+    private final Map<ScriptDescriptor, Integer> earlierScriptIndices = Maps.newHashMap();
+    /**
+     * Instances of earlier lines, passed to the constructor of every new line. When it is full, a bigger copy is made:
+     * lines evaluated before keep the old array which still has all the lines they may reference.
+     */
+    private Object[] earlierScriptInstances = new Object[INITIAL_SESSION_CAPACITY];
     private List<String> previousIncompleteLines = Lists.newArrayList();
     private final ReplClassLoader classLoader;
 
@@ -96,6 +113,7 @@ public class ReplInterpreter {
                 Collections.<AnalyzerScriptParameter>emptyList());
         injector = new InjectorForTopDownAnalyzerForJvm(project, topDownAnalysisParameters, trace, module);
         module.setModuleConfiguration(injector.getJavaBridgeConfiguration());
+        sessionScope = new ReplSessionScope(module);
 
         List<URL> classpath = Lists.newArrayList();
 
@@ -219,16 +237,11 @@ public class ReplInterpreter {
             return LineResult.error(errorCollector.getString());
         }
 
-        List<Pair<ScriptDescriptor, JvmClassName>> earierScripts = Lists.newArrayList();
-
-        for (EarlierLine earlierLine : earlierLines) {
-            earierScripts.add(Pair.create(earlierLine.getScriptDescriptor(), earlierLine.getClassName()));
-        }
-
         BindingContext bindingContext = AnalyzeExhaust.success(trace.getBindingContext(), module).getBindingContext();
         GenerationState generationState = new GenerationState(psiFile.getProject(), ClassBuilderFactories.binaries(false),
                                                               bindingContext, Collections.singletonList(psiFile));
-        generationState.getScriptCodegen().compileScript(psiFile.getScript(), scriptClassName, earierScripts,
+        generationState.getScriptCodegen().compileScript(psiFile.getScript(), scriptClassName,
+                                                         Collections.unmodifiableMap(earlierScriptIndices),
                                                          CompilationErrorHandler.THROW_EXCEPTION);
 
         for (String file : generationState.getFactory().files()) {
@@ -238,13 +251,9 @@ public class ReplInterpreter {
         try {
             Class<?> scriptClass = classLoader.loadClass(scriptClassName.getFqName().asString());
 
-            Class<?>[] constructorParams = new Class<?>[earlierLines.size()];
-            Object[] constructorArgs = new Object[earlierLines.size()];
-
-            for (int i = 0; i < earlierLines.size(); ++i) {
-                constructorParams[i] = earlierLines.get(i).getScriptClass();
-                constructorArgs[i] = earlierLines.get(i).getScriptInstance();
-            }
+            // See ScriptCodegen.EARLIER_SCRIPTS_FIELD_NAME
+            Class<?>[] constructorParams = earlierScriptIndices.isEmpty() ? new Class<?>[0] : new Class<?>[] {Object[].class};
+            Object[] constructorArgs = earlierScriptIndices.isEmpty() ? new Object[0] : new Object[] {earlierScriptInstances};
 
             Constructor<?> scriptInstanceConstructor = scriptClass.getConstructor(constructorParams);
             Object scriptInstance;
@@ -257,7 +266,7 @@ public class ReplInterpreter {
             rvField.setAccessible(true);
             Object rv = rvField.get(scriptInstance);
 
-            earlierLines.add(new EarlierLine(line, scriptDescriptor, scriptClass, scriptInstance, scriptClassName));
+            addToSession(psiFile, scriptDescriptor, scriptClassName, scriptInstance);
 
             return LineResult.successful(rv, scriptDescriptor.getReturnType().equals(KotlinBuiltIns.getInstance().getUnitType()));
         } catch (Throwable e) {
@@ -268,8 +277,73 @@ public class ReplInterpreter {
         }
     }
 
-    @Nullable
-    private ScriptDescriptor doAnalyze(@NotNull JetFile psiFile, @NotNull MessageCollector messageCollector) {
+    private void addToSession(
+            @NotNull JetFile psiFile,
+            @NotNull ScriptDescriptor scriptDescriptor,
+            @NotNull JvmClassName scriptClassName,
+            @NotNull Object scriptInstance
+    ) {
+        JetScript script = psiFile.getScript();
+        assert script != null;
+
+        JetScope lineScope = trace.get(BindingContext.SCRIPT_SCOPE, scriptDescriptor);
+        if (lineScope == null) {
+            throw new IllegalStateException("last line scope is not initialized");
+        }
+        for (DeclarationDescriptor descriptor : lineScope.getOwnDeclaredDescriptors()) {
+            sessionScope.addDeclaration(descriptor);
+        }
+        // Functions are not among the own declared descriptors of a block scope
+        for (JetDeclaration declaration : script.getDeclarations()) {
+            if (declaration instanceof JetNamedFunction) {
+                SimpleFunctionDescriptor function = trace.get(BindingContext.FUNCTION, declaration);
+                assert function != null : "No descriptor for " + declaration.getText();
+                sessionScope.addDeclaration(function);
+            }
+        }
+
+        List<JetImportDirective> importDirectives = script.getImportDirectives();
+        if (!importDirectives.isEmpty()) {
+            sessionScope.addImports(resolveImports(importDirectives));
+        }
+
+        CodegenBinding.registerClassNameForScript(trace, scriptDescriptor, scriptClassName);
+
+        int index = earlierScriptIndices.size();
+        earlierScriptIndices.put(scriptDescriptor, index);
+        if (index == earlierScriptInstances.length) {
+            earlierScriptInstances = Arrays.copyOf(earlierScriptInstances, index * 2);
+        }
+        earlierScriptInstances[index] = scriptInstance;
+    }
+
+    /**
+     * Imports of a line have already been resolved into the scope of its script, which can't be kept for later lines
+     * because it has the whole session scope as a parent
+     */
+    @NotNull
+    private JetScope resolveImports(@NotNull List<JetImportDirective> importDirectives) {
+        WritableScope importScope = new WritableScopeImpl(JetScope.EMPTY, module, RedeclarationHandler.DO_NOTHING,
+                                                          "Imports of REPL line " + lineNumber);
+        importScope.changeLockLevel(WritableScope.LockLevel.BOTH);
+
+        JetScope rootScope = createRootScope();
+        // Errors are reported by the analysis of the line
+        BindingTrace temporaryTrace = TemporaryBindingTrace.create(trace, "imports of a REPL line");
+        QualifiedExpressionResolver qualifiedExpressionResolver = new QualifiedExpressionResolver();
+        Importer.DelayedImporter importer = new Importer.DelayedImporter(importScope);
+        for (JetImportDirective importDirective : importDirectives) {
+            qualifiedExpressionResolver.processImportReference(importDirective, rootScope, importScope, importer, temporaryTrace, module,
+                                                               QualifiedExpressionResolver.LookupMode.EVERYTHING);
+        }
+        importer.processImports();
+
+        importScope.changeLockLevel(WritableScope.LockLevel.READING);
+        return importScope;
+    }
+
+    @NotNull
+    private WritableScope createRootScope() {
         WritableScope scope = new WritableScopeImpl(
                 JetScope.EMPTY, module,
                 new TraceBasedRedeclarationHandler(trace), "Root scope in analyzeNamespace");
@@ -286,11 +360,15 @@ public class ReplInterpreter {
         // This makes the namespaces visible at all, does not import themselves
         scope.importScope(rootNs.getMemberScope());
 
-        if (lastLineScope != null) {
-            scope.importScope(lastLineScope);
-        }
+        scope.importScope(sessionScope);
 
         scope.changeLockLevel(WritableScope.LockLevel.READING);
+        return scope;
+    }
+
+    @Nullable
+    private ScriptDescriptor doAnalyze(@NotNull JetFile psiFile, @NotNull MessageCollector messageCollector) {
+        WritableScope scope = createRootScope();
 
         // dummy builder is used because "root" is module descriptor,
         // namespaces added to module explicitly in
@@ -301,13 +379,7 @@ public class ReplInterpreter {
             return null;
         }
 
-        ScriptDescriptor scriptDescriptor = injector.getTopDownAnalysisContext().getScripts().get(psiFile.getScript());
-        lastLineScope = trace.get(BindingContext.SCRIPT_SCOPE, scriptDescriptor);
-        if (lastLineScope == null) {
-            throw new IllegalStateException("last line scope is not initialized");
-        }
-
-        return scriptDescriptor;
+        return injector.getTopDownAnalysisContext().getScripts().get(psiFile.getScript());
     }
 
     public void dumpClasses(@NotNull PrintWriter out) {
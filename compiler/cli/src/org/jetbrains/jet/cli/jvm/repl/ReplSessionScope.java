@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.repl;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.lang.resolve.scopes.JetScopeImpl;
+
+import java.util.*;
+
+/**
+ * Declarations and imports of all the lines evaluated so far. Every line adds to this scope instead of importing the scope
+ * of the previous line, so a lookup doesn't go through the scopes of all the earlier lines.
+ *
+ * A variable or a class of a later line hides the one with the same name from an earlier line. Functions of all lines
+ * are returned, overload resolution prefers the ones from later lines (see {@link ScriptDescriptor#getPriority()}).
+ *
+ * Implicit receivers of earlier lines are not exposed: they are all of type Any, so the receiver of the current line
+ * is enough to call anything declared in an earlier one.
+ */
+class ReplSessionScope extends JetScopeImpl {
+    @NotNull
+    private final DeclarationDescriptor containingDeclaration;
+
+    private final Map<Name, ClassifierDescriptor> classifiers = Maps.newHashMap();
+    private final Map<Name, VariableDescriptor> variables = Maps.newHashMap();
+    private final Multimap<Name, FunctionDescriptor> functions = LinkedHashMultimap.create();
+    private final List<DeclarationDescriptor> declaredDescriptors = Lists.newArrayList();
+
+    // Imports of later lines go first
+    private final LinkedList<JetScope> imports = Lists.newLinkedList();
+
+    ReplSessionScope(@NotNull DeclarationDescriptor containingDeclaration) {
+        this.containingDeclaration = containingDeclaration;
+    }
+
+    public void addDeclaration(@NotNull DeclarationDescriptor descriptor) {
+        if (descriptor instanceof ClassifierDescriptor) {
+            classifiers.put(descriptor.getName(), (ClassifierDescriptor) descriptor);
+        }
+        else if (descriptor instanceof VariableDescriptor) {
+            variables.put(descriptor.getName(), (VariableDescriptor) descriptor);
+        }
+        else if (descriptor instanceof FunctionDescriptor) {
+            functions.put(descriptor.getName(), (FunctionDescriptor) descriptor);
+        }
+        else {
+            throw new IllegalStateException("Unexpected declaration in REPL line: " + descriptor);
+        }
+        declaredDescriptors.add(descriptor);
+    }
+
+    public void addImports(@NotNull JetScope importScope) {
+        imports.addFirst(importScope);
+    }
+
+    @NotNull
+    @Override
+    public DeclarationDescriptor getContainingDeclaration() {
+        return containingDeclaration;
+    }
+
+    @Override
+    public ClassifierDescriptor getClassifier(@NotNull Name name) {
+        ClassifierDescriptor classifier = classifiers.get(name);
+        if (classifier != null) return classifier;
+
+        for (JetScope imported : imports) {
+            ClassifierDescriptor importedClassifier = imported.getClassifier(name);
+            if (importedClassifier != null) return importedClassifier;
+        }
+        return null;
+    }
+
+    @Override
+    public ClassDescriptor getObjectDescriptor(@NotNull Name name) {
+        for (JetScope imported : imports) {
+            ClassDescriptor objectDescriptor = imported.getObjectDescriptor(name);
+            if (objectDescriptor != null) return objectDescriptor;
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Set<ClassDescriptor> getObjectDescriptors() {
+        Set<ClassDescriptor> result = Sets.newLinkedHashSet();
+        for (JetScope imported : imports) {
+            result.addAll(imported.getObjectDescriptors());
+        }
+        return result;
+    }
+
+    @Override
+    public NamespaceDescriptor getNamespace(@NotNull Name name) {
+        for (JetScope imported : imports) {
+            NamespaceDescriptor namespace = imported.getNamespace(name);
+            if (namespace != null) return namespace;
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Collection<VariableDescriptor> getProperties(@NotNull Name name) {
+        if (imports.isEmpty()) return Collections.emptySet();
+
+        Set<VariableDescriptor> result = Sets.newLinkedHashSet();
+        for (JetScope imported : imports) {
+            result.addAll(imported.getProperties(name));
+        }
+        return result;
+    }
+
+    @Override
+    public VariableDescriptor getLocalVariable(@NotNull Name name) {
+        VariableDescriptor variable = variables.get(name);
+        if (variable != null) return variable;
+
+        for (JetScope imported : imports) {
+            VariableDescriptor importedVariable = imported.getLocalVariable(name);
+            if (importedVariable != null) return importedVariable;
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public Collection<FunctionDescriptor> getFunctions(@NotNull Name name) {
+        Set<FunctionDescriptor> result = Sets.newLinkedHashSet(functions.get(name));
+        for (JetScope imported : imports) {
+            result.addAll(imported.getFunctions(name));
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Collection<DeclarationDescriptor> getAllDescriptors() {
+        List<DeclarationDescriptor> result = Lists.newArrayList(declaredDescriptors);
+        for (JetScope imported : imports) {
+            result.addAll(imported.getAllDescriptors());
+        }
+        return result;
+    }
+
+    @NotNull
+    @Override
+    public Collection<DeclarationDescriptor> getOwnDeclaredDescriptors() {
+        return Collections.unmodifiableList(declaredDescriptors);
+    }
+
+    @Override
+    public String toString() {
+        return "REPL session scope with " + declaredDescriptors.size() + " declarations";
+    }
+}
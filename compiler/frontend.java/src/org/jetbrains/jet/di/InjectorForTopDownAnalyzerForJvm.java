@@ -391,6 +391,10 @@ public class InjectorForTopDownAnalyzerForJvm implements InjectorForTopDownAnaly
         return this.javaBridgeConfiguration;
     }
     
+    public JavaDescriptorResolver getJavaDescriptorResolver() {
+        return this.javaDescriptorResolver;
+    }
+    
     public NamespaceFactoryImpl getNamespaceFactory() {
         return this.namespaceFactory;
     }
@@ -35,6 +35,7 @@ import org.jetbrains.jet.lang.resolve.*;
 import org.jetbrains.jet.lang.resolve.lazy.ResolveSession;
 import org.jetbrains.jet.lang.resolve.lazy.declarations.FileBasedDeclarationProviderFactory;
 import org.jetbrains.jet.lang.resolve.lazy.storage.LockBasedStorageManager;
+import org.jetbrains.jet.lang.resolve.lazy.storage.LockProtectedTrace;
 import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
@@ -84,9 +85,11 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
         InjectorForJavaDescriptorResolver injector = new InjectorForJavaDescriptorResolver(fileProject, javaResolverTrace, javaModule);
 
         final PsiClassFinder psiClassFinder = injector.getPsiClassFinder();
+        final JavaDescriptorResolver javaDescriptorResolver = injector.getJavaDescriptorResolver();
 
+        // Java resolution is done under the lock of the resolver and can be called from lazy computations
+        LockBasedStorageManager storageManager = new LockBasedStorageManager(javaDescriptorResolver.getLock());
         // TODO: Replace with stub declaration provider
-        LockBasedStorageManager storageManager = new LockBasedStorageManager();
         FileBasedDeclarationProviderFactory declarationProviderFactory = new FileBasedDeclarationProviderFactory(storageManager, files, new Predicate<FqName>() {
             @Override
             public boolean apply(FqName fqName) {
@@ -94,8 +97,6 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
             }
         });
 
-        final JavaDescriptorResolver javaDescriptorResolver = injector.getJavaDescriptorResolver();
-
         ModuleConfiguration moduleConfiguration = new ModuleConfiguration() {
 
             @Override
@@ -193,6 +194,10 @@ public enum AnalyzerFacadeForJVM implements AnalyzerFacade {
         InjectorForTopDownAnalyzerForJvm injector = new InjectorForTopDownAnalyzerForJvm(
                 project, topDownAnalysisParameters,
                 new ObservableBindingTrace(trace), owner);
+        if (trace instanceof LockProtectedTrace) {
+            // Java classes and deferred types are resolved on demand into the trace, see DeferredType
+            injector.getJavaDescriptorResolver().setLock(((LockProtectedTrace) trace).getLock());
+        }
         owner.setModuleConfiguration(injector.getJavaBridgeConfiguration());
         try {
             injector.getTopDownAnalyzer().analyzeFiles(files, scriptParameters);
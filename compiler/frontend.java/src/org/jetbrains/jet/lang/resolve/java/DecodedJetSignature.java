@@ -0,0 +1,328 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import gnu.trove.TIntArrayList;
+import jet.typeinfo.TypeInfoVariance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.rt.signature.JetSignatureReader;
+import org.jetbrains.jet.rt.signature.JetSignatureVariance;
+import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A Kotlin signature from {@code @JetMethod}, {@code @JetValueParameter} or {@code @JetClass} decoded into a compact form:
+ * the calls {@link JetSignatureReader} makes on a visitor, encoded as ints, and the names they pass.
+ *
+ * It depends on nothing but the signature string, so it can outlive the compilation which decoded it,
+ * see {@link LibrarySignatureCache}.
+ */
+public final class DecodedJetSignature {
+    public enum Mode {
+        /**
+         * @see JetSignatureReader#accept(JetSignatureVisitor)
+         */
+        SIGNATURE,
+        /**
+         * @see JetSignatureReader#acceptType(JetSignatureVisitor)
+         */
+        TYPE,
+        /**
+         * @see JetSignatureReader#acceptFormalTypeParametersOnly(JetSignatureVisitor)
+         */
+        FORMAL_TYPE_PARAMETERS
+    }
+
+    @NotNull
+    public static DecodedJetSignature decode(@NotNull String signature, @NotNull Mode mode) {
+        Encoder encoder = new Encoder();
+        JetSignatureReader reader = new JetSignatureReader(signature);
+        switch (mode) {
+            case SIGNATURE:
+                reader.accept(encoder.visitor(0));
+                break;
+            case TYPE:
+                reader.acceptType(encoder.visitor(0));
+                break;
+            case FORMAL_TYPE_PARAMETERS:
+                reader.acceptFormalTypeParametersOnly(encoder.visitor(0));
+                break;
+            default:
+                throw new IllegalStateException("Unknown mode: " + mode);
+        }
+        return encoder.result();
+    }
+
+    // Every call is two ints: the header with the operation, its flags and the depth of the visitor it was made on,
+    // and the argument: a name index, a variance ordinal or a primitive type descriptor
+    private static final int OP_FORMAL_TYPE_PARAMETER = 0;
+    private static final int OP_FORMAL_TYPE_PARAMETER_END = 1;
+    private static final int OP_CLASS_BOUND = 2;
+    private static final int OP_INTERFACE_BOUND = 3;
+    private static final int OP_SUPERCLASS = 4;
+    private static final int OP_INTERFACE = 5;
+    private static final int OP_PARAMETER_TYPE = 6;
+    private static final int OP_RETURN_TYPE = 7;
+    private static final int OP_EXCEPTION_TYPE = 8;
+    private static final int OP_BASE_TYPE = 9;
+    private static final int OP_TYPE_VARIABLE = 10;
+    private static final int OP_ARRAY_TYPE = 11;
+    private static final int OP_CLASS_TYPE = 12;
+    private static final int OP_INNER_CLASS_TYPE = 13;
+    private static final int OP_UNBOUNDED_TYPE_ARGUMENT = 14;
+    private static final int OP_TYPE_ARGUMENT = 15;
+    private static final int OP_END = 16;
+
+    private static final int FLAG_NULLABLE = 1;
+    private static final int FLAG_FORCE_REAL = 2;
+    private static final int FLAG_REIFIED = 4;
+    // Variance of a formal type parameter goes to the flags above the reified bit
+    private static final int VARIANCE_SHIFT = 3;
+
+    private static final int OP_MASK = 0xFF;
+    private static final int FLAGS_SHIFT = 8;
+    private static final int FLAGS_MASK = 0xFF;
+    private static final int DEPTH_SHIFT = 16;
+
+    private static final TypeInfoVariance[] TYPE_INFO_VARIANCES = TypeInfoVariance.values();
+    private static final JetSignatureVariance[] SIGNATURE_VARIANCES = JetSignatureVariance.values();
+
+    private final int[] calls;
+    private final String[] names;
+    private final int maxDepth;
+
+    private DecodedJetSignature(@NotNull int[] calls, @NotNull String[] names, int maxDepth) {
+        this.calls = calls;
+        this.names = names;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Makes the same calls on the visitor as {@link JetSignatureReader} would make on it
+     */
+    public void replay(@NotNull JetSignatureVisitor visitor) {
+        // A visitor returned by a call is only used until the next call on a visitor of the same or lower depth
+        JetSignatureVisitor[] visitors = new JetSignatureVisitor[maxDepth + 2];
+        visitors[0] = visitor;
+        for (int i = 0; i < calls.length; i += 2) {
+            int header = calls[i];
+            int argument = calls[i + 1];
+            int depth = header >>> DEPTH_SHIFT;
+            int flags = (header >>> FLAGS_SHIFT) & FLAGS_MASK;
+            boolean nullable = (flags & FLAG_NULLABLE) != 0;
+            boolean forceReal = (flags & FLAG_FORCE_REAL) != 0;
+
+            JetSignatureVisitor v = visitors[depth];
+            switch (header & OP_MASK) {
+                case OP_FORMAL_TYPE_PARAMETER:
+                    visitors[depth + 1] = v.visitFormalTypeParameter(names[argument], TYPE_INFO_VARIANCES[flags >>> VARIANCE_SHIFT], (flags & FLAG_REIFIED) != 0);
+                    break;
+                case OP_FORMAL_TYPE_PARAMETER_END:
+                    v.visitFormalTypeParameterEnd();
+                    break;
+                case OP_CLASS_BOUND:
+                    visitors[depth + 1] = v.visitClassBound();
+                    break;
+                case OP_INTERFACE_BOUND:
+                    visitors[depth + 1] = v.visitInterfaceBound();
+                    break;
+                case OP_SUPERCLASS:
+                    visitors[depth + 1] = v.visitSuperclass();
+                    break;
+                case OP_INTERFACE:
+                    visitors[depth + 1] = v.visitInterface();
+                    break;
+                case OP_PARAMETER_TYPE:
+                    visitors[depth + 1] = v.visitParameterType();
+                    break;
+                case OP_RETURN_TYPE:
+                    visitors[depth + 1] = v.visitReturnType();
+                    break;
+                case OP_EXCEPTION_TYPE:
+                    visitors[depth + 1] = v.visitExceptionType();
+                    break;
+                case OP_BASE_TYPE:
+                    v.visitBaseType((char) argument, nullable);
+                    break;
+                case OP_TYPE_VARIABLE:
+                    v.visitTypeVariable(names[argument], nullable);
+                    break;
+                case OP_ARRAY_TYPE:
+                    visitors[depth + 1] = v.visitArrayType(nullable, SIGNATURE_VARIANCES[argument]);
+                    break;
+                case OP_CLASS_TYPE:
+                    v.visitClassType(names[argument], nullable, forceReal);
+                    break;
+                case OP_INNER_CLASS_TYPE:
+                    v.visitInnerClassType(names[argument], nullable, forceReal);
+                    break;
+                case OP_UNBOUNDED_TYPE_ARGUMENT:
+                    v.visitTypeArgument();
+                    break;
+                case OP_TYPE_ARGUMENT:
+                    visitors[depth + 1] = v.visitTypeArgument(SIGNATURE_VARIANCES[argument]);
+                    break;
+                case OP_END:
+                    v.visitEnd();
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown operation in header " + header);
+            }
+        }
+    }
+
+    private static class Encoder {
+        private final TIntArrayList calls = new TIntArrayList();
+        private final List<String> names = Lists.newArrayList();
+        private final Map<String, Integer> nameIndices = Maps.newHashMap();
+        private int maxDepth = 0;
+
+        @NotNull
+        private JetSignatureVisitor visitor(int depth) {
+            maxDepth = Math.max(maxDepth, depth);
+            return new EncodingVisitor(depth);
+        }
+
+        private void call(int depth, int op, int flags, int argument) {
+            calls.add(op | flags << FLAGS_SHIFT | depth << DEPTH_SHIFT);
+            calls.add(argument);
+        }
+
+        private int name(@NotNull String name) {
+            Integer index = nameIndices.get(name);
+            if (index == null) {
+                index = names.size();
+                names.add(name);
+                nameIndices.put(name, index);
+            }
+            return index;
+        }
+
+        @NotNull
+        private DecodedJetSignature result() {
+            return new DecodedJetSignature(calls.toNativeArray(), names.toArray(new String[names.size()]), maxDepth);
+        }
+
+        private static int flags(boolean nullable, boolean forceReal) {
+            return (nullable ? FLAG_NULLABLE : 0) | (forceReal ? FLAG_FORCE_REAL : 0);
+        }
+
+        private class EncodingVisitor implements JetSignatureVisitor {
+            private final int depth;
+
+            private EncodingVisitor(int depth) {
+                this.depth = depth;
+            }
+
+            @NotNull
+            private JetSignatureVisitor nested(int op, int flags, int argument) {
+                call(depth, op, flags, argument);
+                return visitor(depth + 1);
+            }
+
+            @Override
+            public JetSignatureVisitor visitFormalTypeParameter(String name, TypeInfoVariance variance, boolean reified) {
+                int flags = (reified ? FLAG_REIFIED : 0) | variance.ordinal() << VARIANCE_SHIFT;
+                return nested(OP_FORMAL_TYPE_PARAMETER, flags, name(name));
+            }
+
+            @Override
+            public void visitFormalTypeParameterEnd() {
+                call(depth, OP_FORMAL_TYPE_PARAMETER_END, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitClassBound() {
+                return nested(OP_CLASS_BOUND, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitInterfaceBound() {
+                return nested(OP_INTERFACE_BOUND, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitSuperclass() {
+                return nested(OP_SUPERCLASS, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitInterface() {
+                return nested(OP_INTERFACE, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitParameterType() {
+                return nested(OP_PARAMETER_TYPE, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitReturnType() {
+                return nested(OP_RETURN_TYPE, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitExceptionType() {
+                return nested(OP_EXCEPTION_TYPE, 0, 0);
+            }
+
+            @Override
+            public void visitBaseType(char descriptor, boolean nullable) {
+                call(depth, OP_BASE_TYPE, flags(nullable, false), descriptor);
+            }
+
+            @Override
+            public void visitTypeVariable(String name, boolean nullable) {
+                call(depth, OP_TYPE_VARIABLE, flags(nullable, false), name(name));
+            }
+
+            @Override
+            public JetSignatureVisitor visitArrayType(boolean nullable, JetSignatureVariance wildcard) {
+                return nested(OP_ARRAY_TYPE, flags(nullable, false), wildcard.ordinal());
+            }
+
+            @Override
+            public void visitClassType(String name, boolean nullable, boolean forceReal) {
+                call(depth, OP_CLASS_TYPE, flags(nullable, forceReal), name(name));
+            }
+
+            @Override
+            public void visitInnerClassType(String name, boolean nullable, boolean forceReal) {
+                call(depth, OP_INNER_CLASS_TYPE, flags(nullable, forceReal), name(name));
+            }
+
+            @Override
+            public void visitTypeArgument() {
+                call(depth, OP_UNBOUNDED_TYPE_ARGUMENT, 0, 0);
+            }
+
+            @Override
+            public JetSignatureVisitor visitTypeArgument(JetSignatureVariance wildcard) {
+                return nested(OP_TYPE_ARGUMENT, 0, wildcard.ordinal());
+            }
+
+            @Override
+            public void visitEnd() {
+                call(depth, OP_END, 0, 0);
+            }
+        }
+    }
+}
@@ -35,6 +35,11 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Descriptors are resolved on demand and cached by the resolvers and Java scopes, which are not thread-safe. The IDE
+ * analyzes bodies of different files against the same declarations concurrently, so all the resolution is done under
+ * {@link #getLock()}, this object by default.
+ */
 public class JavaDescriptorResolver implements DependencyClassByQualifiedNameResolver {
 
     public static final Name JAVA_ROOT = Name.special("<java_root>");
@@ -143,6 +148,8 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
         }
     };
 
+    private Object lock = this;
+
     private JavaPropertyResolver propertiesResolver;
     private JavaClassResolver classResolver;
     private JavaConstructorResolver constructorResolver;
@@ -150,6 +157,19 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
     private JavaNamespaceResolver namespaceResolver;
     private JavaInnerClassResolver innerClassResolver;
 
+    /**
+     * @param lock the lock to resolve descriptors under, shared with the trace the descriptors are recorded into if it's
+     *             protected by a lock too (see LockProtectedTrace), so that the two locks are never acquired in different orders
+     */
+    public void setLock(@NotNull Object lock) {
+        this.lock = lock;
+    }
+
+    @NotNull
+    public Object getLock() {
+        return lock;
+    }
+
     @Inject
     public void setFunctionResolver(JavaFunctionResolver functionResolver) {
         this.functionResolver = functionResolver;
@@ -182,34 +202,46 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
 
     @Nullable
     public ClassDescriptor resolveClass(@NotNull FqName qualifiedName, @NotNull DescriptorSearchRule searchRule) {
-        return classResolver.resolveClass(qualifiedName, searchRule);
+        synchronized (lock) {
+            return classResolver.resolveClass(qualifiedName, searchRule);
+        }
     }
 
     @Override
     public ClassDescriptor resolveClass(@NotNull FqName qualifiedName) {
-        return classResolver.resolveClass(qualifiedName);
+        synchronized (lock) {
+            return classResolver.resolveClass(qualifiedName);
+        }
     }
 
     @NotNull
     public Collection<ConstructorDescriptor> resolveConstructors(
             @NotNull ClassPsiDeclarationProvider classData, @NotNull ClassDescriptor classDescriptor
     ) {
-        return constructorResolver.resolveConstructors(classData, classDescriptor);
+        synchronized (lock) {
+            return constructorResolver.resolveConstructors(classData, classDescriptor);
+        }
     }
 
     @Nullable
     public NamespaceDescriptor resolveNamespace(@NotNull FqName qualifiedName, @NotNull DescriptorSearchRule searchRule) {
-        return namespaceResolver.resolveNamespace(qualifiedName, searchRule);
+        synchronized (lock) {
+            return namespaceResolver.resolveNamespace(qualifiedName, searchRule);
+        }
     }
 
     @Override
     public NamespaceDescriptor resolveNamespace(@NotNull FqName qualifiedName) {
-        return namespaceResolver.resolveNamespace(qualifiedName);
+        synchronized (lock) {
+            return namespaceResolver.resolveNamespace(qualifiedName);
+        }
     }
 
     @Nullable
     public JetScope getJavaPackageScope(@NotNull NamespaceDescriptor namespaceDescriptor) {
-        return namespaceResolver.getJavaPackageScopeForExistingNamespaceDescriptor(namespaceDescriptor);
+        synchronized (lock) {
+            return namespaceResolver.getJavaPackageScopeForExistingNamespaceDescriptor(namespaceDescriptor);
+        }
     }
 
     @NotNull
@@ -218,12 +250,16 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
             @NotNull PsiDeclarationProvider data,
             @NotNull ClassOrNamespaceDescriptor ownerDescriptor
     ) {
-        return propertiesResolver.resolveFieldGroupByName(name, data, ownerDescriptor);
+        synchronized (lock) {
+            return propertiesResolver.resolveFieldGroupByName(name, data, ownerDescriptor);
+        }
     }
 
     @Nullable
     public ClassDescriptor resolveClass(@NotNull FqName name, @NotNull DescriptorSearchRule searchRule, @NotNull PostponedTasks tasks) {
-        return classResolver.resolveClass(name, searchRule, tasks);
+        synchronized (lock) {
+            return classResolver.resolveClass(name, searchRule, tasks);
+        }
     }
 
     public static class ValueParameterDescriptors {
@@ -252,7 +288,9 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
             @NotNull ClassPsiDeclarationProvider scopeData,
             @NotNull ClassOrNamespaceDescriptor ownerDescriptor
     ) {
-        return functionResolver.resolveFunctionGroup(methodName, scopeData, ownerDescriptor);
+        synchronized (lock) {
+            return functionResolver.resolveFunctionGroup(methodName, scopeData, ownerDescriptor);
+        }
     }
 
     @NotNull
@@ -261,11 +299,15 @@ public class JavaDescriptorResolver implements DependencyClassByQualifiedNameRes
             @NotNull PackagePsiDeclarationProvider scopeData,
             @NotNull NamespaceDescriptor ownerDescriptor
     ) {
-        return functionResolver.resolveFunctionGroup(methodName, scopeData, ownerDescriptor);
+        synchronized (lock) {
+            return functionResolver.resolveFunctionGroup(methodName, scopeData, ownerDescriptor);
+        }
     }
 
     @NotNull
     public List<ClassDescriptor> resolveInnerClasses(@NotNull ClassPsiDeclarationProvider declarationProvider) {
-        return innerClassResolver.resolveInnerClasses(declarationProvider);
+        synchronized (lock) {
+            return innerClassResolver.resolveInnerClasses(declarationProvider);
+        }
     }
 }
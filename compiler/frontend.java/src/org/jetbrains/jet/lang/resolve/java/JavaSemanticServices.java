@@ -40,6 +40,8 @@ public class JavaSemanticServices {
     private BindingTrace trace;
     @NotNull
     private PsiDeclarationProviderFactory psiDeclarationProviderFactory;
+    @NotNull
+    private final LibrarySignatureCache.Session librarySignatures = LibrarySignatureCache.getInstance().newSession();
 
     @Inject
     public void setTypeTransformer(@NotNull JavaTypeTransformer typeTransformer) {
@@ -91,6 +93,15 @@ public class JavaSemanticServices {
         return psiDeclarationProviderFactory;
     }
 
+    /**
+     * Kotlin signatures of compiled classes are decoded through it, so that the ones from jars are shared with
+     * other compilations in the process
+     */
+    @NotNull
+    public LibrarySignatureCache.Session getLibrarySignatures() {
+        return librarySignatures;
+    }
+
     @Nullable
     public ClassDescriptor getKotlinBuiltinClassDescriptor(@NotNull FqName qualifiedName) {
         if (qualifiedName.firstSegmentIs(Name.identifier("jet")) && qualifiedName.pathSegments().size() == 2) {
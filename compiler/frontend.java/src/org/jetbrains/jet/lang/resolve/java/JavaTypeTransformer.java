@@ -29,7 +29,6 @@ import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.types.*;
 import org.jetbrains.jet.lang.types.checker.JetTypeChecker;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
-import org.jetbrains.jet.rt.signature.JetSignatureReader;
 
 import javax.inject.Inject;
 import java.util.Collections;
@@ -88,8 +87,15 @@ public class JavaTypeTransformer {
         return result;
     }
 
+    /**
+     * @param context an element of the class file the signature comes from
+     */
     @NotNull
-    public JetType transformToType(@NotNull String kotlinSignature, TypeVariableResolver typeVariableResolver) {
+    public JetType transformToType(
+            @NotNull String kotlinSignature,
+            @NotNull PsiElement context,
+            TypeVariableResolver typeVariableResolver
+    ) {
         final JetType[] r = new JetType[1];
         JetTypeJetSignatureReader reader = new JetTypeJetSignatureReader(javaSemanticServices, KotlinBuiltIns.getInstance(), typeVariableResolver) {
             @Override
@@ -97,7 +103,7 @@ public class JavaTypeTransformer {
                 r[0] = jetType;
             }
         };
-        new JetSignatureReader(kotlinSignature).acceptType(reader);
+        javaSemanticServices.getLibrarySignatures().acceptType(context, kotlinSignature, reader);
         return r[0];
     }
 
@@ -44,6 +44,12 @@ public class JvmAbi {
     public static final String CLASS_OBJECT_FIELD = "object$";
     public static final String RECEIVER_PARAMETER = "$receiver";
 
+    /**
+     * Synthetic static method of a Kotlin enum class returning its values without copying the array.
+     * Only called by code compiled together with the enum, and only where the array can't be modified
+     */
+    public static final String ENUM_VALUES_WITHOUT_COPY = "values$noCopy";
+
     public static final JvmClassName JETBRAINS_NOT_NULL_ANNOTATION =
             JvmClassName.byFqNameWithoutInnerClasses("org.jetbrains.annotations.NotNull");
 
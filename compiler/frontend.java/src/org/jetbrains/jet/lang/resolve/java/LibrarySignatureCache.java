@@ -0,0 +1,232 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.java;
+
+import com.google.common.collect.Maps;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decoded Kotlin signatures of library classes, kept per classpath entry and shared by all the compilations in the process:
+ * modules compiled one after another against the same jars don't decode the signatures of their members again.
+ *
+ * Descriptors of library classes can't be shared this way: they hold the PSI and the resolvers of the project that created them,
+ * and the project is disposed with its compilation. Decoding signatures is the part of loading a library that depends on
+ * its class files only.
+ *
+ * Only jars are cached, a jar is identified by its path, size and modification time, and its signatures are dropped when
+ * any of them changes. Classes from directories are decoded every time, as directories are usually outputs of modules
+ * which are being compiled. When a compilation starts using a jar and the cache holds more than the maximum number of
+ * signatures, the jars used least recently are evicted.
+ *
+ * The cache and its sessions are used by modules compiled in parallel: the jar table is guarded by its own lock, and
+ * signatures of a jar are kept in concurrent maps. Decoded signatures are immutable, two threads may decode the same
+ * signature at the same time, but only one of the results is kept.
+ */
+public final class LibrarySignatureCache {
+    private static final int MAX_SIGNATURES = 200000;
+
+    private static final LibrarySignatureCache INSTANCE = new LibrarySignatureCache(MAX_SIGNATURES);
+
+    private static final String JAR_SEPARATOR = "!/";
+    private static final Object NOT_A_JAR = new Object();
+
+    @NotNull
+    public static LibrarySignatureCache getInstance() {
+        return INSTANCE;
+    }
+
+    private final int maxSignatures;
+
+    // Jar path -> entry, in the order the jars were used in
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private int evictedEntryCount = 0;
+    private final AtomicLong decodedSignatureCount = new AtomicLong();
+
+    public LibrarySignatureCache(int maxSignatures) {
+        this.maxSignatures = maxSignatures;
+    }
+
+    /**
+     * A session looks a jar up in the cache once and only checks that the jar is unchanged then, it is meant to live
+     * as long as one compilation
+     */
+    @NotNull
+    public Session newSession() {
+        return new Session();
+    }
+
+    @NotNull
+    private Entry acquire(@NotNull String jarPath) {
+        File jar = new File(jarPath);
+        long length = jar.length();
+        long lastModified = jar.lastModified();
+        synchronized (entries) {
+            Entry entry = entries.get(jarPath);
+            if (entry == null || entry.length != length || entry.lastModified != lastModified) {
+                entry = new Entry(length, lastModified);
+                entries.put(jarPath, entry);
+            }
+            evictLeastRecentlyUsed();
+            return entry;
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        int signatureCount = 0;
+        for (Entry entry : entries.values()) {
+            signatureCount += entry.size.get();
+        }
+        // The entry used last is the last one and is never evicted
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (signatureCount > maxSignatures && entries.size() > 1) {
+            Entry entry = iterator.next();
+            signatureCount -= entry.size.get();
+            iterator.remove();
+            evictedEntryCount++;
+        }
+    }
+
+    @NotNull
+    private DecodedJetSignature decode(@Nullable Entry entry, @NotNull String signature, @NotNull DecodedJetSignature.Mode mode) {
+        ConcurrentMap<String, DecodedJetSignature> signatures = entry != null ? entry.signatures.get(mode) : null;
+        DecodedJetSignature decoded = signatures != null ? signatures.get(signature) : null;
+        if (decoded == null) {
+            decoded = DecodedJetSignature.decode(signature, mode);
+            decodedSignatureCount.incrementAndGet();
+            // An entry stops growing at the maximum, the signatures of the jar are decoded every time after that
+            if (signatures != null && entry.size.get() < maxSignatures && signatures.putIfAbsent(signature, decoded) == null) {
+                entry.size.incrementAndGet();
+            }
+        }
+        return decoded;
+    }
+
+    public int getCachedSignatureCount() {
+        synchronized (entries) {
+            int signatureCount = 0;
+            for (Entry entry : entries.values()) {
+                signatureCount += entry.size.get();
+            }
+            return signatureCount;
+        }
+    }
+
+    public long getDecodedSignatureCount() {
+        return decodedSignatureCount.get();
+    }
+
+    public int getEvictedEntryCount() {
+        synchronized (entries) {
+            return evictedEntryCount;
+        }
+    }
+
+    private static class Entry {
+        private final long length;
+        private final long lastModified;
+        private final Map<DecodedJetSignature.Mode, ConcurrentMap<String, DecodedJetSignature>> signatures =
+                Maps.newEnumMap(DecodedJetSignature.Mode.class);
+        private final AtomicInteger size = new AtomicInteger();
+
+        private Entry(long length, long lastModified) {
+            this.length = length;
+            this.lastModified = lastModified;
+            for (DecodedJetSignature.Mode mode : DecodedJetSignature.Mode.values()) {
+                signatures.put(mode, new ConcurrentHashMap<String, DecodedJetSignature>());
+            }
+        }
+    }
+
+    public final class Session {
+        // Root of a class file's file system -> entry of the jar, or NOT_A_JAR. An entry stays with the session even if
+        // it is evicted from the cache meanwhile
+        private final ConcurrentMap<VirtualFile, Object> jarEntries = new ConcurrentHashMap<VirtualFile, Object>();
+
+        private Session() {
+        }
+
+        /**
+         * @param context an element of the class file the signature comes from
+         * @see org.jetbrains.jet.rt.signature.JetSignatureReader#accept(JetSignatureVisitor)
+         */
+        public void accept(@NotNull PsiElement context, @NotNull String signature, @NotNull JetSignatureVisitor visitor) {
+            decode(getVirtualFile(context), signature, DecodedJetSignature.Mode.SIGNATURE).replay(visitor);
+        }
+
+        /**
+         * @see org.jetbrains.jet.rt.signature.JetSignatureReader#acceptType(JetSignatureVisitor)
+         */
+        public void acceptType(@NotNull PsiElement context, @NotNull String signature, @NotNull JetSignatureVisitor visitor) {
+            decode(getVirtualFile(context), signature, DecodedJetSignature.Mode.TYPE).replay(visitor);
+        }
+
+        /**
+         * @see org.jetbrains.jet.rt.signature.JetSignatureReader#acceptFormalTypeParametersOnly(JetSignatureVisitor)
+         */
+        public void acceptFormalTypeParametersOnly(@NotNull PsiElement context, @NotNull String signature, @NotNull JetSignatureVisitor visitor) {
+            decode(getVirtualFile(context), signature, DecodedJetSignature.Mode.FORMAL_TYPE_PARAMETERS).replay(visitor);
+        }
+
+        /**
+         * @param classFile the class file the signature comes from, null if it's not known
+         */
+        @NotNull
+        public DecodedJetSignature decode(@Nullable VirtualFile classFile, @NotNull String signature, @NotNull DecodedJetSignature.Mode mode) {
+            return LibrarySignatureCache.this.decode(getEntry(classFile), signature, mode);
+        }
+
+        @Nullable
+        private Entry getEntry(@Nullable VirtualFile classFile) {
+            if (classFile == null) return null;
+
+            VirtualFile root = classFile;
+            while (root.getParent() != null) {
+                root = root.getParent();
+            }
+
+            Object entry = jarEntries.get(root);
+            if (entry == null) {
+                String rootPath = root.getPath();
+                entry = rootPath.endsWith(JAR_SEPARATOR)
+                        ? acquire(rootPath.substring(0, rootPath.length() - JAR_SEPARATOR.length()))
+                        : NOT_A_JAR;
+                jarEntries.put(root, entry);
+            }
+            return entry != NOT_A_JAR ? (Entry) entry : null;
+        }
+    }
+
+    @Nullable
+    private static VirtualFile getVirtualFile(@NotNull PsiElement element) {
+        PsiFile file = element.getContainingFile();
+        return file != null ? file.getVirtualFile() : null;
+    }
+}
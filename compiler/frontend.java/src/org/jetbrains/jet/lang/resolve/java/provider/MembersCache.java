@@ -20,6 +20,7 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multimap;
 import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.*;
 import com.intellij.psi.util.MethodSignature;
 import com.intellij.psi.util.MethodSignatureBackedByPsiMethod;
@@ -48,17 +49,28 @@ public final class MembersCache {
 
     private final Multimap<Name, Runnable> memberProcessingTasks = HashMultimap.create();
     private final Map<Name, NamedMembers> namedMembersMap = new HashMap<Name, NamedMembers>();
+    // Members inherited from supertypes are not listed when the cache is built: walking the whole hierarchy of a wide class
+    // to resolve one of its names is wasted work. Their entries are created when their names are looked up
+    @Nullable
+    private ClassMemberProcessor classMemberProcessor;
 
     @Nullable
     public NamedMembers get(@NotNull Name name) {
         runTasksByName(name);
-        return namedMembersMap.get(name);
+        NamedMembers members = namedMembersMap.get(name);
+        if (members == null && classMemberProcessor != null && classMemberProcessor.hasInheritedMember(name)) {
+            members = getOrCreateEmpty(name);
+        }
+        return members;
     }
 
     @NotNull
     public Collection<NamedMembers> allMembers() {
         runAllTasks();
         memberProcessingTasks.clear();
+        if (classMemberProcessor != null) {
+            classMemberProcessor.createEntriesForInheritedMembers();
+        }
         return namedMembersMap.values();
     }
 
@@ -109,7 +121,8 @@ public final class MembersCache {
             boolean isKotlin
     ) {
         if (psiClass != null) {
-            membersCache.new ClassMemberProcessor(new PsiClassWrapper(psiClass), staticMembers, isKotlin).process();
+            membersCache.classMemberProcessor = membersCache.new ClassMemberProcessor(new PsiClassWrapper(psiClass), staticMembers, isKotlin);
+            membersCache.classMemberProcessor.process();
         }
 
         //TODO:
@@ -127,18 +140,28 @@ public final class MembersCache {
         }
 
         private void process() {
-            for (PsiClass psiClass : psiClasses) {
+            for (final PsiClass psiClass : psiClasses) {
                 if (!(psiClass instanceof JetJavaMirrorMarker)) { // to filter out JetLightClasses
-                    if (JetClassAnnotation.get(psiClass).kind() == JvmStdlibNames.FLAG_CLASS_KIND_OBJECT) {
-                        processObjectClass(psiClass);
-                    }
-                    if (isSamInterface(psiClass)) {
-                        processSamInterface(psiClass);
-                    }
+                    // Finding out whether a class is a SAM interface walks its supertypes, so it's only done on lookup by its name
+                    addTask(psiClass, new RunOnce() {
+                        @Override
+                        public void doRun() {
+                            processClass(psiClass);
+                        }
+                    });
                 }
             }
         }
 
+        private void processClass(@NotNull PsiClass psiClass) {
+            if (JetClassAnnotation.get(psiClass).kind() == JvmStdlibNames.FLAG_CLASS_KIND_OBJECT) {
+                processObjectClass(psiClass);
+            }
+            if (isSamInterface(psiClass)) {
+                processSamInterface(psiClass);
+            }
+        }
+
         private void processObjectClass(@NotNull PsiClass psiClass) {
             PsiField instanceField = psiClass.findFieldByName(JvmAbi.INSTANCE_FIELD, false);
             if (instanceField != null) {
@@ -173,12 +196,17 @@ public final class MembersCache {
             processNestedClasses();
         }
 
+        // Hack to load static members for enum class loaded from class file
+        private boolean hasFields() {
+            return !kotlin || psiClass.getPsiClass().isEnum();
+        }
+
         private void processFields() {
-            // Hack to load static members for enum class loaded from class file
-            if (kotlin && !psiClass.getPsiClass().isEnum()) {
+            if (!hasFields()) {
                 return;
             }
-            for (final PsiField field : psiClass.getPsiClass().getAllFields()) {
+            // Inherited fields only get empty entries, see hasInheritedMember()
+            for (final PsiField field : psiClass.getPsiClass().getFields()) {
                 addTask(field, new RunOnce() {
                     @Override
                     public void doRun() {
@@ -189,7 +217,6 @@ public final class MembersCache {
         }
 
         private void processMethods() {
-            parseAllMethodsAsProperties();
             processOwnMethods();
         }
 
@@ -210,13 +237,45 @@ public final class MembersCache {
             }
         }
 
-        private void parseAllMethodsAsProperties() {
+        /**
+         * Members of the class and its supertypes have entries even if they are not included, so that the resolver looks for
+         * the members they override. This is a lookup by name in the hierarchy, which PSI indexes once per class
+         */
+        private boolean hasInheritedMember(@NotNull Name name) {
+            if (name.isSpecial()) {
+                return false;
+            }
+            PsiClass aClass = psiClass.getPsiClass();
+            String identifier = name.asString();
+            if (aClass.findMethodsByName(identifier, true).length > 0) {
+                return true;
+            }
+            if (hasFields() && aClass.findFieldByName(identifier, true) != null) {
+                return true;
+            }
+            // Accessors are parsed as properties: "getFoo" and "setFoo" for "foo", see PropertyNameUtils
+            for (String suffix : new String[] {identifier, StringUtil.capitalize(identifier)}) {
+                if (!StringUtil.decapitalize(suffix).equals(identifier)) continue;
+                if (aClass.findMethodsByName(JvmAbi.GETTER_PREFIX + suffix, true).length > 0 ||
+                    aClass.findMethodsByName(JvmAbi.SETTER_PREFIX + suffix, true).length > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void createEntriesForInheritedMembers() {
             for (PsiMethod method : psiClass.getPsiClass().getAllMethods()) {
-                createEmptyEntry(Name.identifier(method.getName()));
+                getOrCreateEmpty(Name.identifier(method.getName()));
 
                 PropertyParseResult propertyParseResult = PropertyNameUtils.parseMethodToProperty(method.getName());
                 if (propertyParseResult != null) {
-                    createEmptyEntry(Name.identifier(propertyParseResult.getPropertyName()));
+                    getOrCreateEmpty(Name.identifier(propertyParseResult.getPropertyName()));
+                }
+            }
+            if (hasFields()) {
+                for (PsiField field : psiClass.getPsiClass().getAllFields()) {
+                    getOrCreateEmpty(Name.identifier(field.getName()));
                 }
             }
         }
@@ -374,10 +433,6 @@ public final class MembersCache {
             }
         }
 
-        private void createEmptyEntry(@NotNull Name identifier) {
-            getOrCreateEmpty(identifier);
-        }
-
         private void processNestedClass(PsiClass nested) {
             if (isSamInterface(nested)) {
                 NamedMembers namedMembers = getOrCreateEmpty(Name.identifier(nested.getName()));
@@ -61,16 +61,13 @@ public final class JavaClassResolver {
             new THashMap<FqNameBase, ClassDescriptor>(new TObjectHashingStrategy<FqNameBase>() {
                 @Override
                 public int computeHashCode(FqNameBase o) {
-                    if (o instanceof FqName) {
-                        return ((FqName) o).toUnsafe().hashCode();
-                    }
-                    assert o instanceof FqNameUnsafe;
+                    // Hash codes of FqName and FqNameUnsafe with the same name are equal
                     return o.hashCode();
                 }
 
                 @Override
                 public boolean equals(FqNameBase n1, FqNameBase n2) {
-                    return n1.equalsTo(n2.toString()) && n2.equalsTo(n1.toString());
+                    return n1.equalsTo(n2);
                 }
             });
 
@@ -249,8 +246,7 @@ public final class JavaClassResolver {
                 = signatureResolver.createUninitializedClassTypeParameters(psiClass, classDescriptor);
 
         classDescriptor.setTypeParameterDescriptors(getTypeParametersDescriptors(typeParameterDescriptorInitializations));
-        List<JetType> supertypes = Lists.newArrayList();
-        classDescriptor.setSupertypes(supertypes);
+        classDescriptor.setSupertypes(Lists.<JetType>newArrayList());
         classDescriptor.setVisibility(DescriptorResolverUtils.resolveVisibility(psiClass, jetClassAnnotation));
         classDescriptor.setModality(resolveModality(psiClass, classDescriptor));
         classDescriptor.createTypeConstructor();
@@ -263,7 +259,7 @@ public final class JavaClassResolver {
 
         // TODO: ugly hack: tests crash if initializeTypeParameters called with class containing proper supertypes
         List<TypeParameterDescriptor> classTypeParameters = classDescriptor.getTypeConstructor().getParameters();
-        supertypes.addAll(supertypesResolver.getSupertypes(classDescriptor, new PsiClassWrapper(psiClass), classData, classTypeParameters));
+        classDescriptor.addSupertypes(supertypesResolver.getSupertypes(classDescriptor, new PsiClassWrapper(psiClass), classData, classTypeParameters));
 
         ClassDescriptorFromJvmBytecode classObjectDescriptor = classObjectResolver.createClassObjectDescriptor(classDescriptor, psiClass);
         cache(DescriptorResolverUtils.getFqNameForClassObject(psiClass), classObjectDescriptor);
@@ -388,6 +384,10 @@ public final class JavaClassResolver {
     // This method replaces "object" segments of FQ name to "<class-object-for-...>"
     @NotNull
     private static FqNameUnsafe javaClassToKotlinFqName(@NotNull FqName rawFqName) {
+        if (!rawFqName.asString().contains(JvmAbi.CLASS_OBJECT_CLASS_NAME)) {
+            return rawFqName.toUnsafe();
+        }
+
         List<Name> correctedSegments = new ArrayList<Name>();
         for (Name segment : rawFqName.pathSegments()) {
             if (JvmAbi.CLASS_OBJECT_CLASS_NAME.equals(segment.asString())) {
@@ -430,7 +430,7 @@ public final class JavaFunctionResolver {
 
         JetType transformedType;
         if (returnTypeFromAnnotation.length() > 0) {
-            transformedType = typeTransformer.transformToType(returnTypeFromAnnotation, typeVariableResolver);
+            transformedType = typeTransformer.transformToType(returnTypeFromAnnotation, method.getPsiMethod(), typeVariableResolver);
         }
         else {
             TypeUsage typeUsage = JavaTypeTransformer.adjustTypeUsageWithMutabilityAnnotations(method.getPsiMethod(), TypeUsage.MEMBER_SIGNATURE_COVARIANT);
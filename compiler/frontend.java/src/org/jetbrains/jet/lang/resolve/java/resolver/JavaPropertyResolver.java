@@ -385,7 +385,8 @@ public final class JavaPropertyResolver {
     ) {
         if (!characteristicMember.getType().getTypeString().isEmpty()) {
             return semanticServices.getTypeTransformer().transformToType(
-                    characteristicMember.getType().getTypeString(), typeVariableResolverForPropertyInternals);
+                    characteristicMember.getType().getTypeString(), characteristicMember.getType().getPsiNotNullOwner(),
+                    typeVariableResolverForPropertyInternals);
         }
         JetType propertyType = semanticServices.getTypeTransformer().transformToType(
                 characteristicMember.getType().getPsiType(), typeVariableResolverForPropertyInternals);
@@ -409,7 +410,8 @@ public final class JavaPropertyResolver {
             return null;
         }
         if (!characteristicMember.getReceiverType().getTypeString().isEmpty()) {
-            return semanticServices.getTypeTransformer().transformToType(characteristicMember.getReceiverType().getTypeString(), typeVariableResolverForPropertyInternals);
+            return semanticServices.getTypeTransformer().transformToType(characteristicMember.getReceiverType().getTypeString(),
+                    characteristicMember.getReceiverType().getPsiNotNullOwner(), typeVariableResolverForPropertyInternals);
         }
         return semanticServices.getTypeTransformer().transformToType(characteristicMember.getReceiverType().getPsiType(), typeVariableResolverForPropertyInternals);
     }
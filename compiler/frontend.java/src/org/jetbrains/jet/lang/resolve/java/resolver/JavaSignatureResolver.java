@@ -34,7 +34,6 @@ import org.jetbrains.jet.lang.types.Variance;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.jet.rt.signature.JetSignatureAdapter;
 import org.jetbrains.jet.rt.signature.JetSignatureExceptionsAdapter;
-import org.jetbrains.jet.rt.signature.JetSignatureReader;
 import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
 
 import javax.inject.Inject;
@@ -238,7 +237,7 @@ public final class JavaSignatureResolver {
                 return new JetSignatureAdapter();
             }
         };
-        new JetSignatureReader(jetSignature).accept(jetSignatureTypeParametersVisitor);
+        semanticServices.getLibrarySignatures().accept(clazz, jetSignature, jetSignatureTypeParametersVisitor);
         return jetSignatureTypeParametersVisitor.r;
     }
 
@@ -377,7 +376,7 @@ public final class JavaSignatureResolver {
         assert methodContainingClass != null;
         String context = "method " + method.getName() + " in class " + methodContainingClass.getQualifiedName();
         JetSignatureTypeParametersVisitor jetSignatureTypeParametersVisitor = new JetSignatureTypeParametersVisitor(functionDescriptor, method, context);
-        new JetSignatureReader(jetSignature).acceptFormalTypeParametersOnly(jetSignatureTypeParametersVisitor);
+        semanticServices.getLibrarySignatures().acceptFormalTypeParametersOnly(method, jetSignature, jetSignatureTypeParametersVisitor);
         return jetSignatureTypeParametersVisitor.r;
     }
 
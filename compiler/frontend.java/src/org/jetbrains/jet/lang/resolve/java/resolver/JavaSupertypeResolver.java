@@ -35,7 +35,6 @@ import org.jetbrains.jet.lang.types.TypeUtils;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
 import org.jetbrains.jet.rt.signature.JetSignatureAdapter;
 import org.jetbrains.jet.rt.signature.JetSignatureExceptionsAdapter;
-import org.jetbrains.jet.rt.signature.JetSignatureReader;
 import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
 
 import javax.inject.Inject;
@@ -111,7 +110,7 @@ public final class JavaSupertypeResolver {
         final TypeVariableResolver typeVariableResolver =
                 TypeVariableResolvers.typeVariableResolverFromTypeParameters(typeParameters, classDescriptor, context);
 
-        new JetSignatureReader(psiClass.getJetClass().signature()).accept(new JetSignatureExceptionsAdapter() {
+        semanticServices.getLibrarySignatures().accept(psiClass.getPsiClass(), psiClass.getJetClass().signature(), new JetSignatureExceptionsAdapter() {
             @Override
             public JetSignatureVisitor visitFormalTypeParameter(String name, TypeInfoVariance variance, boolean reified) {
                 // TODO: collect
@@ -68,7 +68,7 @@ public final class JavaValueParameterResolver {
 
         JetType outType;
         if (typeFromAnnotation.length() > 0) {
-            outType = getTypeTransformer().transformToType(typeFromAnnotation, typeVariableResolver);
+            outType = getTypeTransformer().transformToType(typeFromAnnotation, parameter.getPsiParameter(), typeVariableResolver);
         }
         else {
             TypeUsage typeUsage = JavaTypeTransformer.adjustTypeUsageWithMutabilityAnnotations(parameter.getPsiParameter(), TypeUsage.MEMBER_SIGNATURE_CONTRAVARIANT);
@@ -76,16 +76,18 @@ public abstract class JavaBaseScope extends JetScopeImpl {
     @NotNull
     @Override
     public Collection<VariableDescriptor> getProperties(@NotNull Name name) {
-        Set<VariableDescriptor> cached = propertyDescriptors.get(name);
-        if (cached != null) return cached;
+        synchronized (getResolver().getLock()) {
+            Set<VariableDescriptor> cached = propertyDescriptors.get(name);
+            if (cached != null) return cached;
 
-        if (allDescriptorsComputed()) {
-            return Collections.emptySet();
-        }
+            if (allDescriptorsComputed()) {
+                return Collections.emptySet();
+            }
 
-        Set<VariableDescriptor> computedDescriptors = computePropertyDescriptors(name);
-        propertyDescriptors.put(name, computedDescriptors);
-        return computedDescriptors;
+            Set<VariableDescriptor> computedDescriptors = computePropertyDescriptors(name);
+            propertyDescriptors.put(name, computedDescriptors);
+            return computedDescriptors;
+        }
     }
 
     @NotNull
@@ -96,16 +98,18 @@ public abstract class JavaBaseScope extends JetScopeImpl {
     @NotNull
     @Override
     public Collection<FunctionDescriptor> getFunctions(@NotNull Name name) {
-        Set<FunctionDescriptor> cached = functionDescriptors.get(name);
-        if (cached != null) return cached;
+        synchronized (getResolver().getLock()) {
+            Set<FunctionDescriptor> cached = functionDescriptors.get(name);
+            if (cached != null) return cached;
 
-        if (allDescriptorsComputed()) {
-            return Collections.emptySet();
-        }
+            if (allDescriptorsComputed()) {
+                return Collections.emptySet();
+            }
 
-        Set<FunctionDescriptor> computedDescriptors = computeFunctionDescriptor(name);
-        functionDescriptors.put(name, computedDescriptors);
-        return computedDescriptors;
+            Set<FunctionDescriptor> computedDescriptors = computeFunctionDescriptor(name);
+            functionDescriptors.put(name, computedDescriptors);
+            return computedDescriptors;
+        }
     }
 
     @NotNull
@@ -114,13 +118,15 @@ public abstract class JavaBaseScope extends JetScopeImpl {
     @NotNull
     @Override
     public Collection<DeclarationDescriptor> getAllDescriptors() {
-        if (allDescriptorsComputed()) {
-            return allDescriptors;
-        }
+        synchronized (getResolver().getLock()) {
+            if (allDescriptorsComputed()) {
+                return allDescriptors;
+            }
 
-        allDescriptors = computeAllDescriptors();
+            allDescriptors = computeAllDescriptors();
 
-        return allDescriptors;
+            return allDescriptors;
+        }
     }
 
     private boolean allDescriptorsComputed() {
@@ -138,10 +144,12 @@ public abstract class JavaBaseScope extends JetScopeImpl {
     @NotNull
     @Override
     public Set<ClassDescriptor> getObjectDescriptors() {
-        if (objectDescriptors == null) {
-            objectDescriptors = new HashSet<ClassDescriptor>(filterObjects(getInnerClasses(), true));
+        synchronized (getResolver().getLock()) {
+            if (objectDescriptors == null) {
+                objectDescriptors = new HashSet<ClassDescriptor>(filterObjects(getInnerClasses(), true));
+            }
+            return objectDescriptors;
         }
-        return objectDescriptors;
     }
 
     @NotNull
@@ -160,6 +168,7 @@ public abstract class JavaBaseScope extends JetScopeImpl {
         return result;
     }
 
+    // Descriptors of the scope are computed under the lock of the resolver, see JavaDescriptorResolver
     @NotNull
     protected JavaDescriptorResolver getResolver() {
         return semanticServices.getDescriptorResolver();
@@ -179,10 +188,12 @@ public abstract class JavaBaseScope extends JetScopeImpl {
 
     @NotNull
     protected Collection<ClassDescriptor> getInnerClasses() {
-        if (innerClasses == null) {
-            innerClasses = computeInnerClasses();
+        synchronized (getResolver().getLock()) {
+            if (innerClasses == null) {
+                innerClasses = computeInnerClasses();
+            }
+            return innerClasses;
         }
-        return innerClasses;
     }
 
     private static <T extends ClassDescriptor> Collection<T> filterObjects(Collection<T> classes, final boolean objects) {
@@ -44,14 +44,18 @@ public final class JavaClassNonStaticMembersScope extends JavaClassMembersScope
 
     @NotNull
     public Collection<ConstructorDescriptor> getConstructors() {
-        initConstructorsIfNeeded();
-        return constructors;
+        synchronized (getResolver().getLock()) {
+            initConstructorsIfNeeded();
+            return constructors;
+        }
     }
 
     @Nullable
     public ConstructorDescriptor getPrimaryConstructor() {
-        initConstructorsIfNeeded();
-        return primaryConstructor;
+        synchronized (getResolver().getLock()) {
+            initConstructorsIfNeeded();
+            return primaryConstructor;
+        }
     }
 
     private void initConstructorsIfNeeded() {
@@ -16,15 +16,26 @@
 
 package org.jetbrains.jet.analyzer;
 
+import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.intellij.openapi.project.Project;
+import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.di.InjectorForBodyResolve;
 import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
+import org.jetbrains.jet.lang.descriptors.PropertyDescriptor;
+import org.jetbrains.jet.lang.descriptors.ScriptDescriptor;
+import org.jetbrains.jet.lang.descriptors.SimpleFunctionDescriptor;
+import org.jetbrains.jet.lang.descriptors.impl.MutableClassDescriptor;
+import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.resolve.*;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class AnalyzerFacadeForEverything {
 
@@ -40,12 +51,13 @@ public class AnalyzerFacadeForEverything {
         TopDownAnalysisParameters topDownAnalysisParameters = new TopDownAnalysisParameters(
                 filesToAnalyzeCompletely, false, false, scriptParameters);
 
-        bodiesResolveContext.setTopDownAnalysisParameters(topDownAnalysisParameters);
+        // The context may be shared by analyses of different files running at the same time, so it is not modified
+        BodiesResolveContext context = new ContextWithParameters(bodiesResolveContext, topDownAnalysisParameters);
 
         InjectorForBodyResolve injector = new InjectorForBodyResolve(
                 project, topDownAnalysisParameters,
                 new ObservableBindingTrace(traceContext),
-                bodiesResolveContext, module);
+                context, module);
 
         try {
             injector.getBodyResolver().resolveBodies();
@@ -55,4 +67,64 @@ public class AnalyzerFacadeForEverything {
         }
     }
 
+    private static class ContextWithParameters implements BodiesResolveContext {
+        private final BodiesResolveContext context;
+        private TopDownAnalysisParameters topDownAnalysisParameters;
+
+        private ContextWithParameters(@NotNull BodiesResolveContext context, @NotNull TopDownAnalysisParameters parameters) {
+            this.context = context;
+            this.topDownAnalysisParameters = parameters;
+        }
+
+        @Override
+        public Collection<JetFile> getFiles() {
+            return context.getFiles();
+        }
+
+        @Override
+        public Map<JetClass, MutableClassDescriptor> getClasses() {
+            return context.getClasses();
+        }
+
+        @Override
+        public Map<JetObjectDeclaration, MutableClassDescriptor> getObjects() {
+            return context.getObjects();
+        }
+
+        @Override
+        public Map<JetProperty, PropertyDescriptor> getProperties() {
+            return context.getProperties();
+        }
+
+        @Override
+        public Map<JetNamedFunction, SimpleFunctionDescriptor> getFunctions() {
+            return context.getFunctions();
+        }
+
+        @Override
+        public Function<JetDeclaration, JetScope> getDeclaringScopes() {
+            return context.getDeclaringScopes();
+        }
+
+        @Override
+        public Map<JetScript, ScriptDescriptor> getScripts() {
+            return context.getScripts();
+        }
+
+        @Override
+        public Map<JetScript, WritableScope> getScriptScopes() {
+            return context.getScriptScopes();
+        }
+
+        @Override
+        public void setTopDownAnalysisParameters(TopDownAnalysisParameters parameters) {
+            topDownAnalysisParameters = parameters;
+        }
+
+        @Override
+        public boolean completeAnalysisNeeded(@NotNull PsiElement element) {
+            PsiFile containingFile = element.getContainingFile();
+            return containingFile != null && topDownAnalysisParameters.getAnalyzeCompletely().apply(containingFile);
+        }
+    }
 }
@@ -171,11 +171,12 @@ public abstract class MutableClassDescriptorLite extends ClassDescriptorBase {
     }
 
     public Collection<JetType> getSupertypes() {
-        return supertypes;
+        return Collections.unmodifiableCollection(supertypes);
     }
 
     public void setSupertypes(@NotNull Collection<JetType> supertypes) {
         this.supertypes = supertypes;
+        SupertypeClosure.supertypesModified();
     }
 
 
@@ -194,14 +195,28 @@ public abstract class MutableClassDescriptorLite extends ClassDescriptorBase {
     }
 
 
+    /**
+     * Unlike {@link #addSupertype(JetType)}, keeps supertypes which are not classes
+     */
+    public void addSupertypes(@NotNull Collection<JetType> supertypes) {
+        this.supertypes.addAll(supertypes);
+        SupertypeClosure.supertypesModified();
+    }
+
     public void addSupertype(@NotNull JetType supertype) {
         assert !ErrorUtils.isErrorType(supertype) : "Error types must be filtered out in DescriptorResolver";
         if (TypeUtils.getClassDescriptor(supertype) != null) {
             // See the Errors.SUPERTYPE_NOT_A_CLASS_OR_TRAIT
             supertypes.add(supertype);
+            SupertypeClosure.supertypesModified();
         }
     }
 
+    public void removeSupertype(@NotNull JetType supertype) {
+        supertypes.remove(supertype);
+        SupertypeClosure.supertypesModified();
+    }
+
     public void setTypeParameterDescriptors(List<TypeParameterDescriptor> typeParameters) {
         if (this.typeParameters != null) {
             throw new IllegalStateException();
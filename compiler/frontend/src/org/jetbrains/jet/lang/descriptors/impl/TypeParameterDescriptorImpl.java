@@ -64,6 +64,7 @@ public class TypeParameterDescriptorImpl extends DeclarationDescriptorNonRootImp
     private final int index;
     private final Variance variance;
     private final Set<JetType> upperBounds;
+    private final Set<JetType> unmodifiableUpperBounds;
     private JetType upperBoundsAsType;
     private final TypeConstructor typeConstructor;
     private JetType defaultType;
@@ -85,6 +86,8 @@ public class TypeParameterDescriptorImpl extends DeclarationDescriptorNonRootImp
         this.index = index;
         this.variance = variance;
         this.upperBounds = Sets.newLinkedHashSet();
+        // Bounds are only added through addUpperBound(), which invalidates the supertype closures
+        this.unmodifiableUpperBounds = Collections.unmodifiableSet(upperBounds);
         this.reified = reified;
         // TODO: Should we actually pass the annotations on to the type constructor?
         this.typeConstructor = new TypeConstructorImpl(
@@ -93,7 +96,7 @@ public class TypeParameterDescriptorImpl extends DeclarationDescriptorNonRootImp
                 false,
                 name.asString(),
                 Collections.<TypeParameterDescriptor>emptyList(),
-                upperBounds);
+                unmodifiableUpperBounds);
     }
 
     private void checkInitialized() {
@@ -135,6 +138,7 @@ public class TypeParameterDescriptorImpl extends DeclarationDescriptorNonRootImp
 
     private void doAddUpperBound(JetType bound) {
         upperBounds.add(bound); // TODO : Duplicates?
+        SupertypeClosure.supertypesModified();
     }
 
     public void addDefaultUpperBound() {
@@ -149,7 +153,7 @@ public class TypeParameterDescriptorImpl extends DeclarationDescriptorNonRootImp
     @NotNull
     public Set<JetType> getUpperBounds() {
         checkInitialized();
-        return upperBounds;
+        return unmodifiableUpperBounds;
     }
 
     @Override
@@ -26,6 +26,7 @@ import org.jetbrains.jet.lexer.JetTokens;
 
 import com.intellij.util.containers.Stack;
 
+import java.util.BitSet;
 
 import static org.jetbrains.jet.lexer.JetTokens.*;
 
@@ -35,8 +36,19 @@ public class SemanticWhitespaceAwarePsiBuilderImpl extends PsiBuilderAdapter imp
 
     private final Stack<Boolean> newlinesEnabled = new Stack<Boolean>();
 
+    // Whether there's a newline before the token starting at an offset: the parser asks it many times for the same token,
+    // in particular after rolling back a speculative parse
+    private final BitSet newlineBeforeTokenComputed = new BitSet();
+    private final BitSet newlineBeforeToken = new BitSet();
+    private final boolean memoizeNewlines;
+
     public SemanticWhitespaceAwarePsiBuilderImpl(PsiBuilder delegate) {
+        this(delegate, true);
+    }
+
+    /*package*/ SemanticWhitespaceAwarePsiBuilderImpl(PsiBuilder delegate, boolean memoizeNewlines) {
         super(delegate);
+        this.memoizeNewlines = memoizeNewlines;
         newlinesEnabled.push(true);
         joinComplexTokens.push(true);
     }
@@ -47,8 +59,19 @@ public class SemanticWhitespaceAwarePsiBuilderImpl extends PsiBuilderAdapter imp
 
         if (eof()) return true;
 
-        // TODO: maybe, memoize this somehow?
-        for (int i = 1; i <= getCurrentOffset(); i++) {
+        int offset = getCurrentOffset();
+        if (!memoizeNewlines) return computeNewlineBeforeCurrentToken(offset);
+
+        if (!newlineBeforeTokenComputed.get(offset)) {
+            newlineBeforeToken.set(offset, computeNewlineBeforeCurrentToken(offset));
+            newlineBeforeTokenComputed.set(offset);
+        }
+        return newlineBeforeToken.get(offset);
+    }
+
+    private boolean computeNewlineBeforeCurrentToken(int currentOffset) {
+        CharSequence text = getOriginalText();
+        for (int i = 1; i <= currentOffset; i++) {
             IElementType previousToken = rawLookup(-i);
 
             if (previousToken == JetTokens.BLOCK_COMMENT
@@ -66,10 +89,10 @@ public class SemanticWhitespaceAwarePsiBuilderImpl extends PsiBuilderAdapter imp
             int previousTokenEnd = rawTokenTypeStart(-i + 1);
 
             assert previousTokenStart >= 0;
-            assert previousTokenEnd < getOriginalText().length();
+            assert previousTokenEnd < text.length();
 
             for (int j = previousTokenStart; j < previousTokenEnd; j++) {
-                if (getOriginalText().charAt(j) == '\n') {
+                if (text.charAt(j) == '\n') {
                     return true;
                 }
             }
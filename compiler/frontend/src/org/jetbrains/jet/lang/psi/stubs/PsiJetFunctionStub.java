@@ -37,6 +37,14 @@ public interface PsiJetFunctionStub extends NamedStub<JetNamedFunction> {
      */
     boolean isExtension();
 
+    /**
+     * Short name of the class extended by the function as written in the code, e.g. "List" for {@code fun <T> List<T>.foo()}.
+     * For type parameters it's the short name of their bound.
+     * @return null if the function is not an extension or its receiver can be of any type
+     */
+    @Nullable
+    String getReceiverTypeShortName();
+
     @NotNull
     String[] getAnnotations();
 }
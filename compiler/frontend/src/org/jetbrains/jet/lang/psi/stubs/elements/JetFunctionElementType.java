@@ -25,8 +25,8 @@ import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.io.StringRef;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.jet.lang.psi.JetFile;
-import org.jetbrains.jet.lang.psi.JetNamedFunction;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.psi.*;
 import org.jetbrains.jet.lang.psi.stubs.PsiJetFunctionStub;
 import org.jetbrains.jet.lang.psi.stubs.impl.PsiJetFunctionStubImpl;
 import org.jetbrains.jet.lang.resolve.name.FqName;
@@ -65,11 +65,59 @@ public class JetFunctionElementType extends JetStubElementType<PsiJetFunctionStu
     @Override
     public PsiJetFunctionStub createStub(@NotNull JetNamedFunction psi, @NotNull StubElement parentStub) {
         boolean isTopLevel = psi.getParent() instanceof JetFile;
-        boolean isExtension = psi.getReceiverTypeRef() != null;
+        JetTypeReference receiverTypeRef = psi.getReceiverTypeRef();
+        boolean isExtension = receiverTypeRef != null;
+        String receiverTypeShortName = isExtension ? getTypeShortName(receiverTypeRef, psi) : null;
 
         FqName qualifiedName = psi.getFqName();
 
-        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, psi.getName(), isTopLevel, qualifiedName, isExtension);
+        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, psi.getName(), isTopLevel, qualifiedName, isExtension,
+                                          receiverTypeShortName);
+    }
+
+    /**
+     * @return the short name of the class {@code typeReference} refers to (or the class bounding it, for type parameters),
+     * or null if it can't be determined without resolve
+     */
+    @Nullable
+    private static String getTypeShortName(@NotNull JetTypeReference typeReference, @NotNull JetNamedFunction function) {
+        JetTypeElement typeElement = typeReference.getTypeElement();
+        if (typeElement instanceof JetNullableType) {
+            typeElement = ((JetNullableType) typeElement).getInnerType();
+        }
+
+        if (typeElement instanceof JetFunctionType) {
+            JetFunctionType functionType = (JetFunctionType) typeElement;
+            int parameterCount = functionType.getParameters().size();
+            return functionType.getReceiverTypeRef() != null ? "ExtensionFunction" + parameterCount : "Function" + parameterCount;
+        }
+
+        if (typeElement instanceof JetUserType) {
+            JetUserType userType = (JetUserType) typeElement;
+            String name = userType.getReferencedName();
+            if (name == null || userType.getQualifier() != null) return name;
+
+            JetTypeParameter typeParameter = findTypeParameter(function, name);
+            if (typeParameter == null) return name;
+
+            // Bounds are followed only one level deep, a type parameter bounded by another one may have any type
+            JetTypeReference bound = typeParameter.getExtendsBound();
+            if (bound == null || !(bound.getTypeElement() instanceof JetUserType)) return null;
+            String boundName = ((JetUserType) bound.getTypeElement()).getReferencedName();
+            return boundName == null || findTypeParameter(function, boundName) != null ? null : boundName;
+        }
+
+        return null;
+    }
+
+    @Nullable
+    private static JetTypeParameter findTypeParameter(@NotNull JetNamedFunction function, @NotNull String name) {
+        for (JetTypeParameter typeParameter : function.getTypeParameters()) {
+            if (name.equals(typeParameter.getName())) {
+                return typeParameter;
+            }
+        }
+        return null;
     }
 
     @Override
@@ -81,6 +129,7 @@ public class JetFunctionElementType extends JetStubElementType<PsiJetFunctionStu
         dataStream.writeName(topFQName != null ? topFQName.toString() : null);
 
         dataStream.writeBoolean(stub.isExtension());
+        dataStream.writeName(stub.getReceiverTypeShortName());
     }
 
     @Override
@@ -92,8 +141,10 @@ public class JetFunctionElementType extends JetStubElementType<PsiJetFunctionStu
         FqName fqName = topFQNameStr != null ? new FqName(topFQNameStr.toString()) : null;
 
         boolean isExtension = dataStream.readBoolean();
+        StringRef receiverTypeShortName = dataStream.readName();
 
-        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, name, isTopLevel, fqName, isExtension);
+        return new PsiJetFunctionStubImpl(JetStubElementTypes.FUNCTION, parentStub, name, isTopLevel, fqName, isExtension,
+                                          receiverTypeShortName);
     }
 
     @Override
@@ -32,6 +32,7 @@ public class PsiJetFunctionStubImpl extends StubBase<JetNamedFunction> implement
     private final StringRef nameRef;
     private final boolean isTopLevel;
     private final boolean isExtension;
+    private final StringRef receiverTypeShortNameRef;
     private final FqName topFQName;
 
     public PsiJetFunctionStubImpl(
@@ -40,8 +41,9 @@ public class PsiJetFunctionStubImpl extends StubBase<JetNamedFunction> implement
             @Nullable String name,
             boolean isTopLevel,
             @Nullable FqName topFQName,
-            boolean isExtension) {
-        this(elementType, parent, StringRef.fromString(name), isTopLevel, topFQName, isExtension);
+            boolean isExtension,
+            @Nullable String receiverTypeShortName) {
+        this(elementType, parent, StringRef.fromString(name), isTopLevel, topFQName, isExtension, StringRef.fromString(receiverTypeShortName));
     }
 
     public PsiJetFunctionStubImpl(
@@ -50,7 +52,8 @@ public class PsiJetFunctionStubImpl extends StubBase<JetNamedFunction> implement
             @Nullable StringRef nameRef,
             boolean isTopLevel,
             @Nullable FqName topFQName,
-            boolean isExtension) {
+            boolean isExtension,
+            @Nullable StringRef receiverTypeShortNameRef) {
         super(parent, elementType);
 
         if (isTopLevel && topFQName == null) {
@@ -61,6 +64,7 @@ public class PsiJetFunctionStubImpl extends StubBase<JetNamedFunction> implement
         this.topFQName = topFQName;
         this.isTopLevel = isTopLevel;
         this.isExtension = isExtension;
+        this.receiverTypeShortNameRef = receiverTypeShortNameRef;
     }
 
     @Override
@@ -84,6 +88,12 @@ public class PsiJetFunctionStubImpl extends StubBase<JetNamedFunction> implement
         return isExtension;
     }
 
+    @Nullable
+    @Override
+    public String getReceiverTypeShortName() {
+        return StringRef.toString(receiverTypeShortNameRef);
+    }
+
     @NotNull
     @Override
     public String[] getAnnotations() {
@@ -103,6 +113,11 @@ public class PsiJetFunctionStubImpl extends StubBase<JetNamedFunction> implement
 
         if (isExtension()) {
             builder.append("ext ");
+
+            String receiverTypeShortName = getReceiverTypeShortName();
+            if (receiverTypeShortName != null) {
+                builder.append("receiver=").append(receiverTypeShortName).append(" ");
+            }
         }
 
         builder.append("name=").append(getName());
@@ -45,6 +45,7 @@ import org.jetbrains.jet.lexer.JetTokens;
 import org.jetbrains.jet.util.Box;
 import org.jetbrains.jet.util.lazy.ReenteringLazyValueComputationException;
 import org.jetbrains.jet.util.slicedmap.WritableSlice;
+import org.jetbrains.jet.utils.PhaseMetrics;
 
 import javax.inject.Inject;
 import java.util.*;
@@ -141,9 +142,31 @@ public class BodyResolver {
     }
 
     public void resolveBodies() {
-        resolveBehaviorDeclarationBodies(context);
-        controlFlowAnalyzer.process(context);
-        declarationsChecker.process(context);
+        int declarationCount = context.getFunctions().size() + context.getProperties().size();
+
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("BodyResolver");
+        try {
+            resolveBehaviorDeclarationBodies(context);
+        }
+        finally {
+            phase.finish(declarationCount);
+        }
+
+        phase = PhaseMetrics.startPhase("ControlFlowAnalyzer");
+        try {
+            controlFlowAnalyzer.process(context);
+        }
+        finally {
+            phase.finish(declarationCount);
+        }
+
+        phase = PhaseMetrics.startPhase("DeclarationsChecker");
+        try {
+            declarationsChecker.process(context);
+        }
+        finally {
+            phase.finish(context.getClasses().size() + context.getObjects().size());
+        }
     }
 
     private void resolveDelegationSpecifierLists() {
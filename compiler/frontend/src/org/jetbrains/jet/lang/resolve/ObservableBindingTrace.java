@@ -38,6 +38,12 @@ public class ObservableBindingTrace implements BindingTrace {
     public ObservableBindingTrace(BindingTrace originalTrace) {
         this.originalTrace = originalTrace;
     }
+
+    @NotNull
+    public BindingTrace getOriginalTrace() {
+        return originalTrace;
+    }
+
     @Override
     public void report(@NotNull Diagnostic diagnostic) {
         originalTrace.report(diagnostic);
@@ -51,6 +51,8 @@ public class OverrideResolver {
     private TopDownAnalysisParameters topDownAnalysisParameters;
     private BindingTrace trace;
 
+    // Subclasses of the same supertype group its members into fake overrides in the same way
+    private final Map<JetType, Map<Name, FakeOverrideGroups>> fakeOverrideGroups = Maps.newHashMap();
 
     @Inject
     public void setContext(TopDownAnalysisContext context) {
@@ -119,7 +121,9 @@ public class OverrideResolver {
     }
 
     private void generateOverridesInAClass(final MutableClassDescriptor classDescriptor) {
-        List<CallableMemberDescriptor> membersFromSupertypes = getCallableMembersFromSupertypes(classDescriptor);
+        // The supertype each member comes from, or null if it comes from several
+        Map<CallableMemberDescriptor, JetType> supertypesOfMembers = Maps.newHashMap();
+        List<CallableMemberDescriptor> membersFromSupertypes = getCallableMembersFromSupertypes(classDescriptor, supertypesOfMembers);
 
         MultiMap<Name, CallableMemberDescriptor> membersFromSupertypesByName = groupDescriptorsByName(membersFromSupertypes);
 
@@ -129,40 +133,95 @@ public class OverrideResolver {
         memberNames.addAll(membersFromSupertypesByName.keySet());
         memberNames.addAll(membersFromCurrentByName.keySet());
 
+        DescriptorSink sink = new DescriptorSink() {
+            @Override
+            public void addToScope(@NotNull CallableMemberDescriptor fakeOverride) {
+                if (fakeOverride instanceof PropertyDescriptor) {
+                    classDescriptor.getBuilder().addPropertyDescriptor((PropertyDescriptor) fakeOverride);
+                }
+                else if (fakeOverride instanceof SimpleFunctionDescriptor) {
+                    classDescriptor.getBuilder().addFunctionDescriptor((SimpleFunctionDescriptor) fakeOverride);
+                }
+                else {
+                    throw new IllegalStateException(fakeOverride.getClass().getName());
+                }
+            }
+
+            @Override
+            public void conflict(@NotNull CallableMemberDescriptor fromSuper, @NotNull CallableMemberDescriptor fromCurrent) {
+                JetDeclaration declaration = (JetDeclaration) BindingContextUtils
+                        .descriptorToDeclaration(trace.getBindingContext(), fromCurrent);
+                trace.report(Errors.CONFLICTING_OVERLOADS.on(declaration, fromCurrent, fromCurrent.getContainingDeclaration().getName().asString()));
+            }
+        };
+
         for (Name memberName : memberNames) {
             Collection<CallableMemberDescriptor> fromSupertypes = membersFromSupertypesByName.get(memberName);
             Collection<CallableMemberDescriptor> fromCurrent = membersFromCurrentByName.get(memberName);
 
-            generateOverridesInFunctionGroup(
-                    memberName,
-                    fromSupertypes,
-                    fromCurrent,
-                    classDescriptor,
-                    new DescriptorSink() {
-                        @Override
-                        public void addToScope(@NotNull CallableMemberDescriptor fakeOverride) {
-                            if (fakeOverride instanceof PropertyDescriptor) {
-                                classDescriptor.getBuilder().addPropertyDescriptor((PropertyDescriptor) fakeOverride);
-                            }
-                            else if (fakeOverride instanceof SimpleFunctionDescriptor) {
-                                classDescriptor.getBuilder().addFunctionDescriptor((SimpleFunctionDescriptor) fakeOverride);
-                            }
-                            else {
-                                throw new IllegalStateException(fakeOverride.getClass().getName());
-                            }
-                        }
-
-                        @Override
-                        public void conflict(@NotNull CallableMemberDescriptor fromSuper, @NotNull CallableMemberDescriptor fromCurrent) {
-                            JetDeclaration declaration = (JetDeclaration) BindingContextUtils
-                                    .descriptorToDeclaration(trace.getBindingContext(), fromCurrent);
-                            trace.report(Errors.CONFLICTING_OVERLOADS.on(declaration, fromCurrent, fromCurrent.getContainingDeclaration().getName().asString()));
-                        }
-                    });
+            JetType supertype = fromCurrent.isEmpty() ? getCommonSupertype(fromSupertypes, supertypesOfMembers) : null;
+            if (supertype != null) {
+                generateFakeOverridesFromSupertype(supertype, memberName, new ArrayList<CallableMemberDescriptor>(fromSupertypes),
+                                                   classDescriptor, sink);
+            }
+            else {
+                generateOverridesInFunctionGroup(memberName, fromSupertypes, fromCurrent, classDescriptor, sink);
+            }
         }
         resolveUnknownVisibilities(classDescriptor.getAllCallableMembers(), trace);
     }
 
+    @Nullable
+    private static JetType getCommonSupertype(
+            @NotNull Collection<CallableMemberDescriptor> members,
+            @NotNull Map<CallableMemberDescriptor, JetType> supertypesOfMembers
+    ) {
+        JetType result = null;
+        for (CallableMemberDescriptor member : members) {
+            JetType supertype = supertypesOfMembers.get(member);
+            if (supertype == null || (result != null && result != supertype)) return null;
+            result = supertype;
+        }
+        return result;
+    }
+
+    /**
+     * Members with the given name which all come from the given supertype and none of which is overridden in the class
+     */
+    private void generateFakeOverridesFromSupertype(
+            @NotNull JetType supertype,
+            @NotNull Name name,
+            @NotNull List<CallableMemberDescriptor> members,
+            @NotNull ClassDescriptor current,
+            @NotNull DescriptorSink sink
+    ) {
+        Map<Name, FakeOverrideGroups> groupsByName = fakeOverrideGroups.get(supertype);
+        if (groupsByName == null) {
+            groupsByName = Maps.newHashMap();
+            fakeOverrideGroups.put(supertype, groupsByName);
+        }
+        FakeOverrideGroups groups = groupsByName.get(name);
+        if (groups != null && groups.isFor(members)) {
+            for (int[] group : groups.groups) {
+                List<CallableMemberDescriptor> overridables = Lists.newArrayListWithCapacity(group.length);
+                for (int index : group) {
+                    overridables.add(members.get(index));
+                }
+                createAndBindFakeOverride(overridables.get(0), overridables, current, sink);
+            }
+            return;
+        }
+
+        ConflictRecordingSink recordingSink = new ConflictRecordingSink(sink);
+        List<List<CallableMemberDescriptor>> overridableGroups = groupOverridables(members, recordingSink);
+        for (List<CallableMemberDescriptor> overridables : overridableGroups) {
+            createAndBindFakeOverride(overridables.get(0), overridables, current, sink);
+        }
+        if (!recordingSink.hasConflicts) {
+            groupsByName.put(name, new FakeOverrideGroups(members, overridableGroups));
+        }
+    }
+
     public static void resolveUnknownVisibilities(
             @NotNull Collection<? extends CallableMemberDescriptor> descriptors,
             @NotNull BindingTrace trace) {
@@ -247,6 +306,23 @@ public class OverrideResolver {
         }
     }
 
+    /**
+     * @return groups of members which are overridden by the same fake override, the member the fake override is copied from goes first
+     */
+    @NotNull
+    private static List<List<CallableMemberDescriptor>> groupOverridables(
+            @NotNull Collection<CallableMemberDescriptor> notOverridden,
+            @NotNull DescriptorSink sink
+    ) {
+        List<List<CallableMemberDescriptor>> result = Lists.newArrayList();
+        Queue<CallableMemberDescriptor> fromSuperQueue = new LinkedList<CallableMemberDescriptor>(notOverridden);
+        while (!fromSuperQueue.isEmpty()) {
+            CallableMemberDescriptor notOverriddenFromSuper = VisibilityUtil.findMemberWithMaxVisibility(fromSuperQueue);
+            result.add(extractMembersOverridableBy(notOverriddenFromSuper, fromSuperQueue, sink));
+        }
+        return result;
+    }
+
     private static void createAndBindFakeOverride(
             @NotNull CallableMemberDescriptor notOverriddenFromSuper,
             @NotNull Collection<CallableMemberDescriptor> overridables,
@@ -292,12 +368,12 @@ public class OverrideResolver {
     }
 
     @NotNull
-    private static Collection<CallableMemberDescriptor> extractMembersOverridableBy(
+    private static List<CallableMemberDescriptor> extractMembersOverridableBy(
             @NotNull CallableMemberDescriptor overrider,
             @NotNull Queue<CallableMemberDescriptor> extractFrom,
             @NotNull DescriptorSink sink
     ) {
-        Collection<CallableMemberDescriptor> overridable = Lists.newArrayList();
+        List<CallableMemberDescriptor> overridable = Lists.newArrayList();
         overridable.add(overrider);
         for (Iterator<CallableMemberDescriptor> iterator = extractFrom.iterator(); iterator.hasNext(); ) {
             CallableMemberDescriptor candidate = iterator.next();
@@ -333,10 +409,20 @@ public class OverrideResolver {
     }
 
 
-    private static List<CallableMemberDescriptor> getCallableMembersFromSupertypes(ClassDescriptor classDescriptor) {
+    private static List<CallableMemberDescriptor> getCallableMembersFromSupertypes(
+            ClassDescriptor classDescriptor,
+            Map<CallableMemberDescriptor, JetType> supertypesOfMembers
+    ) {
         Set<CallableMemberDescriptor> r = Sets.newLinkedHashSet();
         for (JetType supertype : classDescriptor.getTypeConstructor().getSupertypes()) {
-            r.addAll(getCallableMembersFromType(supertype.getMemberScope()));
+            for (CallableMemberDescriptor member : getCallableMembersFromType(supertype.getMemberScope())) {
+                if (r.add(member)) {
+                    supertypesOfMembers.put(member, supertype);
+                }
+                else {
+                    supertypesOfMembers.put(member, null);
+                }
+            }
         }
         return new ArrayList<CallableMemberDescriptor>(r);
     }
@@ -951,4 +1037,61 @@ public class OverrideResolver {
             }
         }
     }
+
+    /**
+     * How the members of a supertype with some name are grouped into fake overrides, as indices of the members
+     */
+    private static class FakeOverrideGroups {
+        private final List<CallableMemberDescriptor> originals;
+        private final List<int[]> groups;
+
+        private FakeOverrideGroups(
+                @NotNull List<CallableMemberDescriptor> members,
+                @NotNull List<List<CallableMemberDescriptor>> overridableGroups
+        ) {
+            originals = Lists.newArrayListWithCapacity(members.size());
+            Map<CallableMemberDescriptor, Integer> indices = Maps.newHashMap();
+            for (CallableMemberDescriptor member : members) {
+                indices.put(member, originals.size());
+                originals.add(member.getOriginal());
+            }
+            groups = Lists.newArrayListWithCapacity(overridableGroups.size());
+            for (List<CallableMemberDescriptor> overridables : overridableGroups) {
+                int[] group = new int[overridables.size()];
+                for (int i = 0; i < group.length; i++) {
+                    group[i] = indices.get(overridables.get(i));
+                }
+                groups.add(group);
+            }
+        }
+
+        // Equal supertypes have the same members in the same order, but the check is cheap compared to grouping
+        private boolean isFor(@NotNull List<CallableMemberDescriptor> members) {
+            if (members.size() != originals.size()) return false;
+            for (int i = 0; i < members.size(); i++) {
+                if (members.get(i).getOriginal() != originals.get(i)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static class ConflictRecordingSink implements DescriptorSink {
+        private final DescriptorSink delegate;
+        private boolean hasConflicts = false;
+
+        private ConflictRecordingSink(@NotNull DescriptorSink delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void addToScope(@NotNull CallableMemberDescriptor fakeOverride) {
+            delegate.addToScope(fakeOverride);
+        }
+
+        @Override
+        public void conflict(@NotNull CallableMemberDescriptor fromSuper, @NotNull CallableMemberDescriptor fromCurrent) {
+            hasConflicts = true;
+            delegate.conflict(fromSuper, fromCurrent);
+        }
+    }
 }
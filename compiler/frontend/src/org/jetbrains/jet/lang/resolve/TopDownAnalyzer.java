@@ -35,6 +35,7 @@ import org.jetbrains.jet.lang.resolve.scopes.JetScope;
 import org.jetbrains.jet.lang.resolve.scopes.WritableScope;
 import org.jetbrains.jet.lang.resolve.scopes.WritableScopeImpl;
 import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+import org.jetbrains.jet.utils.PhaseMetrics;
 
 import javax.inject.Inject;
 import java.util.*;
@@ -121,13 +122,39 @@ public class TopDownAnalyzer {
 //        context.enableDebugOutput();
         context.debug("Enter");
 
-        typeHierarchyResolver.process(outerScope, owner, declarations);
-        declarationResolver.process(outerScope);
-        overrideResolver.process();
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("TypeHierarchyResolver");
+        try {
+            typeHierarchyResolver.process(outerScope, owner, declarations);
+        }
+        finally {
+            phase.finish(declarations.size());
+        }
+
+        phase = PhaseMetrics.startPhase("DeclarationResolver");
+        try {
+            declarationResolver.process(outerScope);
+        }
+        finally {
+            phase.finish(context.getFunctions().size() + context.getProperties().size());
+        }
+
+        phase = PhaseMetrics.startPhase("OverrideResolver");
+        try {
+            overrideResolver.process();
+        }
+        finally {
+            phase.finish(context.getClasses().size() + context.getObjects().size());
+        }
 
         lockScopes();
 
-        overloadResolver.process();
+        phase = PhaseMetrics.startPhase("OverloadResolver");
+        try {
+            overloadResolver.process();
+        }
+        finally {
+            phase.finish();
+        }
 
         if (!topDownAnalysisParameters.isAnalyzingBootstrapLibrary()) {
             bodyResolver.resolveBodies();
@@ -146,8 +173,10 @@ public class TopDownAnalyzer {
         }
         for (Map.Entry<JetFile, WritableScope> namespaceScope : context.getNamespaceScopes().entrySet()) {
             // todo: this is hack in favor of REPL
-            if(!namespaceScope.getKey().isScript())
+            if(!namespaceScope.getKey().isScript()) {
                 namespaceScope.getValue().changeLockLevel(WritableScope.LockLevel.READING);
+                namespaceScope.getValue().freezeImports();
+            }
         }
     }
 
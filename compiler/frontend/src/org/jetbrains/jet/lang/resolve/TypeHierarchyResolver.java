@@ -248,11 +248,10 @@ public class TypeHierarchyResolver {
                 ClassDescriptor subclassOfCurrent = currentPath.get(currentPath.size() - 1);
                 assert subclassOfCurrent instanceof MutableClassDescriptor;
                 // Disconnect the loop
-                for (Iterator<JetType> iterator = ((MutableClassDescriptor) subclassOfCurrent).getSupertypes().iterator();
-                     iterator.hasNext(); ) {
-                    JetType type = iterator.next();
+                MutableClassDescriptor mutableSubclassOfCurrent = (MutableClassDescriptor) subclassOfCurrent;
+                for (JetType type : mutableSubclassOfCurrent.getSupertypes()) {
                     if (type.getConstructor() == currentClass.getTypeConstructor()) {
-                        iterator.remove();
+                        mutableSubclassOfCurrent.removeSupertype(type);
                         break;
                     }
                 }
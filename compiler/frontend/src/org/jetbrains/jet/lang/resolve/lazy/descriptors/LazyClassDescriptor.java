@@ -48,6 +48,7 @@ import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.*;
 import org.jetbrains.jet.lang.types.ErrorUtils;
 import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.SupertypeClosure;
 import org.jetbrains.jet.lang.types.TypeConstructor;
 import org.jetbrains.jet.lang.types.TypeUtils;
 
@@ -398,7 +399,7 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDesc
         isClassObjectAValue();
     }
 
-    private class LazyClassTypeConstructor implements LazyDescriptor, TypeConstructor {
+    private class LazyClassTypeConstructor implements LazyDescriptor, SupertypeClosure.Holder {
         private final NotNullLazyValue<Collection<JetType>> supertypes = resolveSession.getStorageManager().createLazyValueWithPostCompute(
                 new Computable<Collection<JetType>>() {
                     @Override
@@ -444,6 +445,9 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDesc
             }
         });
 
+        @Nullable
+        private volatile SupertypeClosure supertypeClosure;
+
         @NotNull
         @Override
         public List<TypeParameterDescriptor> getParameters() {
@@ -461,6 +465,7 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDesc
                 JetType supertype = iterator.next();
                 if (isReachable(supertype.getConstructor(), this, new HashSet<TypeConstructor>())) {
                     iterator.remove();
+                    SupertypeClosure.supertypesModified();
                 }
             }
         }
@@ -494,6 +499,17 @@ public class LazyClassDescriptor extends ClassDescriptorBase implements LazyDesc
             return Collections.emptyList(); // TODO
         }
 
+        @Nullable
+        @Override
+        public SupertypeClosure getCachedSupertypeClosure() {
+            return supertypeClosure;
+        }
+
+        @Override
+        public void setCachedSupertypeClosure(@NotNull SupertypeClosure closure) {
+            supertypeClosure = closure;
+        }
+
         @Override
         public String toString() {
             return LazyClassDescriptor.this.getName().toString();
@@ -132,7 +132,8 @@ public class LazyTypeParameterDescriptor implements TypeParameterDescriptor, Laz
             upperBounds.add(KotlinBuiltIns.getInstance().getDefaultBound());
         }
 
-        return upperBounds;
+        // The bounds may already be in supertype closures, see SupertypeClosure
+        return Collections.unmodifiableSet(upperBounds);
     }
 
     private void resolveUpperBoundsFromWhereClause(Set<JetType> upperBounds, boolean forClassObject) {
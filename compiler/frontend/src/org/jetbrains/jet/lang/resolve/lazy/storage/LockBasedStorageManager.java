@@ -22,25 +22,32 @@ import com.intellij.util.Function;
 import com.intellij.util.containers.ConcurrentWeakValueHashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jetbrains.jet.lang.diagnostics.Diagnostic;
-import org.jetbrains.jet.lang.resolve.BindingContext;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
-import org.jetbrains.jet.util.slicedmap.ReadOnlySlice;
-import org.jetbrains.jet.util.slicedmap.WritableSlice;
 import org.jetbrains.jet.utils.Nulls;
 
-import java.util.Collection;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 public class LockBasedStorageManager implements StorageManager {
 
-    private final Object lock = new Object() {
-        @Override
-        public String toString() {
-            return "LockBasedStorageManager centralized lock";
-        }
-    };
+    private final Object lock;
+
+    public LockBasedStorageManager() {
+        this(new Object() {
+            @Override
+            public String toString() {
+                return "LockBasedStorageManager centralized lock";
+            }
+        });
+    }
+
+    /**
+     * @param lock the lock to compute values under, shared with the components which the computations call and which have
+     *             locks of their own, so that the locks are never acquired in different orders
+     */
+    public LockBasedStorageManager(@NotNull Object lock) {
+        this.lock = lock;
+    }
 
     @NotNull
     @Override
@@ -207,59 +214,4 @@ public class LockBasedStorageManager implements StorageManager {
             return result;
         }
     }
-
-    private static class LockProtectedTrace implements BindingTrace {
-        private final Object lock;
-        private final BindingTrace trace;
-
-        public LockProtectedTrace(@NotNull Object lock, @NotNull BindingTrace trace) {
-            this.lock = lock;
-            this.trace = trace;
-        }
-
-        @Override
-        public BindingContext getBindingContext() {
-            synchronized (lock) {
-                return trace.getBindingContext();
-            }
-        }
-
-        @Override
-        public <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
-            synchronized (lock) {
-                trace.record(slice, key, value);
-            }
-        }
-
-        @Override
-        public <K> void record(WritableSlice<K, Boolean> slice, K key) {
-            synchronized (lock) {
-                trace.record(slice, key);
-            }
-        }
-
-        @Override
-        @Nullable
-        public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
-            synchronized (lock) {
-                return trace.get(slice, key);
-            }
-        }
-
-        @Override
-        @NotNull
-        public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
-            synchronized (lock) {
-                return trace.getKeys(slice);
-            }
-        }
-
-        @Override
-        public void report(@NotNull Diagnostic diagnostic) {
-            synchronized (lock) {
-                trace.report(diagnostic);
-            }
-        }
-    }
-
 }
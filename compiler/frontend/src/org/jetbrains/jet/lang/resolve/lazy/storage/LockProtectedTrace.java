@@ -0,0 +1,137 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.lazy.storage;
+
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.TestOnly;
+import org.jetbrains.jet.lang.diagnostics.Diagnostic;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.ObservableBindingTrace;
+import org.jetbrains.jet.util.slicedmap.ReadOnlySlice;
+import org.jetbrains.jet.util.slicedmap.WritableSlice;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * A trace which can be used from several threads: all the operations on it and on its binding context are done under
+ * the given lock. No other locks are acquired inside these operations.
+ */
+public class LockProtectedTrace implements BindingTrace {
+    private final Object lock;
+    private final BindingTrace trace;
+    private final BindingContext bindingContext;
+
+    public LockProtectedTrace(@NotNull Object lock, @NotNull BindingTrace trace) {
+        this.lock = lock;
+        this.trace = trace;
+        this.bindingContext = new LockProtectedContext();
+    }
+
+    @NotNull
+    public Object getLock() {
+        return lock;
+    }
+
+    /**
+     * @return the lock protecting the trace, possibly wrapped into an observable trace, or null if the trace is not protected
+     */
+    @Nullable
+    public static Object findLock(@NotNull BindingTrace trace) {
+        BindingTrace original = trace instanceof ObservableBindingTrace ? ((ObservableBindingTrace) trace).getOriginalTrace() : trace;
+        return original instanceof LockProtectedTrace ? ((LockProtectedTrace) original).lock : null;
+    }
+
+    @Override
+    public BindingContext getBindingContext() {
+        return bindingContext;
+    }
+
+    @Override
+    public <K, V> void record(WritableSlice<K, V> slice, K key, V value) {
+        synchronized (lock) {
+            trace.record(slice, key, value);
+        }
+    }
+
+    @Override
+    public <K> void record(WritableSlice<K, Boolean> slice, K key) {
+        synchronized (lock) {
+            trace.record(slice, key);
+        }
+    }
+
+    @Override
+    @Nullable
+    public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+        synchronized (lock) {
+            return trace.get(slice, key);
+        }
+    }
+
+    @Override
+    @NotNull
+    public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+        synchronized (lock) {
+            return new ArrayList<K>(trace.getKeys(slice));
+        }
+    }
+
+    @Override
+    public void report(@NotNull Diagnostic diagnostic) {
+        synchronized (lock) {
+            trace.report(diagnostic);
+        }
+    }
+
+    private class LockProtectedContext implements BindingContext {
+        @Override
+        public Collection<Diagnostic> getDiagnostics() {
+            synchronized (lock) {
+                return new ArrayList<Diagnostic>(trace.getBindingContext().getDiagnostics());
+            }
+        }
+
+        @Nullable
+        @Override
+        public <K, V> V get(ReadOnlySlice<K, V> slice, K key) {
+            synchronized (lock) {
+                return trace.getBindingContext().get(slice, key);
+            }
+        }
+
+        @NotNull
+        @Override
+        public <K, V> Collection<K> getKeys(WritableSlice<K, V> slice) {
+            synchronized (lock) {
+                return new ArrayList<K>(trace.getBindingContext().getKeys(slice));
+            }
+        }
+
+        @NotNull
+        @TestOnly
+        @Override
+        public <K, V> ImmutableMap<K, V> getSliceContents(@NotNull ReadOnlySlice<K, V> slice) {
+            synchronized (lock) {
+                return trace.getBindingContext().getSliceContents(slice);
+            }
+        }
+    }
+}
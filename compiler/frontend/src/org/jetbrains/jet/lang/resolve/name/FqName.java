@@ -59,16 +59,11 @@ public class FqName extends FqNameBase {
 
 
     private void validateFqName() {
-        if (!isValidAfterUnsafeCheck(fqName.asString())) {
+        if (!fqName.getInterned().isSafe()) {
             throw new IllegalArgumentException("incorrect fq name: " + fqName);
         }
     }
 
-    /*package*/ static boolean isValidAfterUnsafeCheck(@NotNull String qualifiedName) {
-        // TODO: There's a valid name with escape char ``
-        return qualifiedName.indexOf('<') < 0;
-    }
-
     @Override
     @NotNull
     public String asString() {
@@ -121,7 +116,6 @@ public class FqName extends FqNameBase {
         fqName.walk(new FqNameUnsafe.WalkCallback() {
             @Override
             public void segment(@NotNull Name shortName, @NotNull FqNameUnsafe fqName) {
-                // TODO: do not validate
                 path.add(new FqName(fqName));
             }
         });
@@ -155,20 +149,14 @@ public class FqName extends FqNameBase {
 
     @Override
     public boolean equals(Object o) {
-        // generated by Idea
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
-        FqName that = (FqName) o;
-
-        if (fqName != null ? !fqName.equals(that.fqName) : that.fqName != null) return false;
-
-        return true;
+        return fqName.equals(((FqName) o).fqName);
     }
 
     @Override
     public int hashCode() {
-        // generated by Idea
-        return fqName != null ? fqName.hashCode() : 0;
+        return fqName.hashCode();
     }
 }
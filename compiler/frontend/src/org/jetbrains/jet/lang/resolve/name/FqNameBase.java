@@ -42,6 +42,13 @@ public abstract class FqNameBase {
         }
     }
 
+    /**
+     * FqName and FqNameUnsafe with the same name are not equal, but this method compares only the names
+     */
+    public final boolean equalsTo(@NotNull FqNameBase that) {
+        return toFqNameUnsafe().equals(that.toFqNameUnsafe());
+    }
+
     public final boolean equalsTo(@NotNull FqName that) {
         return equalsTo(that.toUnsafe());
     }
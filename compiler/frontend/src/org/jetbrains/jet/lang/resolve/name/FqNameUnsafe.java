@@ -20,6 +20,7 @@ import com.google.common.collect.Lists;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -30,39 +31,24 @@ public class FqNameUnsafe extends FqNameBase {
     public static final Name ROOT_NAME = Name.special("<root>");
 
     @NotNull
-    private final String fqName;
+    private final InternedFqName fqName;
 
     // cache
     private transient FqName safe;
     private transient FqNameUnsafe parent;
-    private transient Name shortName;
 
     FqNameUnsafe(@NotNull String fqName, @NotNull FqName safe) {
-        this.fqName = fqName;
+        this.fqName = InternedFqName.get(fqName);
         this.safe = safe;
-
-        validateFqName();
     }
 
     public FqNameUnsafe(@NotNull String fqName) {
-        this.fqName = fqName;
-
-        validateFqName();
+        this.fqName = InternedFqName.get(fqName);
     }
 
-    private FqNameUnsafe(@NotNull String fqName, FqNameUnsafe parent, Name shortName) {
+    private FqNameUnsafe(@NotNull InternedFqName fqName, @Nullable FqNameUnsafe parent) {
         this.fqName = fqName;
         this.parent = parent;
-        this.shortName = shortName;
-
-        validateFqName();
-    }
-
-
-    private void validateFqName() {
-        if (!isValid(fqName)) {
-            throw new IllegalArgumentException("incorrect fq name: " + fqName);
-        }
     }
 
     public static boolean isValid(@Nullable String qualifiedName) {
@@ -70,30 +56,18 @@ public class FqNameUnsafe extends FqNameBase {
         return qualifiedName != null && qualifiedName.indexOf('/') < 0 && qualifiedName.indexOf('*') < 0;
     }
 
-    private void compute() {
-        int lastDot = fqName.lastIndexOf('.');
-        if (lastDot >= 0) {
-            shortName = Name.guess(fqName.substring(lastDot + 1));
-            parent = new FqNameUnsafe(fqName.substring(0, lastDot));
-        }
-        else {
-            shortName = Name.guess(fqName);
-            parent = FqName.ROOT.toUnsafe();
-        }
+    @NotNull
+    public String asString() {
+        return fqName.asString();
     }
 
-
-
     @NotNull
-    public String asString() {
+    /*package*/ InternedFqName getInterned() {
         return fqName;
     }
 
     public boolean isSafe() {
-        if (safe != null) {
-            return true;
-        }
-        return FqName.isValidAfterUnsafeCheck(asString());
+        return fqName.isSafe();
     }
 
     @NotNull
@@ -106,7 +80,7 @@ public class FqNameUnsafe extends FqNameBase {
     }
 
     public boolean isRoot() {
-        return fqName.equals("");
+        return fqName.isRoot();
     }
 
     @NotNull
@@ -119,36 +93,23 @@ public class FqNameUnsafe extends FqNameBase {
             throw new IllegalStateException("root");
         }
 
-        compute();
+        parent = new FqNameUnsafe(fqName.parent(), null);
 
         return parent;
     }
 
     @NotNull
     public FqNameUnsafe child(@NotNull Name name) {
-        String childFqName;
-        if (isRoot()) {
-            childFqName = name.asString();
-        }
-        else {
-            childFqName = fqName + "." + name.asString();
-        }
-        return new FqNameUnsafe(childFqName, this, name);
+        return new FqNameUnsafe(fqName.child(name), this);
     }
 
     @NotNull
     public Name shortName() {
-        if (shortName != null) {
-            return shortName;
-        }
-
         if (isRoot()) {
             throw new IllegalStateException("root");
         }
 
-        compute();
-
-        return shortName;
+        return fqName.shortName();
     }
 
     @NotNull
@@ -180,58 +141,26 @@ public class FqNameUnsafe extends FqNameBase {
 
     @NotNull
     public List<Name> pathSegments() {
-        final List<Name> path = Lists.newArrayList();
-        walk(new WalkCallback() {
-            @Override
-            public void segment(@NotNull Name shortName, @NotNull FqNameUnsafe fqName) {
-                path.add(shortName);
-            }
-        });
+        List<Name> path = Lists.newArrayList();
+        for (InternedFqName name = fqName; !name.isRoot(); name = name.parent()) {
+            path.add(name.shortName());
+        }
+        Collections.reverse(path);
         return path;
     }
 
-
     void walk(@NotNull WalkCallback callback) {
         if (isRoot()) {
             return;
         }
 
-        int pos = fqName.indexOf('.');
-
-        if (pos < 0) {
-            if (this.parent == null) {
-                this.parent = FqName.ROOT.toUnsafe();
-            }
-            if (this.shortName == null) {
-                this.shortName = Name.guess(fqName);
-            }
-            callback.segment(shortName, this);
-            return;
+        List<FqNameUnsafe> path = Lists.newArrayList();
+        for (FqNameUnsafe name = this; !name.isRoot(); name = name.parent()) {
+            path.add(name);
         }
-
-        Name firstSegment = Name.guess(fqName.substring(0, pos));
-        FqNameUnsafe last = new FqNameUnsafe(firstSegment.asString(), FqName.ROOT.toUnsafe(), firstSegment);
-        callback.segment(firstSegment, last);
-
-        while (true) {
-            int next = fqName.indexOf('.', pos + 1);
-            if (next < 0) {
-                if (this.parent == null) {
-                    this.parent = last;
-                }
-                Name shortName = Name.guess(fqName.substring(pos + 1));
-                if (this.shortName == null) {
-                    this.shortName = shortName;
-                }
-                callback.segment(shortName, this);
-                return;
-            }
-
-            Name shortName = Name.guess(fqName.substring(pos + 1, next));
-            last = new FqNameUnsafe(fqName.substring(0, next), last, shortName);
-            callback.segment(shortName, last);
-
-            pos = next;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            FqNameUnsafe name = path.get(i);
+            callback.segment(name.shortName(), name);
         }
     }
 
@@ -239,8 +168,11 @@ public class FqNameUnsafe extends FqNameBase {
         if (isRoot()) {
             return false;
         }
-        List<Name> pathSegments = pathSegments();
-        return pathSegments.get(0).equals(segment);
+        InternedFqName first = fqName;
+        while (!first.parent().isRoot()) {
+            first = first.parent();
+        }
+        return first.shortName().equals(segment);
     }
 
     public boolean lastSegmentIs(@NotNull Name segment) {
@@ -254,31 +186,26 @@ public class FqNameUnsafe extends FqNameBase {
 
     @NotNull
     public static FqNameUnsafe topLevel(@NotNull Name shortName) {
-        return new FqNameUnsafe(shortName.asString(), FqName.ROOT.toUnsafe(), shortName);
+        return FqName.ROOT.toUnsafe().child(shortName);
     }
 
 
     @Override
     public String toString() {
-        return isRoot() ? ROOT_NAME.asString() : fqName;
+        return isRoot() ? ROOT_NAME.asString() : fqName.asString();
     }
 
     @Override
     public boolean equals(Object o) {
-        // generated by Idea
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
-        FqNameUnsafe that = (FqNameUnsafe) o;
-
-        if (fqName != null ? !fqName.equals(that.fqName) : that.fqName != null) return false;
-
-        return true;
+        // Qualified names are interned
+        return fqName == ((FqNameUnsafe) o).fqName;
     }
 
     @Override
     public int hashCode() {
-        // generated by Idea
-        return fqName != null ? fqName.hashCode() : 0;
+        return fqName.hashCode();
     }
 }
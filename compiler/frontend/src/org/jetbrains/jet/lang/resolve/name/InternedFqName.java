@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.name;
+
+import com.google.common.collect.MapMaker;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The only instance for a qualified name, shared by all the {@link FqNameUnsafe} and {@link FqName} objects with this name.
+ * Knows its parent and short name, so going up and down the hierarchy doesn't split strings.
+ *
+ * An instance lives as long as some name refers to it, equal names created later get the same instance as long
+ * as it's alive, so instances are compared by identity.
+ */
+final class InternedFqName {
+    private static final ConcurrentMap<String, InternedFqName> NAMES = new MapMaker().weakValues().makeMap();
+
+    static final InternedFqName ROOT = get("");
+
+    @NotNull
+    static InternedFqName get(@NotNull String fqName) {
+        InternedFqName interned = NAMES.get(fqName);
+        if (interned != null) return interned;
+
+        if (!FqNameUnsafe.isValid(fqName)) {
+            throw new IllegalArgumentException("incorrect fq name: " + fqName);
+        }
+        return intern(new InternedFqName(fqName, null, null));
+    }
+
+    @NotNull
+    private static InternedFqName intern(@NotNull InternedFqName newName) {
+        InternedFqName interned = NAMES.putIfAbsent(newName.fqName, newName);
+        return interned != null ? interned : newName;
+    }
+
+    @NotNull
+    private final String fqName;
+    private final boolean safe;
+
+    // Computed on demand for names created from a string
+    @Nullable
+    private volatile InternedFqName parent;
+    @Nullable
+    private volatile Name shortName;
+
+    private InternedFqName(@NotNull String fqName, @Nullable InternedFqName parent, @Nullable Name shortName) {
+        this.fqName = fqName;
+        // TODO: There's a valid name with escape char ``
+        this.safe = fqName.indexOf('<') < 0;
+        this.parent = parent;
+        this.shortName = shortName;
+    }
+
+    @NotNull
+    String asString() {
+        return fqName;
+    }
+
+    boolean isRoot() {
+        return this == ROOT;
+    }
+
+    boolean isSafe() {
+        return safe;
+    }
+
+    @NotNull
+    InternedFqName parent() {
+        InternedFqName result = parent;
+        if (result == null) {
+            if (isRoot()) {
+                throw new IllegalStateException("root");
+            }
+            int lastDot = fqName.lastIndexOf('.');
+            result = lastDot >= 0 ? get(fqName.substring(0, lastDot)) : ROOT;
+            parent = result;
+        }
+        return result;
+    }
+
+    @NotNull
+    Name shortName() {
+        Name result = shortName;
+        if (result == null) {
+            if (isRoot()) {
+                throw new IllegalStateException("root");
+            }
+            result = Name.guess(fqName.substring(fqName.lastIndexOf('.') + 1));
+            shortName = result;
+        }
+        return result;
+    }
+
+    @NotNull
+    InternedFqName child(@NotNull Name name) {
+        String childFqName = isRoot() ? name.asString() : fqName + "." + name.asString();
+        InternedFqName interned = NAMES.get(childFqName);
+        if (interned != null) return interned;
+
+        if (!FqNameUnsafe.isValid(childFqName)) {
+            throw new IllegalArgumentException("incorrect fq name: " + childFqName);
+        }
+        return intern(new InternedFqName(childFqName, this, name));
+    }
+
+    @Override
+    public int hashCode() {
+        return fqName.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return fqName;
+    }
+}
@@ -16,9 +16,18 @@
 
 package org.jetbrains.jet.lang.resolve.name;
 
+import com.google.common.collect.MapMaker;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names are interned: there is only one instance for each identifier or special name, so they are compared by identity.
+ */
 public final class Name implements Comparable<Name> {
+    private static final ConcurrentMap<String, Name> IDENTIFIERS = new MapMaker().weakValues().makeMap();
+    private static final ConcurrentMap<String, Name> SPECIAL_NAMES = new MapMaker().weakValues().makeMap();
+
     @NotNull
     private final String name;
     private final boolean special;
@@ -52,22 +61,38 @@ public final class Name implements Comparable<Name> {
 
     @NotNull
     public static Name identifier(@NotNull String name) {
+        Name interned = IDENTIFIERS.get(name);
+        if (interned != null) return interned;
+
         NameUtils.requireIdentifier(name);
-        return new Name(name, false);
+        return intern(IDENTIFIERS, name, false);
     }
 
     /** Must be validated by caller */
     @NotNull
     public static Name identifierNoValidate(@NotNull String name) {
-        return new Name(name, false);
+        Name interned = IDENTIFIERS.get(name);
+        if (interned != null) return interned;
+
+        return intern(IDENTIFIERS, name, false);
     }
 
     @NotNull
     public static Name special(@NotNull String name) {
+        Name interned = SPECIAL_NAMES.get(name);
+        if (interned != null) return interned;
+
         if (!name.startsWith("<")) {
             throw new IllegalArgumentException("special name must start with '<': " + name);
         }
-        return new Name(name, true);
+        return intern(SPECIAL_NAMES, name, true);
+    }
+
+    @NotNull
+    private static Name intern(@NotNull ConcurrentMap<String, Name> names, @NotNull String name, boolean special) {
+        Name newName = new Name(name, special);
+        Name interned = names.putIfAbsent(name, newName);
+        return interned != null ? interned : newName;
     }
 
     // TODO: wrong
@@ -88,15 +113,7 @@ public final class Name implements Comparable<Name> {
 
     @Override
     public boolean equals(Object o) {
-        if (this == o) return true;
-        if (!(o instanceof Name)) return false;
-
-        Name name1 = (Name) o;
-
-        if (special != name1.special) return false;
-        if (!name.equals(name1.name)) return false;
-
-        return true;
+        return this == o;
     }
 
     @Override
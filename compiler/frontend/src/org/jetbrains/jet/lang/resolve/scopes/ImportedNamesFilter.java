@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.scopes;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Names that scopes imported into a file don't have. Most lookups in a file go through all of its imported scopes
+ * and find nothing in most of them, so once the imports are frozen the next lookup of the same name skips these scopes.
+ *
+ * The filter is learnt from misses: listing the names of a star-imported Java package would resolve all of its classes.
+ * Bodies of a file may be resolved by several threads at once, so the filter is thread-safe.
+ */
+class ImportedNamesFilter {
+    enum Lookup {
+        CLASSIFIER,
+        OBJECT,
+        NAMESPACE,
+        LOCAL_VARIABLE,
+        PROPERTIES,
+        FUNCTIONS;
+
+        private final int mask = 1 << ordinal();
+    }
+
+    // For each imported scope, name -> kinds of lookups which found nothing
+    private final List<ConcurrentMap<Name, Integer>> misses;
+
+    /*package*/ ImportedNamesFilter(int importedScopeCount) {
+        misses = new ArrayList<ConcurrentMap<Name, Integer>>(importedScopeCount);
+        for (int i = 0; i < importedScopeCount; i++) {
+            misses.add(new ConcurrentHashMap<Name, Integer>());
+        }
+    }
+
+    /*package*/ boolean mayContain(int scopeIndex, @NotNull Lookup lookup, @NotNull Name name) {
+        Integer missed = misses.get(scopeIndex).get(name);
+        return missed == null || (missed & lookup.mask) == 0;
+    }
+
+    /*package*/ void notFound(int scopeIndex, @NotNull Lookup lookup, @NotNull Name name) {
+        ConcurrentMap<Name, Integer> scopeMisses = misses.get(scopeIndex);
+        while (true) {
+            Integer missed = scopeMisses.get(name);
+            if (missed == null) {
+                if (scopeMisses.putIfAbsent(name, lookup.mask) == null) return;
+            }
+            else {
+                if ((missed & lookup.mask) != 0 || scopeMisses.replace(name, missed, missed | lookup.mask)) return;
+            }
+        }
+    }
+}
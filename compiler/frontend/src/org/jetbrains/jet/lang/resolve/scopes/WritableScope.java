@@ -73,4 +73,10 @@ public interface WritableScope extends JetScope {
     void importVariableAlias(@NotNull Name aliasName, @NotNull VariableDescriptor variableDescriptor);
 
     void clearImports();
+
+    /**
+     * Promises that neither the imports nor the contents of the imported scopes will change anymore,
+     * so lookups may remember which imported scopes don't have a name. Requires the scope to be locked for writing.
+     */
+    void freezeImports();
 }
@@ -33,6 +33,8 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
     @Nullable
     private List<JetScope> imports;
     private WritableScope currentIndividualImportScope;
+    @Nullable
+    private volatile ImportedNamesFilter importedNamesFilter;
     protected final RedeclarationHandler redeclarationHandler;
     private List<ReceiverParameterDescriptor> implicitReceiverHierarchy;
 
@@ -91,11 +93,44 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
         }
 
         checkMayWrite();
+        checkImportsNotFrozen();
 
         getImports().add(0, imported);
         currentIndividualImportScope = null;
     }
 
+    @Override
+    public void freezeImports() {
+        checkMayNotWrite();
+
+        if (importedNamesFilter == null) {
+            // The filter is indexed by the position of an imported scope, so the imports must stay as they are
+            imports = Collections.unmodifiableList(new ArrayList<JetScope>(getImports()));
+            importedNamesFilter = new ImportedNamesFilter(imports.size());
+        }
+    }
+
+    private void checkImportsNotFrozen() {
+        if (importedNamesFilter != null) {
+            throw new IllegalStateException("imports are frozen at " + toString());
+        }
+    }
+
+    private boolean mayContain(int scopeIndex, @NotNull ImportedNamesFilter.Lookup lookup, @NotNull Name name) {
+        return importedNamesFilter == null || importedNamesFilter.mayContain(scopeIndex, lookup, name);
+    }
+
+    private void notFound(int scopeIndex, @NotNull ImportedNamesFilter.Lookup lookup, @NotNull Name name) {
+        if (importedNamesFilter != null) {
+            importedNamesFilter.notFound(scopeIndex, lookup, name);
+        }
+    }
+
+    @Nullable
+    /*package*/ ImportedNamesFilter getImportedNamesFilter() {
+        return importedNamesFilter;
+    }
+
     @NotNull
     @Override
     public List<ReceiverParameterDescriptor> getImplicitReceiversHierarchy() {
@@ -125,8 +160,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
         checkMayRead();
 
         Set<VariableDescriptor> properties = Sets.newLinkedHashSet();
-        for (JetScope imported : getImports()) {
-            properties.addAll(imported.getProperties(name));
+        List<JetScope> imports = getImports();
+        for (int i = 0; i < imports.size(); i++) {
+            if (!mayContain(i, ImportedNamesFilter.Lookup.PROPERTIES, name)) continue;
+
+            Collection<VariableDescriptor> importedProperties = imports.get(i).getProperties(name);
+            if (importedProperties.isEmpty()) {
+                notFound(i, ImportedNamesFilter.Lookup.PROPERTIES, name);
+            }
+            properties.addAll(importedProperties);
         }
         return properties;
     }
@@ -136,11 +178,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
         checkMayRead();
 
         // Meaningful lookup goes here
-        for (JetScope imported : getImports()) {
-            VariableDescriptor importedDescriptor = imported.getLocalVariable(name);
+        List<JetScope> imports = getImports();
+        for (int i = 0; i < imports.size(); i++) {
+            if (!mayContain(i, ImportedNamesFilter.Lookup.LOCAL_VARIABLE, name)) continue;
+
+            VariableDescriptor importedDescriptor = imports.get(i).getLocalVariable(name);
             if (importedDescriptor != null) {
                 return importedDescriptor;
             }
+            notFound(i, ImportedNamesFilter.Lookup.LOCAL_VARIABLE, name);
         }
         return null;
     }
@@ -154,8 +200,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
             return Collections.emptySet();
         }
         Set<FunctionDescriptor> result = Sets.newLinkedHashSet();
-        for (JetScope imported : getImports()) {
-            result.addAll(imported.getFunctions(name));
+        List<JetScope> imports = getImports();
+        for (int i = 0; i < imports.size(); i++) {
+            if (!mayContain(i, ImportedNamesFilter.Lookup.FUNCTIONS, name)) continue;
+
+            Collection<FunctionDescriptor> importedFunctions = imports.get(i).getFunctions(name);
+            if (importedFunctions.isEmpty()) {
+                notFound(i, ImportedNamesFilter.Lookup.FUNCTIONS, name);
+            }
+            result.addAll(importedFunctions);
         }
         return result;
     }
@@ -164,11 +217,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
     public ClassifierDescriptor getClassifier(@NotNull Name name) {
         checkMayRead();
 
-        for (JetScope imported : getImports()) {
-            ClassifierDescriptor importedClassifier = imported.getClassifier(name);
+        List<JetScope> imports = getImports();
+        for (int i = 0; i < imports.size(); i++) {
+            if (!mayContain(i, ImportedNamesFilter.Lookup.CLASSIFIER, name)) continue;
+
+            ClassifierDescriptor importedClassifier = imports.get(i).getClassifier(name);
             if (importedClassifier != null) {
                 return importedClassifier;
             }
+            notFound(i, ImportedNamesFilter.Lookup.CLASSIFIER, name);
         }
         return null;
     }
@@ -177,11 +234,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
     public ClassDescriptor getObjectDescriptor(@NotNull Name name) {
         checkMayRead();
 
-        for (JetScope imported : getImports()) {
-            ClassDescriptor objectDescriptor = imported.getObjectDescriptor(name);
+        List<JetScope> imports = getImports();
+        for (int i = 0; i < imports.size(); i++) {
+            if (!mayContain(i, ImportedNamesFilter.Lookup.OBJECT, name)) continue;
+
+            ClassDescriptor objectDescriptor = imports.get(i).getObjectDescriptor(name);
             if (objectDescriptor != null) {
                 return objectDescriptor;
             }
+            notFound(i, ImportedNamesFilter.Lookup.OBJECT, name);
         }
         return null;
     }
@@ -190,11 +251,15 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
     public NamespaceDescriptor getNamespace(@NotNull Name name) {
         checkMayRead();
 
-        for (JetScope imported : getImports()) {
-            NamespaceDescriptor importedDescriptor = imported.getNamespace(name);
+        List<JetScope> imports = getImports();
+        for (int i = 0; i < imports.size(); i++) {
+            if (!mayContain(i, ImportedNamesFilter.Lookup.NAMESPACE, name)) continue;
+
+            NamespaceDescriptor importedDescriptor = imports.get(i).getNamespace(name);
             if (importedDescriptor != null) {
                 return importedDescriptor;
             }
+            notFound(i, ImportedNamesFilter.Lookup.NAMESPACE, name);
         }
         return null;
     }
@@ -240,6 +305,8 @@ public abstract class WritableScopeWithImports extends JetScopeAdapter implement
 
     @Override
     public void clearImports() {
+        checkImportsNotFrozen();
+
         currentIndividualImportScope = null;
         getImports().clear();
     }
@@ -17,8 +17,10 @@
 package org.jetbrains.jet.lang.types;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
 import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.lazy.storage.LockProtectedTrace;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
 import org.jetbrains.jet.util.Box;
 import org.jetbrains.jet.util.lazy.RecursionIntolerantLazyValue;
@@ -28,27 +30,41 @@ import java.util.List;
 
 import static org.jetbrains.jet.lang.resolve.BindingContext.DEFERRED_TYPE;
 
+/**
+ * The type is computed when it's first needed. If the trace is protected by a lock, the declarations it belongs to may be
+ * used by several threads (e.g. the IDE analyzes bodies of different files against the same declarations concurrently),
+ * so the type is computed under that lock.
+ */
 public class DeferredType implements JetType {
     
     public static DeferredType create(BindingTrace trace, RecursionIntolerantLazyValue<JetType> lazyValue) {
-        DeferredType deferredType = new DeferredType(lazyValue);
+        DeferredType deferredType = new DeferredType(lazyValue, LockProtectedTrace.findLock(trace));
         trace.record(DEFERRED_TYPE, new Box<DeferredType>(deferredType));
         return deferredType;
     }
     
     private final RecursionIntolerantLazyValue<JetType> lazyValue;
+    @Nullable
+    private final Object lock;
 
-    private DeferredType(RecursionIntolerantLazyValue<JetType> lazyValue) {
+    private DeferredType(RecursionIntolerantLazyValue<JetType> lazyValue, @Nullable Object lock) {
         this.lazyValue = lazyValue;
+        this.lock = lock;
     }
 
     public boolean isComputed() {
-        return lazyValue.isComputed();
+        if (lock == null) return lazyValue.isComputed();
+        synchronized (lock) {
+            return lazyValue.isComputed();
+        }
     }
 
     @NotNull
     public JetType getActualType() {
-        return lazyValue.get();
+        if (lock == null) return lazyValue.get();
+        synchronized (lock) {
+            return lazyValue.get();
+        }
     }
 
     @Override
@@ -82,7 +98,7 @@ public class DeferredType implements JetType {
     @Override
     public String toString() {
         try {
-            if (lazyValue.isComputed()) {
+            if (isComputed()) {
                 return getActualType().toString();
             }
             else {
@@ -75,7 +75,6 @@ public class DescriptorSubstitutor {
                     descriptor.getVariance(),
                     descriptor.getName(),
                     descriptor.getIndex());
-            substituted.setInitialized();
 
             mutableSubstitution.put(descriptor.getTypeConstructor(), new TypeProjection(substituted.getDefaultType()));
 
@@ -86,8 +85,9 @@ public class DescriptorSubstitutor {
         for (TypeParameterDescriptor descriptor : typeParameters) {
             TypeParameterDescriptorImpl substituted = substitutedMap.get(descriptor);
             for (JetType upperBound : descriptor.getUpperBounds()) {
-                substituted.getUpperBounds().add(substitutor.substitute(upperBound, Variance.INVARIANT));
+                substituted.addUpperBound(substitutor.substitute(upperBound, Variance.INVARIANT));
             }
+            substituted.setInitialized();
         }
 
         return substitutor;
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.types;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * All the supertypes of a type constructor, each expressed in terms of the constructor's own type parameters.
+ * For <code>class A&lt;T&gt; : B&lt;List&lt;T&gt;&gt;</code> and <code>class B&lt;S&gt; : C&lt;S&gt;</code>
+ * the closure of A maps B to <code>B&lt;List&lt;T&gt;&gt;</code> and C to <code>C&lt;List&lt;T&gt;&gt;</code>.
+ *
+ * When a constructor is reachable by several paths, the first one in depth-first order wins, as it did when
+ * the hierarchy was traversed on every subtype check.
+ *
+ * Supertypes of classes and upper bounds of type parameters are still added while the descriptors are being resolved,
+ * so a closure remembers the supertypes it was built from and is rebuilt when any of them has changed. Closures are only
+ * checked against the supertypes they were built from after {@link #supertypesModified()} was called, so that a closure
+ * costs a single comparison once the descriptors are resolved. Supertypes are only changed by the descriptors owning them
+ * (see {@link org.jetbrains.jet.lang.descriptors.impl.MutableClassDescriptorLite#addSupertype(JetType)} and
+ * {@link org.jetbrains.jet.lang.descriptors.impl.TypeParameterDescriptorImpl#addUpperBound(JetType)}), which call it,
+ * while the collections they expose can't be modified.
+ */
+public final class SupertypeClosure {
+
+    /**
+     * A type constructor that keeps its closure, see {@link #forConstructor(TypeConstructor)}
+     */
+    public interface Holder extends TypeConstructor {
+        @Nullable
+        SupertypeClosure getCachedSupertypeClosure();
+
+        void setCachedSupertypeClosure(@NotNull SupertypeClosure closure);
+    }
+
+    private static final AtomicInteger modificationCount = new AtomicInteger();
+
+    /**
+     * Must be called after supertypes or upper bounds were added to or removed from a type constructor which may already
+     * be in a closure
+     */
+    public static void supertypesModified() {
+        modificationCount.incrementAndGet();
+    }
+
+    /**
+     * @return the closure of the given constructor, or null if the constructor doesn't keep its closure
+     */
+    @Nullable
+    public static SupertypeClosure forConstructor(@NotNull TypeConstructor constructor) {
+        if (!(constructor instanceof Holder)) return null;
+
+        Holder holder = (Holder) constructor;
+        SupertypeClosure closure = holder.getCachedSupertypeClosure();
+        if (closure == null || !closure.isUpToDate()) {
+            closure = compute(constructor);
+            holder.setCachedSupertypeClosure(closure);
+        }
+        return closure;
+    }
+
+    @NotNull
+    public static SupertypeClosure compute(@NotNull TypeConstructor constructor) {
+        SupertypeClosure closure = new SupertypeClosure(constructor, modificationCount.get());
+        closure.visited(constructor);
+        for (JetType supertype : constructor.getSupertypes()) {
+            closure.collect(supertype);
+        }
+        return closure;
+    }
+
+    private final TypeConstructor constructor;
+    private final Map<TypeConstructor, JetType> supertypes = Maps.newHashMap();
+
+    // The modification count the closure is known to be up to date with
+    private volatile int checkedModificationCount;
+
+    // Supertype collections the closure was built from and their sizes at that moment
+    private final List<TypeConstructor> constructors = Lists.newArrayList();
+    private final List<Collection<JetType>> supertypeCollections = Lists.newArrayList();
+    private final List<Integer> supertypeCounts = Lists.newArrayList();
+
+    // The last substituted supertype for each subtype. Subtypes are weak keys compared by identity: closures of the built-ins
+    // live as long as the process and must not keep the types of finished analyses
+    private final ConcurrentMap<JetType, SubstitutedSupertype> lastSubstituted = new MapMaker().weakKeys().makeMap();
+
+    private SupertypeClosure(@NotNull TypeConstructor constructor, int modificationCount) {
+        this.constructor = constructor;
+        this.checkedModificationCount = modificationCount;
+    }
+
+    private void collect(@NotNull JetType type) {
+        TypeConstructor typeConstructor = type.getConstructor();
+        if (typeConstructor.equals(constructor) || supertypes.containsKey(typeConstructor)) return;
+
+        supertypes.put(typeConstructor, type);
+        Collection<JetType> immediateSupertypes = visited(typeConstructor);
+
+        TypeSubstitutor substitutor = type.getArguments().isEmpty() ? null : TypeSubstitutor.create(type);
+        for (JetType immediateSupertype : immediateSupertypes) {
+            collect(substitutor == null ? immediateSupertype : substitutor.safeSubstitute(immediateSupertype, Variance.INVARIANT));
+        }
+    }
+
+    @NotNull
+    private Collection<JetType> visited(@NotNull TypeConstructor visitedConstructor) {
+        Collection<JetType> immediateSupertypes = visitedConstructor.getSupertypes();
+        constructors.add(visitedConstructor);
+        supertypeCollections.add(immediateSupertypes);
+        supertypeCounts.add(immediateSupertypes.size());
+        return immediateSupertypes;
+    }
+
+    public boolean isUpToDate() {
+        int currentModificationCount = modificationCount.get();
+        if (currentModificationCount == checkedModificationCount) return true;
+
+        for (int i = 0; i < constructors.size(); i++) {
+            Collection<JetType> immediateSupertypes = constructors.get(i).getSupertypes();
+            if (immediateSupertypes != supertypeCollections.get(i) || immediateSupertypes.size() != supertypeCounts.get(i)) {
+                return false;
+            }
+        }
+        checkedModificationCount = currentModificationCount;
+        return true;
+    }
+
+    /**
+     * @return the supertype with the given constructor in terms of the type parameters of the closure's constructor
+     */
+    @Nullable
+    public JetType getSupertype(@NotNull TypeConstructor supertypeConstructor) {
+        return supertypes.get(supertypeConstructor);
+    }
+
+    /**
+     * @param subtype a type whose constructor this closure was built for
+     * @return the supertype of <code>subtype</code> with the given constructor, with the arguments of <code>subtype</code>
+     * substituted into it
+     */
+    @Nullable
+    public JetType findCorrespondingSupertype(@NotNull JetType subtype, @NotNull TypeConstructor supertypeConstructor) {
+        JetType supertype = supertypes.get(supertypeConstructor);
+        if (supertype == null || subtype.getArguments().isEmpty()) return supertype;
+
+        SubstitutedSupertype last = lastSubstituted.get(subtype);
+        if (last != null && last.supertypeConstructor == supertypeConstructor) return last.result;
+
+        // The result doesn't reference the subtype itself, only its arguments
+        JetType result = TypeSubstitutor.create(subtype).safeSubstitute(supertype, Variance.INVARIANT);
+        lastSubstituted.put(subtype, new SubstitutedSupertype(supertypeConstructor, result));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Supertypes of " + constructor + ": " + supertypes.values();
+    }
+
+    private static class SubstitutedSupertype {
+        private final TypeConstructor supertypeConstructor;
+        private final JetType result;
+
+        private SubstitutedSupertype(@NotNull TypeConstructor supertypeConstructor, @NotNull JetType result) {
+            this.supertypeConstructor = supertypeConstructor;
+            this.result = result;
+        }
+    }
+}
@@ -28,7 +28,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
-public class TypeConstructorImpl extends AnnotatedImpl implements TypeConstructor {
+public class TypeConstructorImpl extends AnnotatedImpl implements SupertypeClosure.Holder {
     private final List<TypeParameterDescriptor> parameters;
     private Collection<JetType> supertypes;
     private final String debugName;
@@ -37,6 +37,9 @@ public class TypeConstructorImpl extends AnnotatedImpl implements TypeConstructo
     @Nullable
     private final ClassifierDescriptor classifierDescriptor;
 
+    @Nullable
+    private volatile SupertypeClosure supertypeClosure;
+
     public TypeConstructorImpl(
             @Nullable ClassifierDescriptor classifierDescriptor,
             @NotNull List<AnnotationDescriptor> annotations,
@@ -64,6 +67,17 @@ public class TypeConstructorImpl extends AnnotatedImpl implements TypeConstructo
         return supertypes;
     }
 
+    @Nullable
+    @Override
+    public SupertypeClosure getCachedSupertypeClosure() {
+        return supertypeClosure;
+    }
+
+    @Override
+    public void setCachedSupertypeClosure(@NotNull SupertypeClosure closure) {
+        supertypeClosure = closure;
+    }
+
     @Override
     public String toString() {
         return debugName;
@@ -36,6 +36,10 @@ public class TypeCheckingProcedure {
         if (constructor.equals(supertype.getConstructor())) {
             return subtype;
         }
+        SupertypeClosure closure = SupertypeClosure.forConstructor(constructor);
+        if (closure != null) {
+            return closure.findCorrespondingSupertype(subtype, supertype.getConstructor());
+        }
         for (JetType immediateSupertype : constructor.getSupertypes()) {
             JetType correspondingSupertype = findCorrespondingSupertype(immediateSupertype, supertype);
             if (correspondingSupertype != null) {
@@ -93,7 +93,8 @@ public class KotlinBuiltIns {
     private static Throwable initializationFailed;
 
     public enum InitializationMode {
-        // Multi-threaded mode is used in the IDE
+        // Multi-threaded mode is used in the IDE and for modules compiled in parallel. All the built-ins are resolved
+        // at once, also when they were already initialized in single-threaded mode
         MULTI_THREADED,
         // Single-threaded mode is used in the compiler and IDE-independent tests
         SINGLE_THREADED
@@ -123,6 +124,9 @@ public class KotlinBuiltIns {
                 initializing = false;
             }
         }
+        else if (initializationMode == InitializationMode.MULTI_THREADED) {
+            instance.resolveAll();
+        }
     }
 
     @NotNull // This asserts that initialize() is called before any resolution happens
@@ -172,6 +176,9 @@ public class KotlinBuiltIns {
     private volatile JetType stringType;
     private volatile JetType annotationType;
 
+    // Guarded by KotlinBuiltIns.class
+    private boolean allResolved;
+
     private KotlinBuiltIns(@NotNull Project project) {
         try {
             this.builtInsModule = new ModuleDescriptorImpl(Name.special("<built-ins lazy module>"),
@@ -221,10 +228,19 @@ public class KotlinBuiltIns {
         nonPhysicalClasses = computeNonPhysicalClasses();
 
         if (forceResolveAll) {
-            analyzer.forceResolveAll();
+            resolveAll();
+        }
+        else {
+            AnalyzingUtils.throwExceptionOnErrors(analyzer.getBindingContext());
         }
+    }
+
+    private void resolveAll() {
+        if (allResolved) return;
 
+        analyzer.forceResolveAll();
         AnalyzingUtils.throwExceptionOnErrors(analyzer.getBindingContext());
+        allResolved = true;
     }
 
     @NotNull
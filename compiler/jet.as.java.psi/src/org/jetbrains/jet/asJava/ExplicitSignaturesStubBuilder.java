@@ -0,0 +1,360 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.asJava;
+
+import com.intellij.psi.JavaPsiFacade;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.containers.Stack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.asm4.AnnotationVisitor;
+import org.jetbrains.asm4.Type;
+import org.jetbrains.jet.codegen.CodegenUtil;
+import org.jetbrains.jet.codegen.PropertyCodegen;
+import org.jetbrains.jet.codegen.binding.PsiCodegenPredictor;
+import org.jetbrains.jet.codegen.signature.BothSignatureWriter;
+import org.jetbrains.jet.lang.descriptors.Modality;
+import org.jetbrains.jet.lang.descriptors.Visibilities;
+import org.jetbrains.jet.lang.descriptors.Visibility;
+import org.jetbrains.jet.lang.psi.*;
+import org.jetbrains.jet.lang.resolve.ImportPath;
+import org.jetbrains.jet.lang.resolve.ModifiersChecker;
+import org.jetbrains.jet.lang.resolve.java.JvmAbi;
+import org.jetbrains.jet.lang.resolve.java.JvmClassName;
+import org.jetbrains.jet.lang.resolve.java.JvmPrimitiveType;
+import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+
+import java.util.*;
+
+import static org.jetbrains.asm4.Opcodes.*;
+import static org.jetbrains.jet.lang.resolve.java.AsmTypeConstants.OBJECT_TYPE;
+import static org.jetbrains.jet.lexer.JetTokens.*;
+
+/**
+ * Builds the Java stub of a top-level class straight from its PSI, without analyzing any code, feeding the same events
+ * to {@link StubClassBuilder} as the codegen would in {@link org.jetbrains.jet.codegen.ClassBuilderMode#SIGNATURES}.
+ *
+ * Only simple classes are supported: no supertypes, type parameters, annotations, nested classes, default values or
+ * custom accessors, and every type in the signatures is written explicitly and is either a built-in type which maps to
+ * a JVM primitive, String or Object, or the class itself. Everything else needs the resolve, so the caller falls back
+ * to the analysis and the codegen.
+ */
+class ExplicitSignaturesStubBuilder {
+    private static final Map<String, Type> NOT_NULL_BUILT_INS = new HashMap<String, Type>();
+    private static final Map<String, Type> NULLABLE_BUILT_INS = new HashMap<String, Type>();
+
+    static {
+        for (JvmPrimitiveType primitiveType : JvmPrimitiveType.values()) {
+            String name = primitiveType.getPrimitiveType().getTypeName().asString();
+            NOT_NULL_BUILT_INS.put(name, primitiveType.getAsmType());
+            NULLABLE_BUILT_INS.put(name, primitiveType.getWrapper().getAsmType());
+        }
+        Type stringType = Type.getObjectType("java/lang/String");
+        NOT_NULL_BUILT_INS.put("String", stringType);
+        NULLABLE_BUILT_INS.put("String", stringType);
+        NOT_NULL_BUILT_INS.put("Any", OBJECT_TYPE);
+        NULLABLE_BUILT_INS.put("Any", OBJECT_TYPE);
+    }
+
+    private static final String UNIT = "Unit";
+
+    private final JetClass jetClass;
+    private final JvmClassName className;
+    private final Type classType;
+
+    // Simple names of the types referenced in the signatures, checked for shadowing once all of them are known
+    private final Set<String> referencedNames = new HashSet<String>();
+
+    private ExplicitSignaturesStubBuilder(@NotNull JetClass jetClass, @NotNull JvmClassName className) {
+        this.jetClass = jetClass;
+        this.className = className;
+        this.classType = className.getAsmType();
+    }
+
+    /**
+     * @return false if the class is not simple enough, nothing is added to the stub stack in this case
+     */
+    public static boolean build(@NotNull JetClassOrObject classOrObject, @NotNull Stack<StubElement> stubStack) {
+        if (!(classOrObject instanceof JetClass)) return false;
+
+        JvmClassName className = PsiCodegenPredictor.getPredefinedJvmClassName(classOrObject);
+        if (className == null) return false;
+
+        ExplicitSignaturesStubBuilder builder = new ExplicitSignaturesStubBuilder((JetClass) classOrObject, className);
+        if (!builder.isSupported()) return false;
+
+        builder.generate(new StubClassBuilder(stubStack));
+        return true;
+    }
+
+    private boolean isSupported() {
+        if (jetClass.isTrait() || jetClass.isEnum() || jetClass.isAnnotation() || jetClass.isInner()) return false;
+        if (!jetClass.getTypeParameters().isEmpty() || !jetClass.getDelegationSpecifiers().isEmpty()) return false;
+        if (hasAnnotations(jetClass) || jetClass.getPrimaryConstructorModifierList() != null) return false;
+        if (PsiTreeUtil.hasErrorElements(jetClass)) return false;
+
+        Set<String> propertyNames = new HashSet<String>();
+        for (JetParameter parameter : jetClass.getPrimaryConstructorParameters()) {
+            if (hasAnnotations(parameter) || parameter.getDefaultValue() != null || parameter.isVarArg()) return false;
+            if (mapValueType(parameter.getTypeReference()) == null) return false;
+            if (parameter.getValOrVarNode() != null && !propertyNames.add(parameter.getName())) return false;
+        }
+
+        for (JetDeclaration declaration : jetClass.getDeclarations()) {
+            if (declaration instanceof JetNamedFunction) {
+                if (!isSupported((JetNamedFunction) declaration)) return false;
+            }
+            else if (declaration instanceof JetProperty) {
+                JetProperty property = (JetProperty) declaration;
+                if (!isSupported(property) || !propertyNames.add(property.getName())) return false;
+            }
+            else if (!(declaration instanceof JetClassInitializer)) {
+                return false;
+            }
+        }
+
+        return !isAnyReferencedNameShadowed();
+    }
+
+    private boolean isSupported(@NotNull JetNamedFunction function) {
+        if (hasAnnotations(function) || !function.getTypeParameters().isEmpty() || function.getReceiverTypeRef() != null) return false;
+
+        for (JetParameter parameter : function.getValueParameters()) {
+            if (hasAnnotations(parameter) || parameter.getDefaultValue() != null || parameter.isVarArg()) return false;
+            if (parameter.getValOrVarNode() != null || mapValueType(parameter.getTypeReference()) == null) return false;
+        }
+
+        return mapReturnType(function) != null;
+    }
+
+    private boolean isSupported(@NotNull JetProperty property) {
+        if (hasAnnotations(property) || !property.getTypeParameters().isEmpty() || property.getReceiverTypeRef() != null) return false;
+        if (property.getDelegateExpression() != null || !property.getAccessors().isEmpty()) return false;
+
+        Type type = mapValueType(property.getTypeRef());
+        if (type == null) return false;
+
+        // The initializer of a final field of a primitive or String type is a constant, which can't be evaluated without the resolve
+        boolean mayHaveConstantValue = type.getSort() != Type.OBJECT || type.getInternalName().equals("java/lang/String");
+        return property.isVar() || property.getInitializer() == null || !mayHaveConstantValue;
+    }
+
+    private static boolean hasAnnotations(@NotNull JetModifierListOwner owner) {
+        JetModifierList modifierList = owner.getModifierList();
+        return modifierList != null && !modifierList.getAnnotationEntries().isEmpty();
+    }
+
+    @Nullable
+    private Type mapReturnType(@NotNull JetNamedFunction function) {
+        JetTypeReference returnTypeRef = function.getReturnTypeRef();
+        if (returnTypeRef == null) {
+            // An expression body means that the return type is inferred
+            return function.getBodyExpression() == null || function.hasBlockBody() ? Type.VOID_TYPE : null;
+        }
+
+        JetTypeElement typeElement = returnTypeRef.getTypeElement();
+        if (returnTypeRef.getAnnotations().isEmpty() && typeElement instanceof JetUserType) {
+            JetUserType userType = (JetUserType) typeElement;
+            if (userType.getQualifier() == null && userType.getTypeArguments().isEmpty() && UNIT.equals(userType.getReferencedName())) {
+                referencedNames.add(UNIT);
+                return Type.VOID_TYPE;
+            }
+        }
+        return mapValueType(returnTypeRef);
+    }
+
+    @Nullable
+    private Type mapValueType(@Nullable JetTypeReference typeReference) {
+        if (typeReference == null || !typeReference.getAnnotations().isEmpty()) return null;
+
+        JetTypeElement typeElement = typeReference.getTypeElement();
+        boolean nullable = typeElement instanceof JetNullableType;
+        if (nullable) {
+            typeElement = ((JetNullableType) typeElement).getInnerType();
+        }
+        if (!(typeElement instanceof JetUserType)) return null;
+
+        JetUserType userType = (JetUserType) typeElement;
+        String name = userType.getReferencedName();
+        if (name == null || userType.getQualifier() != null || !userType.getTypeArguments().isEmpty()) return null;
+
+        Type type;
+        if (name.equals(jetClass.getName())) {
+            type = classType;
+        }
+        else {
+            type = (nullable ? NULLABLE_BUILT_INS : NOT_NULL_BUILT_INS).get(name);
+        }
+        if (type != null) {
+            referencedNames.add(name);
+        }
+        return type;
+    }
+
+    /**
+     * A name referenced in the signatures could mean something else than a built-in type or the class itself,
+     * if it is imported explicitly or with a star, or there's a class with the same name in the same package
+     */
+    private boolean isAnyReferencedNameShadowed() {
+        JetFile file = (JetFile) jetClass.getContainingFile();
+        FqName packageFqName = JetPsiUtil.getFQName(file);
+
+        List<FqName> starImportedScopes = new ArrayList<FqName>();
+        for (JetImportDirective directive : file.getImportDirectives()) {
+            ImportPath importPath = JetPsiUtil.getImportPath(directive);
+            if (importPath == null) return true;
+
+            if (importPath.isAllUnder()) {
+                starImportedScopes.add(importPath.fqnPart());
+            }
+            else if (referencedNames.contains(importPath.getImportedName().asString())) {
+                return true;
+            }
+        }
+
+        JavaPsiFacade facade = JavaPsiFacade.getInstance(jetClass.getProject());
+        GlobalSearchScope scope = GlobalSearchScope.allScope(jetClass.getProject());
+        for (String name : referencedNames) {
+            // The class itself is found in its own package, of course
+            if (!name.equals(jetClass.getName()) && facade.findClass(packageFqName.child(Name.identifier(name)).asString(), scope) != null) {
+                return true;
+            }
+            for (FqName starImportedScope : starImportedScopes) {
+                if (facade.findClass(starImportedScope.child(Name.identifier(name)).asString(), scope) != null) return true;
+            }
+        }
+        return false;
+    }
+
+    private void generate(@NotNull StubClassBuilder builder) {
+        boolean isAbstract = jetClass.hasModifier(ABSTRACT_KEYWORD);
+        int access = ACC_PUBLIC | ACC_SUPER;
+        if (isAbstract) {
+            access |= ACC_ABSTRACT;
+        }
+        else if (!jetClass.hasModifier(OPEN_KEYWORD)) {
+            access |= ACC_FINAL;
+        }
+
+        BothSignatureWriter signatureWriter = new BothSignatureWriter(BothSignatureWriter.Mode.CLASS, true);
+        signatureWriter.writeFormalTypeParametersStart();
+        signatureWriter.writeFormalTypeParametersEnd();
+        signatureWriter.writeSupersStart();
+        signatureWriter.writeSuperclass();
+        signatureWriter.writeClassBegin(OBJECT_TYPE.getInternalName(), false, false);
+        signatureWriter.writeClassEnd();
+        signatureWriter.writeSuperclassEnd();
+        signatureWriter.writeSupersEnd();
+
+        builder.defineClass(jetClass, V1_6, access, className.getInternalName(), signatureWriter.makeJavaGenericSignature(),
+                            OBJECT_TYPE.getInternalName(), new String[] {JvmStdlibNames.JET_OBJECT.getInternalName()});
+        builder.visitSource(jetClass.getContainingFile().getName(), null);
+
+        AnnotationVisitor annotationVisitor = builder.newAnnotation(JvmStdlibNames.JET_CLASS.getDescriptor(), true);
+        annotationVisitor.visit(JvmStdlibNames.JET_CLASS_SIGNATURE, signatureWriter.makeKotlinClassSignature());
+        int flags = CodegenUtil.getFlagsForVisibility(ModifiersChecker.resolveVisibilityFromModifiers(jetClass));
+        if (JvmStdlibNames.FLAGS_DEFAULT_VALUE != flags) {
+            annotationVisitor.visit(JvmStdlibNames.JET_FLAGS_FIELD, flags);
+        }
+        annotationVisitor.visit(JvmStdlibNames.ABI_VERSION_NAME, JvmAbi.VERSION);
+        annotationVisitor.visitEnd();
+
+        // The same order as in ClassBodyCodegen: members, properties declared in the primary constructor, the constructor itself
+        for (JetDeclaration declaration : jetClass.getDeclarations()) {
+            if (declaration instanceof JetNamedFunction) {
+                generateFunction(builder, (JetNamedFunction) declaration);
+            }
+            else if (declaration instanceof JetProperty) {
+                JetProperty property = (JetProperty) declaration;
+                generateProperty(builder, property, property.isVar(), mapValueType(property.getTypeRef()));
+            }
+        }
+
+        StringBuilder constructorDescriptor = new StringBuilder("(");
+        for (JetParameter parameter : jetClass.getPrimaryConstructorParameters()) {
+            Type type = mapValueType(parameter.getTypeReference());
+            if (parameter.getValOrVarNode() != null) {
+                generateProperty(builder, parameter, parameter.isMutable(), type);
+            }
+            constructorDescriptor.append(type.getDescriptor());
+        }
+        String constructorDesc = constructorDescriptor.append(")V").toString();
+        builder.newMethod(null, ACC_PUBLIC, "<init>", constructorDesc, constructorDesc, null);
+
+        builder.done();
+    }
+
+    private void generateFunction(@NotNull StubClassBuilder builder, @NotNull JetNamedFunction function) {
+        List<Type> parameterTypes = new ArrayList<Type>();
+        for (JetParameter parameter : function.getValueParameters()) {
+            parameterTypes.add(mapValueType(parameter.getTypeReference()));
+        }
+        String desc = Type.getMethodDescriptor(mapReturnType(function), parameterTypes.toArray(new Type[parameterTypes.size()]));
+
+        int access = getMemberAccessFlags(function, getModality(function));
+        builder.newMethod(function, access, function.getName(), desc, desc, null);
+    }
+
+    private static void generateProperty(
+            @NotNull StubClassBuilder builder,
+            @NotNull JetNamedDeclaration declaration,
+            boolean isVar,
+            @NotNull Type type
+    ) {
+        Modality modality = getModality(declaration);
+        Name name = declaration.getNameAsSafeName();
+
+        if (modality != Modality.ABSTRACT) {
+            int fieldAccess = ACC_PRIVATE | (isVar ? 0 : ACC_FINAL);
+            String fieldName = JvmAbi.getDefaultPropertyName(name, false, false);
+            builder.newField(declaration, fieldAccess, fieldName, type.getDescriptor(), type.getDescriptor(), null);
+        }
+
+        int access = getMemberAccessFlags(declaration, modality);
+        String getterDesc = Type.getMethodDescriptor(type);
+        builder.newMethod(declaration, access, PropertyCodegen.getterName(name), getterDesc, getterDesc, null);
+        if (isVar) {
+            String setterDesc = Type.getMethodDescriptor(Type.VOID_TYPE, type);
+            builder.newMethod(declaration, access, PropertyCodegen.setterName(name), setterDesc, setterDesc, null);
+        }
+    }
+
+    @NotNull
+    private static Modality getModality(@NotNull JetModifierListOwner member) {
+        // Members of classes (unlike traits) are final by default, whether they have a body or not
+        return ModifiersChecker.resolveModalityFromModifiers(member, Modality.FINAL);
+    }
+
+    private static int getMemberAccessFlags(@NotNull JetModifierListOwner member, @NotNull Modality modality) {
+        // Overridden members can only come from Any here, and all of them are public
+        Visibility defaultVisibility = member.hasModifier(OVERRIDE_KEYWORD) ? Visibilities.PUBLIC : Visibilities.INTERNAL;
+        Visibility visibility = ModifiersChecker.resolveVisibilityFromModifiers(member, defaultVisibility);
+
+        int access = visibility == Visibilities.PRIVATE ? ACC_PRIVATE : visibility == Visibilities.PROTECTED ? ACC_PROTECTED : ACC_PUBLIC;
+        if (modality == Modality.FINAL) {
+            access |= ACC_FINAL;
+        }
+        else if (modality == Modality.ABSTRACT) {
+            access |= ACC_ABSTRACT;
+        }
+        return access;
+    }
+}
@@ -87,7 +87,19 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
 
     @NotNull
     public static KotlinJavaFileStubProvider createForDeclaredTopLevelClass(
-            @NotNull final JetClassOrObject classOrObject
+            @NotNull JetClassOrObject classOrObject
+    ) {
+        return createForDeclaredTopLevelClass(classOrObject, true);
+    }
+
+    /**
+     * @param buildFromExplicitSignatures whether classes simple enough for {@link ExplicitSignaturesStubBuilder} are built
+     *                                    without analyzing the code
+     */
+    @NotNull
+    /*package*/ static KotlinJavaFileStubProvider createForDeclaredTopLevelClass(
+            @NotNull final JetClassOrObject classOrObject,
+            final boolean buildFromExplicitSignatures
     ) {
         return new KotlinJavaFileStubProvider(classOrObject.getProject(), new StubGenerationStrategy.WithDeclaredClasses() {
             private JetFile getFile() {
@@ -119,6 +131,11 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
 
                 state.getFactory().files();
             }
+
+            @Override
+            public boolean generateWithoutAnalysis(@NotNull Stack<StubElement> stubStack) {
+                return buildFromExplicitSignatures && ExplicitSignaturesStubBuilder.build(classOrObject, stubStack);
+            }
         });
     }
 
@@ -143,6 +160,16 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
 
         checkForBuiltIns(packageFqName, files);
 
+        PsiJavaFileStub javaFileStub = createJavaFileStub(packageFqName, getRepresentativeVirtualFile(files));
+        Stack<StubElement> stubStack = new Stack<StubElement>();
+        stubStack.push(javaFileStub);
+
+        // Analysis of the whole project is by far the most expensive part, and simple classes don't need it at all
+        if (stubGenerationStrategy.generateWithoutAnalysis(stubStack)) {
+            popFileStub(stubStack, javaFileStub);
+            return Result.create(javaFileStub, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
+        }
+
         LightClassConstructionContext context = LightClassGenerationSupport.getInstance(project).analyzeRelevantCode(files);
 
         Throwable error = context.getError();
@@ -150,11 +177,7 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
             throw new IllegalStateException("failed to analyze: " + error, error);
         }
 
-        PsiJavaFileStub javaFileStub = createJavaFileStub(packageFqName, getRepresentativeVirtualFile(files));
         try {
-            Stack<StubElement> stubStack = new Stack<StubElement>();
-            stubStack.push(javaFileStub);
-
             GenerationState state = new GenerationState(
                     project,
                     new KotlinLightClassBuilderFactory(stubStack),
@@ -168,11 +191,7 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
 
             stubGenerationStrategy.generate(state, files);
 
-            StubElement pop = stubStack.pop();
-            if (pop != javaFileStub) {
-                LOG.error("Unbalanced stack operations: " + pop);
-            }
-
+            popFileStub(stubStack, javaFileStub);
         }
         catch (ProcessCanceledException e) {
             throw e;
@@ -185,6 +204,13 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
         return Result.create(javaFileStub, PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT);
     }
 
+    private static void popFileStub(@NotNull Stack<StubElement> stubStack, @NotNull PsiJavaFileStub javaFileStub) {
+        StubElement pop = stubStack.pop();
+        if (pop != javaFileStub) {
+            LOG.error("Unbalanced stack operations: " + pop);
+        }
+    }
+
     @NotNull
     private PsiJavaFileStub createJavaFileStub(@NotNull final FqName packageFqName, @NotNull VirtualFile virtualFile) {
         PsiManager manager = PsiManager.getInstance(project);
@@ -245,12 +271,22 @@ public class KotlinJavaFileStubProvider implements CachedValueProvider<PsiJavaFi
         boolean generateDeclaredClasses();
         void generate(@NotNull GenerationState state, @NotNull Collection<JetFile> files);
 
+        /**
+         * @return true if the stubs were generated straight from the PSI, false if the code needs to be analyzed for that
+         */
+        boolean generateWithoutAnalysis(@NotNull Stack<StubElement> stubStack);
+
         abstract class NoDeclaredClasses implements StubGenerationStrategy {
             @Override
             public boolean generateDeclaredClasses() {
                 return false;
             }
 
+            @Override
+            public boolean generateWithoutAnalysis(@NotNull Stack<StubElement> stubStack) {
+                return false;
+            }
+
             @Override
             public String toString() {
                 // For subclasses to be identifiable in the debugger
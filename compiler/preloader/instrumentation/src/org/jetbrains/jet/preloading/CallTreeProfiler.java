@@ -0,0 +1,271 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.preloading;
+
+import org.jetbrains.jet.preloading.instrumentation.annotations.ClassName;
+import org.jetbrains.jet.preloading.instrumentation.annotations.MethodDesc;
+import org.jetbrains.jet.preloading.instrumentation.annotations.MethodName;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Builds a call tree of the intercepted methods for every thread, and reports invocation counts, inclusive and exclusive
+ * time per method, plus the tree itself in the "collapsed stacks" format understood by flame graph tools
+ * (one line per call path: {@code frame1;frame2;frame3 microseconds}).
+ *
+ * Every thread only touches its own tree, so no synchronization is needed while profiling. Children are kept in
+ * copy-on-write lists, so that {@link #dump(PrintStream)} can walk the trees of threads which are still running: new call
+ * paths are rare compared to calls, so copying on insertion is cheap. Recursive calls get their own nodes, but are only
+ * counted once in the inclusive time of the method.
+ *
+ * Exit hooks are also called when an exception passes through a method, except for constructors, which only report
+ * exceptions they throw themselves. To account for these, exiting a method also closes all the frames above it which are
+ * still open.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class CallTreeProfiler {
+    public static final String COLLAPSED_STACKS_FILE_PROPERTY = "kotlin.profiler.collapsed.stacks";
+    public static final String TOP_METHODS_PROPERTY = "kotlin.profiler.top.methods";
+
+    private static final int CALIBRATION_CALLS = 1000000;
+
+    private static class Node {
+        private final Node parent;
+        private final String className;
+        private final String methodName;
+        private final String methodDesc;
+        private final List<Node> children = new CopyOnWriteArrayList<Node>();
+
+        private long invocations;
+        private long inclusiveNanos;
+        private long exclusiveNanos;
+
+        // State of the current activation: a node can't be active twice at the same time, recursive calls are its children
+        private long enterTime;
+        private long childrenNanos;
+
+        private Node(Node parent, String className, String methodName, String methodDesc) {
+            this.parent = parent;
+            this.className = className;
+            this.methodName = methodName;
+            this.methodDesc = methodDesc;
+        }
+
+        private boolean isFor(String className, String methodName, String methodDesc) {
+            return this.methodName.equals(methodName) && this.methodDesc.equals(methodDesc) && this.className.equals(className);
+        }
+
+        private Node getOrCreateChild(String className, String methodName, String methodDesc) {
+            // Only the owning thread adds children, so indexed access is safe and doesn't allocate an iterator
+            for (int i = 0, size = children.size(); i < size; i++) {
+                Node child = children.get(i);
+                if (child.isFor(className, methodName, methodDesc)) return child;
+            }
+            Node child = new Node(this, className, methodName, methodDesc);
+            children.add(child);
+            return child;
+        }
+
+        private String getLabel() {
+            return className.replace('/', '.') + "." + methodName;
+        }
+    }
+
+    private static class ThreadState {
+        private final String threadName;
+        private final Node root = new Node(null, "", "", "");
+        private Node current = root;
+
+        private ThreadState(String threadName) {
+            this.threadName = threadName;
+        }
+    }
+
+    private static class MethodStatistics {
+        private final String label;
+        private long invocations;
+        private long inclusiveNanos;
+        private long exclusiveNanos;
+
+        private MethodStatistics(String label) {
+            this.label = label;
+        }
+    }
+
+    private final List<ThreadState> threads = new CopyOnWriteArrayList<ThreadState>();
+    private final ThreadLocal<ThreadState> state = new ThreadLocal<ThreadState>() {
+        @Override
+        protected ThreadState initialValue() {
+            ThreadState result = new ThreadState(Thread.currentThread().getName());
+            threads.add(result);
+            return result;
+        }
+    };
+
+    public void enter(@ClassName String className, @MethodName String methodName, @MethodDesc String methodDesc) {
+        ThreadState threadState = state.get();
+        Node node = threadState.current.getOrCreateChild(className, methodName, methodDesc);
+        node.childrenNanos = 0;
+        threadState.current = node;
+        node.enterTime = System.nanoTime();
+    }
+
+    public void exit(@ClassName String className, @MethodName String methodName, @MethodDesc String methodDesc) {
+        long now = System.nanoTime();
+        ThreadState threadState = state.get();
+
+        Node target = threadState.current;
+        while (target != threadState.root && !target.isFor(className, methodName, methodDesc)) {
+            target = target.parent;
+        }
+        // Exit without a matching enter, e.g. the method was already running when profiling started
+        if (target == threadState.root) return;
+
+        Node node = threadState.current;
+        while (true) {
+            long elapsed = now - node.enterTime;
+            node.invocations++;
+            node.inclusiveNanos += elapsed;
+            node.exclusiveNanos += elapsed - node.childrenNanos;
+            node.parent.childrenNanos += elapsed;
+            if (node == target) break;
+            node = node.parent;
+        }
+        threadState.current = target.parent;
+    }
+
+    public void dump(PrintStream out) {
+        // Threads which are still running may update their trees concurrently, their numbers are approximate
+        Map<String, MethodStatistics> methods = new HashMap<String, MethodStatistics>();
+        long totalInvocations = 0;
+        for (ThreadState thread : threads) {
+            totalInvocations += collectMethodStatistics(thread.root, methods, new HashMap<String, Integer>());
+        }
+
+        List<MethodStatistics> sorted = new ArrayList<MethodStatistics>(methods.values());
+        Collections.sort(sorted, new Comparator<MethodStatistics>() {
+            @Override
+            public int compare(MethodStatistics o1, MethodStatistics o2) {
+                return o1.exclusiveNanos > o2.exclusiveNanos ? -1 : o1.exclusiveNanos < o2.exclusiveNanos ? 1 : 0;
+            }
+        });
+
+        int top = Integer.getInteger(TOP_METHODS_PROPERTY, 50);
+        out.println("Profiled methods by exclusive time (" + threads.size() + " threads, " + totalInvocations + " invocations):");
+        out.printf("%12s %12s %12s  %s\n", "invocations", "incl. ms", "excl. ms", "method");
+        for (MethodStatistics method : sorted.subList(0, Math.min(top, sorted.size()))) {
+            out.printf("%12d %12.1f %12.1f  %s\n", method.invocations, method.inclusiveNanos / 1e6, method.exclusiveNanos / 1e6,
+                       method.label);
+        }
+
+        double overheadNanos = measureOverheadPerCall();
+        out.printf("Estimated profiling overhead: %.1f ns per call, %.0f ms in total\n", overheadNanos,
+                   overheadNanos * totalInvocations / 1e6);
+
+        String collapsedStacksFile = System.getProperty(COLLAPSED_STACKS_FILE_PROPERTY);
+        if (collapsedStacksFile != null) {
+            try {
+                writeCollapsedStacks(new File(collapsedStacksFile));
+                out.println("Collapsed stacks written to " + collapsedStacksFile);
+            }
+            catch (IOException e) {
+                out.println("Could not write collapsed stacks to " + collapsedStacksFile + ": " + e);
+            }
+        }
+    }
+
+    private static long collectMethodStatistics(Node node, Map<String, MethodStatistics> methods, Map<String, Integer> activeLabels) {
+        long invocations = 0;
+        for (Node child : node.children) {
+            String label = child.getLabel();
+            MethodStatistics statistics = methods.get(label);
+            if (statistics == null) {
+                statistics = new MethodStatistics(label);
+                methods.put(label, statistics);
+            }
+            statistics.invocations += child.invocations;
+            statistics.exclusiveNanos += child.exclusiveNanos;
+
+            Integer active = activeLabels.get(label);
+            if (active == null) {
+                // Time of recursive invocations is already included into the outermost one
+                statistics.inclusiveNanos += child.inclusiveNanos;
+                active = 0;
+            }
+            activeLabels.put(label, active + 1);
+            invocations += child.invocations + collectMethodStatistics(child, methods, activeLabels);
+            if (active == 0) {
+                activeLabels.remove(label);
+            }
+            else {
+                activeLabels.put(label, active);
+            }
+        }
+        return invocations;
+    }
+
+    private void writeCollapsedStacks(File file) throws IOException {
+        // Trees of different threads are merged, as are overloads of the same method
+        Map<String, Long> stacks = new LinkedHashMap<String, Long>();
+        for (ThreadState thread : threads) {
+            collectStacks(thread.root, "", stacks);
+        }
+
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)));
+        try {
+            for (Map.Entry<String, Long> entry : stacks.entrySet()) {
+                long micros = entry.getValue() / 1000;
+                if (micros > 0) {
+                    writer.print(entry.getKey());
+                    writer.print(' ');
+                    writer.println(micros);
+                }
+            }
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static void collectStacks(Node node, String path, Map<String, Long> stacks) {
+        for (Node child : node.children) {
+            String childPath = path.isEmpty() ? child.getLabel() : path + ";" + child.getLabel();
+            Long previous = stacks.get(childPath);
+            stacks.put(childPath, (previous == null ? 0 : previous) + child.exclusiveNanos);
+            collectStacks(child, childPath, stacks);
+        }
+    }
+
+    /**
+     * Runs a separate profiler on a synthetic call pattern to estimate how much a pair of enter/exit calls costs
+     */
+    private static double measureOverheadPerCall() {
+        CallTreeProfiler profiler = new CallTreeProfiler();
+        String className = "Calibration";
+        String desc = "()V";
+        long start = System.nanoTime();
+        for (int i = 0; i < CALIBRATION_CALLS / 2; i++) {
+            profiler.enter(className, "outer", desc);
+            profiler.enter(className, "inner", desc);
+            profiler.exit(className, "inner", desc);
+            profiler.exit(className, "outer", desc);
+        }
+        return (double) (System.nanoTime() - start) / CALIBRATION_CALLS;
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.preloading;
+
+import org.jetbrains.jet.preloading.instrumentation.InterceptionInstrumenterAdaptor;
+import org.jetbrains.jet.preloading.instrumentation.annotations.MethodInterceptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Profiles the main parts of the compiler with a single {@link CallTreeProfiler}, so that calls between them end up
+ * in the same call tree. Which classes are profiled is determined by the {@link #CLASSES_PROPERTY} system property:
+ * a comma-separated list of regular expressions matched against JVM internal class names.
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class ProfilingInstrumenter extends InterceptionInstrumenterAdaptor {
+    public static final String CLASSES_PROPERTY = "kotlin.profiler.classes";
+    public static final String DEFAULT_CLASSES =
+            "org/jetbrains/jet/lang/resolve/.*,org/jetbrains/jet/lang/types/.*,org/jetbrains/jet/codegen/.*";
+
+    public static final CallTreeProfiler PROFILER = new CallTreeProfiler();
+
+    // Classes are filtered in instrument(), because patterns in annotations can't be configured at runtime
+    @MethodInterceptor(className = ".*", methodName = ".*", methodDesc = ".*", allowMultipleMatches = true)
+    public static final Object profiled = PROFILER;
+
+    private final List<Pattern> classPatterns = parsePatterns(System.getProperty(CLASSES_PROPERTY, DEFAULT_CLASSES));
+
+    @Override
+    public byte[] instrument(String resourceName, byte[] data) {
+        if (!resourceName.endsWith(".class")) return data;
+        String className = resourceName.substring(0, resourceName.length() - ".class".length());
+        for (Pattern pattern : classPatterns) {
+            if (pattern.matcher(className).matches()) {
+                return super.instrument(resourceName, data);
+            }
+        }
+        return data;
+    }
+
+    private static List<Pattern> parsePatterns(String patterns) {
+        List<Pattern> result = new ArrayList<Pattern>();
+        for (String pattern : patterns.split(",")) {
+            pattern = pattern.trim();
+            if (!pattern.isEmpty()) {
+                result.add(Pattern.compile(pattern));
+            }
+        }
+        return result;
+    }
+}
@@ -78,6 +78,7 @@ public class InterceptionInstrumenter {
                 List<MethodData> enterData = new ArrayList<MethodData>();
                 List<MethodData> normalReturnData = new ArrayList<MethodData>();
                 List<MethodData> exceptionData = new ArrayList<MethodData>();
+                List<MethodData> exitData = new ArrayList<MethodData>();
                 List<Method> dumpMethods = new ArrayList<Method>();
                 for (Method method : interceptorClass.getMethods()) {
                     String name = method.getName();
@@ -93,7 +94,7 @@ public class InterceptionInstrumenter {
                     }
                     else if (name.startsWith("exit")) {
                         normalReturnData.add(methodData);
-                        exceptionData.add(methodData);
+                        exitData.add(methodData);
                     }
                     else if (name.startsWith("dump")) {
                         Class<?>[] parameterTypes = method.getParameterTypes();
@@ -106,7 +107,7 @@ public class InterceptionInstrumenter {
                     }
                 }
 
-                if (enterData.isEmpty() && normalReturnData.isEmpty() && exceptionData.isEmpty()) {
+                if (enterData.isEmpty() && normalReturnData.isEmpty() && exceptionData.isEmpty() && exitData.isEmpty()) {
                     dumpTasks.add(new DumpAction() {
                         @Override
                         public void dump(PrintStream out) {
@@ -126,6 +127,7 @@ public class InterceptionInstrumenter {
                         enterData,
                         normalReturnData,
                         exceptionData,
+                        exitData,
                         annotation.logInterceptions(),
                         annotation.dumpByteCode());
 
@@ -277,6 +279,13 @@ public class InterceptionInstrumenter {
         ClassWriter cw = new ClassWriter(cr, 0);
         cr.accept(new ClassVisitor(ASM4, cw) {
             private final Map<MethodInstrumenter, String> matchedMethods = new HashMap<MethodInstrumenter, String>();
+            private int classVersion;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+                classVersion = version & 0xFFFF;
+                super.visit(version, access, name, signature, superName, interfaces);
+            }
 
             @Override
             public MethodVisitor visitMethod(
@@ -307,6 +316,7 @@ public class InterceptionInstrumenter {
                 final List<MethodData> normalReturnData = new ArrayList<MethodData>();
                 final List<MethodData> enterData = new ArrayList<MethodData>();
                 final List<MethodData> exceptionData = new ArrayList<MethodData>();
+                final List<MethodData> exitData = new ArrayList<MethodData>();
                 for (MethodInstrumenter instrumenter : applicableInstrumenters) {
                     enterData.addAll(instrumenter.getEnterData());
 
@@ -314,20 +324,27 @@ public class InterceptionInstrumenter {
 
                     exceptionData.addAll(instrumenter.getExceptionData());
 
+                    exitData.addAll(instrumenter.getExitData());
+
                     dumpByteCode |= instrumenter.shouldDumpByteCode();
                 }
 
-                if (enterData.isEmpty() && normalReturnData.isEmpty() && exceptionData.isEmpty()) return mv;
+                if (enterData.isEmpty() && normalReturnData.isEmpty() && exceptionData.isEmpty() && exitData.isEmpty()) return mv;
 
                 if (dumpByteCode) {
                     mv = getDumpingVisitorWrapper(mv, name, desc);
                 }
 
-                final int maxStackDepth = getMaxStackDepth(name, desc, normalReturnData, enterData, exceptionData);
+                final int maxStackDepth = getMaxStackDepth(name, desc, normalReturnData, enterData, exceptionData, exitData);
                 final boolean isConstructor = "<init>".equals(name);
+                // Exit hooks run in a handler catching everything thrown in the method, including exceptions thrown by callees.
+                // A handler can't cover the super() call of a constructor, so constructors only report explicit throws
+                final boolean exitsInHandler = !exitData.isEmpty() && !isConstructor;
 
                 return new MethodVisitor(ASM4, mv) {
 
+                    private final Label handlerStart = new Label();
+
                     private InstructionAdapter ia = null;
 
                     private InstructionAdapter getInstructionAdapter() {
@@ -339,6 +356,20 @@ public class InterceptionInstrumenter {
 
                     @Override
                     public void visitMaxs(int maxStack, int maxLocals) {
+                        if (exitsInHandler) {
+                            // The handler is added after the ones of the method, so that they catch their exceptions first
+                            Label handler = new Label();
+                            visitLabel(handler);
+                            if (classVersion >= V1_6) {
+                                Object[] locals = usesLocals(exitData) ? getParameterFrameTypes(access, cr.getClassName(), desc) : new Object[0];
+                                visitFrame(F_FULL, locals.length, locals, 1, new Object[] {"java/lang/Throwable"});
+                            }
+                            for (MethodData methodData : exitData) {
+                                invokeMethod(access, cr.getClassName(), name, desc, getInstructionAdapter(), methodData, false);
+                            }
+                            super.visitInsn(ATHROW);
+                            visitTryCatchBlock(handlerStart, handler, handler, null);
+                        }
                         super.visitMaxs(Math.max(maxStack, maxStackDepth), maxLocals);
                     }
 
@@ -350,6 +381,9 @@ public class InterceptionInstrumenter {
                             invokeMethod(access, cr.getClassName(), name, desc, getInstructionAdapter(), methodData, isConstructor);
                         }
                         super.visitCode();
+                        if (exitsInHandler) {
+                            visitLabel(handlerStart);
+                        }
                     }
 
                     @Override
@@ -370,6 +404,11 @@ public class InterceptionInstrumenter {
                                     // A constructor may throw before calling super(), 'this' is not available in this case
                                     invokeMethod(access, cr.getClassName(), name, desc, getInstructionAdapter(), methodData, isConstructor);
                                 }
+                                if (!exitsInHandler) {
+                                    for (MethodData methodData : exitData) {
+                                        invokeMethod(access, cr.getClassName(), name, desc, getInstructionAdapter(), methodData, isConstructor);
+                                    }
+                                }
                                 break;
                         }
                         super.visitInsn(opcode);
@@ -382,13 +421,15 @@ public class InterceptionInstrumenter {
                     String desc,
                     List<MethodData> normalReturnData,
                     List<MethodData> enterData,
-                    List<MethodData> exceptionData
+                    List<MethodData> exceptionData,
+                    List<MethodData> exitData
             ) {
                 org.jetbrains.asm4.commons.Method methodBeingInstrumented = new org.jetbrains.asm4.commons.Method(name, desc);
 
                 List<MethodData> allData = new ArrayList<MethodData>();
                 allData.addAll(enterData);
                 allData.addAll(exceptionData);
+                allData.addAll(exitData);
                 allData.addAll(normalReturnData);
                 int maxStackDepth = 0;
                 for (MethodData methodData : allData) {
@@ -448,6 +489,51 @@ public class InterceptionInstrumenter {
         return cw.toByteArray();
     }
 
+    // Interceptor parameters other than the names of the instrumented method are loaded from its local variables
+    private static boolean usesLocals(List<MethodData> data) {
+        for (MethodData methodData : data) {
+            int namesCount = (methodData.getClassNameParameterIndex() >= 0 ? 1 : 0)
+                             + (methodData.getMethodNameParameterIndex() >= 0 ? 1 : 0)
+                             + (methodData.getMethodDescParameterIndex() >= 0 ? 1 : 0);
+            if (getAsmMethod(methodData).getArgumentTypes().length > namesCount) return true;
+        }
+        return false;
+    }
+
+    // Local variables holding 'this' and the parameters of the method, in the format of visitFrame()
+    private static Object[] getParameterFrameTypes(int access, String className, String desc) {
+        List<Object> result = new ArrayList<Object>();
+        if ((access & ACC_STATIC) == 0) {
+            result.add(className);
+        }
+        for (Type type : Type.getArgumentTypes(desc)) {
+            switch (type.getSort()) {
+                case Type.BOOLEAN:
+                case Type.CHAR:
+                case Type.BYTE:
+                case Type.SHORT:
+                case Type.INT:
+                    result.add(INTEGER);
+                    break;
+                case Type.FLOAT:
+                    result.add(FLOAT);
+                    break;
+                case Type.LONG:
+                    result.add(LONG);
+                    break;
+                case Type.DOUBLE:
+                    result.add(DOUBLE);
+                    break;
+                case Type.ARRAY:
+                    result.add(type.getDescriptor());
+                    break;
+                default:
+                    result.add(type.getInternalName());
+            }
+        }
+        return result.toArray();
+    }
+
     private static org.jetbrains.asm4.commons.Method getAsmMethod(MethodData methodData) {
         return new org.jetbrains.asm4.commons.Method(methodData.getName(), methodData.getDesc());
     }
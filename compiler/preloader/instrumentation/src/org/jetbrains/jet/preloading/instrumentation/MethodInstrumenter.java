@@ -28,6 +28,7 @@ class MethodInstrumenter {
     private final List<MethodData> enterData;
     private final List<MethodData> normalReturnData;
     private final List<MethodData> exceptionData;
+    private final List<MethodData> exitData;
     private final boolean logApplications;
     private final boolean dumpByteCode;
 
@@ -39,6 +40,7 @@ class MethodInstrumenter {
             List<MethodData> enterData,
             List<MethodData> normalReturnData,
             List<MethodData> exceptionData,
+            List<MethodData> exitData,
             boolean logApplications,
             boolean dumpByteCode
     ) {
@@ -50,6 +52,7 @@ class MethodInstrumenter {
         this.enterData = enterData;
         this.normalReturnData = normalReturnData;
         this.exceptionData = exceptionData;
+        this.exitData = exitData;
         this.logApplications = logApplications;
         this.dumpByteCode = dumpByteCode;
     }
@@ -80,6 +83,10 @@ class MethodInstrumenter {
         return exceptionData;
     }
 
+    public List<MethodData> getExitData() {
+        return exitData;
+    }
+
     boolean shouldDumpByteCode() {
         return dumpByteCode;
     }
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.preloading;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * A single file containing the uncompressed resources of several jars, which is memory-mapped instead of inflating
+ * the jars on every start.
+ *
+ * Format: header (magic, version, paths, sizes and modification times of the jars), index (for every resource: name,
+ * index of the jar it was taken from, offset, size and CRC32 of its data) and data of all resources.
+ * The image is only used if the jars are exactly the same as when it was written, the name of the image file
+ * contains a hash of them so that images of different compiler versions can coexist. The data of a resource is checked
+ * against its CRC32 when the resource is first used, a corrupted resource is read from its jar instead.
+ *
+ * Images are only kept in directories which are owned by the current user and can't be written by anyone else.
+ * Only the {@link #MAX_IMAGES} most recently used images are kept in a directory, older ones are deleted when a new image is saved.
+ */
+class ClassImage {
+    private static final int MAGIC = 0x4B434931;
+    private static final int VERSION = 2;
+
+    /*package*/ static final int MAX_IMAGES = 3;
+    private static final String IMAGE_PREFIX = "classes-";
+    private static final String IMAGE_SUFFIX = ".image";
+
+    private static final boolean POSIX_ATTRIBUTES_AVAILABLE = isPosixAttributesApiAvailable();
+
+    private ClassImage() {
+    }
+
+    /**
+     * Creates the directory, accessible only by its owner, if it does not exist
+     *
+     * @return false if the directory is not owned by the current user or can be written by others, so the images in it
+     * can't be trusted
+     */
+    public static boolean prepareDirectory(File imageDir) throws IOException {
+        if (!imageDir.isDirectory()) {
+            if (!imageDir.mkdirs() && !imageDir.isDirectory()) {
+                throw new IOException("Could not create directory " + imageDir);
+            }
+            restrictToOwner(imageDir);
+        }
+        // Without java.nio.file (JDK 6) permissions can be changed, but not checked
+        return !POSIX_ATTRIBUTES_AVAILABLE || PosixAttributes.isPrivateDirectory(imageDir);
+    }
+
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private static void restrictToOwner(File dir) {
+        dir.setReadable(false, false);
+        dir.setReadable(true, true);
+        dir.setWritable(false, false);
+        dir.setWritable(true, true);
+        dir.setExecutable(false, false);
+        dir.setExecutable(true, true);
+    }
+
+    public static File getImageFile(File imageDir, List<File> jarFiles) {
+        long hash = VERSION;
+        for (File jarFile : jarFiles) {
+            hash = 31 * hash + jarFile.getAbsolutePath().hashCode();
+            hash = 31 * hash + jarFile.length();
+            hash = 31 * hash + jarFile.lastModified();
+        }
+        return new File(imageDir, IMAGE_PREFIX + Long.toHexString(hash) + IMAGE_SUFFIX);
+    }
+
+    /**
+     * @return resources of the image, or null if it does not exist, is corrupted or was built for other jars
+     */
+    public static Map<String, ClassPreloadingUtils.ResourceData> load(
+            File imageFile,
+            List<File> jarFiles,
+            ClassPreloadingUtils.ClassHandler handler
+    ) throws IOException {
+        if (!imageFile.isFile()) return null;
+
+        ByteBuffer buffer;
+        RandomAccessFile file = new RandomAccessFile(imageFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        finally {
+            file.close();
+        }
+
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+
+            int jarCount = buffer.getInt();
+            if (jarCount != jarFiles.size()) return null;
+            for (File jarFile : jarFiles) {
+                if (!readString(buffer).equals(jarFile.getAbsolutePath())) return null;
+                if (buffer.getLong() != jarFile.length() || buffer.getLong() != jarFile.lastModified()) return null;
+            }
+
+            int entryCount = buffer.getInt();
+            String[] names = new String[entryCount];
+            int[] jarIndices = new int[entryCount];
+            int[] offsets = new int[entryCount];
+            int[] sizes = new int[entryCount];
+            long[] checksums = new long[entryCount];
+            for (int i = 0; i < entryCount; i++) {
+                names[i] = readString(buffer);
+                jarIndices[i] = buffer.getInt();
+                offsets[i] = buffer.getInt();
+                sizes[i] = buffer.getInt();
+                checksums[i] = buffer.getInt() & 0xFFFFFFFFL;
+            }
+
+            int dataStart = buffer.position();
+            Map<String, ClassPreloadingUtils.ResourceData> resources =
+                    new HashMap<String, ClassPreloadingUtils.ResourceData>(entryCount * 4 / 3 + 1);
+            for (int i = 0; i < entryCount; i++) {
+                ByteBuffer data = buffer.duplicate();
+                data.position(dataStart + offsets[i]);
+                data.limit(dataStart + offsets[i] + sizes[i]);
+                resources.put(names[i], new ClassPreloadingUtils.ResourceData(jarFiles.get(jarIndices[i]), names[i], data.slice(),
+                                                                              checksums[i], handler));
+            }
+            // Marks the image as recently used, so that it's not evicted
+            //noinspection ResultOfMethodCallIgnored
+            imageFile.setLastModified(System.currentTimeMillis());
+            return resources;
+        }
+        catch (RuntimeException e) {
+            // Corrupted image: buffer underflow, negative sizes, offsets pointing outside of the file
+            return null;
+        }
+    }
+
+    /**
+     * Writes the image to a temporary file and renames it, so that concurrently started processes never see a partially
+     * written image. Then deletes the least recently used images of the directory.
+     */
+    public static void save(
+            File imageFile,
+            List<File> jarFiles,
+            Map<String, ClassPreloadingUtils.ResourceData> resources
+    ) throws IOException {
+        File imageDir = imageFile.getParentFile();
+        if (!imageDir.isDirectory() && !imageDir.mkdirs()) {
+            throw new IOException("Could not create directory " + imageDir);
+        }
+
+        Map<File, Integer> jarIndices = new HashMap<File, Integer>();
+        for (File jarFile : jarFiles) {
+            jarIndices.put(jarFile, jarIndices.size());
+        }
+
+        File tempFile = File.createTempFile(imageFile.getName(), ".tmp", imageDir);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile), 64 * 1024));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeInt(jarFiles.size());
+                for (File jarFile : jarFiles) {
+                    writeString(out, jarFile.getAbsolutePath());
+                    out.writeLong(jarFile.length());
+                    out.writeLong(jarFile.lastModified());
+                }
+
+                List<ClassPreloadingUtils.ResourceData> entries = new ArrayList<ClassPreloadingUtils.ResourceData>(resources.values());
+                out.writeInt(entries.size());
+                int offset = 0;
+                for (ClassPreloadingUtils.ResourceData entry : entries) {
+                    ByteBuffer data = entry.getData();
+                    int size = data.remaining();
+                    writeString(out, entry.resourceName);
+                    out.writeInt(jarIndices.get(entry.jarFile));
+                    out.writeInt(offset);
+                    out.writeInt(size);
+                    out.writeInt((int) checksum(data));
+                    offset += size;
+                }
+
+                byte[] buffer = new byte[64 * 1024];
+                for (ClassPreloadingUtils.ResourceData entry : entries) {
+                    ByteBuffer data = entry.getData();
+                    while (data.hasRemaining()) {
+                        int count = Math.min(buffer.length, data.remaining());
+                        data.get(buffer, 0, count);
+                        out.write(buffer, 0, count);
+                    }
+                }
+            }
+            finally {
+                out.close();
+            }
+
+            // renameTo() does not replace existing files on some platforms
+            //noinspection ResultOfMethodCallIgnored
+            imageFile.delete();
+            if (!tempFile.renameTo(imageFile) && !imageFile.isFile()) {
+                throw new IOException("Could not rename " + tempFile + " to " + imageFile);
+            }
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+        }
+
+        evictOldImages(imageDir, imageFile);
+    }
+
+    // Images of other jars (e.g. previous compiler versions) are never used again after an update, so only the newest ones are kept
+    private static void evictOldImages(File imageDir, File savedImage) {
+        File[] files = imageDir.listFiles();
+        if (files == null) return;
+
+        List<File> otherImages = new ArrayList<File>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.startsWith(IMAGE_PREFIX) && name.endsWith(IMAGE_SUFFIX) && !file.equals(savedImage)) {
+                otherImages.add(file);
+            }
+        }
+        if (otherImages.size() < MAX_IMAGES) return;
+
+        final Map<File, Long> lastModified = new HashMap<File, Long>();
+        for (File image : otherImages) {
+            lastModified.put(image, image.lastModified());
+        }
+        Collections.sort(otherImages, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return lastModified.get(o2).compareTo(lastModified.get(o1));
+            }
+        });
+        for (File image : otherImages.subList(MAX_IMAGES - 1, otherImages.size())) {
+            // Another process may have mapped this image, the mapping stays valid after the file is deleted on POSIX systems,
+            // and deleting fails on Windows
+            //noinspection ResultOfMethodCallIgnored
+            image.delete();
+        }
+    }
+
+    public static long checksum(ByteBuffer data) {
+        ByteBuffer buffer = data.duplicate();
+        byte[] chunk = new byte[Math.min(buffer.remaining(), 8 * 1024)];
+        CRC32 crc = new CRC32();
+        while (buffer.hasRemaining()) {
+            int count = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, count);
+            crc.update(chunk, 0, count);
+        }
+        return crc.getValue();
+    }
+
+    private static String readString(ByteBuffer buffer) throws UnsupportedEncodingException {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes("UTF-8");
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static boolean isPosixAttributesApiAvailable() {
+        try {
+            Class.forName("java.nio.file.attribute.PosixFileAttributeView");
+            return true;
+        }
+        catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // All usages of java.nio.file are here, so that the preloader still runs on JDK 6
+    private static class PosixAttributes {
+        public static boolean isPrivateDirectory(File dir) throws IOException {
+            Path path = dir.toPath();
+            PosixFileAttributeView view = Files.getFileAttributeView(path, PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+            // Not a POSIX file system: access to the user's home directory is restricted by other means
+            if (view == null) return true;
+
+            PosixFileAttributes attributes = view.readAttributes();
+            // Links are not followed, so a symbolic link to a directory is rejected here
+            if (!attributes.isDirectory()) return false;
+
+            UserPrincipal currentUser =
+                    path.getFileSystem().getUserPrincipalLookupService().lookupPrincipalByName(System.getProperty("user.name"));
+            Set<PosixFilePermission> permissions = attributes.permissions();
+            return attributes.owner().equals(currentUser) &&
+                   !permissions.contains(PosixFilePermission.GROUP_WRITE) &&
+                   !permissions.contains(PosixFilePermission.OTHERS_WRITE);
+        }
+    }
+}
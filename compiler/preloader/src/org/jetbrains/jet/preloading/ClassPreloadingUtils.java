@@ -23,8 +23,11 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 public class ClassPreloadingUtils {
@@ -46,21 +49,33 @@ public class ClassPreloadingUtils {
      *
      * NOTE: if many resources with the same name exist, only the first one will be loaded
      *
+     * If {@code imageDir} is not null, the uncompressed contents of the jars are stored there as a single file (see
+     * {@link ClassImage}), which is memory-mapped on subsequent runs with the same jars instead of reading the jars again.
+     *
      * @param jarFiles jars to load all classes from
      * @param classCountEstimation an estimated number of classes in a the jars
      * @param parent (nullable) parent class loader
      * @param handler handler to be notified on class definitions done by this class loader, or null
+     * @param imageDir directory to keep class images in, or null to always read the jars
      * @return a class loader that reads classes from memory
      * @throws IOException on from reading the jar
      */
     public static ClassLoader preloadClasses(
-            Collection<File> jarFiles, int classCountEstimation, ClassLoader parent, ClassHandler handler
+            Collection<File> jarFiles, int classCountEstimation, ClassLoader parent, ClassHandler handler, File imageDir
     ) throws IOException {
-        Map<String, ResourceData> entries = loadAllClassesFromJars(jarFiles, classCountEstimation, handler);
+        Map<String, ResourceData> entries = imageDir != null
+                                            ? loadAllClassesFromImage(new ArrayList<File>(jarFiles), classCountEstimation, handler, imageDir)
+                                            : loadAllClassesFromJars(jarFiles, classCountEstimation, handler);
 
         return createMemoryBasedClassLoader(parent, entries, handler);
     }
 
+    public static ClassLoader preloadClasses(
+            Collection<File> jarFiles, int classCountEstimation, ClassLoader parent, ClassHandler handler
+    ) throws IOException {
+        return preloadClasses(jarFiles, classCountEstimation, parent, handler, null);
+    }
+
     public static ClassLoader preloadClasses(
             Collection<File> jarFiles, int classCountEstimation, ClassLoader parent
     ) throws IOException {
@@ -89,16 +104,17 @@ public class ClassPreloadingUtils {
                 ResourceData resourceData = preloadedResources.get(internalName);
                 if (resourceData == null) return null;
 
-                int sizeInBytes = resourceData.bytes.length;
-                if (handler != null) {
-                    handler.beforeDefineClass(name, sizeInBytes);
+                if (handler == null) {
+                    // Classes are defined right from the (possibly memory-mapped) buffer
+                    return defineClass(name, resourceData.getData(), null);
                 }
 
-                Class<?> definedClass = defineClass(name, resourceData.bytes, 0, sizeInBytes);
+                byte[] bytes = resourceData.getBytes();
+                handler.beforeDefineClass(name, bytes.length);
 
-                if (handler != null) {
-                    handler.afterDefineClass(name);
-                }
+                Class<?> definedClass = defineClass(name, bytes, 0, bytes.length);
+
+                handler.afterDefineClass(name);
 
                 return definedClass;
             }
@@ -154,12 +170,8 @@ public class ClassPreloadingUtils {
                         bytes.write(buffer, 0, count);
                     }
 
-                    byte[] data = bytes.toByteArray();
-                    if (handler != null) {
-                        data = handler.instrument(name, data);
-                    }
-
-                    resources.put(name, new ResourceData(jarFile, name, data));
+                    resources.put(name, new ResourceData(jarFile, name, ByteBuffer.wrap(bytes.toByteArray()), ResourceData.NO_CHECKSUM,
+                                                         handler));
                 }
             }
             finally {
@@ -178,15 +190,222 @@ public class ClassPreloadingUtils {
         return resources;
     }
 
-    private static class ResourceData {
+    private static Map<String, ResourceData> loadAllClassesFromImage(
+            List<File> jarFiles,
+            int classNumberEstimate,
+            ClassHandler handler,
+            File imageDir
+    ) throws IOException {
+        boolean imageDirUsable;
+        try {
+            imageDirUsable = ClassImage.prepareDirectory(imageDir);
+            if (!imageDirUsable) {
+                System.err.println("PRELOADER WARNING: Class images are not used, " + imageDir +
+                                   " must be owned by the current user and not writable by others");
+            }
+        }
+        catch (IOException e) {
+            System.err.println("PRELOADER WARNING: Class images are not used: " + e);
+            imageDirUsable = false;
+        }
+        if (!imageDirUsable) {
+            return loadAllClassesFromJars(jarFiles, classNumberEstimate, handler);
+        }
+
+        File imageFile = ClassImage.getImageFile(imageDir, jarFiles);
+        Map<String, ResourceData> resources = ClassImage.load(imageFile, jarFiles, handler);
+        if (resources != null) return resources;
+
+        resources = loadAllClassesFromJarsInParallel(jarFiles, classNumberEstimate, handler);
+        try {
+            ClassImage.save(imageFile, jarFiles, resources);
+        }
+        catch (IOException e) {
+            // The image will be rebuilt on the next run
+            System.err.println("PRELOADER WARNING: Could not save class image " + imageFile + ": " + e);
+        }
+        return resources;
+    }
+
+    /**
+     * Each jar's entries are split into chunks inflated by different threads, every thread opens the jar by itself
+     */
+    private static Map<String, ResourceData> loadAllClassesFromJarsInParallel(
+            List<File> jarFiles,
+            int classNumberEstimate,
+            ClassHandler handler
+    ) throws IOException {
+        Map<String, ResourceData> resources = new HashMap<String, ResourceData>(classNumberEstimate);
+
+        int threadCount = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (File jarFile : jarFiles) {
+                if (handler != null) {
+                    handler.beforeLoadJar(jarFile);
+                }
+
+                List<String> names = new ArrayList<String>();
+                ZipFile zipFile = new ZipFile(jarFile);
+                try {
+                    Enumeration<? extends ZipEntry> entries = zipFile.entries();
+                    while (entries.hasMoreElements()) {
+                        ZipEntry entry = entries.nextElement();
+                        if (!entry.isDirectory()) {
+                            names.add(entry.getName());
+                        }
+                    }
+                }
+                finally {
+                    zipFile.close();
+                }
+
+                int chunkSize = (names.size() + threadCount - 1) / threadCount;
+                List<Future<List<byte[]>>> chunks = new ArrayList<Future<List<byte[]>>>();
+                for (int start = 0; start < names.size(); start += chunkSize) {
+                    chunks.add(executor.submit(new InflateTask(jarFile, names.subList(start, Math.min(start + chunkSize, names.size())))));
+                }
+
+                Iterator<String> nameIterator = names.iterator();
+                for (Future<List<byte[]>> chunk : chunks) {
+                    for (byte[] data : getResult(chunk)) {
+                        String name = nameIterator.next();
+                        if (resources.containsKey(name)) continue; // Only the first resource is stored
+
+                        resources.put(name, new ResourceData(jarFile, name, ByteBuffer.wrap(data), ResourceData.NO_CHECKSUM, handler));
+                    }
+                }
+
+                if (handler != null) {
+                    handler.afterLoadJar(jarFile);
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return resources;
+    }
+
+    private static <T> T getResult(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            throw new IOException(e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static class InflateTask implements Callable<List<byte[]>> {
         private final File jarFile;
-        private final String resourceName;
-        private final byte[] bytes;
+        private final List<String> names;
 
-        public ResourceData(File jarFile, String resourceName, byte[] bytes) {
+        private InflateTask(File jarFile, List<String> names) {
+            this.jarFile = jarFile;
+            this.names = names;
+        }
+
+        @Override
+        public List<byte[]> call() throws IOException {
+            List<byte[]> result = new ArrayList<byte[]>(names.size());
+            ZipFile zipFile = new ZipFile(jarFile);
+            try {
+                byte[] buffer = new byte[10 * 1024];
+                for (String name : names) {
+                    result.add(readEntry(zipFile, name, buffer));
+                }
+            }
+            finally {
+                zipFile.close();
+            }
+            return result;
+        }
+    }
+
+    private static byte[] readEntry(ZipFile zipFile, String name, byte[] buffer) throws IOException {
+        ZipEntry entry = zipFile.getEntry(name);
+        if (entry == null) throw new FileNotFoundException(name + " in " + zipFile.getName());
+        int size = (int) entry.getSize();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size < 0 ? 32 : size);
+
+        InputStream stream = zipFile.getInputStream(entry);
+        try {
+            int count;
+            while ((count = stream.read(buffer)) > 0) {
+                bytes.write(buffer, 0, count);
+            }
+        }
+        finally {
+            stream.close();
+        }
+        return bytes.toByteArray();
+    }
+
+    static class ResourceData {
+        public static final long NO_CHECKSUM = -1;
+
+        final File jarFile;
+        final String resourceName;
+        // Contents of the resource as stored in the jar, replaced with the contents read from the jar if the checksum doesn't match
+        private volatile ByteBuffer data;
+        // CRC32 of the data taken from a class image, NO_CHECKSUM if the data was read from the jar
+        private final long checksum;
+        private volatile boolean verified;
+        private final ClassHandler handler;
+        private byte[] bytes;
+
+        public ResourceData(File jarFile, String resourceName, ByteBuffer data, long checksum, ClassHandler handler) {
             this.jarFile = jarFile;
             this.resourceName = resourceName;
-            this.bytes = bytes;
+            this.data = data;
+            this.checksum = checksum;
+            this.verified = checksum == NO_CHECKSUM;
+            this.handler = handler;
+        }
+
+        public ByteBuffer getData() {
+            if (!verified) {
+                verify();
+            }
+            return data.duplicate();
+        }
+
+        private synchronized void verify() {
+            if (verified) return;
+            if (ClassImage.checksum(data) != checksum) {
+                System.err.println("PRELOADER WARNING: Class image is corrupted, reading " + resourceName + " from " + jarFile);
+                try {
+                    ZipFile zipFile = new ZipFile(jarFile);
+                    try {
+                        data = ByteBuffer.wrap(readEntry(zipFile, resourceName, new byte[10 * 1024]));
+                    }
+                    finally {
+                        zipFile.close();
+                    }
+                }
+                catch (IOException e) {
+                    throw new IllegalStateException("Could not read " + resourceName + " from " + jarFile, e);
+                }
+            }
+            verified = true;
+        }
+
+        /**
+         * @return the contents of the resource, instrumented by the handler when first requested
+         */
+        public synchronized byte[] getBytes() {
+            if (bytes == null) {
+                ByteBuffer buffer = getData();
+                byte[] result = new byte[buffer.remaining()];
+                buffer.get(result);
+                bytes = handler != null ? handler.instrument(resourceName, result) : result;
+            }
+            return bytes;
         }
 
         public URL getURL() {
@@ -201,7 +420,7 @@ public class ClassPreloadingUtils {
 
                             @Override
                             public InputStream getInputStream() throws IOException {
-                                return new ByteArrayInputStream(bytes);
+                                return new ByteArrayInputStream(getBytes());
                             }
                         };
                     }
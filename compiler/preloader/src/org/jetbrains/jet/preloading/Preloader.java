@@ -13,6 +13,8 @@ public class Preloader {
 
     public static final int PRELOADER_ARG_COUNT = 4;
     private static final String INSTRUMENT_PREFIX = "instrument=";
+    // Directory for the class images, which make subsequent starts faster, e.g. ~/.kotlin/preloader. Images are not used if it's not set
+    private static final String IMAGE_DIR_PROPERTY = "kotlin.preloader.image.dir";
 
     public static void main(String[] args) throws Exception {
         if (args.length < PRELOADER_ARG_COUNT) {
@@ -44,7 +46,7 @@ public class Preloader {
         ClassLoader withInstrumenter = instrumentersClasspath.length > 0 ? new URLClassLoader(instrumentersClasspath, parent) : parent;
 
         Handler handler = getHandler(mode, withInstrumenter);
-        ClassLoader preloaded = ClassPreloadingUtils.preloadClasses(files, classNumber, withInstrumenter, handler);
+        ClassLoader preloaded = ClassPreloadingUtils.preloadClasses(files, classNumber, withInstrumenter, handler, getImageDir());
 
         Class<?> mainClass = preloaded.loadClass(mainClassCanonicalName);
         Method mainMethod = mainClass.getMethod("main", String[].class);
@@ -59,7 +61,9 @@ public class Preloader {
                 long dt = System.nanoTime() - startTime;
                 System.out.format("Total time: %.3fs\n", dt / 1e9);
             }
-            handler.done();
+            if (handler != null) {
+                handler.done();
+            }
         }
     }
 
@@ -98,8 +102,14 @@ public class Preloader {
         return files;
     }
 
+    private static File getImageDir() {
+        String path = System.getProperty(IMAGE_DIR_PROPERTY);
+        return path == null || path.isEmpty() ? null : new File(path);
+    }
+
     private static Handler getHandler(Mode mode, ClassLoader withInstrumenter) {
-        if (mode == Mode.NO_TIME) return new Handler();
+        // Without a handler classes are defined straight from the class image
+        if (mode == Mode.NO_TIME) return null;
 
         final Instrumenter instrumenter = mode == Mode.INSTRUMENT ? loadInstrumenter(withInstrumenter) : Instrumenter.DO_NOTHING;
 
@@ -0,0 +1,54 @@
+package test
+
+class Empty
+
+public open class Point(val x: Int, var y: Int, z: Double?) {
+    var label: String? = null
+    private var scale: Double = 1.0
+    protected open var owner: Any? = null
+
+    fun move(dx: Int, dy: Int): Point = Point(x + dx, y + dy, null)
+    open fun reset() {
+        y = 0
+    }
+    private fun check(): Boolean = x > 0
+    override fun toString(): String = "($x, $y)"
+    override fun equals(other: Any?): Boolean = other is Point && other.x == x
+}
+
+abstract class Shape(protected val name: String) {
+    abstract val area: Double
+    abstract fun draw(scale: Float): Unit
+    fun describe(): String = name
+}
+
+// Inferred types need the analysis
+
+class InferredReturnType {
+    fun answer() = 42
+}
+
+class InferredPropertyType {
+    val answer = 42
+}
+
+class ConstantProperty {
+    val answer: Int = 42
+}
+
+class WithSupertype : Runnable {
+    override fun run() {}
+}
+
+class OtherClassInSignature {
+    fun create(): Empty = Empty()
+}
+
+class DefaultValue(val x: Int = 0)
+
+class WithAccessor {
+    var x: Int = 0
+        get() = $x
+}
+
+data class DataClass(val x: Int)
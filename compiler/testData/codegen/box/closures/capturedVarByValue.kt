@@ -0,0 +1,57 @@
+fun writtenBeforeCapture(): Int {
+    var x = 1
+    x += 2
+    val f = { x * 10 }
+    return f()
+}
+
+fun writtenAfterCapture(): Int {
+    var x = 1
+    val f = { x }
+    x = 2
+    return f()
+}
+
+fun writtenInLoopWithCapture(): Int {
+    var x = 0
+    val closures = java.util.ArrayList<() -> Int>()
+    while (x < 3) {
+        x++
+        closures.add({ x })
+    }
+    var sum = 0
+    for (closure in closures) {
+        sum += closure()
+    }
+    return sum
+}
+
+fun declaredInLoop(): Int {
+    val closures = java.util.ArrayList<() -> Int>()
+    for (i in 1..3) {
+        var x = i
+        x *= 2
+        closures.add({ x })
+    }
+    var sum = 0
+    for (closure in closures) {
+        sum += closure()
+    }
+    return sum
+}
+
+fun writtenInClosure(): Int {
+    var x = 1
+    val f = { x++ }
+    f()
+    return x
+}
+
+fun box(): String {
+    if (writtenBeforeCapture() != 30) return "fail 1"
+    if (writtenAfterCapture() != 2) return "fail 2"
+    if (writtenInLoopWithCapture() != 9) return "fail 3"
+    if (declaredInLoop() != 12) return "fail 4"
+    if (writtenInClosure() != 2) return "fail 5"
+    return "OK"
+}
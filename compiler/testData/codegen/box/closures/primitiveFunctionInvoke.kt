@@ -0,0 +1,23 @@
+fun applyInt(f: (Int) -> Int, x: Int) = f(x)
+
+fun applyLongs(f: (Long, Long) -> Long, a: Long, b: Long) = f(a, b)
+
+fun testString(f: (String) -> Boolean) = f("OK")
+
+fun <T> applyGeneric(f: (T) -> Int, t: T) = f(t)
+
+fun box(): String {
+    if (applyInt({(x: Int) -> x + 1}, 41) != 42) return "fail 1"
+
+    // A function with a wider parameter type doesn't implement the specialized interface and is called through the generic invoke()
+    val any: (Any) -> Int = {(x: Any) -> x.hashCode()}
+    if (applyInt(any, 7) != 7) return "fail 2"
+
+    if (applyLongs({(a: Long, b: Long) -> a * b}, 6.toLong(), 7.toLong()) != 42.toLong()) return "fail 3"
+
+    if (!testString({(s: String) -> s == "OK"})) return "fail 4"
+
+    if (applyGeneric({(s: String) -> if (s == "abc") 3 else 0}, "abc") != 3) return "fail 5"
+
+    return "OK"
+}
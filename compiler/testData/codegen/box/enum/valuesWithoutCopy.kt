@@ -0,0 +1,15 @@
+enum class Color { RED; GREEN; BLUE }
+
+fun box(): String {
+    val copy = Color.values()
+    copy[0] = Color.BLUE
+    Color.values()[1] = Color.RED
+
+    var names = ""
+    for (c in Color.values()) {
+        names += c.name()
+    }
+    if (names != "REDGREENBLUE") return "fail: $names"
+    if (Color.values()[0] != Color.RED || Color.values()[1] != Color.GREEN) return "fail: values were modified"
+    return "OK"
+}
@@ -0,0 +1,8 @@
+fun foo(): Int {
+    var x = 1
+    x += 2
+    val f = { x * 10 }
+    return f()
+}
+
+// 0 jet/runtime/SharedVar
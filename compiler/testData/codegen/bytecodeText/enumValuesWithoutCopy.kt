@@ -0,0 +1,16 @@
+enum class Color { RED; GREEN; BLUE }
+
+fun box(): String {
+    var count = 0
+    for (c in Color.values()) {
+        count++
+    }
+    val first = Color.values()[0]
+    val copy = Color.values()
+    copy[0] = Color.BLUE
+    Color.values()[1] = Color.BLUE
+    return if (count == 3 && first == Color.RED && Color.values()[0] != copy[0]) "OK" else "fail"
+}
+
+// 3 INVOKESTATIC Color\.values\$noCopy
+// 2 INVOKESTATIC Color\.values \(
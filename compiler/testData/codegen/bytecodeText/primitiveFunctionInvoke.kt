@@ -0,0 +1,7 @@
+fun apply(f: (Int) -> Int, x: Int) = f(x)
+
+fun box() = apply({(x: Int) -> x + 1}, 1)
+
+// 1 INVOKESTATIC jet/runtime/PrimitiveFunctions.invokeIntToInt
+// 1 implements jet/runtime/PrimitiveFunctions\$IntToInt
+// 0 INVOKEINTERFACE jet/Function1.invoke
@@ -0,0 +1,3 @@
+package First
+
+fun first() = "First"
@@ -0,0 +1,13 @@
+import kotlin.modules.*
+
+fun project() {
+    module("first") {
+        sources += "First.kt"
+    }
+    module("second") {
+        sources += "Second.kt"
+    }
+    module("third") {
+        sources += "Third.kt"
+    }
+}
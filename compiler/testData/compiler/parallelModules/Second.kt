@@ -0,0 +1,3 @@
+package Second
+
+fun second() = "Second"
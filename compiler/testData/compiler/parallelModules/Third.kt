@@ -0,0 +1,3 @@
+package Third
+
+fun third() = "Third"
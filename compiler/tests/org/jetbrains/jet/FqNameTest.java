@@ -27,6 +27,8 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 
 public class FqNameTest {
 
@@ -102,6 +104,93 @@ public class FqNameTest {
         Assert.assertSame(fqName, fqName.toSafe().toUnsafe());
     }
 
+    @Test
+    public void namesInterned() {
+        Assert.assertSame(Name.identifier("jetbrains"), Name.identifier("jetbrains"));
+        Assert.assertSame(Name.identifier("jetbrains"), Name.guess("jetbrains"));
+        Assert.assertSame(Name.special("<root>"), FqNameUnsafe.ROOT_NAME);
+        Assert.assertFalse(Name.identifier("a").equals(Name.identifier("b")));
+    }
+
+    @Test
+    public void fqNamesShareShortNamesAndParents() {
+        FqName fromString = new FqName("com.jetbrains.jet");
+        FqName fromSegments = FqName.ROOT.child(Name.identifier("com")).child(Name.identifier("jetbrains")).child(Name.identifier("jet"));
+        Assert.assertEquals(fromString, fromSegments);
+        Assert.assertEquals(fromString.hashCode(), fromSegments.hashCode());
+        Assert.assertSame(fromString.shortName(), fromSegments.shortName());
+        Assert.assertEquals(new FqName("com.jetbrains"), fromString.parent());
+        Assert.assertTrue(fromString.firstSegmentIs(Name.identifier("com")));
+        Assert.assertFalse(fromString.firstSegmentIs(Name.identifier("jet")));
+        Assert.assertTrue(fromString.parent().parent().parent().isRoot());
+    }
+
+    // Names are created from strings and from their segments at the same time, every thread must get the same instances
+    @Test
+    public void namesInternedConcurrently() throws Exception {
+        final int threadCount = 8;
+        final int nameCount = 1000;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final Object[][] results = new Object[threadCount][];
+        final Throwable[] errors = new Throwable[threadCount];
+
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await(30, TimeUnit.SECONDS);
+                        Object[] names = new Object[nameCount * 2];
+                        for (int i = 0; i < nameCount; i++) {
+                            names[2 * i] = Name.identifier("name" + i);
+                            names[2 * i + 1] = threadIndex % 2 == 0
+                                               ? new FqName("concurrent.p" + i + ".name" + i)
+                                               : FqName.ROOT.child(Name.identifier("concurrent")).child(Name.identifier("p" + i))
+                                                       .child(Name.identifier("name" + i));
+                        }
+                        results[threadIndex] = names;
+                    }
+                    catch (Throwable e) {
+                        errors[threadIndex] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+        }
+
+        for (int t = 0; t < threadCount; t++) {
+            if (errors[t] != null) throw new AssertionError(errors[t]);
+            Assert.assertNotNull("Thread " + t + " is not finished", results[t]);
+        }
+        for (int t = 1; t < threadCount; t++) {
+            for (int i = 0; i < nameCount; i++) {
+                Assert.assertSame(results[0][2 * i], results[t][2 * i]);
+                FqName expected = (FqName) results[0][2 * i + 1];
+                FqName actual = (FqName) results[t][2 * i + 1];
+                Assert.assertEquals(expected, actual);
+                Assert.assertSame(expected.shortName(), actual.shortName());
+                Assert.assertEquals(expected.parent(), actual.parent());
+            }
+        }
+    }
+
+    @Test
+    public void safeAndUnsafeWithSameName() {
+        FqNameUnsafe unsafe = new FqNameUnsafe("a.b");
+        FqName safe = new FqName("a.b");
+        Assert.assertFalse(unsafe.equals(safe));
+        Assert.assertTrue(unsafe.equalsTo(safe));
+        Assert.assertEquals(unsafe.hashCode(), safe.hashCode());
+
+        Assert.assertFalse(new FqNameUnsafe("a.<b>").isSafe());
+        Assert.assertTrue(unsafe.isSafe());
+    }
+
     @Test
     public void isValidJavaFqName() {
         Assert.assertTrue(QualifiedNamesUtil.isValidJavaFqName(""));
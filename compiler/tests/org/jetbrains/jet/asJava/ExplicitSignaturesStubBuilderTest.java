@@ -0,0 +1,113 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.asJava;
+
+import com.intellij.psi.impl.DebugUtil;
+import com.intellij.psi.impl.java.stubs.PsiJavaFileStub;
+import com.intellij.psi.impl.java.stubs.impl.PsiJavaFileStubImpl;
+import com.intellij.psi.stubs.StubElement;
+import com.intellij.util.containers.Stack;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.psi.JetClass;
+import org.jetbrains.jet.lang.psi.JetDeclaration;
+import org.jetbrains.jet.lang.psi.JetFile;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+public class ExplicitSignaturesStubBuilderTest extends KotlinAsJavaTestBase {
+    @Override
+    protected List<File> getKotlinSourceRoots() {
+        return Collections.singletonList(new File("compiler/testData/asJava/explicitSignatures/ExplicitSignatures.kt"));
+    }
+
+    @NotNull
+    private JetClass getClass(@NotNull String name) {
+        for (JetFile file : getEnvironment().getSourceFiles()) {
+            for (JetDeclaration declaration : file.getDeclarations()) {
+                if (declaration instanceof JetClass && name.equals(declaration.getName())) {
+                    return (JetClass) declaration;
+                }
+            }
+        }
+        throw new AssertionError("Class not found: " + name);
+    }
+
+    private void doTest(@NotNull String name) {
+        JetClass jetClass = getClass(name);
+
+        Stack<StubElement> stubStack = new Stack<StubElement>();
+        stubStack.push(new PsiJavaFileStubImpl("test", true));
+        assertTrue("Class should be built without analysis: " + name, ExplicitSignaturesStubBuilder.build(jetClass, stubStack));
+
+        PsiJavaFileStub fromPsi = KotlinJavaFileStubProvider.createForDeclaredTopLevelClass(jetClass, true).compute().getValue();
+        PsiJavaFileStub fromCodegen = KotlinJavaFileStubProvider.createForDeclaredTopLevelClass(jetClass, false).compute().getValue();
+        assertEquals(DebugUtil.stubTreeToString(fromCodegen), DebugUtil.stubTreeToString(fromPsi));
+    }
+
+    private void doTestNotSupported(@NotNull String name) {
+        Stack<StubElement> stubStack = new Stack<StubElement>();
+        stubStack.push(new PsiJavaFileStubImpl("test", true));
+        assertFalse("Class needs analysis: " + name, ExplicitSignaturesStubBuilder.build(getClass(name), stubStack));
+        assertEquals(1, stubStack.size());
+    }
+
+    public void testEmpty() {
+        doTest("Empty");
+    }
+
+    public void testPoint() {
+        doTest("Point");
+    }
+
+    public void testShape() {
+        doTest("Shape");
+    }
+
+    public void testInferredReturnType() {
+        doTestNotSupported("InferredReturnType");
+    }
+
+    public void testInferredPropertyType() {
+        doTestNotSupported("InferredPropertyType");
+    }
+
+    public void testConstantProperty() {
+        doTestNotSupported("ConstantProperty");
+    }
+
+    public void testWithSupertype() {
+        doTestNotSupported("WithSupertype");
+    }
+
+    public void testOtherClassInSignature() {
+        doTestNotSupported("OtherClassInSignature");
+    }
+
+    public void testDefaultValue() {
+        doTestNotSupported("DefaultValue");
+    }
+
+    public void testWithAccessor() {
+        doTestNotSupported("WithAccessor");
+    }
+
+    public void testDataClass() {
+        doTestNotSupported("DataClass");
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.cli.jvm.compiler;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.util.Function;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.JetTestUtils;
+import org.jetbrains.jet.TestJdkKind;
+import org.jetbrains.jet.cli.jvm.JVMConfigurationKeys;
+import org.jetbrains.jet.config.CommonConfigurationKeys;
+import org.jetbrains.jet.config.CompilerConfiguration;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.utils.PhaseMetrics;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SourceParsingPoolTest {
+    private static final int ITEM_COUNT = 100;
+
+    @Test
+    public void resultsInOrderOfItems() {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(i);
+        }
+
+        List<String> results = SourceParsingPool.map(items, 4, new Function<Integer, String>() {
+            @Override
+            public String fun(Integer item) {
+                return "item" + item;
+            }
+        });
+
+        assertEquals(ITEM_COUNT, results.size());
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            assertEquals("item" + i, results.get(i));
+        }
+    }
+
+    @Test
+    public void exceptionPropagated() {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(i);
+        }
+
+        try {
+            SourceParsingPool.map(items, 4, new Function<Integer, Integer>() {
+                @Override
+                public Integer fun(Integer item) {
+                    if (item == ITEM_COUNT / 2) {
+                        throw new IllegalStateException("Failed on " + item);
+                    }
+                    return item;
+                }
+            });
+            fail("The exception is not propagated");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Failed on " + ITEM_COUNT / 2, e.getMessage());
+        }
+    }
+
+    @Test
+    public void itemsProcessedConcurrently() {
+        final int threadCount = 2;
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < threadCount; i++) {
+            items.add(i);
+        }
+
+        // Each item waits for the other one, so the map only completes if they are processed at the same time
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        List<Integer> results = SourceParsingPool.map(items, threadCount, new Function<Integer, Integer>() {
+            @Override
+            public Integer fun(Integer item) {
+                try {
+                    barrier.await(30, TimeUnit.SECONDS);
+                }
+                catch (Exception e) {
+                    throw new IllegalStateException("Items are not processed concurrently", e);
+                }
+                return item;
+            }
+        });
+
+        assertEquals(items, results);
+    }
+
+    @Test
+    public void metricsOfCallerUsedByWorkers() {
+        List<Integer> items = new ArrayList<Integer>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            items.add(i);
+        }
+        Function<Integer, PhaseMetrics> currentMetrics = new Function<Integer, PhaseMetrics>() {
+            @Override
+            public PhaseMetrics fun(Integer item) {
+                return PhaseMetrics.current();
+            }
+        };
+
+        PhaseMetrics metrics = PhaseMetrics.start();
+        try {
+            for (PhaseMetrics workerMetrics : SourceParsingPool.map(items, 4, currentMetrics)) {
+                assertSame(metrics, workerMetrics);
+            }
+        }
+        finally {
+            PhaseMetrics.stop();
+        }
+
+        // The workers stay in the pool, they must not keep the metrics of a finished compilation
+        for (PhaseMetrics workerMetrics : SourceParsingPool.map(items, 4, currentMetrics)) {
+            assertNull(workerMetrics);
+        }
+    }
+
+    @Test
+    public void sourceFilesInOrderOfSequentialParsing() throws IOException {
+        File sourceDir = JetTestUtils.tmpDir("parallelParsing");
+        for (int i = 0; i < 20; i++) {
+            FileUtil.writeToFile(new File(sourceDir, "file" + i + ".kt"), "package p" + i + "\n\nfun f" + i + "() = " + i + "\n");
+        }
+
+        List<String> sequential = getSourceFileNames(sourceDir, 1);
+        List<String> parallel = getSourceFileNames(sourceDir, 4);
+
+        assertEquals(20, sequential.size());
+        assertEquals(sequential, parallel);
+    }
+
+    @NotNull
+    private static List<String> getSourceFileNames(@NotNull File sourceDir, int parsingThreads) {
+        CompilerConfiguration configuration = JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.MOCK_JDK);
+        configuration.add(CommonConfigurationKeys.SOURCE_ROOTS_KEY, sourceDir.getPath());
+        configuration.put(JVMConfigurationKeys.SOURCE_PARSING_THREADS, parsingThreads);
+
+        Disposable disposable = CompileEnvironmentUtil.createMockDisposable();
+        try {
+            JetCoreEnvironment environment = new JetCoreEnvironment(disposable, configuration);
+            List<String> names = new ArrayList<String>();
+            for (JetFile file : environment.getSourceFiles()) {
+                names.add(file.getName() + " " + file.getNamespaceHeader().getQualifiedName());
+            }
+            return names;
+        }
+        finally {
+            Disposer.dispose(disposable);
+        }
+    }
+}
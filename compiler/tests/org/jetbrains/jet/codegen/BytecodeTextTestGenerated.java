@@ -37,11 +37,21 @@ public class BytecodeTextTestGenerated extends AbstractBytecodeTextTest {
         JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.GenerateTests", new File("compiler/testData/codegen/bytecodeText"), Pattern.compile("^(.+)\\.kt$"), true);
     }
     
+    @TestMetadata("capturedVarByValue.kt")
+    public void testCapturedVarByValue() throws Exception {
+        doTest("compiler/testData/codegen/bytecodeText/capturedVarByValue.kt");
+    }
+    
     @TestMetadata("componentEvaluatesOnlyOnce.kt")
     public void testComponentEvaluatesOnlyOnce() throws Exception {
         doTest("compiler/testData/codegen/bytecodeText/componentEvaluatesOnlyOnce.kt");
     }
     
+    @TestMetadata("enumValuesWithoutCopy.kt")
+    public void testEnumValuesWithoutCopy() throws Exception {
+        doTest("compiler/testData/codegen/bytecodeText/enumValuesWithoutCopy.kt");
+    }
+    
     @TestMetadata("intConstantNotNull.kt")
     public void testIntConstantNotNull() throws Exception {
         doTest("compiler/testData/codegen/bytecodeText/intConstantNotNull.kt");
@@ -72,6 +82,11 @@ public class BytecodeTextTestGenerated extends AbstractBytecodeTextTest {
         doTest("compiler/testData/codegen/bytecodeText/kt2887.kt");
     }
     
+    @TestMetadata("primitiveFunctionInvoke.kt")
+    public void testPrimitiveFunctionInvoke() throws Exception {
+        doTest("compiler/testData/codegen/bytecodeText/primitiveFunctionInvoke.kt");
+    }
+    
     @TestMetadata("privateDefaultArgs.kt")
     public void testPrivateDefaultArgs() throws Exception {
         doTest("compiler/testData/codegen/bytecodeText/privateDefaultArgs.kt");
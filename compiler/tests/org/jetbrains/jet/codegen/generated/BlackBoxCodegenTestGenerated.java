@@ -1134,6 +1134,11 @@ public class BlackBoxCodegenTestGenerated extends AbstractBlackBoxCodegenTest {
             JetTestUtils.assertAllTestsPresentByMetadata(this.getClass(), "org.jetbrains.jet.generators.tests.GenerateTests", new File("compiler/testData/codegen/box/closures"), Pattern.compile("^(.+)\\.kt$"), true);
         }
         
+        @TestMetadata("capturedVarByValue.kt")
+        public void testCapturedVarByValue() throws Exception {
+            doTest("compiler/testData/codegen/box/closures/capturedVarByValue.kt");
+        }
+        
         @TestMetadata("closureInsideConstrucor.kt")
         public void testClosureInsideConstrucor() throws Exception {
             doTest("compiler/testData/codegen/box/closures/closureInsideConstrucor.kt");
@@ -1194,6 +1199,11 @@ public class BlackBoxCodegenTestGenerated extends AbstractBlackBoxCodegenTest {
             doTest("compiler/testData/codegen/box/closures/localFunctionInInitializer.kt");
         }
         
+        @TestMetadata("primitiveFunctionInvoke.kt")
+        public void testPrimitiveFunctionInvoke() throws Exception {
+            doTest("compiler/testData/codegen/box/closures/primitiveFunctionInvoke.kt");
+        }
+        
         @TestMetadata("recursiveClosure.kt")
         public void testRecursiveClosure() throws Exception {
             doTest("compiler/testData/codegen/box/closures/recursiveClosure.kt");
@@ -1892,6 +1902,11 @@ public class BlackBoxCodegenTestGenerated extends AbstractBlackBoxCodegenTest {
             doTest("compiler/testData/codegen/box/enum/valueof.kt");
         }
         
+        @TestMetadata("valuesWithoutCopy.kt")
+        public void testValuesWithoutCopy() throws Exception {
+            doTest("compiler/testData/codegen/box/enum/valuesWithoutCopy.kt");
+        }
+        
     }
     
     @TestMetadata("compiler/testData/codegen/box/exclExcl")
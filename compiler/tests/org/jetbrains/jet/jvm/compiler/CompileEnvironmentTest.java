@@ -16,6 +16,8 @@
 
 package org.jetbrains.jet.jvm.compiler;
 
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.util.io.FileUtil;
 import junit.framework.TestCase;
 import org.jetbrains.jet.cli.common.ExitCode;
@@ -94,6 +96,34 @@ public class CompileEnvironmentTest extends TestCase {
         }
     }
 
+    public void testModulesCompiledInParallel() throws IOException {
+        File tempDir = FileUtil.createTempDirectory("compilerTest", "compilerTest");
+        Application application = ApplicationManager.getApplication();
+        try {
+            File out = new File(tempDir, "out");
+            File stdlib = ForTestCompileRuntime.runtimeJarForTests();
+            File jdkAnnotations = ForTestPackJdkAnnotations.jdkAnnotationsForTests();
+            ExitCode exitCode = new K2JVMCompiler()
+                    .exec(System.out, "-module", JetParsingTest.getTestDataDir() + "/compiler/parallelModules/Modules.kts",
+                          "-output", out.getAbsolutePath(),
+                          "-moduleThreads", "3",
+                          "-noStdlib",
+                          "-classpath", stdlib.getAbsolutePath(),
+                          "-noJdkAnnotations",
+                          "-annotations", jdkAnnotations.getAbsolutePath());
+            Assert.assertEquals(ExitCode.OK, exitCode);
+            for (String packageName : new String[] {"First", "Second", "Third"}) {
+                String packageClass = PackageClassUtils.getPackageClassName(new FqName(packageName)) + ".class";
+                assertTrue(packageName, new File(out, packageName + "/" + packageClass).isFile());
+            }
+            // The shared application environment is disposed after all the modules and restores the previous application
+            assertSame(application, ApplicationManager.getApplication());
+        }
+        finally {
+            FileUtil.delete(tempDir);
+        }
+    }
+
     private static List<String> listEntries(JarInputStream is) throws IOException {
         List<String> entries = new ArrayList<String>();
         while (true) {
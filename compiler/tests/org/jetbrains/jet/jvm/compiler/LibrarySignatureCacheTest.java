@@ -0,0 +1,339 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.jvm.compiler;
+
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import jet.typeinfo.TypeInfoVariance;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.resolve.java.DecodedJetSignature;
+import org.jetbrains.jet.lang.resolve.java.LibrarySignatureCache;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.rt.signature.JetSignatureReader;
+import org.jetbrains.jet.rt.signature.JetSignatureVariance;
+import org.jetbrains.jet.rt.signature.JetSignatureVisitor;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class LibrarySignatureCacheTest extends KotlinTestWithEnvironment {
+    private static final String CLASS_PATH = "a/A.class";
+    private static final String[] SIGNATURES = {
+            "Ljet/Int;",
+            "?Ljava/lang/String;",
+            "Ljet/Map<Ljet/String;?Ljet/List<+Ljet/Int;>;>;",
+            "Ljet/Map<Ljet/String;Ljet/Int;>.Entry<-TT;*>;",
+            "[+?TT;",
+    };
+    // A reactor of this many modules compiled in one process against the same library
+    private static final int MODULE_COUNT = 20;
+
+    private File tmpDir;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tmpDir = FileUtil.createTempDirectory(getClass().getSimpleName(), getName());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.delete(tmpDir);
+        super.tearDown();
+    }
+
+    public void testSignaturesOfJarDecodedOnceForAllModules() throws IOException {
+        LibrarySignatureCache cache = new LibrarySignatureCache(1000);
+        VirtualFile classFile = findJarClass(writeJar("library.jar", "A"));
+
+        for (int module = 0; module < MODULE_COUNT; module++) {
+            LibrarySignatureCache.Session session = cache.newSession();
+            for (String signature : SIGNATURES) {
+                session.decode(classFile, signature, DecodedJetSignature.Mode.TYPE);
+            }
+        }
+
+        assertEquals(SIGNATURES.length, cache.getDecodedSignatureCount());
+        assertEquals(SIGNATURES.length, cache.getCachedSignatureCount());
+        assertEquals(0, cache.getEvictedEntryCount());
+    }
+
+    // Modules compiled in parallel decode the signatures of the same jar at the same time
+    public void testConcurrentSessions() throws Exception {
+        final int threadCount = 8;
+        final LibrarySignatureCache cache = new LibrarySignatureCache(1000);
+        final VirtualFile classFile = findJarClass(writeJar("library.jar", "A"));
+
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final Throwable[] errors = new Throwable[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        LibrarySignatureCache.Session session = cache.newSession();
+                        barrier.await(30, TimeUnit.SECONDS);
+                        for (String signature : SIGNATURES) {
+                            LoggingVisitor expected = new LoggingVisitor(new StringBuilder(), "");
+                            new JetSignatureReader(signature).acceptType(expected);
+                            assertReplayed(signature, expected, session.decode(classFile, signature, DecodedJetSignature.Mode.TYPE));
+                        }
+                    }
+                    catch (Throwable e) {
+                        errors[threadIndex] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+            assertFalse("The thread is not finished", thread.isAlive());
+        }
+        for (Throwable error : errors) {
+            if (error != null) throw new AssertionError(error);
+        }
+
+        // Threads may decode a signature at the same time, but only one of the results is kept
+        assertEquals(SIGNATURES.length, cache.getCachedSignatureCount());
+        assertTrue(cache.getDecodedSignatureCount() <= threadCount * SIGNATURES.length);
+        assertEquals(0, cache.getEvictedEntryCount());
+    }
+
+    public void testChangedJarDecodedAgain() throws IOException {
+        LibrarySignatureCache cache = new LibrarySignatureCache(1000);
+        File jar = writeJar("library.jar", "A");
+        cache.newSession().decode(findJarClass(jar), SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+
+        writeJar("library.jar", "changed contents of A");
+        // Modification times of the files may have a coarse granularity
+        assertTrue(jar.setLastModified(jar.lastModified() + 10000L));
+        cache.newSession().decode(findJarClass(jar), SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+
+        assertEquals(2, cache.getDecodedSignatureCount());
+        assertEquals(1, cache.getCachedSignatureCount());
+    }
+
+    public void testClassesFromDirectoriesNotCached() throws IOException {
+        LibrarySignatureCache cache = new LibrarySignatureCache(1000);
+        File classFile = new File(tmpDir, "classes/" + CLASS_PATH);
+        FileUtil.writeToFile(classFile, "A");
+        VirtualFile virtualFile = VirtualFileManager.getInstance().findFileByUrl("file://" + classFile.getAbsolutePath());
+        assertNotNull(virtualFile);
+
+        LibrarySignatureCache.Session session = cache.newSession();
+        session.decode(virtualFile, SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+        session.decode(virtualFile, SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+        session.decode(null, SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+
+        assertEquals(3, cache.getDecodedSignatureCount());
+        assertEquals(0, cache.getCachedSignatureCount());
+    }
+
+    public void testLeastRecentlyUsedJarsEvicted() throws IOException {
+        LibrarySignatureCache cache = new LibrarySignatureCache(2);
+        VirtualFile[] classFiles = new VirtualFile[3];
+        for (int i = 0; i < classFiles.length; i++) {
+            classFiles[i] = findJarClass(writeJar("library" + i + ".jar", "A"));
+            LibrarySignatureCache.Session session = cache.newSession();
+            session.decode(classFiles[i], SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+            session.decode(classFiles[i], SIGNATURES[1], DecodedJetSignature.Mode.TYPE);
+        }
+
+        // The first jar was evicted when the third one started being used
+        assertEquals(1, cache.getEvictedEntryCount());
+        assertEquals(4, cache.getCachedSignatureCount());
+
+        cache.newSession().decode(classFiles[1], SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+        assertEquals(6, cache.getDecodedSignatureCount());
+        cache.newSession().decode(classFiles[0], SIGNATURES[0], DecodedJetSignature.Mode.TYPE);
+        assertEquals(7, cache.getDecodedSignatureCount());
+    }
+
+    public void testReplayedSignaturesSameAsRead() throws IOException {
+        LibrarySignatureCache.Session session = new LibrarySignatureCache(1000).newSession();
+        VirtualFile classFile = findJarClass(writeJar("library.jar", "A"));
+
+        for (String signature : SIGNATURES) {
+            LoggingVisitor expected = new LoggingVisitor(new StringBuilder(), "");
+            new JetSignatureReader(signature).acceptType(expected);
+            assertReplayed(signature, expected, session.decode(classFile, signature, DecodedJetSignature.Mode.TYPE));
+        }
+
+        String signature = "<erased in T:?Ljava/lang/Object;:Ljet/Comparable<TT;>;out R:>(TT;[Z)?TR;";
+        LoggingVisitor expected = new LoggingVisitor(new StringBuilder(), "");
+        new JetSignatureReader(signature).accept(expected);
+        assertReplayed(signature, expected, session.decode(classFile, signature, DecodedJetSignature.Mode.SIGNATURE));
+
+        signature = "<T:Ljava/lang/Object;K:Ljet/Any;:Ljet/Hashable;>";
+        expected = new LoggingVisitor(new StringBuilder(), "");
+        new JetSignatureReader(signature).acceptFormalTypeParametersOnly(expected);
+        assertReplayed(signature, expected, session.decode(classFile, signature, DecodedJetSignature.Mode.FORMAL_TYPE_PARAMETERS));
+    }
+
+    private static void assertReplayed(@NotNull String signature, @NotNull LoggingVisitor expected, @NotNull DecodedJetSignature decoded) {
+        // Replayed twice: a decoded signature is reused by all the members it occurs in
+        for (int i = 0; i < 2; i++) {
+            LoggingVisitor actual = new LoggingVisitor(new StringBuilder(), "");
+            decoded.replay(actual);
+            assertEquals(signature, expected.log.toString(), actual.log.toString());
+        }
+    }
+
+    @NotNull
+    private static VirtualFile findJarClass(@NotNull File jar) {
+        VirtualFile classFile = VirtualFileManager.getInstance().findFileByUrl("jar://" + jar.getAbsolutePath() + "!/" + CLASS_PATH);
+        assertNotNull(classFile);
+        return classFile;
+    }
+
+    @NotNull
+    private File writeJar(@NotNull String name, @NotNull String classContents) throws IOException {
+        File jarFile = new File(tmpDir, name);
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jarFile));
+        try {
+            out.putNextEntry(new ZipEntry(CLASS_PATH));
+            out.write(classContents.getBytes());
+            out.closeEntry();
+        }
+        finally {
+            out.close();
+        }
+        return jarFile;
+    }
+
+    // Writes every call down with the path of the visitor it was made on
+    private static class LoggingVisitor implements JetSignatureVisitor {
+        private final StringBuilder log;
+        private final String path;
+        private int nestedCount = 0;
+
+        private LoggingVisitor(StringBuilder log, String path) {
+            this.log = log;
+            this.path = path;
+        }
+
+        private void log(String call) {
+            log.append(path).append(' ').append(call).append('\n');
+        }
+
+        private JetSignatureVisitor nested(String call) {
+            log(call);
+            return new LoggingVisitor(log, path + "/" + nestedCount++);
+        }
+
+        @Override
+        public JetSignatureVisitor visitFormalTypeParameter(String name, TypeInfoVariance variance, boolean reified) {
+            return nested("formalTypeParameter " + name + " " + variance + " " + reified);
+        }
+
+        @Override
+        public void visitFormalTypeParameterEnd() {
+            log("formalTypeParameterEnd");
+        }
+
+        @Override
+        public JetSignatureVisitor visitClassBound() {
+            return nested("classBound");
+        }
+
+        @Override
+        public JetSignatureVisitor visitInterfaceBound() {
+            return nested("interfaceBound");
+        }
+
+        @Override
+        public JetSignatureVisitor visitSuperclass() {
+            return nested("superclass");
+        }
+
+        @Override
+        public JetSignatureVisitor visitInterface() {
+            return nested("interface");
+        }
+
+        @Override
+        public JetSignatureVisitor visitParameterType() {
+            return nested("parameterType");
+        }
+
+        @Override
+        public JetSignatureVisitor visitReturnType() {
+            return nested("returnType");
+        }
+
+        @Override
+        public JetSignatureVisitor visitExceptionType() {
+            return nested("exceptionType");
+        }
+
+        @Override
+        public void visitBaseType(char descriptor, boolean nullable) {
+            log("baseType " + descriptor + " " + nullable);
+        }
+
+        @Override
+        public void visitTypeVariable(String name, boolean nullable) {
+            log("typeVariable " + name + " " + nullable);
+        }
+
+        @Override
+        public JetSignatureVisitor visitArrayType(boolean nullable, JetSignatureVariance wildcard) {
+            return nested("arrayType " + nullable + " " + wildcard);
+        }
+
+        @Override
+        public void visitClassType(String name, boolean nullable, boolean forceReal) {
+            log("classType " + name + " " + nullable + " " + forceReal);
+        }
+
+        @Override
+        public void visitInnerClassType(String name, boolean nullable, boolean forceReal) {
+            log("innerClassType " + name + " " + nullable + " " + forceReal);
+        }
+
+        @Override
+        public void visitTypeArgument() {
+            log("typeArgument");
+        }
+
+        @Override
+        public JetSignatureVisitor visitTypeArgument(JetSignatureVariance wildcard) {
+            return nested("typeArgument " + wildcard);
+        }
+
+        @Override
+        public void visitEnd() {
+            log("end");
+        }
+    }
+}
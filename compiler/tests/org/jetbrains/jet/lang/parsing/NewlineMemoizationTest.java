@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.parsing;
+
+import com.intellij.lang.PsiBuilder;
+import com.intellij.lang.PsiBuilderFactory;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.psi.impl.DebugUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lexer.JetLexer;
+import org.jetbrains.jet.parsing.JetParsingTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The builder memoizes whether there's a newline before a token, the parser must build the same trees as without it
+ */
+public class NewlineMemoizationTest extends KotlinTestWithEnvironment {
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testPsiTestDataAndStdlib() throws IOException {
+        String testDataDir = JetParsingTest.getTestDataDir();
+        List<File> files = new ArrayList<File>();
+        collectFiles(new File(testDataDir, "psi"), files);
+        collectFiles(new File(testDataDir, "../../libraries/stdlib/src"), files);
+        assertFalse("No sources found", files.isEmpty());
+
+        for (File file : files) {
+            String text = FileUtil.loadFile(file, true);
+            assertEquals(file.getPath(), parse(text, false), parse(text, true));
+        }
+    }
+
+    @NotNull
+    private static String parse(@NotNull String text, boolean memoizeNewlines) {
+        PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(new JetParserDefinition(), new JetLexer(), text);
+        JetParsing.createForTopLevel(new SemanticWhitespaceAwarePsiBuilderImpl(builder, memoizeNewlines)).parseFile();
+        return DebugUtil.treeToString(builder.getTreeBuilt(), false);
+    }
+
+    private static void collectFiles(@NotNull File file, @NotNull List<File> files) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    collectFiles(child, files);
+                }
+            }
+        }
+        else if (file.getName().endsWith(".kt") || file.getName().endsWith(".jet")) {
+            files.add(file);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.*;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lang.resolve.lazy.LazyResolveTestUtil;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+
+import java.util.Collections;
+
+public class FakeOverridesOfJavaSupertypesTest extends KotlinTestWithEnvironment {
+    private static final int CLASS_COUNT = 200;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testSubclassesOfJavaCollections() {
+        StringBuilder text = new StringBuilder("package test\n\n");
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            // Subclasses of the same supertype share the grouping of its members into fake overrides
+            text.append("class StringList").append(i).append(" : java.util.ArrayList<String>()\n");
+            text.append("class IntMap").append(i).append(" : java.util.HashMap<Int, String>()\n");
+        }
+
+        JetFile file = JetPsiFactory.createFile(getProject(), "collections.kt", text.toString());
+        ModuleDescriptor module = LazyResolveTestUtil.resolveEagerly(Collections.singletonList(file), getEnvironment());
+
+        NamespaceDescriptor namespace = module.getNamespace(new FqName("test"));
+        assertNotNull(namespace);
+        JetScope scope = namespace.getMemberScope();
+
+        int listMembers = countFakeOverrides(scope, "StringList0");
+        int mapMembers = countFakeOverrides(scope, "IntMap0");
+        assertTrue(listMembers > 0);
+        assertTrue(mapMembers > 0);
+        for (int i = 1; i < CLASS_COUNT; i++) {
+            assertEquals(listMembers, countFakeOverrides(scope, "StringList" + i));
+            assertEquals(mapMembers, countFakeOverrides(scope, "IntMap" + i));
+        }
+    }
+
+    private static int countFakeOverrides(@NotNull JetScope scope, @NotNull String className) {
+        int count = 0;
+        for (DeclarationDescriptor member : getClass(scope, className).getDefaultType().getMemberScope().getAllDescriptors()) {
+            if (member instanceof CallableMemberDescriptor
+                && ((CallableMemberDescriptor) member).getKind() == CallableMemberDescriptor.Kind.FAKE_OVERRIDE) {
+                assertFalse(member + " doesn't override anything", ((CallableMemberDescriptor) member).getOverriddenDescriptors().isEmpty());
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @NotNull
+    private static ClassDescriptor getClass(@NotNull JetScope scope, @NotNull String className) {
+        ClassDescriptor classDescriptor = (ClassDescriptor) scope.getClassifier(Name.identifier(className));
+        assertNotNull("Class not found: " + className, classDescriptor);
+        return classDescriptor;
+    }
+}
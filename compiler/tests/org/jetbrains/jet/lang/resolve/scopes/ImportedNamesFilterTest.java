@@ -0,0 +1,198 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.lang.resolve.scopes;
+
+import com.google.common.collect.ConcurrentHashMultiset;
+import com.google.common.collect.Multiset;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.ClassifierDescriptor;
+import org.jetbrains.jet.lang.descriptors.DeclarationDescriptor;
+import org.jetbrains.jet.lang.descriptors.FunctionDescriptor;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.types.ErrorUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class ImportedNamesFilterTest extends KotlinTestWithEnvironment {
+    private static final Name FOUND = Name.identifier("Found");
+    private static final Name MISSING = Name.identifier("Missing");
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    public void testMissesSkippedAfterImportsFrozen() {
+        CountingScope first = new CountingScope(null);
+        CountingScope second = new CountingScope(FOUND);
+        WritableScopeImpl fileScope = createFileScope(first, second);
+        fileScope.changeLockLevel(WritableScope.LockLevel.READING);
+        fileScope.freezeImports();
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(ErrorUtils.getErrorClass(), fileScope.getClassifier(FOUND));
+            assertNull(fileScope.getClassifier(MISSING));
+            assertTrue(fileScope.getFunctions(MISSING).isEmpty());
+        }
+
+        assertEquals(1, first.classifierLookups.count(FOUND));
+        assertEquals(1, first.classifierLookups.count(MISSING));
+        assertEquals(3, second.classifierLookups.count(FOUND));
+        assertEquals(1, second.classifierLookups.count(MISSING));
+        assertEquals(1, first.functionLookups.count(MISSING));
+        assertEquals(1, second.functionLookups.count(MISSING));
+        assertNotNull(fileScope.getImportedNamesFilter());
+    }
+
+    public void testAllLookupsWithoutFreezing() {
+        CountingScope first = new CountingScope(null);
+        CountingScope second = new CountingScope(FOUND);
+        WritableScopeImpl fileScope = createFileScope(first, second);
+        fileScope.changeLockLevel(WritableScope.LockLevel.READING);
+
+        for (int i = 0; i < 3; i++) {
+            assertSame(ErrorUtils.getErrorClass(), fileScope.getClassifier(FOUND));
+            assertNull(fileScope.getClassifier(MISSING));
+        }
+
+        assertEquals(3, first.classifierLookups.count(FOUND));
+        assertEquals(3, first.classifierLookups.count(MISSING));
+        assertNull(fileScope.getImportedNamesFilter());
+    }
+
+    public void testNoImportsAfterFreezing() {
+        WritableScopeImpl fileScope = createFileScope(new CountingScope(null));
+        fileScope.changeLockLevel(WritableScope.LockLevel.READING);
+        fileScope.freezeImports();
+        try {
+            fileScope.clearImports();
+            fail("Imports are frozen");
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testImportsUnchangedAfterFreezing() {
+        WritableScopeImpl fileScope = createFileScope(new CountingScope(null));
+        fileScope.changeLockLevel(WritableScope.LockLevel.READING);
+        fileScope.freezeImports();
+        try {
+            fileScope.getImports().add(new CountingScope(FOUND));
+            fail("Imports are frozen");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testConcurrentLookups() throws Exception {
+        CountingScope first = new CountingScope(null);
+        CountingScope second = new CountingScope(FOUND);
+        final WritableScopeImpl fileScope = createFileScope(first, second);
+        fileScope.changeLockLevel(WritableScope.LockLevel.READING);
+        fileScope.freezeImports();
+
+        int threadCount = 4;
+        final int lookupsPerThread = 1000;
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        barrier.await();
+                        for (int j = 0; j < lookupsPerThread; j++) {
+                            assertNull(fileScope.getClassifier(Name.identifier("Missing" + j % 10)));
+                            assertSame(ErrorUtils.getErrorClass(), fileScope.getClassifier(FOUND));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        finally {
+            executor.shutdown();
+        }
+
+        // Every thread may miss a name before the others learn about it, but not after that
+        for (int j = 0; j < 10; j++) {
+            Name missing = Name.identifier("Missing" + j);
+            assertTrue(first.classifierLookups.count(missing) >= 1 && first.classifierLookups.count(missing) <= threadCount);
+            assertTrue(second.classifierLookups.count(missing) >= 1 && second.classifierLookups.count(missing) <= threadCount);
+        }
+        assertTrue(first.classifierLookups.count(FOUND) >= 1 && first.classifierLookups.count(FOUND) <= threadCount);
+        assertEquals(threadCount * lookupsPerThread, second.classifierLookups.count(FOUND));
+    }
+
+    @NotNull
+    private static WritableScopeImpl createFileScope(@NotNull JetScope... imports) {
+        WritableScopeImpl fileScope = new WritableScopeImpl(JetScope.EMPTY, ErrorUtils.getErrorModule(), RedeclarationHandler.DO_NOTHING, "file");
+        // The first scope is looked up first
+        for (int i = imports.length - 1; i >= 0; i--) {
+            fileScope.importScope(imports[i]);
+        }
+        return fileScope;
+    }
+
+    private static class CountingScope extends JetScopeImpl {
+        private final Name classifierName;
+        private final Multiset<Name> classifierLookups = ConcurrentHashMultiset.create();
+        private final Multiset<Name> functionLookups = ConcurrentHashMultiset.create();
+
+        private CountingScope(@Nullable Name classifierName) {
+            this.classifierName = classifierName;
+        }
+
+        @Override
+        public ClassifierDescriptor getClassifier(@NotNull Name name) {
+            classifierLookups.add(name);
+            return name.equals(classifierName) ? ErrorUtils.getErrorClass() : null;
+        }
+
+        @NotNull
+        @Override
+        public Collection<FunctionDescriptor> getFunctions(@NotNull Name name) {
+            functionLookups.add(name);
+            return Collections.emptySet();
+        }
+
+        @NotNull
+        @Override
+        public DeclarationDescriptor getContainingDeclaration() {
+            return ErrorUtils.getErrorModule();
+        }
+
+        @Override
+        public String toString() {
+            return "Counting scope with " + classifierName;
+        }
+    }
+}
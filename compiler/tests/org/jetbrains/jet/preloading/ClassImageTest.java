@@ -0,0 +1,159 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.preloading;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ClassImageTest extends TestCase {
+    private static final Map<String, String> RESOURCES = new LinkedHashMap<String, String>();
+
+    static {
+        RESOURCES.put("a/A.class", "contents of A");
+        RESOURCES.put("a/B.class", "contents of B");
+        RESOURCES.put("META-INF/services/a.Service", "a.ServiceImpl");
+    }
+
+    private File tmpDir;
+    private File imageDir;
+    private List<File> jarFiles;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tmpDir = FileUtil.createTempDirectory(getClass().getSimpleName(), getName());
+        imageDir = new File(tmpDir, "images");
+        jarFiles = Collections.singletonList(writeJar(new File(tmpDir, "classes.jar"), RESOURCES));
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.delete(tmpDir);
+        super.tearDown();
+    }
+
+    public void testImageWrittenAndRead() throws IOException {
+        ClassPreloadingUtils.preloadClasses(jarFiles, 10, null, null, imageDir);
+
+        File imageFile = ClassImage.getImageFile(imageDir, jarFiles);
+        assertTrue(imageFile.isFile());
+
+        Map<String, ClassPreloadingUtils.ResourceData> resources = ClassImage.load(imageFile, jarFiles, null);
+        assertNotNull(resources);
+        assertContents(resources);
+    }
+
+    public void testImageOfOtherJarsNotUsed() throws IOException {
+        ClassPreloadingUtils.preloadClasses(jarFiles, 10, null, null, imageDir);
+        File imageFile = ClassImage.getImageFile(imageDir, jarFiles);
+
+        Map<String, String> changed = new LinkedHashMap<String, String>(RESOURCES);
+        changed.put("a/C.class", "contents of C");
+        List<File> changedJars = Collections.singletonList(writeJar(jarFiles.get(0), changed));
+
+        assertNull(ClassImage.load(imageFile, changedJars, null));
+    }
+
+    public void testCorruptedEntryReadFromJar() throws IOException {
+        ClassPreloadingUtils.preloadClasses(jarFiles, 10, null, null, imageDir);
+        File imageFile = ClassImage.getImageFile(imageDir, jarFiles);
+
+        // The last byte belongs to the data of some entry, the index is intact
+        RandomAccessFile file = new RandomAccessFile(imageFile, "rw");
+        try {
+            file.seek(file.length() - 1);
+            int lastByte = file.read();
+            file.seek(file.length() - 1);
+            file.write(lastByte ^ 0xFF);
+        }
+        finally {
+            file.close();
+        }
+
+        Map<String, ClassPreloadingUtils.ResourceData> resources = ClassImage.load(imageFile, jarFiles, null);
+        assertNotNull(resources);
+        assertContents(resources);
+    }
+
+    public void testTruncatedImageNotUsed() throws IOException {
+        ClassPreloadingUtils.preloadClasses(jarFiles, 10, null, null, imageDir);
+        File imageFile = ClassImage.getImageFile(imageDir, jarFiles);
+
+        RandomAccessFile file = new RandomAccessFile(imageFile, "rw");
+        try {
+            file.setLength(20);
+        }
+        finally {
+            file.close();
+        }
+
+        assertNull(ClassImage.load(imageFile, jarFiles, null));
+
+        // The image is rewritten on the next run
+        ClassLoader loader = ClassPreloadingUtils.preloadClasses(jarFiles, 10, null, null, imageDir);
+        assertNotNull(loader.getResource("a/A.class"));
+        assertNotNull(ClassImage.load(imageFile, jarFiles, null));
+    }
+
+    public void testLeastRecentlyUsedImagesEvicted() throws IOException {
+        List<File> images = new ArrayList<File>();
+        for (int i = 0; i < ClassImage.MAX_IMAGES + 2; i++) {
+            List<File> jars = Collections.singletonList(writeJar(new File(tmpDir, "classes" + i + ".jar"), RESOURCES));
+            ClassPreloadingUtils.preloadClasses(jars, 10, null, null, imageDir);
+            File imageFile = ClassImage.getImageFile(imageDir, jars);
+            assertTrue(imageFile.isFile());
+            // Modification times of the files may have a coarse granularity
+            assertTrue(imageFile.setLastModified(1000000000000L + i * 10000L));
+            images.add(imageFile);
+        }
+
+        Set<File> remaining = new HashSet<File>(Arrays.asList(imageDir.listFiles()));
+        assertEquals(new HashSet<File>(images.subList(images.size() - ClassImage.MAX_IMAGES, images.size())), remaining);
+    }
+
+    private static void assertContents(@NotNull Map<String, ClassPreloadingUtils.ResourceData> resources) {
+        assertEquals(RESOURCES.keySet(), resources.keySet());
+        for (Map.Entry<String, String> entry : RESOURCES.entrySet()) {
+            assertEquals(entry.getKey(), entry.getValue(), new String(resources.get(entry.getKey()).getBytes()));
+        }
+    }
+
+    @NotNull
+    private static File writeJar(@NotNull File jarFile, @NotNull Map<String, String> resources) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(jarFile));
+        try {
+            for (Map.Entry<String, String> entry : resources.entrySet()) {
+                out.putNextEntry(new ZipEntry(entry.getKey()));
+                out.write(entry.getValue().getBytes());
+                out.closeEntry();
+            }
+        }
+        finally {
+            out.close();
+        }
+        return jarFile;
+    }
+}
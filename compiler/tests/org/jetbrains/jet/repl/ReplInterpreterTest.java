@@ -49,11 +49,16 @@ public class ReplInterpreterTest {
         Disposer.dispose(disposable);
     }
 
-    private void testFile(@NotNull String relativePath) {
+    @NotNull
+    private ReplInterpreter createInterpreter() {
         CompilerConfiguration configuration =
                 JetTestUtils.compilerConfigurationForTests(ConfigurationKind.JDK_ONLY, TestJdkKind.FULL_JDK);
         configuration.add(JVMConfigurationKeys.CLASSPATH_KEY, new File("out/production/runtime"));
-        ReplInterpreter repl = new ReplInterpreter(disposable, configuration);
+        return new ReplInterpreter(disposable, configuration);
+    }
+
+    private void testFile(@NotNull String relativePath) {
+        ReplInterpreter repl = createInterpreter();
 
         ReplSessionTestFile file = ReplSessionTestFile.load(new File("compiler/testData/repl/" + relativePath));
         for (ReplSessionTestFile.OneLine t : file.getLines()) {
@@ -156,4 +161,45 @@ public class ReplInterpreterTest {
         testFile("multiline3.repl");
     }
 
+    @Test
+    public void longSession() {
+        // More lines than a constructor may have parameters, earlier scripts are passed in a single array
+        int lineCount = 5000;
+        int measuredLineCount = 500;
+
+        ReplInterpreter repl = createInterpreter();
+        evalSuccessfully(repl, "fun inc(x: Int) = x + 1");
+        evalSuccessfully(repl, "val v0 = 0");
+
+        // The first lines warm the compiler up. If the cost of a line depended on the number of lines before it,
+        // the last lines would be several times slower than the early ones
+        long earlyLinesTime = 0;
+        long lastLinesTime = 0;
+        for (int i = 1; i < lineCount; i++) {
+            long start = System.nanoTime();
+            evalSuccessfully(repl, "val v" + i + " = inc(v" + (i - 1) + ")");
+            long time = System.nanoTime() - start;
+            if (i >= measuredLineCount && i < 2 * measuredLineCount) {
+                earlyLinesTime += time;
+            }
+            else if (i >= lineCount - measuredLineCount) {
+                lastLinesTime += time;
+            }
+        }
+
+        Assert.assertEquals(lineCount - 1, evalSuccessfully(repl, "v" + (lineCount - 1)));
+        Assert.assertEquals(lineCount - 1, evalSuccessfully(repl, "v1 + v" + (lineCount - 2)));
+        Assert.assertTrue("Lines evaluated slower as the session grows: " + earlyLinesTime / measuredLineCount + "ns per line early, " +
+                          lastLinesTime / measuredLineCount + "ns per line in the end",
+                          lastLinesTime < 3 * earlyLinesTime);
+    }
+
+    private static Object evalSuccessfully(@NotNull ReplInterpreter repl, @NotNull String line) {
+        ReplInterpreter.LineResult result = repl.eval(line);
+        if (result.getType() != ReplInterpreter.LineResultType.SUCCESS) {
+            Assert.fail("Failed to evaluate " + line + ": " + result.getType() + " " + result.getErrorText());
+        }
+        return result.getValue();
+    }
+
 }
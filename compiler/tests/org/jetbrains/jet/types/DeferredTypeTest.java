@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.types;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.lang.resolve.BindingTrace;
+import org.jetbrains.jet.lang.resolve.BindingTraceContext;
+import org.jetbrains.jet.lang.resolve.ObservableBindingTrace;
+import org.jetbrains.jet.lang.resolve.lazy.storage.LockProtectedTrace;
+import org.jetbrains.jet.lang.types.DeferredType;
+import org.jetbrains.jet.lang.types.ErrorUtils;
+import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.util.lazy.RecursionIntolerantLazyValue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DeferredTypeTest extends TestCase {
+    private static final JetType TYPE = ErrorUtils.createErrorType("deferred");
+
+    public void testComputedOnceByConcurrentCallers() throws Exception {
+        doTestConcurrentCallers(new LockProtectedTrace(new Object(), new BindingTraceContext()));
+    }
+
+    public void testComputedOnceByConcurrentCallersThroughObservableTrace() throws Exception {
+        doTestConcurrentCallers(new ObservableBindingTrace(new LockProtectedTrace(new Object(), new BindingTraceContext())));
+    }
+
+    public void testRecordedInTrace() {
+        BindingTraceContext trace = new BindingTraceContext();
+        DeferredType type = DeferredType.create(trace, new RecursionIntolerantLazyValue<JetType>() {
+            @Override
+            protected JetType compute() {
+                return TYPE;
+            }
+        });
+
+        assertEquals(1, trace.getKeys(BindingContext.DEFERRED_TYPE).size());
+        assertSame(type, trace.getKeys(BindingContext.DEFERRED_TYPE).iterator().next().getData());
+        assertFalse(type.isComputed());
+        assertSame(TYPE, type.getActualType());
+        assertTrue(type.isComputed());
+    }
+
+    // The first caller computes the type until the second one is blocked, the second one must wait for it instead of
+    // seeing a type which is being computed as a recursive dependency
+    private static void doTestConcurrentCallers(@NotNull BindingTrace trace) throws Exception {
+        final AtomicInteger computations = new AtomicInteger();
+        final CountDownLatch computationStarted = new CountDownLatch(1);
+        final CountDownLatch secondCallerBlocked = new CountDownLatch(1);
+        final DeferredType type = DeferredType.create(trace, new RecursionIntolerantLazyValue<JetType>() {
+            @Override
+            protected JetType compute() {
+                computations.incrementAndGet();
+                computationStarted.countDown();
+                try {
+                    secondCallerBlocked.await(30, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return TYPE;
+            }
+        });
+
+        TypeComputation first = new TypeComputation(type);
+        TypeComputation second = new TypeComputation(type);
+        first.start();
+        assertTrue(computationStarted.await(30, TimeUnit.SECONDS));
+        second.start();
+        waitUntilBlocked(second);
+        secondCallerBlocked.countDown();
+
+        assertSame(TYPE, first.getResult());
+        assertSame(TYPE, second.getResult());
+        assertEquals(1, computations.get());
+    }
+
+    private static void waitUntilBlocked(@NotNull Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        while (thread.getState() != Thread.State.BLOCKED) {
+            assertTrue("The thread is not blocked: " + thread.getState(), thread.isAlive() && System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static class TypeComputation extends Thread {
+        private final DeferredType type;
+        private final AtomicReference<Object> result = new AtomicReference<Object>();
+
+        private TypeComputation(@NotNull DeferredType type) {
+            this.type = type;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.set(type.getActualType());
+            }
+            catch (Throwable e) {
+                result.set(e);
+            }
+        }
+
+        @NotNull
+        private Object getResult() throws InterruptedException {
+            join(30000);
+            Object value = result.get();
+            if (value instanceof Throwable) {
+                throw new AssertionError(value);
+            }
+            assertNotNull("The type is not computed", value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.types;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.ConfigurationKind;
+import org.jetbrains.jet.cli.jvm.compiler.JetCoreEnvironment;
+import org.jetbrains.jet.lang.descriptors.ClassDescriptor;
+import org.jetbrains.jet.lang.descriptors.ModuleDescriptor;
+import org.jetbrains.jet.lang.descriptors.annotations.AnnotationDescriptor;
+import org.jetbrains.jet.lang.descriptors.impl.TypeParameterDescriptorImpl;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.psi.JetPsiFactory;
+import org.jetbrains.jet.lang.resolve.lazy.KotlinTestWithEnvironment;
+import org.jetbrains.jet.lang.resolve.lazy.LazyResolveTestUtil;
+import org.jetbrains.jet.lang.resolve.name.FqName;
+import org.jetbrains.jet.lang.resolve.name.Name;
+import org.jetbrains.jet.lang.resolve.scopes.JetScope;
+import org.jetbrains.jet.lang.types.*;
+import org.jetbrains.jet.lang.types.checker.JetTypeChecker;
+import org.jetbrains.jet.lang.types.checker.TypeCheckingProcedure;
+import org.jetbrains.jet.lang.types.lang.KotlinBuiltIns;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+public class SupertypeClosureTest extends KotlinTestWithEnvironment {
+    private static final int CHAIN_DEPTH = 30;
+    private static final int DIAMOND_DEPTH = 12;
+
+    private JetScope scope;
+
+    @Override
+    protected JetCoreEnvironment createEnvironment() {
+        return createEnvironmentWithMockJdk(ConfigurationKind.JDK_ONLY);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        StringBuilder text = new StringBuilder("package test\n\n");
+        // Chain<k><T> : Chain<k-1><List<T>>
+        text.append("trait Chain0<T>\n");
+        for (int i = 1; i <= CHAIN_DEPTH; i++) {
+            text.append("trait Chain").append(i).append("<T> : Chain").append(i - 1).append("<List<T>>\n");
+        }
+        // Every diamond doubles the number of paths from the top to Diamond0
+        text.append("trait Diamond0<T>\n");
+        for (int i = 1; i <= DIAMOND_DEPTH; i++) {
+            text.append("trait Left").append(i).append("<T> : Diamond").append(i - 1).append("<T>\n");
+            text.append("trait Right").append(i).append("<T> : Diamond").append(i - 1).append("<T>\n");
+            text.append("trait Diamond").append(i).append("<T> : Left").append(i).append("<T>, Right").append(i).append("<T>\n");
+        }
+
+        JetFile file = JetPsiFactory.createFile(getProject(), "hierarchy.kt", text.toString());
+        ModuleDescriptor module = LazyResolveTestUtil.resolveEagerly(Collections.singletonList(file), getEnvironment());
+        scope = module.getNamespace(new FqName("test")).getMemberScope();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        scope = null;
+        super.tearDown();
+    }
+
+    public void testDeepChain() {
+        JetType intType = KotlinBuiltIns.getInstance().getIntType();
+        JetType top = type("Chain" + CHAIN_DEPTH, intType);
+
+        JetType expectedArgument = intType;
+        for (int i = 0; i < CHAIN_DEPTH; i++) {
+            expectedArgument = type(KotlinBuiltIns.getInstance().getList(), expectedArgument);
+        }
+        assertSubtype(top, type("Chain0", expectedArgument), true);
+        assertSubtype(top, type("Chain0", intType), false);
+        assertSubtype(top, type("Diamond0", intType), false);
+    }
+
+    public void testDiamonds() {
+        JetType intType = KotlinBuiltIns.getInstance().getIntType();
+        JetType top = type("Diamond" + DIAMOND_DEPTH, intType);
+
+        for (int i = 0; i < DIAMOND_DEPTH; i++) {
+            assertSubtype(top, type("Diamond" + i, intType), true);
+            assertSubtype(top, type("Right" + (i + 1), intType), true);
+        }
+        assertSubtype(top, type("Diamond0", KotlinBuiltIns.getInstance().getStringType()), false);
+        assertSubtype(top, type("Chain0", intType), false);
+    }
+
+    public void testUpperBoundAddedAfterCheck() {
+        TypeParameterDescriptorImpl a = createTypeParameter("A");
+        TypeParameterDescriptorImpl b = createTypeParameter("B");
+        b.addDefaultUpperBound();
+        b.setInitialized();
+
+        assertNull(TypeCheckingProcedure.findCorrespondingSupertype(a.getDefaultType(), b.getDefaultType()));
+
+        a.addUpperBound(b.getDefaultType());
+        a.setInitialized();
+        assertEquals(b.getDefaultType(), TypeCheckingProcedure.findCorrespondingSupertype(a.getDefaultType(), b.getDefaultType()));
+    }
+
+    public void testUpperBoundsNotModifiable() {
+        TypeParameterDescriptorImpl a = createTypeParameter("A");
+        a.addDefaultUpperBound();
+        a.setInitialized();
+
+        try {
+            a.getUpperBounds().add(KotlinBuiltIns.getInstance().getIntType());
+            fail("Upper bounds must only be added through the descriptor");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            a.getTypeConstructor().getSupertypes().clear();
+            fail("Supertypes must only be changed through the descriptor");
+        }
+        catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    public void testClosureReusedUntilSupertypesModified() {
+        TypeConstructor constructor = type("Diamond" + DIAMOND_DEPTH, KotlinBuiltIns.getInstance().getIntType()).getConstructor();
+        SupertypeClosure closure = SupertypeClosure.forConstructor(constructor);
+        assertNotNull(closure);
+        assertSame(closure, SupertypeClosure.forConstructor(constructor));
+
+        SupertypeClosure.supertypesModified();
+        assertSame(closure, SupertypeClosure.forConstructor(constructor));
+    }
+
+    // Closures and their memos are built by whichever thread checks a type first and are shared with the others
+    public void testClosuresSharedByConcurrentCheckers() throws Exception {
+        final int threadCount = 8;
+        final JetType intType = KotlinBuiltIns.getInstance().getIntType();
+        final JetType diamondTop = type("Diamond" + DIAMOND_DEPTH, intType);
+        final JetType chainTop = type("Chain" + CHAIN_DEPTH, intType);
+        JetType expectedArgument = intType;
+        for (int i = 0; i < CHAIN_DEPTH; i++) {
+            expectedArgument = type(KotlinBuiltIns.getInstance().getList(), expectedArgument);
+        }
+        final JetType chainBottom = type("Chain0", expectedArgument);
+        final JetType chainBottomOfInt = type("Chain0", intType);
+        // Types are created before, only the checks run concurrently
+        final JetType[] diamonds = new JetType[DIAMOND_DEPTH];
+        final JetType[] lefts = new JetType[DIAMOND_DEPTH];
+        for (int i = 0; i < DIAMOND_DEPTH; i++) {
+            diamonds[i] = type("Diamond" + i, intType);
+            lefts[i] = type("Left" + (i + 1), intType);
+        }
+
+        final CyclicBarrier barrier = new CyclicBarrier(threadCount);
+        final Throwable[] errors = new Throwable[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            final int threadIndex = t;
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        barrier.await(30, TimeUnit.SECONDS);
+                        for (int i = DIAMOND_DEPTH - 1; i >= 0; i--) {
+                            assertTrue(JetTypeChecker.INSTANCE.isSubtypeOf(diamondTop, diamonds[i]));
+                            assertTrue(JetTypeChecker.INSTANCE.isSubtypeOf(diamondTop, lefts[i]));
+                        }
+                        assertFalse(JetTypeChecker.INSTANCE.isSubtypeOf(diamondTop, chainBottomOfInt));
+                        assertTrue(JetTypeChecker.INSTANCE.isSubtypeOf(chainTop, chainBottom));
+                        assertEquals(chainBottom, TypeCheckingProcedure.findCorrespondingSupertype(chainTop, chainBottom));
+                    }
+                    catch (Throwable e) {
+                        errors[threadIndex] = e;
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30000);
+            assertFalse("The thread is not finished", thread.isAlive());
+        }
+        for (Throwable error : errors) {
+            if (error != null) throw new AssertionError(error);
+        }
+    }
+
+    @NotNull
+    private static TypeParameterDescriptorImpl createTypeParameter(@NotNull String name) {
+        return TypeParameterDescriptorImpl.createForFurtherModification(
+                KotlinBuiltIns.getInstance().getAny(), Collections.<AnnotationDescriptor>emptyList(), false, Variance.INVARIANT,
+                Name.identifier(name), 0);
+    }
+
+    private static void assertSubtype(@NotNull JetType subtype, @NotNull JetType supertype, boolean expected) {
+        assertEquals(subtype + " <: " + supertype, expected, JetTypeChecker.INSTANCE.isSubtypeOf(subtype, supertype));
+        assertEquals(subtype + " <: " + supertype + " by traversal", expected, isSubtypeByTraversal(subtype, supertype));
+    }
+
+    // How the checker worked before the supertype closures: the same check, but the hierarchy is traversed every time
+    private static boolean isSubtypeByTraversal(@NotNull JetType subtype, @NotNull JetType supertype) {
+        JetType correspondingSupertype = findCorrespondingSupertypeByTraversal(subtype, supertype);
+        return correspondingSupertype != null && JetTypeChecker.INSTANCE.isSubtypeOf(correspondingSupertype, supertype);
+    }
+
+    @Nullable
+    private static JetType findCorrespondingSupertypeByTraversal(@NotNull JetType subtype, @NotNull JetType supertype) {
+        TypeConstructor constructor = subtype.getConstructor();
+        if (constructor.equals(supertype.getConstructor())) {
+            return subtype;
+        }
+        for (JetType immediateSupertype : constructor.getSupertypes()) {
+            JetType correspondingSupertype = findCorrespondingSupertypeByTraversal(immediateSupertype, supertype);
+            if (correspondingSupertype != null) {
+                return TypeSubstitutor.create(subtype).safeSubstitute(correspondingSupertype, Variance.INVARIANT);
+            }
+        }
+        return null;
+    }
+
+    @NotNull
+    private JetType type(@NotNull String className, @NotNull JetType argument) {
+        ClassDescriptor classDescriptor = (ClassDescriptor) scope.getClassifier(Name.identifier(className));
+        assertNotNull("Class not found: " + className, classDescriptor);
+        return type(classDescriptor, argument);
+    }
+
+    @NotNull
+    private static JetType type(@NotNull ClassDescriptor classDescriptor, @NotNull JetType argument) {
+        List<TypeProjection> arguments = Collections.singletonList(new TypeProjection(argument));
+        return new JetTypeImpl(Collections.<AnnotationDescriptor>emptyList(), classDescriptor.getTypeConstructor(), false, arguments,
+                               classDescriptor.getMemberScope(arguments));
+    }
+}
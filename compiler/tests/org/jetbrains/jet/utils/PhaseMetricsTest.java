@@ -0,0 +1,158 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class PhaseMetricsTest {
+    @After
+    public void tearDown() {
+        PhaseMetrics.stop();
+    }
+
+    @Test
+    public void nestedPhases() {
+        PhaseMetrics metrics = PhaseMetrics.start();
+        PhaseMetrics.Phase outer = PhaseMetrics.startPhase("outer");
+        PhaseMetrics.Phase inner = PhaseMetrics.startPhase("inner");
+        inner.finish(2);
+        outer.finish(1);
+
+        List<PhaseMetrics.PhaseStatistics> phases = metrics.getPhases();
+        assertEquals(2, phases.size());
+        assertPhase(phases.get(0), "outer", 0, 1, 1);
+        assertPhase(phases.get(1), "inner", 1, 1, 2);
+        assertTrue(phases.get(0).getWallNanos() >= phases.get(1).getWallNanos());
+    }
+
+    @Test
+    public void reentrantPhaseIsCountedOnce() {
+        PhaseMetrics metrics = PhaseMetrics.start();
+        PhaseMetrics.Phase outer = PhaseMetrics.startPhase("phase");
+        PhaseMetrics.Phase reentrant = PhaseMetrics.startPhase("phase");
+        reentrant.finish(3);
+        outer.finish(1);
+
+        PhaseMetrics.startPhase("phase").finish(1);
+
+        List<PhaseMetrics.PhaseStatistics> phases = metrics.getPhases();
+        assertEquals(1, phases.size());
+        assertPhase(phases.get(0), "phase", 0, 2, 5);
+    }
+
+    @Test
+    public void phaseFinishedAfterException() {
+        PhaseMetrics metrics = PhaseMetrics.start();
+        try {
+            PhaseMetrics.Phase phase = PhaseMetrics.startPhase("failing");
+            try {
+                throw new IllegalStateException();
+            }
+            finally {
+                phase.finish();
+            }
+        }
+        catch (IllegalStateException e) {
+            // expected
+        }
+
+        PhaseMetrics.startPhase("failing").finish();
+        assertPhase(metrics.getPhases().get(0), "failing", 0, 2, 0);
+    }
+
+    @Test
+    public void disabled() {
+        assertFalse(PhaseMetrics.isEnabled());
+        PhaseMetrics.startPhase("phase").finish(1);
+
+        PhaseMetrics metrics = PhaseMetrics.start();
+        assertTrue(PhaseMetrics.isEnabled());
+        assertTrue(metrics.getPhases().isEmpty());
+    }
+
+    @Test
+    public void notInheritedByStartedThreads() throws InterruptedException {
+        PhaseMetrics metrics = PhaseMetrics.start();
+        final AtomicBoolean enabledInThread = new AtomicBoolean(true);
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                enabledInThread.set(PhaseMetrics.isEnabled());
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertFalse(enabledInThread.get());
+        assertSame(metrics, PhaseMetrics.current());
+    }
+
+    @Test
+    public void attachedToThread() throws InterruptedException {
+        final PhaseMetrics metrics = PhaseMetrics.start();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                PhaseMetrics.attach(metrics);
+                try {
+                    PhaseMetrics.startPhase("phase").finish(2);
+                }
+                finally {
+                    PhaseMetrics.attach(null);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertPhase(metrics.getPhases().get(0), "phase", 0, 1, 2);
+    }
+
+    @Test
+    public void json() {
+        PhaseMetrics metrics = PhaseMetrics.start();
+        PhaseMetrics.startPhase("first \"phase\"").finish(7);
+        PhaseMetrics.startPhase("second").finish();
+
+        String json = metrics.toJson();
+        assertTrue(json, json.startsWith("{\n  \"phases\": [\n    {\"name\": \"first \\\"phase\\\"\", \"depth\": 0, \"invocations\": 1, \"wallNanos\": "));
+        assertTrue(json, json.contains("\"items\": 7},\n    {\"name\": \"second\", \"depth\": 0, \"invocations\": 1, \"wallNanos\": "));
+        assertTrue(json, json.endsWith("\"items\": 0}\n  ]\n}\n"));
+    }
+
+    private static void assertPhase(
+            PhaseMetrics.PhaseStatistics phase,
+            String name,
+            int depth,
+            int invocations,
+            long items
+    ) {
+        assertEquals(name, phase.getName());
+        assertEquals(name, depth, phase.getDepth());
+        assertEquals(name, invocations, phase.getInvocations());
+        assertEquals(name, items, phase.getItems());
+        assertTrue(name, phase.getWallNanos() >= 0);
+        assertTrue(name, phase.getCpuNanos() >= -1);
+        assertTrue(name, phase.getAllocatedBytes() >= -1);
+    }
+}
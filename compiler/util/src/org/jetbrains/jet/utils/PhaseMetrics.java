@@ -0,0 +1,311 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.utils;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.*;
+
+/**
+ * Wall time, CPU time, allocated bytes and processed items of compiler phases.
+ *
+ * Collection is enabled for a thread with {@link #start()}, phases are measured with
+ * {@code PhaseMetrics.startPhase("name") ... phase.finish(items)}, which costs nothing when collection is disabled.
+ * Metrics are not inherited by the threads a thread starts: pooled threads outlive the compilation which created them.
+ * A task run on another thread for a compilation {@link #attach(PhaseMetrics) attaches} its metrics and detaches them
+ * when it completes.
+ * A phase entered again while it's already running on the same thread (e.g. the top-down analysis of a local class
+ * during body resolution) is counted by the outer invocation only, so times are never counted twice.
+ * CPU time and allocations are measured for the thread which runs the phase.
+ */
+public final class PhaseMetrics {
+    private static final ThreadLocal<PhaseMetrics> CURRENT = new ThreadLocal<PhaseMetrics>();
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_COUNTER_AVAILABLE = isAllocationCounterAvailable();
+
+    public static final class PhaseStatistics {
+        private final String name;
+        private final int depth;
+        private int invocations;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+        private long items;
+
+        private PhaseStatistics(@NotNull String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+
+        @NotNull
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return how deep this phase was nested into other phases when it was entered for the first time
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getInvocations() {
+            return invocations;
+        }
+
+        public long getWallNanos() {
+            return wallNanos;
+        }
+
+        /**
+         * @return CPU time, or -1 if the JVM doesn't support measuring it
+         */
+        public long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        /**
+         * @return allocated bytes, or -1 if the JVM doesn't support measuring them
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getItems() {
+            return items;
+        }
+    }
+
+    public static class Phase {
+        private static final Phase NONE = new Phase(null, "", true, 0, 0, 0);
+
+        private final PhaseMetrics metrics;
+        private final String name;
+        private final boolean reentrant;
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+
+        private Phase(PhaseMetrics metrics, String name, boolean reentrant, long wallStart, long cpuStart, long allocatedStart) {
+            this.metrics = metrics;
+            this.name = name;
+            this.reentrant = reentrant;
+            this.wallStart = wallStart;
+            this.cpuStart = cpuStart;
+            this.allocatedStart = allocatedStart;
+        }
+
+        public void finish() {
+            finish(0);
+        }
+
+        public void finish(long items) {
+            if (metrics != null) {
+                metrics.finishPhase(this, items);
+            }
+        }
+    }
+
+    // Phases in the order they were entered for the first time
+    private final Map<String, PhaseStatistics> phases = new LinkedHashMap<String, PhaseStatistics>();
+    private final ThreadLocal<List<String>> activePhases = new ThreadLocal<List<String>>() {
+        @Override
+        protected List<String> initialValue() {
+            return new ArrayList<String>();
+        }
+    };
+
+    private PhaseMetrics() {
+    }
+
+    /**
+     * Starts collecting metrics for the current thread.
+     */
+    @NotNull
+    public static PhaseMetrics start() {
+        PhaseMetrics metrics = new PhaseMetrics();
+        CURRENT.set(metrics);
+        return metrics;
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    public static boolean isEnabled() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return the metrics collected for the current thread, or null if collection is disabled
+     */
+    @Nullable
+    public static PhaseMetrics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Collects metrics of the current thread into the given ones, null stops collecting them.
+     */
+    public static void attach(@Nullable PhaseMetrics metrics) {
+        if (metrics != null) {
+            CURRENT.set(metrics);
+        }
+        else {
+            CURRENT.remove();
+        }
+    }
+
+    @NotNull
+    public static Phase startPhase(@NotNull String name) {
+        PhaseMetrics metrics = CURRENT.get();
+        if (metrics == null) return Phase.NONE;
+
+        List<String> active = metrics.activePhases.get();
+        if (active.contains(name)) {
+            return new Phase(metrics, name, true, 0, 0, 0);
+        }
+        active.add(name);
+        synchronized (metrics.phases) {
+            if (!metrics.phases.containsKey(name)) {
+                metrics.phases.put(name, new PhaseStatistics(name, active.size() - 1));
+            }
+        }
+        return new Phase(metrics, name, false, System.nanoTime(), currentThreadCpuTime(), currentThreadAllocatedBytes());
+    }
+
+    private void finishPhase(@NotNull Phase phase, long items) {
+        if (phase.reentrant) {
+            // The time of a reentrant invocation is already counted by the outer one
+            synchronized (phases) {
+                phases.get(phase.name).items += items;
+            }
+            return;
+        }
+
+        long wall = System.nanoTime() - phase.wallStart;
+        long cpu = phase.cpuStart < 0 ? -1 : currentThreadCpuTime() - phase.cpuStart;
+        long allocated = phase.allocatedStart < 0 ? -1 : currentThreadAllocatedBytes() - phase.allocatedStart;
+        activePhases.get().remove(phase.name);
+
+        synchronized (phases) {
+            PhaseStatistics statistics = phases.get(phase.name);
+            statistics.invocations++;
+            statistics.wallNanos += wall;
+            statistics.cpuNanos = cpu < 0 ? -1 : statistics.cpuNanos + cpu;
+            statistics.allocatedBytes = allocated < 0 ? -1 : statistics.allocatedBytes + allocated;
+            statistics.items += items;
+        }
+    }
+
+    @NotNull
+    public List<PhaseStatistics> getPhases() {
+        synchronized (phases) {
+            return new ArrayList<PhaseStatistics>(phases.values());
+        }
+    }
+
+    @NotNull
+    public String render() {
+        StringBuilder sb = new StringBuilder("Compiler performance:");
+        for (PhaseStatistics phase : getPhases()) {
+            sb.append("\n");
+            for (int i = 0; i <= phase.depth; i++) {
+                sb.append("  ");
+            }
+            sb.append(phase.name).append(": ").append(phase.wallNanos / 1000000).append(" ms");
+            if (phase.cpuNanos >= 0) {
+                sb.append(", CPU ").append(phase.cpuNanos / 1000000).append(" ms");
+            }
+            if (phase.allocatedBytes >= 0) {
+                sb.append(", allocated ").append(phase.allocatedBytes / 1024).append(" KB");
+            }
+            if (phase.invocations > 1) {
+                sb.append(", ").append(phase.invocations).append(" invocations");
+            }
+            if (phase.items > 0) {
+                sb.append(", ").append(phase.items).append(" items");
+            }
+        }
+        return sb.toString();
+    }
+
+    @NotNull
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"phases\": [");
+        List<PhaseStatistics> statistics = getPhases();
+        for (int i = 0; i < statistics.size(); i++) {
+            PhaseStatistics phase = statistics.get(i);
+            sb.append(i == 0 ? "\n" : ",\n");
+            sb.append("    {\"name\": \"").append(escape(phase.name)).append("\"");
+            sb.append(", \"depth\": ").append(phase.depth);
+            sb.append(", \"invocations\": ").append(phase.invocations);
+            sb.append(", \"wallNanos\": ").append(phase.wallNanos);
+            sb.append(", \"cpuNanos\": ").append(phase.cpuNanos);
+            sb.append(", \"allocatedBytes\": ").append(phase.allocatedBytes);
+            sb.append(", \"items\": ").append(phase.items);
+            sb.append("}");
+        }
+        return sb.append("\n  ]\n}\n").toString();
+    }
+
+    @NotNull
+    private static String escape(@NotNull String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static long currentThreadCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        return ALLOCATION_COUNTER_AVAILABLE ? AllocationCounter.currentThreadAllocatedBytes() : -1;
+    }
+
+    private static boolean isAllocationCounterAvailable() {
+        try {
+            Class.forName("com.sun.management.ThreadMXBean");
+            return AllocationCounter.isSupported();
+        }
+        catch (ClassNotFoundException e) {
+            return false;
+        }
+        catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Allocations are counted by a HotSpot extension of {@link ThreadMXBean}. This class is the only one referring to it,
+     * and it's loaded only if the extension is present.
+     */
+    private static class AllocationCounter {
+        static boolean isSupported() {
+            return THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean &&
+                   ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported();
+        }
+
+        static long currentThreadAllocatedBytes() {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+            return bean.isThreadAllocatedMemoryEnabled() ? bean.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+        }
+    }
+}
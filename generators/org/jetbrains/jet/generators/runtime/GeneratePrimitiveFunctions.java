@@ -0,0 +1,191 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.generators.runtime;
+
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.jet.utils.ExceptionUtils;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Generates jet.runtime.PrimitiveFunctions: interfaces with unboxed invoke() methods, which closures implement in addition
+ * to jet.FunctionN, and static invoke helpers used by call sites, falling back to the generic FunctionN.invoke().
+ *
+ * The set of shapes must be kept in sync with FunctionTypesUtil.getPrimitiveFunctionShape().
+ */
+public class GeneratePrimitiveFunctions {
+    public static final File OUTPUT_FILE = new File("runtime/src/jet/runtime/PrimitiveFunctions.java");
+
+    private enum Kind {
+        INT("Int", "int", "Integer", "intValue"),
+        LONG("Long", "long", "Long", "longValue"),
+        DOUBLE("Double", "double", "Double", "doubleValue"),
+        BOOLEAN("Boolean", "boolean", "Boolean", "booleanValue"),
+        OBJECT("Object", "Object", null, null);
+
+        private final String name;
+        private final String javaType;
+        private final String boxedType;
+        private final String unboxMethod;
+
+        private Kind(String name, String javaType, String boxedType, String unboxMethod) {
+            this.name = name;
+            this.javaType = javaType;
+            this.boxedType = boxedType;
+            this.unboxMethod = unboxMethod;
+        }
+
+        private boolean isPrimitive() {
+            return this != OBJECT;
+        }
+
+        private String unbox(String expression) {
+            return isPrimitive() ? "((" + boxedType + ") " + expression + ")." + unboxMethod + "()" : expression;
+        }
+    }
+
+    private static class Shape {
+        private final List<Kind> parameters;
+        private final Kind returnKind;
+
+        private Shape(List<Kind> parameters, Kind returnKind) {
+            this.parameters = parameters;
+            this.returnKind = returnKind;
+        }
+
+        private String getName() {
+            StringBuilder sb = new StringBuilder();
+            for (Kind parameter : parameters) {
+                sb.append(parameter.name);
+            }
+            return sb.append("To").append(returnKind.name).toString();
+        }
+    }
+
+    private final PrintWriter out;
+
+    private GeneratePrimitiveFunctions(PrintWriter out) {
+        this.out = out;
+    }
+
+    private static List<Shape> computeShapes() {
+        List<Shape> result = new ArrayList<Shape>();
+        for (Kind returnKind : Kind.values()) {
+            if (returnKind.isPrimitive()) {
+                result.add(new Shape(Collections.<Kind>emptyList(), returnKind));
+            }
+        }
+        for (Kind parameter : Kind.values()) {
+            for (Kind returnKind : Kind.values()) {
+                if (parameter.isPrimitive() || returnKind.isPrimitive()) {
+                    result.add(new Shape(Collections.singletonList(parameter), returnKind));
+                }
+            }
+        }
+        for (Kind parameter : new Kind[] {Kind.INT, Kind.LONG, Kind.DOUBLE}) {
+            for (Kind returnKind : Kind.values()) {
+                List<Kind> parameters = new ArrayList<Kind>();
+                parameters.add(parameter);
+                parameters.add(parameter);
+                result.add(new Shape(parameters, returnKind));
+            }
+        }
+        return result;
+    }
+
+    private void generate() {
+        try {
+            out.println(FileUtil.loadFile(new File("injector-generator/copyright.txt")));
+        }
+        catch (IOException e) {
+            ExceptionUtils.rethrow(e);
+        }
+        out.println("package jet.runtime;");
+        out.println();
+        out.println("import jet.Function0;");
+        out.println("import jet.Function1;");
+        out.println("import jet.Function2;");
+        out.println();
+        out.println("/* This file is generated by " + GeneratePrimitiveFunctions.class.getName() + ". DO NOT MODIFY MANUALLY */");
+        out.println("@SuppressWarnings(\"unchecked\")");
+        out.println("public final class PrimitiveFunctions {");
+        out.println("    private PrimitiveFunctions() {");
+        out.println("    }");
+
+        for (Shape shape : computeShapes()) {
+            out.println();
+            generateInterface(shape);
+            out.println();
+            generateInvoke(shape);
+        }
+
+        out.println("}");
+    }
+
+    private void generateInterface(Shape shape) {
+        out.println("    public interface " + shape.getName() + " {");
+        out.print("        " + shape.returnKind.javaType + " invoke(");
+        generateParameters(shape);
+        out.println(");");
+        out.println("    }");
+    }
+
+    private void generateInvoke(Shape shape) {
+        int arity = shape.parameters.size();
+        String name = shape.getName();
+
+        out.print("    public static " + shape.returnKind.javaType + " invoke" + name + "(Function" + arity + " f");
+        if (arity > 0) out.print(", ");
+        generateParameters(shape);
+        out.println(") {");
+        out.println("        if (f instanceof " + name + ") {");
+        out.println("            return ((" + name + ") f).invoke(" + arguments(arity) + ");");
+        out.println("        }");
+        out.println("        return " + shape.returnKind.unbox("f.invoke(" + arguments(arity) + ")") + ";");
+        out.println("    }");
+    }
+
+    private void generateParameters(Shape shape) {
+        for (int i = 0; i < shape.parameters.size(); i++) {
+            if (i > 0) out.print(", ");
+            out.print(shape.parameters.get(i).javaType + " p" + (i + 1));
+        }
+    }
+
+    private static String arguments(int arity) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i <= arity; i++) {
+            if (i > 1) sb.append(", ");
+            sb.append("p").append(i);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws FileNotFoundException {
+        assert OUTPUT_FILE.getParentFile().exists() : "Runtime src dir does not exist: " + OUTPUT_FILE.getParentFile().getAbsolutePath();
+
+        PrintWriter out = new PrintWriter(OUTPUT_FILE);
+        new GeneratePrimitiveFunctions(out).generate();
+        out.close();
+    }
+}
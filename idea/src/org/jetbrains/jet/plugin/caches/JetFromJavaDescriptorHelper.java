@@ -29,6 +29,7 @@ import jet.runtime.typeinfo.JetPackageClass;
 import jet.runtime.typeinfo.JetValueParameter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.lang.resolve.java.JvmPrimitiveType;
 import org.jetbrains.jet.lang.resolve.java.JvmStdlibNames;
 import org.jetbrains.jet.lang.resolve.java.PackageClassUtils;
 import org.jetbrains.jet.lang.resolve.java.kt.JetClassAnnotation;
@@ -146,6 +147,42 @@ class JetFromJavaDescriptorHelper {
                 });
     }
 
+    /**
+     * Compares the receiver parameter of a compiled extension function with short names of classes without resolving it.
+     * Receivers which can't be mapped to a Kotlin class by name (type parameters, Object, arrays) are always accepted.
+     */
+    static boolean mayBeExtensionOf(@NotNull PsiMethod extensionFunction, @NotNull Set<String> receiverClassShortNames) {
+        PsiParameter[] parameters = extensionFunction.getParameterList().getParameters();
+        if (parameters.length == 0) return false;
+
+        PsiType receiverType = parameters[0].getType();
+        if (receiverType instanceof PsiPrimitiveType) {
+            for (JvmPrimitiveType primitiveType : JvmPrimitiveType.values()) {
+                if (primitiveType.getName().equals(receiverType.getCanonicalText())) {
+                    return receiverClassShortNames.contains(primitiveType.getPrimitiveType().getTypeName().asString());
+                }
+            }
+            return true;
+        }
+
+        if (!(receiverType instanceof PsiClassType)) return true;
+
+        String className = ((PsiClassType) receiverType).getClassName();
+        if (className == null || className.equals("Object")) return true;
+
+        for (PsiTypeParameter typeParameter : extensionFunction.getTypeParameters()) {
+            if (className.equals(typeParameter.getName())) return true;
+        }
+
+        for (JvmPrimitiveType primitiveType : JvmPrimitiveType.values()) {
+            if (primitiveType.getWrapper().getFqName().shortName().asString().equals(className)) {
+                return receiverClassShortNames.contains(primitiveType.getPrimitiveType().getTypeName().asString());
+            }
+        }
+
+        return receiverClassShortNames.contains(className);
+    }
+
     @Nullable
     static FqName getJetTopLevelDeclarationFQN(@NotNull PsiMethod method) {
         PsiClass containingClass = method.getContainingClass();
@@ -58,7 +58,7 @@ public class JetGotoClassContributor implements GotoClassContributor {
     @NotNull
     @Override
     public String[] getNames(Project project, boolean includeNonProjectItems) {
-        return ArrayUtil.toObjectArray(JetShortClassNameIndex.getInstance().getAllKeys(project), String.class);
+        return JetShortNamesCache.getKotlinInstance(project).getClassNamesTable().getAllNames();
     }
 
     @NotNull
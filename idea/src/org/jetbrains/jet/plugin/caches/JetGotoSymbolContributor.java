@@ -36,10 +36,7 @@ public class JetGotoSymbolContributor implements ChooseByNameContributor {
     @NotNull
     @Override
     public String[] getNames(Project project, boolean includeNonProjectItems) {
-        Collection<String> items = StubIndex.getInstance().getAllKeys(JetAllShortFunctionNameIndex.getInstance().getKey(), project);
-        items.addAll(StubIndex.getInstance().getAllKeys(JetShortPropertiesNameIndex.getInstance().getKey(), project));
-
-        return ArrayUtil.toStringArray(items);
+        return JetShortNamesCache.getKotlinInstance(project).getFunctionAndPropertyNamesTable().getAllNames();
     }
 
     @NotNull
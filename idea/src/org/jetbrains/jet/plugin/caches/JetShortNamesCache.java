@@ -21,10 +21,16 @@ import com.google.common.collect.Collections2;
 import com.google.common.collect.Sets;
 import com.intellij.openapi.extensions.Extensions;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.Condition;
 import com.intellij.psi.*;
 import com.intellij.psi.search.GlobalSearchScope;
 import com.intellij.psi.search.PsiShortNamesCache;
+import com.intellij.psi.stubs.StringStubIndexExtension;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.ArrayUtil;
 import com.intellij.util.Processor;
 import com.intellij.util.containers.HashSet;
@@ -46,6 +52,7 @@ import org.jetbrains.jet.lang.resolve.name.FqName;
 import org.jetbrains.jet.lang.resolve.name.Name;
 import org.jetbrains.jet.lang.resolve.scopes.JetScope;
 import org.jetbrains.jet.lang.types.JetType;
+import org.jetbrains.jet.lang.types.TypeUtils;
 import org.jetbrains.jet.lang.types.expressions.ExpressionTypingUtils;
 import org.jetbrains.jet.plugin.caches.resolve.IDELightClassGenerationSupport;
 import org.jetbrains.jet.plugin.stubindex.*;
@@ -71,9 +78,14 @@ public class JetShortNamesCache extends PsiShortNamesCache {
     private static final PsiMethod[] NO_METHODS = new PsiMethod[0];
     private static final PsiField[] NO_FIELDS = new PsiField[0];
     private final Project project;
+    private final CachedValue<ShortNamesTable> classNamesTable;
+    private final CachedValue<ShortNamesTable> functionAndPropertyNamesTable;
 
     public JetShortNamesCache(Project project) {
         this.project = project;
+        this.classNamesTable = createNamesTable(JetShortClassNameIndex.getInstance());
+        this.functionAndPropertyNamesTable = createNamesTable(JetAllShortFunctionNameIndex.getInstance(),
+                                                              JetShortPropertiesNameIndex.getInstance());
     }
 
     /**
@@ -268,30 +280,6 @@ public class JetShortNamesCache extends PsiShortNamesCache {
         return result;
     }
 
-    /**
-     * Get jet extensions top-level function names. Method is allowed to give invalid names - all result should be
-     * checked with getAllJetExtensionFunctionsByName().
-     *
-     * @return
-     */
-    @NotNull
-    public Collection<String> getAllJetExtensionFunctionsNames(@NotNull GlobalSearchScope scope) {
-        Set<String> extensionFunctionNames = new HashSet<String>();
-
-        extensionFunctionNames.addAll(JetExtensionFunctionNameIndex.getInstance().getAllKeys(project));
-        extensionFunctionNames.addAll(JetFromJavaDescriptorHelper.getTopExtensionFunctionNames(project, scope));
-
-        return extensionFunctionNames;
-    }
-
-    public Collection<PsiElement> getJetExtensionFunctionsByName(@NotNull String name, @NotNull GlobalSearchScope scope) {
-        HashSet<PsiElement> functions = new HashSet<PsiElement>();
-        functions.addAll(JetExtensionFunctionNameIndex.getInstance().get(name, project, scope));
-        functions.addAll(JetFromJavaDescriptorHelper.getTopExtensionFunctionPrototypesByName(name, project, scope));
-
-        return functions;
-    }
-
     // TODO: Make it work for properties
     public Collection<DeclarationDescriptor> getJetCallableExtensions(
             @NotNull Condition<String> acceptedNameCondition,
@@ -309,21 +297,25 @@ public class JetShortNamesCache extends PsiShortNamesCache {
             JetScope scope = context.get(BindingContext.RESOLUTION_SCOPE, receiverExpression);
 
             if (expressionType != null && scope != null) {
-                Collection<String> extensionFunctionsNames = getAllJetExtensionFunctionsNames(searchScope);
+                Set<String> receiverClassNames = getPossibleReceiverClassNames(expressionType);
 
                 Set<FqName> functionFQNs = new java.util.HashSet<FqName>();
 
-                // Collect all possible extension function qualified names
-                for (String name : extensionFunctionsNames) {
-                    if (acceptedNameCondition.value(name)) {
-                        Collection<PsiElement> extensionFunctions = getJetExtensionFunctionsByName(name, searchScope);
+                // Collect qualified names of extension functions declared for classes in the receiver's hierarchy
+                for (String receiverClassName : receiverClassNames) {
+                    for (JetNamedFunction function : JetExtensionFunctionReceiverIndex.getInstance().get(receiverClassName, project, searchScope)) {
+                        String name = function.getName();
+                        if (name != null && acceptedNameCondition.value(name)) {
+                            functionFQNs.add(JetPsiUtil.getFQName(function));
+                        }
+                    }
+                }
 
-                        for (PsiElement extensionFunction : extensionFunctions) {
-                            if (extensionFunction instanceof JetNamedFunction) {
-                                functionFQNs.add(JetPsiUtil.getFQName((JetNamedFunction) extensionFunction));
-                            }
-                            else if (extensionFunction instanceof PsiMethod) {
-                                FqName functionFQN = JetFromJavaDescriptorHelper.getJetTopLevelDeclarationFQN((PsiMethod) extensionFunction);
+                for (String name : JetFromJavaDescriptorHelper.getTopExtensionFunctionNames(project, searchScope)) {
+                    if (acceptedNameCondition.value(name)) {
+                        for (PsiMethod method : JetFromJavaDescriptorHelper.getTopExtensionFunctionPrototypesByName(name, project, searchScope)) {
+                            if (JetFromJavaDescriptorHelper.mayBeExtensionOf(method, receiverClassNames)) {
+                                FqName functionFQN = JetFromJavaDescriptorHelper.getJetTopLevelDeclarationFQN(method);
                                 if (functionFQN != null) {
                                     functionFQNs.add(functionFQN);
                                 }
@@ -346,33 +338,76 @@ public class JetShortNamesCache extends PsiShortNamesCache {
         return resultDescriptors;
     }
 
+    /**
+     * @return short names of the classes an extension function's receiver may have to be applicable to {@code receiverType}
+     */
+    @NotNull
+    private static Set<String> getPossibleReceiverClassNames(@NotNull JetType receiverType) {
+        Set<String> result = new java.util.HashSet<String>();
+        result.add(JetExtensionFunctionReceiverIndex.ANY_RECEIVER);
+
+        List<JetType> types = new ArrayList<JetType>(TypeUtils.getAllSupertypes(receiverType));
+        types.add(receiverType);
+        for (JetType type : types) {
+            ClassifierDescriptor classifier = type.getConstructor().getDeclarationDescriptor();
+            if (classifier instanceof ClassDescriptor) {
+                result.add(classifier.getName().asString());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param namePrefix the prefix typed by the user, every name accepted by {@code acceptedShortNameCondition} starts with
+     *                   its first character
+     */
     public Collection<ClassDescriptor> getJetClassesDescriptors(
+            @NotNull String namePrefix,
             @NotNull Condition<String> acceptedShortNameCondition,
             @NotNull KotlinCodeAnalyzer analyzer
     ) {
         Collection<ClassDescriptor> classDescriptors = new ArrayList<ClassDescriptor>();
-
-        for (String fqName : JetFullClassNameIndex.getInstance().getAllKeys(project)) {
-            FqName classFQName = new FqName(fqName);
-            if (acceptedShortNameCondition.value(classFQName.shortName().asString())) {
-                classDescriptors.addAll(getJetClassesDescriptorsByFQName(analyzer, classFQName));
+        Set<FqName> classFQNames = new java.util.HashSet<FqName>();
+        GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+
+        for (String name : getClassNamesTable().getMatchingNames(namePrefix, acceptedShortNameCondition)) {
+            for (JetClassOrObject classOrObject : JetShortClassNameIndex.getInstance().get(name, project, scope)) {
+                FqName classFQName = JetPsiUtil.getFQName(classOrObject);
+                // Note: Can't search with psi element as analyzer could be built over temp files
+                if (classFQName != null && classFQNames.add(classFQName)) {
+                    classDescriptors.addAll(ResolveSessionUtils.getClassDescriptorsByFqName(analyzer, classFQName));
+                }
             }
         }
 
         return classDescriptors;
     }
 
-    private Collection<ClassDescriptor> getJetClassesDescriptorsByFQName(@NotNull KotlinCodeAnalyzer analyzer, @NotNull FqName classFQName) {
-        Collection<JetClassOrObject> jetClassOrObjects = JetFullClassNameIndex.getInstance().get(
-                classFQName.asString(), project, GlobalSearchScope.allScope(project));
+    @NotNull
+    ShortNamesTable getClassNamesTable() {
+        return classNamesTable.getValue();
+    }
 
-        if (jetClassOrObjects.isEmpty()) {
-            // This fqn is absent in caches, dead or not in scope
-            return Collections.emptyList();
-        }
+    @NotNull
+    ShortNamesTable getFunctionAndPropertyNamesTable() {
+        return functionAndPropertyNamesTable.getValue();
+    }
 
-        // Note: Can't search with psi element as analyzer could be built over temp files
-        return ResolveSessionUtils.getClassDescriptorsByFqName(analyzer, classFQName);
+    @NotNull
+    private CachedValue<ShortNamesTable> createNamesTable(@NotNull final StringStubIndexExtension<?>... indices) {
+        return CachedValuesManager.getManager(project).createCachedValue(new CachedValueProvider<ShortNamesTable>() {
+            @Nullable
+            @Override
+            public Result<ShortNamesTable> compute() {
+                Collection<String> names = new ArrayList<String>();
+                for (StringStubIndexExtension<?> index : indices) {
+                    names.addAll(index.getAllKeys(project));
+                }
+                return Result.create(new ShortNamesTable(names),
+                                     PsiModificationTracker.OUT_OF_CODE_BLOCK_MODIFICATION_COUNT,
+                                     ProjectRootManager.getInstance(project));
+            }
+        }, false);
     }
 
     @NotNull
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.caches;
+
+import com.intellij.openapi.util.Condition;
+import com.intellij.util.ArrayUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * Short names of declarations sorted ignoring case, so that the names starting with a prefix are found with a binary search
+ * instead of checking every key of a stub index.
+ *
+ * Completion matchers, both for plain prefixes and camel humps, only accept names starting with the first character of
+ * the typed prefix, so only the names starting with it are checked against the matcher.
+ */
+class ShortNamesTable {
+    private final String[] names;
+
+    ShortNamesTable(@NotNull Collection<String> names) {
+        this.names = ArrayUtil.toStringArray(new HashSet<String>(names));
+        Arrays.sort(this.names, String.CASE_INSENSITIVE_ORDER);
+    }
+
+    @NotNull
+    public String[] getAllNames() {
+        return names.clone();
+    }
+
+    /**
+     * @param prefix what the user has typed: every name accepted by {@code condition} is expected to start with
+     *               its first character (ignoring case)
+     */
+    @NotNull
+    public List<String> getMatchingNames(@NotNull String prefix, @NotNull Condition<String> condition) {
+        String firstCharacter = !prefix.isEmpty() && Character.isJavaIdentifierPart(prefix.charAt(0)) ? prefix.substring(0, 1) : "";
+
+        List<String> result = new ArrayList<String>();
+        for (int i = lowerBound(firstCharacter); i < names.length; i++) {
+            String name = names[i];
+            if (!name.regionMatches(true, 0, firstCharacter, 0, firstCharacter.length())) break;
+
+            if (condition.value(name)) {
+                result.add(name);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the first name not less than {@code prefix}
+     */
+    private int lowerBound(@NotNull String prefix) {
+        int low = 0;
+        int high = names.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(names[middle], prefix) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
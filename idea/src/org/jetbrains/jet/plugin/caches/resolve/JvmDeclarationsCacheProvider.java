@@ -34,6 +34,7 @@ import org.jetbrains.jet.lang.resolve.BindingTrace;
 import org.jetbrains.jet.lang.resolve.BindingTraceContext;
 import org.jetbrains.jet.lang.resolve.java.AnalyzerFacadeForJVM;
 import org.jetbrains.jet.lang.resolve.java.JetFilesProvider;
+import org.jetbrains.jet.lang.resolve.lazy.storage.LockProtectedTrace;
 import org.jetbrains.jet.plugin.project.TargetPlatform;
 
 import java.util.Collections;
@@ -57,7 +58,9 @@ class JvmDeclarationsCacheProvider extends DeclarationsCacheProvider {
                 // This lock is already acquired by the calling method,
                 // but we put it here to guard for the case of further modifications
                 synchronized (declarationAnalysisLock) {
-                    BindingTraceContext trace = new BindingTraceContext();
+                    // Java classes and types of declarations without explicit types are resolved into the trace on demand
+                    // while bodies of different files are analyzed, under the lock of the trace
+                    BindingTrace trace = new LockProtectedTrace(new Object(), new BindingTraceContext());
 
                     incompleteTrace = trace;
                     AnalyzeExhaust analyzeExhaust;
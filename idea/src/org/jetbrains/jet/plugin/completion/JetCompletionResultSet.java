@@ -89,6 +89,11 @@ public class JetCompletionResultSet {
         return isSomethingAdded;
     }
 
+    @NotNull
+    public String getShortNamePrefix() {
+        return result.getPrefixMatcher().getPrefix();
+    }
+
     @NotNull
     public Condition<String> getShortNameFilter() {
         return new Condition<String>() {
@@ -46,7 +46,7 @@ public class JetTypesCompletionHelper {
         Project project = parameters.getOriginalFile().getProject();
         JetShortNamesCache namesCache = JetShortNamesCache.getKotlinInstance(project);
         jetCompletionResult.addAllElements(namesCache.getJetClassesDescriptors(
-                jetCompletionResult.getShortNameFilter(), jetCompletionResult.getResolveSession()));
+                jetCompletionResult.getShortNamePrefix(), jetCompletionResult.getShortNameFilter(), jetCompletionResult.getResolveSession()));
 
         if (!KotlinFrameworkDetector.isJsKotlinModule((JetFile) parameters.getOriginalFile())) {
             addAdaptedJavaCompletion(parameters, jetCompletionResult);
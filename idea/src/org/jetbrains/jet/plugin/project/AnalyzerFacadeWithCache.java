@@ -19,10 +19,13 @@ package org.jetbrains.jet.plugin.project;
 import com.google.common.base.Predicates;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.roots.libraries.LibraryUtil;
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolderEx;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
@@ -33,7 +36,7 @@ import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.Function;
-import com.intellij.util.containers.SLRUCache;
+import com.intellij.util.containers.SLRUMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.analyzer.AnalyzeExhaust;
@@ -53,14 +56,22 @@ import org.jetbrains.jet.plugin.util.ApplicationUtils;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 public final class AnalyzerFacadeWithCache {
 
     private static final Logger LOG = Logger.getInstance("org.jetbrains.jet.plugin.project.AnalyzerFacadeWithCache");
 
-    private final static Key<CachedValue<SLRUCache<JetFile, AnalyzeExhaust>>> ANALYZE_EXHAUST_FULL = Key.create("ANALYZE_EXHAUST_FULL");
+    private final static Key<CachedValue<SLRUMap<JetFile, AnalyzeExhaust>>> ANALYZE_EXHAUST_FULL = Key.create("ANALYZE_EXHAUST_FULL");
+    private final static Key<CachedValue<AnalyzeExhaust>> ANALYZE_EXHAUST_LIBRARY_FILE = Key.create("ANALYZE_EXHAUST_LIBRARY_FILE");
+    private final static Key<ReentrantLock> FILE_ANALYSIS_LOCK = Key.create("FILE_ANALYSIS_LOCK");
+
+    private static final long CHECK_CANCELED_INTERVAL_MS = 50;
+
+    private static final Object cacheCreationLock = new Object();
 
-    private static final Object lock = new Object();
     public static final Function<JetFile, Collection<JetFile>> SINGLE_DECLARATION_PROVIDER = new Function<JetFile, Collection<JetFile>>() {
         @Override
         public Collection<JetFile> fun(JetFile file) {
@@ -73,72 +84,166 @@ public final class AnalyzerFacadeWithCache {
 
     /**
      * Analyze project with string cache for given file. Given file will be fully analyzed.
+     *
+     * Threads analyzing the same file wait for the one which started first and share its result, different files are
+     * analyzed concurrently. The declarations they share are fully computed by the declarations cache, apart from Java
+     * classes, which are resolved under the lock of the Java resolver. All the waiting is cancellable.
      */
     // TODO: Also need to pass several files when user have multi-file environment
     @NotNull
     public static AnalyzeExhaust analyzeFileWithCache(@NotNull JetFile file) {
-        // Need lock, because parallel threads can start evaluation of compute() simultaneously
-        synchronized (lock) {
-            Project project = file.getProject();
+        Project project = file.getProject();
+
+        Lock fileLock = getLock(file, FILE_ANALYSIS_LOCK);
+        lockCancellably(fileLock);
+        try {
+            if (isLibraryFile(file)) {
+                // Nothing can be resolved in dumb mode, and the result of a library file is kept in memory for a long time
+                return DumbService.isDumb(project) ? emptyExhaust() : analyzeLibraryFileWithCache(file);
+            }
+
+            SLRUMap<JetFile, AnalyzeExhaust> cache = getProjectFilesCache(project);
+            synchronized (cache) {
+                AnalyzeExhaust cached = cache.get(file);
+                if (cached != null) return cached;
+            }
+
+            AnalyzeExhaust exhaust = analyzeProjectFile(file);
+
+            // If the cache was dropped meanwhile because of a modification, the result is outdated anyway
+            synchronized (cache) {
+                cache.put(file, exhaust);
+            }
+            return exhaust;
+        }
+        finally {
+            fileLock.unlock();
+        }
+    }
+
+    @NotNull
+    private static SLRUMap<JetFile, AnalyzeExhaust> getProjectFilesCache(@NotNull Project project) {
+        // Two caches created concurrently would make the same file analyzed twice
+        synchronized (cacheCreationLock) {
             return CachedValuesManager.getManager(project).getCachedValue(
                     project,
                     ANALYZE_EXHAUST_FULL,
-                    new CachedValueProvider<SLRUCache<JetFile, AnalyzeExhaust>>() {
+                    new CachedValueProvider<SLRUMap<JetFile, AnalyzeExhaust>>() {
                         @Nullable
                         @Override
-                        public Result<SLRUCache<JetFile, AnalyzeExhaust>> compute() {
-                            SLRUCache<JetFile, AnalyzeExhaust> cache = new SLRUCache<JetFile, AnalyzeExhaust>(3, 8) {
-
-                                @NotNull
-                                @Override
-                                public AnalyzeExhaust createValue(JetFile file) {
-                                    try {
-                                        if (DumbService.isDumb(file.getProject())) {
-                                            return emptyExhaust();
-                                        }
-
-                                        ApplicationUtils.warnTimeConsuming(LOG);
-
-                                        AnalyzeExhaust analyzeExhaustHeaders = analyzeHeadersWithCacheOnFile(file);
-
-                                        return analyzeBodies(analyzeExhaustHeaders, file);
-                                    }
-                                    catch (ProcessCanceledException e) {
-                                        throw e;
-                                    }
-                                    catch (Throwable e) {
-                                        handleError(e);
-                                        return emptyExhaustWithDiagnosticOnFile(file, e);
-                                    }
-                                }
-                            };
-                            return Result.create(cache, PsiModificationTracker.MODIFICATION_COUNT);
+                        public Result<SLRUMap<JetFile, AnalyzeExhaust>> compute() {
+                            return Result.create(new SLRUMap<JetFile, AnalyzeExhaust>(3, 8), PsiModificationTracker.MODIFICATION_COUNT);
                         }
                     },
                     false
-            ).get(file);
+            );
         }
     }
 
-    private static AnalyzeExhaust emptyExhaust() {
-        return AnalyzeExhaust.success(BindingContext.EMPTY, ErrorUtils.getErrorModule());
+    @NotNull
+    private static AnalyzeExhaust analyzeProjectFile(@NotNull JetFile file) {
+        try {
+            if (DumbService.isDumb(file.getProject())) {
+                return emptyExhaust();
+            }
+
+            ApplicationUtils.warnTimeConsuming(LOG);
+
+            KotlinDeclarationsCache declarationsCache = KotlinCacheManagerUtil.getDeclarationsFromProject(file);
+            AnalyzeExhaust analyzeExhaustHeaders = ((KotlinDeclarationsCacheImpl) declarationsCache).getAnalyzeExhaust();
+
+            return analyzeBodies(analyzeExhaustHeaders, file);
+        }
+        catch (ProcessCanceledException e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            handleError(e);
+            return emptyExhaustWithDiagnosticOnFile(file, e);
+        }
     }
 
-    private static AnalyzeExhaust analyzeHeadersWithCacheOnFile(@NotNull JetFile fileToCache) {
-        VirtualFile virtualFile = fileToCache.getVirtualFile();
-        if (LightClassUtil.belongsToKotlinBuiltIns(fileToCache) ||
-                virtualFile != null && LibraryUtil.findLibraryEntry(virtualFile, fileToCache.getProject()) != null) {
+    @NotNull
+    private static Lock getLock(@NotNull UserDataHolderEx holder, @NotNull Key<ReentrantLock> key) {
+        ReentrantLock lock = holder.getUserData(key);
+        return lock != null ? lock : holder.putUserDataIfAbsent(key, new ReentrantLock());
+    }
+
+    /**
+     * Unlike entering a synchronized block, lets a cancelled highlighting pass or completion stop waiting for an analysis
+     * started by somebody else
+     */
+    private static void lockCancellably(@NotNull Lock lock) {
+        while (true) {
+            ProgressManager.checkCanceled();
+            try {
+                if (lock.tryLock(CHECK_CANCELED_INTERVAL_MS, TimeUnit.MILLISECONDS)) return;
+            }
+            catch (InterruptedException e) {
+                throw new ProcessCanceledException();
+            }
+        }
+    }
+
+    private static boolean isLibraryFile(@NotNull JetFile file) {
+        VirtualFile virtualFile = file.getVirtualFile();
+        return LightClassUtil.belongsToKotlinBuiltIns(file) ||
+               virtualFile != null && LibraryUtil.findLibraryEntry(virtualFile, file.getProject()) != null;
+    }
+
+    /**
+     * Library sources are analyzed on their own, so unlike project files their analysis doesn't depend on any other
+     * file of the project, and is kept until the file or the project roots change.
+     *
+     * The analysis is only kept in memory, for the current session: descriptors can't be serialized, so a library file
+     * opened after a restart is analyzed again.
+     */
+    @NotNull
+    private static AnalyzeExhaust analyzeLibraryFileWithCache(@NotNull final JetFile file) {
+        return CachedValuesManager.getManager(file.getProject()).getCachedValue(
+                file,
+                ANALYZE_EXHAUST_LIBRARY_FILE,
+                new CachedValueProvider<AnalyzeExhaust>() {
+                    @Nullable
+                    @Override
+                    public Result<AnalyzeExhaust> compute() {
+                        AnalyzeExhaust exhaust = analyzeLibraryFile(file);
+                        if (exhaust.isError()) {
+                            // Try again after any change instead of keeping the error
+                            return Result.create(exhaust, PsiModificationTracker.MODIFICATION_COUNT);
+                        }
+                        return Result.create(exhaust, file, ProjectRootManager.getInstance(file.getProject()));
+                    }
+                },
+                false);
+    }
+
+    @NotNull
+    private static AnalyzeExhaust analyzeLibraryFile(@NotNull JetFile file) {
+        try {
+            ApplicationUtils.warnTimeConsuming(LOG);
+
             /* For library sources we should resolve it, not only project files (as KotlinCacheManager do) */
-            return AnalyzerFacadeForJVM.INSTANCE.analyzeFiles(
-                    fileToCache.getProject(),
-                    Collections.singleton(fileToCache),
+            AnalyzeExhaust analyzeExhaustHeaders = AnalyzerFacadeForJVM.INSTANCE.analyzeFiles(
+                    file.getProject(),
+                    Collections.singleton(file),
                     Collections.<AnalyzerScriptParameter>emptyList(),
                     Predicates.<PsiFile>alwaysFalse()
             );
+
+            return analyzeBodies(analyzeExhaustHeaders, file);
         }
+        catch (ProcessCanceledException e) {
+            throw e;
+        }
+        catch (Throwable e) {
+            handleError(e);
+            return emptyExhaustWithDiagnosticOnFile(file, e);
+        }
+    }
 
-        KotlinDeclarationsCache cache = KotlinCacheManagerUtil.getDeclarationsFromProject(fileToCache);
-        return ((KotlinDeclarationsCacheImpl) cache).getAnalyzeExhaust();
+    private static AnalyzeExhaust emptyExhaust() {
+        return AnalyzeExhaust.success(BindingContext.EMPTY, ErrorUtils.getErrorModule());
     }
 
     private static AnalyzeExhaust analyzeBodies(AnalyzeExhaust analyzeExhaustHeaders, JetFile file) {
@@ -208,7 +208,7 @@ public class AutoImportFix extends JetHintAction<JetSimpleNameExpression> implem
 
     private static Collection<FqName> getJetClasses(@NotNull final String typeName, @NotNull Project project, @NotNull KotlinCodeAnalyzer resolveSession) {
         JetShortNamesCache cache = JetShortNamesCache.getKotlinInstance(project);
-        Collection<ClassDescriptor> descriptors = cache.getJetClassesDescriptors(new Condition<String>() {
+        Collection<ClassDescriptor> descriptors = cache.getJetClassesDescriptors(typeName, new Condition<String>() {
             @Override
             public boolean value(String s) {
                 return typeName.equals(s);
@@ -21,16 +21,24 @@ import com.intellij.psi.stubs.StubIndexKey;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.psi.JetNamedFunction;
 
-public class JetExtensionFunctionNameIndex extends StringStubIndexExtension<JetNamedFunction> {
-    private static final StubIndexKey<String, JetNamedFunction> KEY = KotlinIndexUtil.createIndexKey(JetExtensionFunctionNameIndex.class);
+/**
+ * Top level extension functions by the short name of their receiver type's class. Functions which can't be classified without
+ * resolve (e.g. the ones extending a type parameter) are stored under {@link #ANY_RECEIVER}, as are extensions of Any itself.
+ *
+ * Receiver types are matched by the names written in the code, so extensions of classes imported under an alias are not found.
+ */
+public class JetExtensionFunctionReceiverIndex extends StringStubIndexExtension<JetNamedFunction> {
+    public static final String ANY_RECEIVER = "Any";
+
+    private static final StubIndexKey<String, JetNamedFunction> KEY = KotlinIndexUtil.createIndexKey(JetExtensionFunctionReceiverIndex.class);
 
-    private static final JetExtensionFunctionNameIndex instance = new JetExtensionFunctionNameIndex();
+    private static final JetExtensionFunctionReceiverIndex instance = new JetExtensionFunctionReceiverIndex();
 
-    public static JetExtensionFunctionNameIndex getInstance() {
+    public static JetExtensionFunctionReceiverIndex getInstance() {
         return instance;
     }
 
-    private JetExtensionFunctionNameIndex() {}
+    private JetExtensionFunctionReceiverIndex() {}
 
     @NotNull
     @Override
@@ -114,7 +114,9 @@ public class StubIndexServiceImpl implements StubIndexService {
                     sink.occurrence(JetShortFunctionNameIndex.getInstance().getKey(), name);
                 }
                 else {
-                    sink.occurrence(JetExtensionFunctionNameIndex.getInstance().getKey(), name);
+                    String receiverTypeShortName = stub.getReceiverTypeShortName();
+                    sink.occurrence(JetExtensionFunctionReceiverIndex.getInstance().getKey(),
+                                    receiverTypeShortName != null ? receiverTypeShortName : JetExtensionFunctionReceiverIndex.ANY_RECEIVER);
                 }
 
                 FqName topFQName = stub.getTopFQName();
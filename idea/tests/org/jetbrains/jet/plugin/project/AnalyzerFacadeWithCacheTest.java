@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.plugin.project;
+
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.EmptyProgressIndicator;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.testFramework.LightProjectDescriptor;
+import com.intellij.testFramework.fixtures.LightCodeInsightFixtureTestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jet.analyzer.AnalyzeExhaust;
+import org.jetbrains.jet.lang.psi.JetClass;
+import org.jetbrains.jet.lang.psi.JetFile;
+import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.plugin.JetLightProjectDescriptor;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+public class AnalyzerFacadeWithCacheTest extends LightCodeInsightFixtureTestCase {
+    private static final int FILE_COUNT = 40;
+    private static final int THREAD_COUNT = 8;
+
+    @NotNull
+    @Override
+    protected LightProjectDescriptor getProjectDescriptor() {
+        return JetLightProjectDescriptor.INSTANCE;
+    }
+
+    public void testManyFilesAnalyzedConcurrently() throws Exception {
+        final List<JetFile> files = new ArrayList<JetFile>();
+        for (int i = 0; i < FILE_COUNT; i++) {
+            files.add(addFile(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                final List<JetFile> order = new ArrayList<JetFile>(files);
+                Collections.shuffle(order, new Random(thread));
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        ApplicationManager.getApplication().runReadAction(new Runnable() {
+                            @Override
+                            public void run() {
+                                for (JetFile file : order) {
+                                    checkAnalyzed(file, AnalyzerFacadeWithCache.analyzeFileWithCache(file));
+                                }
+                            }
+                        });
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(5, TimeUnit.MINUTES);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testConcurrentCallersShareResult() throws Exception {
+        final JetFile file = addFile(0);
+
+        List<AnalyzeExhaust> results = analyzeConcurrently(file);
+        for (AnalyzeExhaust result : results) {
+            checkAnalyzed(file, result);
+            assertSame("Callers waiting for the same file should get the result of the first one", results.get(0), result);
+        }
+    }
+
+    public void testCancelledCallerDoesNotPoisonResult() throws Exception {
+        final JetFile file = addFile(0);
+
+        // The caller is cancelled at some point of its analysis, or after it has finished
+        final ProgressIndicator indicator = new EmptyProgressIndicator();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<AnalyzeExhaust> cancelled = executor.submit(new Callable<AnalyzeExhaust>() {
+                @Override
+                public AnalyzeExhaust call() {
+                    final AnalyzeExhaust[] result = new AnalyzeExhaust[1];
+                    ProgressManager.getInstance().runProcess(new Runnable() {
+                        @Override
+                        public void run() {
+                            result[0] = analyzeInReadAction(file);
+                        }
+                    }, indicator);
+                    return result[0];
+                }
+            });
+            indicator.cancel();
+            try {
+                checkAnalyzed(file, cancelled.get(5, TimeUnit.MINUTES));
+            }
+            catch (ExecutionException e) {
+                assertTrue("Unexpected exception: " + e.getCause(), e.getCause() instanceof ProcessCanceledException);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        List<AnalyzeExhaust> results = analyzeConcurrently(file);
+        for (AnalyzeExhaust result : results) {
+            checkAnalyzed(file, result);
+            assertSame(results.get(0), result);
+        }
+    }
+
+    @NotNull
+    private JetFile addFile(int index) {
+        String text = "package p" + index + "\n\n" +
+                      "class C" + index + " {\n" +
+                      "    fun f(x: Int): Int = x + " + index + "\n" +
+                      "}\n";
+        return (JetFile) myFixture.addFileToProject("p" + index + "/C" + index + ".kt", text);
+    }
+
+    @NotNull
+    private static List<AnalyzeExhaust> analyzeConcurrently(@NotNull final JetFile file) throws Exception {
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+        try {
+            List<Future<AnalyzeExhaust>> futures = new ArrayList<Future<AnalyzeExhaust>>();
+            for (int thread = 0; thread < THREAD_COUNT; thread++) {
+                futures.add(executor.submit(new Callable<AnalyzeExhaust>() {
+                    @Override
+                    public AnalyzeExhaust call() throws Exception {
+                        barrier.await();
+                        return analyzeInReadAction(file);
+                    }
+                }));
+            }
+
+            List<AnalyzeExhaust> results = new ArrayList<AnalyzeExhaust>();
+            for (Future<AnalyzeExhaust> future : futures) {
+                results.add(future.get(5, TimeUnit.MINUTES));
+            }
+            return results;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NotNull
+    private static AnalyzeExhaust analyzeInReadAction(@NotNull final JetFile file) {
+        final AnalyzeExhaust[] result = new AnalyzeExhaust[1];
+        ApplicationManager.getApplication().runReadAction(new Runnable() {
+            @Override
+            public void run() {
+                result[0] = AnalyzerFacadeWithCache.analyzeFileWithCache(file);
+            }
+        });
+        return result[0];
+    }
+
+    private static void checkAnalyzed(@NotNull JetFile file, @NotNull AnalyzeExhaust exhaust) {
+        assertFalse("Analysis failed for " + file.getName() + ": " + exhaust.getError(), exhaust.isError());
+
+        JetClass jetClass = (JetClass) file.getDeclarations().get(0);
+        assertNotNull("No descriptor for " + jetClass.getName(), exhaust.getBindingContext().get(BindingContext.CLASS, jetClass));
+    }
+}
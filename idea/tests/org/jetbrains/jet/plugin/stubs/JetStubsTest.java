@@ -125,7 +125,20 @@ public class JetStubsTest extends LightCodeInsightFixtureTestCase {
     public void testNotStorePropertyFromInitializer() {
         doBuildTest("fun DoubleArray.some() = for (element in this) println(element)",
                     "PsiJetFileStubImpl[package=]\n" +
-                    "  FUN:PsiJetFunctionStubImpl[top topFQName=some ext name=some]\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=some ext receiver=DoubleArray name=some]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n");
+    }
+
+    public void testExtensionReceiverTypeParameter() {
+        doBuildTest("fun <T : CharSequence> T?.some() {}\n fun <T> T.other() {}",
+                    "PsiJetFileStubImpl[package=]\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=some ext receiver=CharSequence name=some]\n" +
+                    "    TYPE_PARAMETER_LIST:PsiJetTypeParameterListStubImpl\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=T extendText=CharSequence]\n" +
+                    "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n" +
+                    "  FUN:PsiJetFunctionStubImpl[top topFQName=other ext name=other]\n" +
+                    "    TYPE_PARAMETER_LIST:PsiJetTypeParameterListStubImpl\n" +
+                    "      TYPE_PARAMETER:PsiJetTypeParameterStubImpl[name=T extendText=null]\n" +
                     "    VALUE_PARAMETER_LIST:PsiJetParameterListStubImpl\n");
     }
 
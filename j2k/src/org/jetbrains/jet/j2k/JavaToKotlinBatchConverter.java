@@ -0,0 +1,309 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.j2k;
+
+import com.intellij.core.JavaCoreApplicationEnvironment;
+import com.intellij.core.JavaCoreProjectEnvironment;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.util.Computable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiJavaFile;
+import com.intellij.psi.PsiManager;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jet.j2k.visitors.ClassVisitor;
+import org.jetbrains.jet.utils.PathUtil;
+
+import java.io.File;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Converts whole Java source trees to Kotlin.
+ *
+ * Unlike {@link JavaToKotlinTranslator}, which sets up a new environment per converted string, this converter creates
+ * a single environment for all source roots and the classpath, loads every Java file once, collects the identifiers of all
+ * classes being converted and then converts files on a pool of workers, each worker using its own {@link Converter}.
+ */
+public class JavaToKotlinBatchConverter {
+
+    private static final Disposable DISPOSABLE = new Disposable() {
+        @Override
+        public void dispose() {
+        }
+    };
+
+    public static final class FileResult {
+        @NotNull
+        private final File javaFile;
+        @Nullable
+        private final File kotlinFile;
+        private final long timeNanos;
+        @Nullable
+        private final Throwable error;
+
+        private FileResult(@NotNull File javaFile, @Nullable File kotlinFile, long timeNanos, @Nullable Throwable error) {
+            this.javaFile = javaFile;
+            this.kotlinFile = kotlinFile;
+            this.timeNanos = timeNanos;
+            this.error = error;
+        }
+
+        @NotNull
+        public File getJavaFile() {
+            return javaFile;
+        }
+
+        @Nullable
+        public File getKotlinFile() {
+            return kotlinFile;
+        }
+
+        public long getTimeNanos() {
+            return timeNanos;
+        }
+
+        @Nullable
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+    }
+
+    private static final class SourceFile {
+        @NotNull
+        private final File root;
+        @NotNull
+        private final File file;
+        @NotNull
+        private final PsiJavaFile psiFile;
+
+        private SourceFile(@NotNull File root, @NotNull File file, @NotNull PsiJavaFile psiFile) {
+            this.root = root;
+            this.file = file;
+            this.psiFile = psiFile;
+        }
+    }
+
+    @NotNull
+    private final JavaCoreApplicationEnvironment applicationEnvironment;
+    @NotNull
+    private final JavaCoreProjectEnvironment projectEnvironment;
+    @NotNull
+    private final List<File> sourceRoots;
+    @NotNull
+    private final Set<J2KConverterFlags> flags = EnumSet.noneOf(J2KConverterFlags.class);
+
+    public JavaToKotlinBatchConverter(@NotNull List<File> sourceRoots, @NotNull List<File> classpath) {
+        this.sourceRoots = sourceRoots;
+        this.applicationEnvironment = new JavaCoreApplicationEnvironment(DISPOSABLE);
+        this.projectEnvironment = new JavaCoreProjectEnvironment(DISPOSABLE, applicationEnvironment);
+
+        projectEnvironment.addJarToClassPath(PathUtil.findRtJar());
+        File annotations = JavaToKotlinTranslator.findAnnotations();
+        if (annotations != null && annotations.exists()) {
+            projectEnvironment.addJarToClassPath(annotations);
+        }
+        for (File path : classpath) {
+            addToClasspath(path);
+        }
+        for (File root : sourceRoots) {
+            addToClasspath(root);
+        }
+    }
+
+    public void addFlag(@NotNull J2KConverterFlags flag) {
+        flags.add(flag);
+    }
+
+    private void addToClasspath(@NotNull File path) {
+        if (path.isFile()) {
+            projectEnvironment.addJarToClassPath(path);
+        }
+        else {
+            VirtualFile root = applicationEnvironment.getLocalFileSystem().findFileByPath(path.getAbsolutePath());
+            if (root == null) {
+                throw new SetupJavaCoreEnvironmentException("Classpath entry points to a non-existent location: " + path);
+            }
+            projectEnvironment.addSourcesToClasspath(root);
+        }
+    }
+
+    /**
+     * Converts all Java files under the source roots, writing the results to {@code outputDir} with the same relative layout.
+     * Returns one result per Java file, in the order the files were found.
+     */
+    @NotNull
+    public List<FileResult> convert(@NotNull File outputDir, int threadCount) throws InterruptedException {
+        List<SourceFile> sourceFiles = loadSourceFiles();
+
+        // Parsing and class collection is done once on this thread: PSI trees are then only read by the workers
+        ClassVisitor classVisitor = new ClassVisitor();
+        for (SourceFile sourceFile : sourceFiles) {
+            sourceFile.psiFile.accept(classVisitor);
+        }
+        final Set<String> classIdentifiers = Collections.unmodifiableSet(classVisitor.getClassIdentifiers());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threadCount));
+        try {
+            List<Future<FileResult>> futures = new ArrayList<Future<FileResult>>(sourceFiles.size());
+            for (final SourceFile sourceFile : sourceFiles) {
+                final File kotlinFile = new File(outputDir, kotlinFileRelativePath(sourceFile));
+                futures.add(executor.submit(new Callable<FileResult>() {
+                    @Override
+                    public FileResult call() {
+                        return convertFile(sourceFile, kotlinFile, classIdentifiers);
+                    }
+                }));
+            }
+
+            List<FileResult> results = new ArrayList<FileResult>(futures.size());
+            for (Future<FileResult> future : futures) {
+                try {
+                    results.add(future.get());
+                }
+                catch (ExecutionException e) {
+                    // convertFile() catches everything it can, so this is an error in the converter itself
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+            return results;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @NotNull
+    private FileResult convertFile(@NotNull final SourceFile sourceFile, @NotNull File kotlinFile, @NotNull final Set<String> classIdentifiers) {
+        long start = System.nanoTime();
+        try {
+            // Workers read and resolve PSI concurrently, which is only allowed in read actions
+            String kotlinCode = ApplicationManager.getApplication().runReadAction(new Computable<String>() {
+                @Override
+                public String compute() {
+                    Converter converter = new Converter(projectEnvironment.getProject());
+                    for (J2KConverterFlags flag : flags) {
+                        converter.addFlag(flag);
+                    }
+                    converter.setClassIdentifiers(classIdentifiers);
+                    return converter.fileToFile(sourceFile.psiFile).toKotlin();
+                }
+            });
+            FileUtil.writeToFile(kotlinFile, kotlinCode);
+            return new FileResult(sourceFile.file, kotlinFile, System.nanoTime() - start, null);
+        }
+        catch (Throwable e) {
+            return new FileResult(sourceFile.file, null, System.nanoTime() - start, e);
+        }
+    }
+
+    @NotNull
+    private static String kotlinFileRelativePath(@NotNull SourceFile sourceFile) {
+        String relativePath = FileUtil.getRelativePath(sourceFile.root, sourceFile.file);
+        assert relativePath != null : "Source file " + sourceFile.file + " is not under its root " + sourceFile.root;
+        return relativePath.substring(0, relativePath.length() - ".java".length()) + ".kt";
+    }
+
+    @NotNull
+    private List<SourceFile> loadSourceFiles() {
+        List<SourceFile> result = new ArrayList<SourceFile>();
+        PsiManager psiManager = PsiManager.getInstance(projectEnvironment.getProject());
+        for (File root : sourceRoots) {
+            for (File file : collectJavaFiles(root, new ArrayList<File>())) {
+                VirtualFile virtualFile = applicationEnvironment.getLocalFileSystem().findFileByPath(file.getAbsolutePath());
+                if (virtualFile == null) continue;
+                PsiFile psiFile = psiManager.findFile(virtualFile);
+                if (psiFile instanceof PsiJavaFile) {
+                    result.add(new SourceFile(root.isDirectory() ? root : root.getParentFile(), file, (PsiJavaFile) psiFile));
+                }
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    private static List<File> collectJavaFiles(@NotNull File file, @NotNull List<File> result) {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    collectJavaFiles(child, result);
+                }
+            }
+        }
+        else if (file.getName().endsWith(".java")) {
+            result.add(file);
+        }
+        return result;
+    }
+
+    /**
+     * Usage: JavaToKotlinBatchConverter &lt;output dir&gt; &lt;source roots&gt; [&lt;classpath&gt; [&lt;threads&gt;]]
+     * where source roots and classpath are separated by {@link File#pathSeparator}.
+     */
+    public static void main(@NotNull String[] args) throws InterruptedException {
+        //noinspection UseOfSystemOutOrSystemErr
+        PrintStream out = System.out;
+        if (args.length < 2 || args.length > 4) {
+            out.println("Usage: JavaToKotlinBatchConverter <output dir> <source roots> [<classpath> [<threads>]]");
+            return;
+        }
+
+        File outputDir = new File(args[0]);
+        List<File> sourceRoots = splitPath(args[1]);
+        List<File> classpath = args.length > 2 ? splitPath(args[2]) : Collections.<File>emptyList();
+        int threadCount = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        long start = System.nanoTime();
+        List<FileResult> results = new JavaToKotlinBatchConverter(sourceRoots, classpath).convert(outputDir, threadCount);
+        long totalNanos = System.nanoTime() - start;
+
+        int failed = 0;
+        for (FileResult result : results) {
+            Throwable error = result.getError();
+            if (error == null) {
+                out.println(String.format("%6d ms  %s", TimeUnit.NANOSECONDS.toMillis(result.getTimeNanos()), result.getJavaFile()));
+            }
+            else {
+                failed++;
+                out.println(String.format("FAILED     %s: %s", result.getJavaFile(), error));
+            }
+        }
+        out.println(String.format("Converted %d of %d files in %d ms using %d threads",
+                                  results.size() - failed, results.size(), TimeUnit.NANOSECONDS.toMillis(totalNanos), threadCount));
+    }
+
+    @NotNull
+    private static List<File> splitPath(@NotNull String path) {
+        List<File> result = new ArrayList<File>();
+        for (String entry : path.split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                result.add(new File(entry));
+            }
+        }
+        return result;
+    }
+}
@@ -18,5 +18,6 @@ package org.jetbrains.jet.j2k;
 
 public class SetupJavaCoreEnvironmentException extends RuntimeException {
     public SetupJavaCoreEnvironmentException(String s) {
+        super(s);
     }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.jet.j2k;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class JavaToKotlinBatchConverterTest extends TestCase {
+    private static final String TEST_DATA_DIR = "j2k/tests/testData/ast";
+    private static final int FILE_COUNT = 30;
+
+    private File tmpDir;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        tmpDir = FileUtil.createTempDirectory(getClass().getSimpleName(), getName());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        FileUtil.delete(tmpDir);
+        super.tearDown();
+    }
+
+    public void testParallelConversionSameAsSequential() throws Exception {
+        File sourceRoot = new File(tmpDir, "src");
+        List<String> relativePaths = copyTestData(sourceRoot);
+        assertEquals(FILE_COUNT, relativePaths.size());
+
+        List<String> sequential = convert(sourceRoot, new File(tmpDir, "sequential"), 1, relativePaths);
+        List<String> parallel = convert(sourceRoot, new File(tmpDir, "parallel"), 4, relativePaths);
+
+        assertEquals(sequential, parallel);
+    }
+
+    // Keeps the directory of the test data category, the converted files are compared by these relative paths
+    @NotNull
+    private static List<String> copyTestData(@NotNull File sourceRoot) throws IOException {
+        List<File> testFiles = new ArrayList<File>();
+        File[] categories = new File(TEST_DATA_DIR).listFiles();
+        assertNotNull(categories);
+        for (File category : categories) {
+            File[] files = new File(category, "file").listFiles();
+            if (files == null) continue;
+            for (File file : files) {
+                if (file.getName().endsWith(".jav")) {
+                    testFiles.add(file);
+                }
+            }
+        }
+        Collections.sort(testFiles);
+
+        List<String> relativePaths = new ArrayList<String>();
+        for (File file : testFiles.subList(0, Math.min(FILE_COUNT, testFiles.size()))) {
+            String name = file.getName();
+            String relativePath = file.getParentFile().getParentFile().getName() + "/" + name.substring(0, name.length() - ".jav".length());
+            FileUtil.copy(file, new File(sourceRoot, relativePath + ".java"));
+            relativePaths.add(relativePath);
+        }
+        return relativePaths;
+    }
+
+    @NotNull
+    private static List<String> convert(
+            @NotNull File sourceRoot,
+            @NotNull File outputDir,
+            int threadCount,
+            @NotNull List<String> relativePaths
+    ) throws Exception {
+        JavaToKotlinBatchConverter converter =
+                new JavaToKotlinBatchConverter(Collections.singletonList(sourceRoot), Collections.<File>emptyList());
+        List<JavaToKotlinBatchConverter.FileResult> results = converter.convert(outputDir, threadCount);
+        assertEquals(relativePaths.size(), results.size());
+        for (JavaToKotlinBatchConverter.FileResult result : results) {
+            assertTrue("Failed to convert " + result.getJavaFile() + ": " + result.getError(), result.isSuccessful());
+        }
+
+        List<String> texts = new ArrayList<String>();
+        for (String relativePath : relativePaths) {
+            texts.add(FileUtil.loadFile(new File(outputDir, relativePath + ".kt"), true));
+        }
+        return texts;
+    }
+}
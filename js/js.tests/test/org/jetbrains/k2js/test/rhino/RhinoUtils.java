@@ -147,6 +147,31 @@ public final class RhinoUtils {
         }
     }
 
+    /**
+     * Runs the files in a scope of their own, in which {@code environmentFiles} are evaluated before the Kotlin library.
+     * This lets tests provide APIs that the library looks for when it's loaded.
+     */
+    public static void runRhinoTestInEnvironment(@NotNull List<String> fileNames,
+            @NotNull RhinoResultChecker checker,
+            @NotNull EcmaVersion ecmaVersion,
+            @NotNull List<String> environmentFiles) throws Exception {
+        Context context = createContext(ecmaVersion);
+        try {
+            ScriptableObject scope = context.initStandardObjects();
+            for (String environmentFile : environmentFiles) {
+                runFileWithRhino(environmentFile, context, scope);
+            }
+            runKotlinLibrary(ecmaVersion, context, scope);
+            for (String filename : fileNames) {
+                runFileWithRhino(filename, context, scope);
+            }
+            checker.runChecks(context, scope);
+        }
+        finally {
+            Context.exit();
+        }
+    }
+
     @NotNull
     private static ScriptableObject getScope(@NotNull EcmaVersion version, @NotNull Context context, @NotNull List<String> jsLibraries) {
         ScriptableObject scope = context.initStandardObjects(null, false);
@@ -172,9 +197,7 @@ public final class RhinoUtils {
     private static ScriptableObject initScope(@NotNull EcmaVersion version, @NotNull Context context, @NotNull List<String> jsLibraries) {
         ScriptableObject scope = context.initStandardObjects();
         try {
-            runFileWithRhino(getKotlinLibFile(version), context, scope);
-            runFileWithRhino(pathToTestFilesRoot() + "kotlin_lib.js", context, scope);
-            runFileWithRhino(pathToTestFilesRoot() + "maps.js", context, scope);
+            runKotlinLibrary(version, context, scope);
             runFileWithRhino(pathToTestFilesRoot() + "jshint.js", context, scope);
             for (String jsLibrary : jsLibraries) {
                 runFileWithRhino(jsLibrary, context, scope);
@@ -187,6 +210,13 @@ public final class RhinoUtils {
         return scope;
     }
 
+    private static void runKotlinLibrary(@NotNull EcmaVersion version, @NotNull Context context, @NotNull Scriptable scope)
+            throws Exception {
+        runFileWithRhino(getKotlinLibFile(version), context, scope);
+        runFileWithRhino(pathToTestFilesRoot() + "kotlin_lib.js", context, scope);
+        runFileWithRhino(pathToTestFilesRoot() + "maps.js", context, scope);
+    }
+
     //TODO:
     @NotNull
     private static Context createContext(@NotNull EcmaVersion ecmaVersion) {
@@ -16,7 +16,18 @@
 
 package org.jetbrains.k2js.test.semantics;
 
+import com.intellij.openapi.util.io.FileUtil;
+import org.jetbrains.k2js.config.EcmaVersion;
+import org.jetbrains.k2js.facade.MainCallParameters;
 import org.jetbrains.k2js.test.SingleFileTranslationTest;
+import org.jetbrains.k2js.test.rhino.RhinoFunctionResultChecker;
+import org.jetbrains.k2js.test.rhino.RhinoResultChecker;
+import org.jetbrains.k2js.test.rhino.RhinoUtils;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+
+import java.io.File;
+import java.util.Collections;
 
 public final class StandardClassesTest extends SingleFileTranslationTest {
 
@@ -48,6 +59,49 @@ public final class StandardClassesTest extends SingleFileTranslationTest {
         fooBoxTest();
     }
 
+    public void testPrimitiveArrays() throws Exception {
+        fooBoxTest();
+    }
+
+    public void testPrimitiveArraysOnTypedArrays() throws Exception {
+        String filename = "primitiveArrays.kt";
+        generateJavaScriptFiles(filename, MainCallParameters.noCall(), DEFAULT_ECMA_VERSIONS);
+
+        String ecma5Output = FileUtil.loadFile(new File(getOutputFilePath(filename, EcmaVersion.v5)));
+        assertTrue(ecma5Output.contains("Kotlin.intArrayOfSize("));
+        assertTrue(ecma5Output.contains("Kotlin.doubleArrayOfSize("));
+        assertTrue(ecma5Output.contains("Kotlin.numberArrayOfSize("));
+        assertFalse(FileUtil.loadFile(new File(getOutputFilePath(filename, EcmaVersion.v3))).contains("Kotlin.intArrayOfSize("));
+
+        // Rhino has no typed arrays, so they are emulated before the library is loaded
+        final RhinoFunctionResultChecker boxChecker = new RhinoFunctionResultChecker("foo", "box", true);
+        RhinoUtils.runRhinoTestInEnvironment(
+                Collections.singletonList(getOutputFilePath(filename, EcmaVersion.v5)),
+                new RhinoResultChecker() {
+                    @Override
+                    public void runChecks(Context context, Scriptable scope) throws Exception {
+                        boxChecker.runChecks(context, scope);
+                        Object created = context.evaluateString(scope, "createdTypedArrays.join()", "typed arrays", 0, null);
+                        assertEquals("Int32Array,Float64Array,Int8Array,Int16Array,Float32Array", Context.toString(created));
+
+                        // The emulated typed arrays aren't instances of Array, so Kotlin.equals only sees them as arrays through ArrayBuffer.isView
+                        assertScriptResult(context, scope, false, "Kotlin.intArrayOfSize(2) instanceof Array");
+                        assertScriptResult(context, scope, true, "Kotlin.equals(Kotlin.intArrayOfSize(3), Kotlin.intArrayOfSize(3))");
+                        assertScriptResult(context, scope, true, "Kotlin.equals(Kotlin.doubleArrayOfSize(2), [0, 0])");
+                        assertScriptResult(context, scope, false, "Kotlin.equals(Kotlin.intArrayOfSize(2), Kotlin.intArrayOfSize(3))");
+                        assertScriptResult(context, scope, false, "var a = Kotlin.intArrayOfSize(2); a[1] = 5; Kotlin.equals(a, Kotlin.intArrayOfSize(2))");
+                        assertScriptResult(context, scope, false, "Kotlin.equals(Kotlin.intArrayOfSize(1), 0)");
+                    }
+                },
+                EcmaVersion.v5,
+                Collections.singletonList(pathToTestFiles() + "typedArrays.js"));
+    }
+
+    private static void assertScriptResult(Context context, Scriptable scope, boolean expected, String script) {
+        Object result = context.evaluateString(scope, script, "typed arrays", 0, null);
+        assertEquals(script, expected, Context.toBoolean(result));
+    }
+
     //TODO: this feature in not supported for some time
     //TODO: support it. Probably configurable.
     //    (expected = JavaScriptException.class)
@@ -22,6 +22,7 @@ import com.intellij.openapi.util.io.FileUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.jet.lang.psi.JetFile;
 import org.jetbrains.jet.lang.resolve.BindingContext;
+import org.jetbrains.jet.utils.PhaseMetrics;
 import org.jetbrains.k2js.analyze.AnalyzerFacadeForJS;
 import org.jetbrains.k2js.config.Config;
 import org.jetbrains.k2js.facade.exceptions.TranslationException;
@@ -49,8 +50,15 @@ public final class K2JSTranslator {
             @NotNull String outputPath,
             @NotNull Config config) throws TranslationException, IOException {
         K2JSTranslator translator = new K2JSTranslator(config);
-        String programCode = translator.generateProgramCode(files, mainCall);
-        FileUtil.writeToFile(new File(outputPath), programCode);
+        JsProgram program = translator.generateProgram(files, mainCall);
+
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Output writing");
+        try {
+            FileUtil.writeToFile(new File(outputPath), generateProgramToString(program));
+        }
+        finally {
+            phase.finish(1);
+        }
     }
 
     @NotNull
@@ -87,8 +95,22 @@ public final class K2JSTranslator {
     public JsProgram generateProgram(@NotNull List<JetFile> filesToTranslate,
             @NotNull MainCallParameters mainCallParameters)
             throws TranslationException {
-        BindingContext bindingContext = AnalyzerFacadeForJS.analyzeFilesAndCheckErrors(filesToTranslate, config);
-        return Translation.generateAst(bindingContext, filesToTranslate, mainCallParameters, config);
+        BindingContext bindingContext;
+        PhaseMetrics.Phase phase = PhaseMetrics.startPhase("Analysis");
+        try {
+            bindingContext = AnalyzerFacadeForJS.analyzeFilesAndCheckErrors(filesToTranslate, config);
+        }
+        finally {
+            phase.finish(filesToTranslate.size());
+        }
+
+        phase = PhaseMetrics.startPhase("Translation");
+        try {
+            return Translation.generateAst(bindingContext, filesToTranslate, mainCallParameters, config);
+        }
+        finally {
+            phase.finish(filesToTranslate.size());
+        }
     }
 
     @NotNull
@@ -50,8 +50,7 @@ public final class ArrayForTranslator extends ForTranslator {
         JetType rangeType = BindingUtils.getTypeForExpression(context.bindingContext(), loopRange);
         //TODO: better check
         //TODO: IMPORTANT!
-        return getClassDescriptorForType(rangeType).getName().asString().equals("Array")
-               || getClassDescriptorForType(rangeType).getName().asString().equals("IntArray");
+        return ArrayFIF.isArrayType(getClassDescriptorForType(rangeType).getName());
     }
 
     @NotNull
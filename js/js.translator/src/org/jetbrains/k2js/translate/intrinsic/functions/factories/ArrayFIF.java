@@ -31,6 +31,7 @@ import org.jetbrains.k2js.translate.intrinsic.functions.basic.FunctionIntrinsic;
 import org.jetbrains.k2js.translate.intrinsic.functions.patterns.NamePredicate;
 import org.jetbrains.k2js.translate.utils.JsAstUtils;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.jetbrains.k2js.translate.intrinsic.functions.patterns.PatternBuilder.pattern;
@@ -40,6 +41,14 @@ public final class ArrayFIF extends CompositeFIF {
     @NotNull
     private static final NamePredicate NUMBER_ARRAY;
 
+    /**
+     * Arrays of these types are backed by JS typed arrays in ECMAScript 5 mode. Long values don't fit in typed arrays
+     * and chars are represented by strings.
+     */
+    @NotNull
+    private static final List<PrimitiveType> TYPED_ARRAY_TYPES =
+            Arrays.asList(PrimitiveType.BYTE, PrimitiveType.SHORT, PrimitiveType.INT, PrimitiveType.FLOAT, PrimitiveType.DOUBLE);
+
     @NotNull
     private static final NamePredicate CHAR_ARRAY;
 
@@ -54,7 +63,7 @@ public final class ArrayFIF extends CompositeFIF {
     static {
         List<Name> arrayTypeNames = Lists.newArrayList();
         for (PrimitiveType type : PrimitiveType.NUMBER_TYPES) {
-            if (type != PrimitiveType.CHAR) {
+            if (type != PrimitiveType.CHAR && !TYPED_ARRAY_TYPES.contains(type)) {
                 arrayTypeNames.add(type.getArrayTypeName());
             }
         }
@@ -68,6 +77,9 @@ public final class ArrayFIF extends CompositeFIF {
         BOOLEAN_ARRAY = new NamePredicate(booleanArrayName);
         ARRAY = new NamePredicate(arrayName);
 
+        for (PrimitiveType type : TYPED_ARRAY_TYPES) {
+            arrayTypeNames.add(type.getArrayTypeName());
+        }
         arrayTypeNames.add(charArrayName);
         arrayTypeNames.add(booleanArrayName);
         arrayTypeNames.add(arrayName);
@@ -107,9 +119,34 @@ public final class ArrayFIF extends CompositeFIF {
     @NotNull
     public static final BuiltInPropertyIntrinsic ARRAY_LENGTH_INTRINSIC = new BuiltInPropertyIntrinsic("length");
 
+    @NotNull
+    private static final FunctionIntrinsic NUMBER_ARRAY_OF_SIZE_INTRINSIC =
+            new CallStandardMethodIntrinsic(new JsNameRef("numberArrayOfSize", "Kotlin"), false, 1);
+
     @NotNull
     public static final FunctionIntrinsicFactory INSTANCE = new ArrayFIF();
 
+    public static boolean isArrayType(@NotNull Name name) {
+        return ARRAYS.apply(name);
+    }
+
+    @NotNull
+    private static FunctionIntrinsic typedArrayOfSizeIntrinsic(@NotNull PrimitiveType type) {
+        String typeName = type.getTypeName().asString();
+        String functionName = Character.toLowerCase(typeName.charAt(0)) + typeName.substring(1) + "ArrayOfSize";
+        final FunctionIntrinsic typedArrayOfSize = new CallStandardMethodIntrinsic(new JsNameRef(functionName, "Kotlin"), false, 1);
+        return new FunctionIntrinsic() {
+            @NotNull
+            @Override
+            public JsExpression apply(@Nullable JsExpression receiver,
+                    @NotNull List<JsExpression> arguments,
+                    @NotNull TranslationContext context) {
+                FunctionIntrinsic intrinsic = context.isEcma5() ? typedArrayOfSize : NUMBER_ARRAY_OF_SIZE_INTRINSIC;
+                return intrinsic.apply(receiver, arguments, context);
+            }
+        };
+    }
+
     private ArrayFIF() {
         add(pattern(ARRAYS, "get"), GET_INTRINSIC);
         add(pattern(ARRAYS, "set"), SET_INTRINSIC);
@@ -117,7 +154,10 @@ public final class ArrayFIF extends CompositeFIF {
         add(pattern(ARRAYS, "<get-indices>"), new CallStandardMethodIntrinsic(new JsNameRef("arrayIndices", "Kotlin"), true, 0));
         add(pattern(ARRAYS, "iterator"), new CallStandardMethodIntrinsic(new JsNameRef("arrayIterator", "Kotlin"), true, 0));
         add(pattern(ARRAY, "<init>"), new CallStandardMethodIntrinsic(new JsNameRef("arrayFromFun", "Kotlin"), false, 2));
-        add(pattern(NUMBER_ARRAY, "<init>"), new CallStandardMethodIntrinsic(new JsNameRef("numberArrayOfSize", "Kotlin"), false, 1));
+        add(pattern(NUMBER_ARRAY, "<init>"), NUMBER_ARRAY_OF_SIZE_INTRINSIC);
+        for (PrimitiveType type : TYPED_ARRAY_TYPES) {
+            add(pattern(new NamePredicate(type.getArrayTypeName()), "<init>"), typedArrayOfSizeIntrinsic(type));
+        }
         add(pattern(CHAR_ARRAY, "<init>"), new CallStandardMethodIntrinsic(new JsNameRef("charArrayOfSize", "Kotlin"), false, 1));
         add(pattern(BOOLEAN_ARRAY, "<init>"), new CallStandardMethodIntrinsic(new JsNameRef("booleanArrayOfSize", "Kotlin"), false, 1));
     }
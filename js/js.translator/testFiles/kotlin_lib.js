@@ -35,13 +35,18 @@ var kotlin = {set:function (receiver, key, value) {
 }};
 
 (function () {
+    // typed arrays back primitive arrays in ECMAScript 5 mode
+    function isArrayLike(obj) {
+        return obj instanceof Array || (typeof ArrayBuffer !== "undefined" && ArrayBuffer.isView !== undefined && ArrayBuffer.isView(obj));
+    }
+
     Kotlin.equals = function (obj1, obj2) {
         if (obj1 === null || obj1 === undefined) {
             return obj2 === null;
         }
 
-        if (obj1 instanceof Array) {
-            if (!(obj2 instanceof Array) || obj1.length != obj2.length) {
+        if (isArrayLike(obj1)) {
+            if (!isArrayLike(obj2) || obj1.length != obj2.length) {
                 return false;
             }
             for (var i = 0; i < obj1.length; i++) {
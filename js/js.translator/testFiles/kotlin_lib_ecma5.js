@@ -202,4 +202,22 @@ var Kotlin = Object.create(null);
         Object.freeze(module);
         Object.defineProperty(Kotlin.modules, id, {value: module});
     };
+
+    // Primitive arrays are backed by typed arrays where the engine supports them (Rhino doesn't), plain arrays otherwise
+    function typedArrayOfSize(TypedArray) {
+        if (TypedArray === null) {
+            return function (size) {
+                return Kotlin.numberArrayOfSize(size);
+            };
+        }
+        return function (size) {
+            return new TypedArray(size);
+        };
+    }
+
+    Kotlin.byteArrayOfSize = typedArrayOfSize(typeof Int8Array !== "undefined" ? Int8Array : null);
+    Kotlin.shortArrayOfSize = typedArrayOfSize(typeof Int16Array !== "undefined" ? Int16Array : null);
+    Kotlin.intArrayOfSize = typedArrayOfSize(typeof Int32Array !== "undefined" ? Int32Array : null);
+    Kotlin.floatArrayOfSize = typedArrayOfSize(typeof Float32Array !== "undefined" ? Float32Array : null);
+    Kotlin.doubleArrayOfSize = typedArrayOfSize(typeof Float64Array !== "undefined" ? Float64Array : null);
 })();
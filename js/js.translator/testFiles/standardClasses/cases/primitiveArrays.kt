@@ -0,0 +1,42 @@
+package foo
+
+fun sum(a: IntArray): Int {
+    var result = 0
+    for (x in a) {
+        result += x
+    }
+    return result
+}
+
+fun sum(a: DoubleArray): Double {
+    var result = 0.0
+    for (x in a) {
+        result += x
+    }
+    return result
+}
+
+fun box(): Boolean {
+    val ints = IntArray(4)
+    for (i in ints.indices) {
+        ints[i] = i * 2
+    }
+    if (ints.size != 4 || sum(ints) != 12) return false
+
+    val doubles = DoubleArray(3)
+    doubles[1] = 1.5
+    if (doubles.size != 3 || doubles[0] != 0.0 || sum(doubles) != 1.5) return false
+
+    val bytes = ByteArray(2)
+    val shorts = ShortArray(2)
+    val floats = FloatArray(2)
+    val longs = LongArray(2)
+    if (bytes.size != 2 || shorts.size != 2 || floats.size != 2 || longs.size != 2) return false
+    if (bytes[1] != 0.toByte() || shorts[1] != 0.toShort() || longs[1] != 0.toLong()) return false
+
+    var count = 0
+    for (s in shorts) {
+        count++
+    }
+    return count == 2
+}
@@ -0,0 +1,30 @@
+// Emulates the typed array constructors the library looks for, and ArrayBuffer.isView.
+// Like real typed arrays, the emulated ones aren't instances of Array: they are objects with a length and zero-filled elements.
+// The names of the emulated types are recorded in the order the arrays are created.
+var createdTypedArrays = [];
+
+function EmulatedTypedArray(size) {
+    this.length = size;
+    for (var i = 0; i < size; i++) {
+        this[i] = 0;
+    }
+}
+
+function emulateTypedArray(name) {
+    return function (size) {
+        createdTypedArrays.push(name);
+        return new EmulatedTypedArray(size);
+    };
+}
+
+var Int8Array = emulateTypedArray("Int8Array");
+var Int16Array = emulateTypedArray("Int16Array");
+var Int32Array = emulateTypedArray("Int32Array");
+var Float32Array = emulateTypedArray("Float32Array");
+var Float64Array = emulateTypedArray("Float64Array");
+
+var ArrayBuffer = {
+    isView: function (obj) {
+        return obj instanceof EmulatedTypedArray;
+    }
+};
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot of everything a Kotlin compilation depends on: the contents of the Kotlin and Java source files, fingerprints of
+ * the classpath entries and the compiler arguments. Snapshots are persisted between builds to decide whether compilation can be skipped
+ * or restricted to the changed part of the sources.
+ */
+public class KotlinBuildState {
+    private static final String SOURCE_PREFIX = "source.";
+    private static final String PACKAGE_PREFIX = "package.";
+    private static final String JAVA_SOURCE_PREFIX = "java.";
+    private static final String CLASSPATH_PREFIX = "classpath.";
+    private static final String ARGUMENTS_KEY = "arguments";
+
+    private static final Pattern PACKAGE_DIRECTIVE = Pattern.compile("^\\s*package\\s+([\\w.`]+)", Pattern.MULTILINE);
+
+    // source file path -> hash of the file contents
+    private final Map<String, String> sourceHashes = new TreeMap<String, String>();
+    // source file path -> package declared in the file
+    private final Map<String, String> sourcePackages = new TreeMap<String, String>();
+    // Java source file path -> hash of the file contents. Kotlin sources are compiled against the Java sources in the same roots
+    private final Map<String, String> javaSourceHashes = new TreeMap<String, String>();
+    // classpath entry path -> fingerprint
+    private final Map<String, String> classpathFingerprints = new LinkedHashMap<String, String>();
+    @NotNull
+    private String argumentsFingerprint = "";
+
+    private KotlinBuildState() {
+    }
+
+    @NotNull
+    public static KotlinBuildState compute(
+            @NotNull Collection<String> sourceRoots,
+            @NotNull Collection<String> classpath,
+            @NotNull String argumentsFingerprint
+    ) throws IOException {
+        KotlinBuildState state = new KotlinBuildState();
+        for (String root : sourceRoots) {
+            state.addSources(new File(root));
+        }
+        for (String entry : classpath) {
+            state.classpathFingerprints.put(entry, fingerprint(new File(entry)));
+        }
+        state.argumentsFingerprint = argumentsFingerprint;
+        return state;
+    }
+
+    @Nullable
+    public static KotlinBuildState load(@NotNull File stateFile) {
+        if (!stateFile.isFile()) return null;
+
+        Properties properties = new Properties();
+        try {
+            InputStream in = new FileInputStream(stateFile);
+            try {
+                properties.load(in);
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException e) {
+            // A corrupted state only means that we have to rebuild
+            return null;
+        }
+
+        KotlinBuildState state = new KotlinBuildState();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key);
+            if (key.startsWith(SOURCE_PREFIX)) {
+                state.sourceHashes.put(key.substring(SOURCE_PREFIX.length()), value);
+            }
+            else if (key.startsWith(PACKAGE_PREFIX)) {
+                state.sourcePackages.put(key.substring(PACKAGE_PREFIX.length()), value);
+            }
+            else if (key.startsWith(JAVA_SOURCE_PREFIX)) {
+                state.javaSourceHashes.put(key.substring(JAVA_SOURCE_PREFIX.length()), value);
+            }
+            else if (key.startsWith(CLASSPATH_PREFIX)) {
+                state.classpathFingerprints.put(key.substring(CLASSPATH_PREFIX.length()), value);
+            }
+            else if (key.equals(ARGUMENTS_KEY)) {
+                state.argumentsFingerprint = value;
+            }
+        }
+        return state;
+    }
+
+    public void save(@NotNull File stateFile) throws IOException {
+        Properties properties = new Properties();
+        for (Map.Entry<String, String> entry : sourceHashes.entrySet()) {
+            properties.setProperty(SOURCE_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : sourcePackages.entrySet()) {
+            properties.setProperty(PACKAGE_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : javaSourceHashes.entrySet()) {
+            properties.setProperty(JAVA_SOURCE_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, String> entry : classpathFingerprints.entrySet()) {
+            properties.setProperty(CLASSPATH_PREFIX + entry.getKey(), entry.getValue());
+        }
+        properties.setProperty(ARGUMENTS_KEY, argumentsFingerprint);
+
+        File parent = stateFile.getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Could not create directory " + parent);
+        }
+        OutputStream out = new FileOutputStream(stateFile);
+        try {
+            properties.store(out, "Kotlin build state");
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    @NotNull
+    public Set<String> getSourceFiles() {
+        return Collections.unmodifiableSet(sourceHashes.keySet());
+    }
+
+    public boolean isUpToDate(@NotNull KotlinBuildState previous) {
+        return sameEnvironment(previous) && sourceHashes.equals(previous.sourceHashes);
+    }
+
+    /**
+     * Returns the source files that have to be recompiled if only they are passed to the compiler, or {@code null} if
+     * the whole module has to be rebuilt (the classpath, the arguments or the Java sources changed, or some source files were
+     * removed).
+     *
+     * Top-level declarations of a package are compiled into a single class, so all files of a package containing a changed
+     * file are recompiled together.
+     */
+    @Nullable
+    public Collection<String> getFilesToRecompile(@NotNull KotlinBuildState previous) {
+        if (!sameEnvironment(previous)) return null;
+        if (!sourceHashes.keySet().containsAll(previous.sourceHashes.keySet())) return null;
+
+        Set<String> changedPackages = new HashSet<String>();
+        for (Map.Entry<String, String> entry : sourceHashes.entrySet()) {
+            String path = entry.getKey();
+            if (!entry.getValue().equals(previous.sourceHashes.get(path))) {
+                changedPackages.add(sourcePackages.get(path));
+                String previousPackage = previous.sourcePackages.get(path);
+                if (previousPackage != null) {
+                    changedPackages.add(previousPackage);
+                }
+            }
+        }
+
+        List<String> result = new ArrayList<String>();
+        for (Map.Entry<String, String> entry : sourcePackages.entrySet()) {
+            if (changedPackages.contains(entry.getValue())) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    private boolean sameEnvironment(@NotNull KotlinBuildState previous) {
+        return argumentsFingerprint.equals(previous.argumentsFingerprint) &&
+               classpathFingerprints.equals(previous.classpathFingerprints) &&
+               javaSourceHashes.equals(previous.javaSourceHashes);
+    }
+
+    private void addSources(@NotNull File file) throws IOException {
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                for (File child : children) {
+                    addSources(child);
+                }
+            }
+        }
+        else if (file.isFile() && isKotlinFile(file)) {
+            byte[] content = readFile(file);
+            String path = file.getPath();
+            sourceHashes.put(path, toHex(md5().digest(content)));
+            Matcher matcher = PACKAGE_DIRECTIVE.matcher(new String(content, "UTF-8"));
+            sourcePackages.put(path, matcher.find() ? matcher.group(1) : "");
+        }
+        else if (file.isFile() && file.getName().endsWith(".java")) {
+            javaSourceHashes.put(file.getPath(), toHex(md5().digest(readFile(file))));
+        }
+    }
+
+    private static boolean isKotlinFile(@NotNull File file) {
+        String name = file.getName();
+        return name.endsWith(".kt") || name.endsWith(".kts") || name.endsWith(".jet");
+    }
+
+    /**
+     * Jars are fingerprinted by size and modification time, directories (e.g. output of other modules in the reactor)
+     * by the sizes and modification times of all files inside them.
+     */
+    @NotNull
+    private static String fingerprint(@NotNull File entry) {
+        if (entry.isFile()) {
+            return entry.length() + ":" + entry.lastModified();
+        }
+        if (entry.isDirectory()) {
+            MessageDigest digest = md5();
+            updateDirectoryDigest(digest, entry, "");
+            return toHex(digest.digest());
+        }
+        return "missing";
+    }
+
+    private static void updateDirectoryDigest(@NotNull MessageDigest digest, @NotNull File dir, @NotNull String relativePath) {
+        File[] children = dir.listFiles();
+        if (children == null) return;
+        Arrays.sort(children);
+        for (File child : children) {
+            String childPath = relativePath + "/" + child.getName();
+            if (child.isDirectory()) {
+                updateDirectoryDigest(digest, child, childPath);
+            }
+            else {
+                digest.update((childPath + ":" + child.length() + ":" + child.lastModified() + "\n").getBytes());
+            }
+        }
+    }
+
+    @NotNull
+    private static byte[] readFile(@NotNull File file) throws IOException {
+        byte[] result = new byte[(int) file.length()];
+        DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(result);
+        }
+        finally {
+            in.close();
+        }
+        return result;
+    }
+
+    @NotNull
+    public static String hash(@NotNull String text) {
+        try {
+            return toHex(md5().digest(text.getBytes("UTF-8")));
+        }
+        catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private static String toHex(@NotNull byte[] bytes) {
+        StringBuilder sb = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
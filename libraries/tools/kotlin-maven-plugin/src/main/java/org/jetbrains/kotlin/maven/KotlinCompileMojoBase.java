@@ -25,6 +25,7 @@ import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jet.cli.common.CLICompiler;
 import org.jetbrains.jet.cli.common.CompilerArguments;
 import org.jetbrains.jet.cli.common.CompilerVersion;
@@ -40,11 +41,7 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.URL;
 import java.net.URLClassLoader;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Enumeration;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -150,6 +147,25 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
      */
     public String testModule;
 
+    /**
+     * Skip compilation if neither the sources nor the classpath and compiler arguments changed since the last build.
+     * Java files in the source roots count as sources: Kotlin code is compiled against them.
+     *
+     * @parameter default-value="true"
+     */
+    public boolean upToDateCheck;
+
+    /**
+     * Experimental: when only some sources changed since the last build, compile only the packages containing changed files
+     * against the previous output. Files in other packages depending on the changed declarations are not recompiled, and
+     * class files of declarations removed from the sources are not deleted from the output, so changes to signatures and
+     * removed declarations may require a clean build. Any change to the Java sources, the classpath or the compiler
+     * arguments, and any removed source file, makes all sources compile.
+     *
+     * @parameter default-value="false"
+     */
+    public boolean incremental;
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         getLog().info("Kotlin Compiler version " + CompilerVersion.VERSION);
@@ -176,6 +192,20 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
         configureCompilerArguments(arguments);
 
         final CLICompiler compiler = createCompiler();
+
+        File buildStateFile = null;
+        KotlinBuildState buildState = null;
+        if ((upToDateCheck || incremental) && arguments instanceof K2JVMCompilerArguments) {
+            K2JVMCompilerArguments jvmArguments = (K2JVMCompilerArguments) arguments;
+            if (jvmArguments.module == null && jvmArguments.getSourceDirs() != null && jvmArguments.outputDir != null) {
+                buildStateFile = getBuildStateFile(jvmArguments);
+                buildState = computeBuildState(jvmArguments);
+                if (buildState != null && !restrictToChangedSources(jvmArguments, buildState, KotlinBuildState.load(buildStateFile))) {
+                    return;
+                }
+            }
+        }
+
         printCompilerArgumentsIfDebugEnabled(arguments, compiler);
 
         final Log log = getLog();
@@ -201,6 +231,10 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
 
         final ExitCode exitCode = compiler.exec(messageCollector, arguments);
 
+        if (buildStateFile != null) {
+            saveBuildState(buildStateFile, exitCode == ExitCode.OK ? buildState : null);
+        }
+
         switch (exitCode) {
             case COMPILATION_ERROR:
                 throw new MojoExecutionException("Compilation error. See log for more details");
@@ -210,6 +244,104 @@ public abstract class KotlinCompileMojoBase extends AbstractMojo {
         }
     }
 
+    @NotNull
+    private File getBuildStateFile(@NotNull K2JVMCompilerArguments arguments) {
+        String outputName = new File(arguments.outputDir).getName();
+        return new File(project.getBuild().getDirectory(), "kotlin-build-state-" + outputName + ".properties");
+    }
+
+    @Nullable
+    private KotlinBuildState computeBuildState(@NotNull K2JVMCompilerArguments arguments) {
+        List<String> sourceDirs = arguments.getSourceDirs();
+
+        List<String> classpathEntries = new ArrayList<String>();
+        if (arguments.classpath != null) {
+            for (String entry : arguments.classpath.split(File.pathSeparator)) {
+                if (!entry.isEmpty() && !sourceDirs.contains(entry)) {
+                    classpathEntries.add(entry);
+                }
+            }
+        }
+
+        try {
+            return KotlinBuildState.compute(sourceDirs, classpathEntries, getArgumentsFingerprint(arguments));
+        }
+        catch (IOException e) {
+            getLog().warn("Could not compute Kotlin build state, compiling all sources: " + e, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns false if compilation can be skipped altogether. Otherwise, in incremental mode, restricts the sources to be
+     * compiled to the changed ones when possible.
+     */
+    private boolean restrictToChangedSources(
+            @NotNull K2JVMCompilerArguments arguments,
+            @NotNull KotlinBuildState current,
+            @Nullable KotlinBuildState previous
+    ) {
+        Log log = getLog();
+        if (previous == null || !new File(arguments.outputDir).isDirectory()) {
+            log.debug("No previous Kotlin build state found, compiling all sources");
+            return true;
+        }
+
+        if (current.isUpToDate(previous)) {
+            log.info("Kotlin sources are up-to-date, skipping compilation of " + current.getSourceFiles().size() + " files");
+            return false;
+        }
+
+        if (!incremental) return true;
+
+        Collection<String> filesToRecompile = current.getFilesToRecompile(previous);
+        if (filesToRecompile == null) {
+            log.info("Classpath, compiler arguments, Java sources or the set of source files changed, compiling all sources");
+            return true;
+        }
+
+        log.info("Compiling " + filesToRecompile.size() + " of " + current.getSourceFiles().size() +
+                 " Kotlin source files (" + (current.getSourceFiles().size() - filesToRecompile.size()) + " up-to-date)");
+        arguments.setSourceDirs(new ArrayList<String>(filesToRecompile));
+        arguments.setClasspath(arguments.classpath == null
+                               ? arguments.outputDir
+                               : arguments.outputDir + File.pathSeparator + arguments.classpath);
+        return true;
+    }
+
+    private void saveBuildState(@NotNull File buildStateFile, @Nullable KotlinBuildState buildState) {
+        try {
+            if (buildState != null) {
+                buildState.save(buildStateFile);
+            }
+            else if (buildStateFile.exists() && !buildStateFile.delete()) {
+                getLog().warn("Could not delete Kotlin build state " + buildStateFile);
+            }
+        }
+        catch (IOException e) {
+            getLog().warn("Could not save Kotlin build state to " + buildStateFile + ": " + e, e);
+        }
+    }
+
+    @NotNull
+    private static String getArgumentsFingerprint(@NotNull K2JVMCompilerArguments arguments) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("sourceDirs=").append(arguments.getSourceDirs()).append('\n');
+        try {
+            for (Field f : arguments.getClass().getFields()) {
+                Object value = f.get(arguments);
+                sb.append(f.getName()).append('=')
+                        .append(value instanceof Object[] ? Arrays.deepToString((Object[]) value) : String.valueOf(value))
+                        .append('\n');
+            }
+        }
+        catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+        sb.append("version=").append(CompilerVersion.VERSION);
+        return KotlinBuildState.hash(sb.toString());
+    }
+
     private void printCompilerArgumentsIfDebugEnabled(CompilerArguments arguments, CLICompiler compiler) {
         if (getLog().isDebugEnabled()) {
             getLog().debug("Invoking compiler " + compiler + " with arguments:");
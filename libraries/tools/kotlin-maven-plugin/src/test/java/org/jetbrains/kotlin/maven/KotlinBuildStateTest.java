@@ -0,0 +1,136 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.jetbrains.kotlin.maven;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.*;
+
+public class KotlinBuildStateTest {
+    private File dir;
+    private File sources;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = File.createTempFile("kotlinBuildState", "");
+        assertTrue(dir.delete());
+        sources = new File(dir, "src");
+        assertTrue(sources.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        delete(dir);
+    }
+
+    @Test
+    public void upToDateAfterSaveAndLoad() throws IOException {
+        write("a.kt", "package a\nfun a() {}");
+        write("b.kt", "package b\nfun b() {}");
+
+        KotlinBuildState state = compute("args");
+        File stateFile = new File(dir, "state.properties");
+        state.save(stateFile);
+
+        KotlinBuildState loaded = KotlinBuildState.load(stateFile);
+        assertNotNull(loaded);
+        assertTrue(compute("args").isUpToDate(loaded));
+        assertFalse(compute("other args").isUpToDate(loaded));
+    }
+
+    @Test
+    public void changedPackageIsRecompiled() throws IOException {
+        write("a1.kt", "package a\nfun a1() {}");
+        write("a2.kt", "package a\nfun a2() {}");
+        write("b.kt", "package b\nfun b() {}");
+        KotlinBuildState previous = compute("args");
+
+        write("a1.kt", "package a\nfun a1() = 1");
+        KotlinBuildState current = compute("args");
+
+        assertFalse(current.isUpToDate(previous));
+        Collection<String> files = current.getFilesToRecompile(previous);
+        assertNotNull(files);
+        assertEquals(new HashSet<String>(Arrays.asList(path("a1.kt"), path("a2.kt"))), new HashSet<String>(files));
+    }
+
+    @Test
+    public void removedFileRequiresFullRebuild() throws IOException {
+        write("a.kt", "package a\nfun a() {}");
+        write("b.kt", "package b\nfun b() {}");
+        KotlinBuildState previous = compute("args");
+
+        assertTrue(new File(sources, "b.kt").delete());
+        assertNull(compute("args").getFilesToRecompile(previous));
+    }
+
+    @Test
+    public void changedJavaSourceRequiresFullRebuild() throws IOException {
+        write("a.kt", "package a\nfun a() = J().j()");
+        write("J.java", "public class J { public int j() { return 1; } }");
+        KotlinBuildState state = compute("args");
+        File stateFile = new File(dir, "state.properties");
+        state.save(stateFile);
+        KotlinBuildState previous = KotlinBuildState.load(stateFile);
+        assertNotNull(previous);
+        assertTrue(compute("args").isUpToDate(previous));
+
+        write("J.java", "public class J { public String j() { return \"\"; } }");
+        KotlinBuildState current = compute("args");
+        assertFalse(current.isUpToDate(previous));
+        assertNull(current.getFilesToRecompile(previous));
+    }
+
+    private KotlinBuildState compute(String arguments) throws IOException {
+        return KotlinBuildState.compute(Collections.singletonList(sources.getPath()), Collections.<String>emptyList(), arguments);
+    }
+
+    private String path(String name) {
+        return new File(sources, name).getPath();
+    }
+
+    private void write(String name, String text) throws IOException {
+        FileWriter writer = new FileWriter(new File(sources, name));
+        try {
+            writer.write(text);
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        //noinspection ResultOfMethodCallIgnored
+        file.delete();
+    }
+}
@@ -0,0 +1,501 @@
+/*
+ * Copyright 2010-2013 JetBrains s.r.o.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package jet.runtime;
+
+import jet.Function0;
+import jet.Function1;
+import jet.Function2;
+
+/* This file is generated by org.jetbrains.jet.generators.runtime.GeneratePrimitiveFunctions. DO NOT MODIFY MANUALLY */
+@SuppressWarnings("unchecked")
+public final class PrimitiveFunctions {
+    private PrimitiveFunctions() {
+    }
+
+    public interface ToInt {
+        int invoke();
+    }
+
+    public static int invokeToInt(Function0 f) {
+        if (f instanceof ToInt) {
+            return ((ToInt) f).invoke();
+        }
+        return ((Integer) f.invoke()).intValue();
+    }
+
+    public interface ToLong {
+        long invoke();
+    }
+
+    public static long invokeToLong(Function0 f) {
+        if (f instanceof ToLong) {
+            return ((ToLong) f).invoke();
+        }
+        return ((Long) f.invoke()).longValue();
+    }
+
+    public interface ToDouble {
+        double invoke();
+    }
+
+    public static double invokeToDouble(Function0 f) {
+        if (f instanceof ToDouble) {
+            return ((ToDouble) f).invoke();
+        }
+        return ((Double) f.invoke()).doubleValue();
+    }
+
+    public interface ToBoolean {
+        boolean invoke();
+    }
+
+    public static boolean invokeToBoolean(Function0 f) {
+        if (f instanceof ToBoolean) {
+            return ((ToBoolean) f).invoke();
+        }
+        return ((Boolean) f.invoke()).booleanValue();
+    }
+
+    public interface IntToInt {
+        int invoke(int p1);
+    }
+
+    public static int invokeIntToInt(Function1 f, int p1) {
+        if (f instanceof IntToInt) {
+            return ((IntToInt) f).invoke(p1);
+        }
+        return ((Integer) f.invoke(p1)).intValue();
+    }
+
+    public interface IntToLong {
+        long invoke(int p1);
+    }
+
+    public static long invokeIntToLong(Function1 f, int p1) {
+        if (f instanceof IntToLong) {
+            return ((IntToLong) f).invoke(p1);
+        }
+        return ((Long) f.invoke(p1)).longValue();
+    }
+
+    public interface IntToDouble {
+        double invoke(int p1);
+    }
+
+    public static double invokeIntToDouble(Function1 f, int p1) {
+        if (f instanceof IntToDouble) {
+            return ((IntToDouble) f).invoke(p1);
+        }
+        return ((Double) f.invoke(p1)).doubleValue();
+    }
+
+    public interface IntToBoolean {
+        boolean invoke(int p1);
+    }
+
+    public static boolean invokeIntToBoolean(Function1 f, int p1) {
+        if (f instanceof IntToBoolean) {
+            return ((IntToBoolean) f).invoke(p1);
+        }
+        return ((Boolean) f.invoke(p1)).booleanValue();
+    }
+
+    public interface IntToObject {
+        Object invoke(int p1);
+    }
+
+    public static Object invokeIntToObject(Function1 f, int p1) {
+        if (f instanceof IntToObject) {
+            return ((IntToObject) f).invoke(p1);
+        }
+        return f.invoke(p1);
+    }
+
+    public interface LongToInt {
+        int invoke(long p1);
+    }
+
+    public static int invokeLongToInt(Function1 f, long p1) {
+        if (f instanceof LongToInt) {
+            return ((LongToInt) f).invoke(p1);
+        }
+        return ((Integer) f.invoke(p1)).intValue();
+    }
+
+    public interface LongToLong {
+        long invoke(long p1);
+    }
+
+    public static long invokeLongToLong(Function1 f, long p1) {
+        if (f instanceof LongToLong) {
+            return ((LongToLong) f).invoke(p1);
+        }
+        return ((Long) f.invoke(p1)).longValue();
+    }
+
+    public interface LongToDouble {
+        double invoke(long p1);
+    }
+
+    public static double invokeLongToDouble(Function1 f, long p1) {
+        if (f instanceof LongToDouble) {
+            return ((LongToDouble) f).invoke(p1);
+        }
+        return ((Double) f.invoke(p1)).doubleValue();
+    }
+
+    public interface LongToBoolean {
+        boolean invoke(long p1);
+    }
+
+    public static boolean invokeLongToBoolean(Function1 f, long p1) {
+        if (f instanceof LongToBoolean) {
+            return ((LongToBoolean) f).invoke(p1);
+        }
+        return ((Boolean) f.invoke(p1)).booleanValue();
+    }
+
+    public interface LongToObject {
+        Object invoke(long p1);
+    }
+
+    public static Object invokeLongToObject(Function1 f, long p1) {
+        if (f instanceof LongToObject) {
+            return ((LongToObject) f).invoke(p1);
+        }
+        return f.invoke(p1);
+    }
+
+    public interface DoubleToInt {
+        int invoke(double p1);
+    }
+
+    public static int invokeDoubleToInt(Function1 f, double p1) {
+        if (f instanceof DoubleToInt) {
+            return ((DoubleToInt) f).invoke(p1);
+        }
+        return ((Integer) f.invoke(p1)).intValue();
+    }
+
+    public interface DoubleToLong {
+        long invoke(double p1);
+    }
+
+    public static long invokeDoubleToLong(Function1 f, double p1) {
+        if (f instanceof DoubleToLong) {
+            return ((DoubleToLong) f).invoke(p1);
+        }
+        return ((Long) f.invoke(p1)).longValue();
+    }
+
+    public interface DoubleToDouble {
+        double invoke(double p1);
+    }
+
+    public static double invokeDoubleToDouble(Function1 f, double p1) {
+        if (f instanceof DoubleToDouble) {
+            return ((DoubleToDouble) f).invoke(p1);
+        }
+        return ((Double) f.invoke(p1)).doubleValue();
+    }
+
+    public interface DoubleToBoolean {
+        boolean invoke(double p1);
+    }
+
+    public static boolean invokeDoubleToBoolean(Function1 f, double p1) {
+        if (f instanceof DoubleToBoolean) {
+            return ((DoubleToBoolean) f).invoke(p1);
+        }
+        return ((Boolean) f.invoke(p1)).booleanValue();
+    }
+
+    public interface DoubleToObject {
+        Object invoke(double p1);
+    }
+
+    public static Object invokeDoubleToObject(Function1 f, double p1) {
+        if (f instanceof DoubleToObject) {
+            return ((DoubleToObject) f).invoke(p1);
+        }
+        return f.invoke(p1);
+    }
+
+    public interface BooleanToInt {
+        int invoke(boolean p1);
+    }
+
+    public static int invokeBooleanToInt(Function1 f, boolean p1) {
+        if (f instanceof BooleanToInt) {
+            return ((BooleanToInt) f).invoke(p1);
+        }
+        return ((Integer) f.invoke(p1)).intValue();
+    }
+
+    public interface BooleanToLong {
+        long invoke(boolean p1);
+    }
+
+    public static long invokeBooleanToLong(Function1 f, boolean p1) {
+        if (f instanceof BooleanToLong) {
+            return ((BooleanToLong) f).invoke(p1);
+        }
+        return ((Long) f.invoke(p1)).longValue();
+    }
+
+    public interface BooleanToDouble {
+        double invoke(boolean p1);
+    }
+
+    public static double invokeBooleanToDouble(Function1 f, boolean p1) {
+        if (f instanceof BooleanToDouble) {
+            return ((BooleanToDouble) f).invoke(p1);
+        }
+        return ((Double) f.invoke(p1)).doubleValue();
+    }
+
+    public interface BooleanToBoolean {
+        boolean invoke(boolean p1);
+    }
+
+    public static boolean invokeBooleanToBoolean(Function1 f, boolean p1) {
+        if (f instanceof BooleanToBoolean) {
+            return ((BooleanToBoolean) f).invoke(p1);
+        }
+        return ((Boolean) f.invoke(p1)).booleanValue();
+    }
+
+    public interface BooleanToObject {
+        Object invoke(boolean p1);
+    }
+
+    public static Object invokeBooleanToObject(Function1 f, boolean p1) {
+        if (f instanceof BooleanToObject) {
+            return ((BooleanToObject) f).invoke(p1);
+        }
+        return f.invoke(p1);
+    }
+
+    public interface ObjectToInt {
+        int invoke(Object p1);
+    }
+
+    public static int invokeObjectToInt(Function1 f, Object p1) {
+        if (f instanceof ObjectToInt) {
+            return ((ObjectToInt) f).invoke(p1);
+        }
+        return ((Integer) f.invoke(p1)).intValue();
+    }
+
+    public interface ObjectToLong {
+        long invoke(Object p1);
+    }
+
+    public static long invokeObjectToLong(Function1 f, Object p1) {
+        if (f instanceof ObjectToLong) {
+            return ((ObjectToLong) f).invoke(p1);
+        }
+        return ((Long) f.invoke(p1)).longValue();
+    }
+
+    public interface ObjectToDouble {
+        double invoke(Object p1);
+    }
+
+    public static double invokeObjectToDouble(Function1 f, Object p1) {
+        if (f instanceof ObjectToDouble) {
+            return ((ObjectToDouble) f).invoke(p1);
+        }
+        return ((Double) f.invoke(p1)).doubleValue();
+    }
+
+    public interface ObjectToBoolean {
+        boolean invoke(Object p1);
+    }
+
+    public static boolean invokeObjectToBoolean(Function1 f, Object p1) {
+        if (f instanceof ObjectToBoolean) {
+            return ((ObjectToBoolean) f).invoke(p1);
+        }
+        return ((Boolean) f.invoke(p1)).booleanValue();
+    }
+
+    public interface IntIntToInt {
+        int invoke(int p1, int p2);
+    }
+
+    public static int invokeIntIntToInt(Function2 f, int p1, int p2) {
+        if (f instanceof IntIntToInt) {
+            return ((IntIntToInt) f).invoke(p1, p2);
+        }
+        return ((Integer) f.invoke(p1, p2)).intValue();
+    }
+
+    public interface IntIntToLong {
+        long invoke(int p1, int p2);
+    }
+
+    public static long invokeIntIntToLong(Function2 f, int p1, int p2) {
+        if (f instanceof IntIntToLong) {
+            return ((IntIntToLong) f).invoke(p1, p2);
+        }
+        return ((Long) f.invoke(p1, p2)).longValue();
+    }
+
+    public interface IntIntToDouble {
+        double invoke(int p1, int p2);
+    }
+
+    public static double invokeIntIntToDouble(Function2 f, int p1, int p2) {
+        if (f instanceof IntIntToDouble) {
+            return ((IntIntToDouble) f).invoke(p1, p2);
+        }
+        return ((Double) f.invoke(p1, p2)).doubleValue();
+    }
+
+    public interface IntIntToBoolean {
+        boolean invoke(int p1, int p2);
+    }
+
+    public static boolean invokeIntIntToBoolean(Function2 f, int p1, int p2) {
+        if (f instanceof IntIntToBoolean) {
+            return ((IntIntToBoolean) f).invoke(p1, p2);
+        }
+        return ((Boolean) f.invoke(p1, p2)).booleanValue();
+    }
+
+    public interface IntIntToObject {
+        Object invoke(int p1, int p2);
+    }
+
+    public static Object invokeIntIntToObject(Function2 f, int p1, int p2) {
+        if (f instanceof IntIntToObject) {
+            return ((IntIntToObject) f).invoke(p1, p2);
+        }
+        return f.invoke(p1, p2);
+    }
+
+    public interface LongLongToInt {
+        int invoke(long p1, long p2);
+    }
+
+    public static int invokeLongLongToInt(Function2 f, long p1, long p2) {
+        if (f instanceof LongLongToInt) {
+            return ((LongLongToInt) f).invoke(p1, p2);
+        }
+        return ((Integer) f.invoke(p1, p2)).intValue();
+    }
+
+    public interface LongLongToLong {
+        long invoke(long p1, long p2);
+    }
+
+    public static long invokeLongLongToLong(Function2 f, long p1, long p2) {
+        if (f instanceof LongLongToLong) {
+            return ((LongLongToLong) f).invoke(p1, p2);
+        }
+        return ((Long) f.invoke(p1, p2)).longValue();
+    }
+
+    public interface LongLongToDouble {
+        double invoke(long p1, long p2);
+    }
+
+    public static double invokeLongLongToDouble(Function2 f, long p1, long p2) {
+        if (f instanceof LongLongToDouble) {
+            return ((LongLongToDouble) f).invoke(p1, p2);
+        }
+        return ((Double) f.invoke(p1, p2)).doubleValue();
+    }
+
+    public interface LongLongToBoolean {
+        boolean invoke(long p1, long p2);
+    }
+
+    public static boolean invokeLongLongToBoolean(Function2 f, long p1, long p2) {
+        if (f instanceof LongLongToBoolean) {
+            return ((LongLongToBoolean) f).invoke(p1, p2);
+        }
+        return ((Boolean) f.invoke(p1, p2)).booleanValue();
+    }
+
+    public interface LongLongToObject {
+        Object invoke(long p1, long p2);
+    }
+
+    public static Object invokeLongLongToObject(Function2 f, long p1, long p2) {
+        if (f instanceof LongLongToObject) {
+            return ((LongLongToObject) f).invoke(p1, p2);
+        }
+        return f.invoke(p1, p2);
+    }
+
+    public interface DoubleDoubleToInt {
+        int invoke(double p1, double p2);
+    }
+
+    public static int invokeDoubleDoubleToInt(Function2 f, double p1, double p2) {
+        if (f instanceof DoubleDoubleToInt) {
+            return ((DoubleDoubleToInt) f).invoke(p1, p2);
+        }
+        return ((Integer) f.invoke(p1, p2)).intValue();
+    }
+
+    public interface DoubleDoubleToLong {
+        long invoke(double p1, double p2);
+    }
+
+    public static long invokeDoubleDoubleToLong(Function2 f, double p1, double p2) {
+        if (f instanceof DoubleDoubleToLong) {
+            return ((DoubleDoubleToLong) f).invoke(p1, p2);
+        }
+        return ((Long) f.invoke(p1, p2)).longValue();
+    }
+
+    public interface DoubleDoubleToDouble {
+        double invoke(double p1, double p2);
+    }
+
+    public static double invokeDoubleDoubleToDouble(Function2 f, double p1, double p2) {
+        if (f instanceof DoubleDoubleToDouble) {
+            return ((DoubleDoubleToDouble) f).invoke(p1, p2);
+        }
+        return ((Double) f.invoke(p1, p2)).doubleValue();
+    }
+
+    public interface DoubleDoubleToBoolean {
+        boolean invoke(double p1, double p2);
+    }
+
+    public static boolean invokeDoubleDoubleToBoolean(Function2 f, double p1, double p2) {
+        if (f instanceof DoubleDoubleToBoolean) {
+            return ((DoubleDoubleToBoolean) f).invoke(p1, p2);
+        }
+        return ((Boolean) f.invoke(p1, p2)).booleanValue();
+    }
+
+    public interface DoubleDoubleToObject {
+        Object invoke(double p1, double p2);
+    }
+
+    public static Object invokeDoubleDoubleToObject(Function2 f, double p1, double p2) {
+        if (f instanceof DoubleDoubleToObject) {
+            return ((DoubleDoubleToObject) f).invoke(p1, p2);
+        }
+        return f.invoke(p1, p2);
+    }
+}
@@ -66,15 +66,15 @@ public class JetSignatureReader {
                 TypeInfoVariance variance;
                 boolean reified = true;
                 
-                if (signature.substring(pos).startsWith("erased ")) {
+                if (signature.startsWith("erased ", pos)) {
                     reified = false;
                     pos += "erased ".length();
                 }
-                if (signature.substring(pos).startsWith("in ")) {
+                if (signature.startsWith("in ", pos)) {
                     variance = TypeInfoVariance.IN;
                     pos += "in ".length();
                 }
-                else if (signature.substring(pos).startsWith("out ")) {
+                else if (signature.startsWith("out ", pos)) {
                     variance = TypeInfoVariance.OUT;
                     pos += "out ".length();
                 }